@@ -0,0 +1,72 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.jcodemodel.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.helger.jcodemodel.compile.DynamicClassLoader;
+import com.helger.jcodemodel.compile.MemoryCodeWriter;
+import com.helger.jcodemodel.exceptions.JCodeModelException;
+import com.helger.jcodemodel.writer.JCMWriter;
+
+/**
+ * Measures {@link MemoryCodeWriter#compile(DynamicClassLoader)} of an already written model. The
+ * parameters are smaller than for the other benchmarks, because each invocation runs javac.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 2, time = 5)
+@Measurement (iterations = 5, time = 5)
+@Fork (1)
+public class CompileBenchmark
+{
+  @Param ({ "10", "100" })
+  public int classCount;
+
+  @Param ({ "10", "50" })
+  public int methodSize;
+
+  private MemoryCodeWriter m_aCodeWriter;
+
+  @Setup
+  public void setup () throws JCodeModelException, IOException
+  {
+    m_aCodeWriter = new MemoryCodeWriter ();
+    new JCMWriter (SyntheticModel.create (classCount, methodSize)).build (m_aCodeWriter);
+  }
+
+  @Benchmark
+  public DynamicClassLoader compile ()
+  {
+    final DynamicClassLoader aLoader = MemoryCodeWriter.dynCL ();
+    if (m_aCodeWriter.compile (aLoader).isFailure ())
+      throw new IllegalStateException ("Failed to compile the synthetic model");
+    return aLoader;
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.jcodemodel.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.helger.jcodemodel.compile.DynamicClassLoader;
+import com.helger.jcodemodel.compile.EcjCompilerBackend;
+import com.helger.jcodemodel.compile.ICompilerBackend;
+import com.helger.jcodemodel.compile.JavacCompilerBackend;
+import com.helger.jcodemodel.compile.MemoryCodeWriter;
+import com.helger.jcodemodel.exceptions.JCodeModelException;
+import com.helger.jcodemodel.writer.JCMWriter;
+
+/**
+ * Compares the {@link ICompilerBackend} implementations. <code>smallModel</code> compiles a model
+ * with a single class, as a service compiling many small models does. <code>hugeModel</code>
+ * compiles a model with <code>classCount</code> classes that form a single reference cycle, so it
+ * can't be partitioned. <code>layeredModel</code> compiles a model of the same size without
+ * reference cycles, which is partitioned if <code>compilerThreads</code> is &gt; 1. The backend
+ * instance is shared by all invocations, so its caches are warm.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 2, time = 5)
+@Measurement (iterations = 5, time = 5)
+@Fork (1)
+public class CompilerBackendBenchmark
+{
+  @Param ({ JavacCompilerBackend.NAME, EcjCompilerBackend.NAME })
+  public String backend;
+
+  @Param ({ "500" })
+  public int classCount;
+
+  @Param ({ "10" })
+  public int methodSize;
+
+  @Param ({ "1", "4" })
+  public int compilerThreads;
+
+  private ICompilerBackend m_aBackend;
+  private MemoryCodeWriter m_aSmallModel;
+  private MemoryCodeWriter m_aHugeModel;
+  private MemoryCodeWriter m_aLayeredModel;
+
+  @Setup
+  public void setup () throws JCodeModelException, IOException
+  {
+    m_aBackend = backend.equals (EcjCompilerBackend.NAME) ? new EcjCompilerBackend () : new JavacCompilerBackend ();
+    m_aSmallModel = new MemoryCodeWriter ().setCompilerBackend (m_aBackend);
+    new JCMWriter (SyntheticModel.create (1, methodSize)).build (m_aSmallModel);
+    m_aHugeModel = new MemoryCodeWriter ().setCompilerBackend (m_aBackend).setCompilerThreads (compilerThreads);
+    new JCMWriter (SyntheticModel.create (classCount, methodSize)).build (m_aHugeModel);
+    m_aLayeredModel = new MemoryCodeWriter ().setCompilerBackend (m_aBackend).setCompilerThreads (compilerThreads);
+    new JCMWriter (SyntheticModel.create (classCount, methodSize, 5)).build (m_aLayeredModel);
+  }
+
+  private static DynamicClassLoader _compile (final MemoryCodeWriter aCodeWriter)
+  {
+    final DynamicClassLoader ret = aCodeWriter.compile ();
+    if (ret == null)
+      throw new IllegalStateException ("Failed to compile the synthetic model");
+    return ret;
+  }
+
+  @Benchmark
+  public DynamicClassLoader smallModel ()
+  {
+    return _compile (m_aSmallModel);
+  }
+
+  @Benchmark
+  public DynamicClassLoader hugeModel ()
+  {
+    return _compile (m_aHugeModel);
+  }
+
+  @Benchmark
+  public DynamicClassLoader layeredModel ()
+  {
+    return _compile (m_aLayeredModel);
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.jcodemodel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.exceptions.JCodeModelException;
+
+/**
+ * Measures building a model with {@link JCodeModel#_class(int, String)},
+ * {@link com.helger.jcodemodel.JDefinedClass#method(int, com.helger.jcodemodel.AbstractJType, String)}
+ * and {@link com.helger.jcodemodel.JBlock} statements.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class ModelBuildingBenchmark
+{
+  @Param ({ "100", "1000" })
+  public int classCount;
+
+  @Param ({ "10", "100" })
+  public int methodSize;
+
+  @Benchmark
+  public JCodeModel buildModel () throws JCodeModelException
+  {
+    return SyntheticModel.create (classCount, methodSize);
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.jcodemodel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JCodeModelCopier;
+import com.helger.jcodemodel.exceptions.JCodeModelException;
+
+/**
+ * Compares copying a model with {@link JCodeModelCopier} and with
+ * {@link JCodeModel#copySerial(JCodeModel)}. Serialization needs a large thread stack for big
+ * models, e.g. <code>-jvmArgsAppend -Xss64m</code>.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class ModelCopyBenchmark
+{
+  @Param ({ "100", "1000" })
+  public int classCount;
+
+  @Param ({ "10", "100" })
+  public int methodSize;
+
+  private JCodeModel m_aCM;
+
+  @Setup
+  public void setup () throws JCodeModelException
+  {
+    m_aCM = SyntheticModel.create (classCount, methodSize);
+  }
+
+  @Benchmark
+  public JCodeModel copyStructural ()
+  {
+    return JCodeModelCopier.copy (m_aCM);
+  }
+
+  @Benchmark
+  public JCodeModel copySerial ()
+  {
+    return JCodeModel.copySerial (m_aCM);
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.jcodemodel.benchmark;
+
+import java.lang.ref.Reference;
+import java.util.Locale;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.exceptions.JCodeModelException;
+
+/**
+ * Prints the retained heap of a {@link SyntheticModel}. This is not a JMH benchmark, because JMH
+ * only reports allocation rates but not the size of the objects kept alive.<br>
+ * Run with <code>java -cp target/benchmarks.jar com.helger.jcodemodel.benchmark.ModelFootprint
+ * [classCount] [methodSize]</code>. Defaults are 100000 classes and 1 statement per method.
+ */
+public final class ModelFootprint
+{
+  private ModelFootprint ()
+  {}
+
+  private static long _getUsedHeap ()
+  {
+    final Runtime aRT = Runtime.getRuntime ();
+    long nUsed = Long.MAX_VALUE;
+    // Several rounds, as a single System.gc() is only a hint
+    for (int i = 0; i < 5; ++i)
+    {
+      System.gc ();
+      nUsed = Math.min (nUsed, aRT.totalMemory () - aRT.freeMemory ());
+    }
+    return nUsed;
+  }
+
+  public static void main (final String [] args) throws JCodeModelException
+  {
+    final int nClassCount = args.length > 0 ? Integer.parseInt (args[0]) : 100_000;
+    final int nMethodSize = args.length > 1 ? Integer.parseInt (args[1]) : 1;
+
+    final long nBefore = _getUsedHeap ();
+    final JCodeModel cm = SyntheticModel.create (nClassCount, nMethodSize);
+    final long nAfter = _getUsedHeap ();
+
+    final long nRetained = nAfter - nBefore;
+    System.out.println (String.format (Locale.ROOT,
+                                       "%d classes, %d statements per method: %.1f MiB retained, %d bytes per class",
+                                       Integer.valueOf (nClassCount),
+                                       Integer.valueOf (nMethodSize),
+                                       Double.valueOf (nRetained / (1024.0 * 1024.0)),
+                                       Long.valueOf (nRetained / nClassCount)));
+    // Keep the model reachable until after the measurement
+    Reference.reachabilityFence (cm);
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.jcodemodel.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JCodeModelSnapshot;
+import com.helger.jcodemodel.exceptions.JCodeModelException;
+
+/**
+ * Writing and reading a model with {@link JCodeModelSnapshot}.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class SnapshotBenchmark
+{
+  @Param ({ "100", "1000" })
+  public int classCount;
+
+  @Param ({ "10", "100" })
+  public int methodSize;
+
+  private JCodeModel m_aCM;
+  private byte [] m_aSnapshot;
+
+  @Setup
+  public void setup () throws JCodeModelException, IOException
+  {
+    m_aCM = SyntheticModel.create (classCount, methodSize);
+    m_aSnapshot = writeSnapshot ();
+  }
+
+  @Benchmark
+  public byte [] writeSnapshot () throws IOException
+  {
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream (m_aSnapshot == null ? 8192 : m_aSnapshot.length);
+    JCodeModelSnapshot.write (m_aCM, aBAOS);
+    return aBAOS.toByteArray ();
+  }
+
+  @Benchmark
+  public JCodeModel readSnapshot () throws IOException
+  {
+    return JCodeModelSnapshot.read (ByteBuffer.wrap (m_aSnapshot));
+  }
+}
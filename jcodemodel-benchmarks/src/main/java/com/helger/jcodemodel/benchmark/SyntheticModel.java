@@ -0,0 +1,161 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.jcodemodel.benchmark;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.helger.jcodemodel.AbstractJClass;
+import com.helger.jcodemodel.JBlock;
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JConditional;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JExpr;
+import com.helger.jcodemodel.JFieldVar;
+import com.helger.jcodemodel.JForLoop;
+import com.helger.jcodemodel.JMethod;
+import com.helger.jcodemodel.JMod;
+import com.helger.jcodemodel.JVar;
+import com.helger.jcodemodel.exceptions.JCodeModelException;
+
+/**
+ * Creates synthetic code models of a configurable size. The generated classes reference each other
+ * across packages and use a type with a colliding simple name, so that import resolution has some
+ * real work to do.
+ */
+public final class SyntheticModel
+{
+  /** Number of packages the classes are distributed over */
+  public static final int PACKAGE_COUNT = 10;
+
+  /** Number of methods per class */
+  public static final int METHODS_PER_CLASS = 5;
+
+  private SyntheticModel ()
+  {}
+
+  /**
+   * Create a new code model.
+   *
+   * @param nClassCount
+   *        Number of top-level classes to create.
+   * @param nMethodSize
+   *        Number of statements in each method.
+   * @return The filled code model.
+   * @throws JCodeModelException
+   *         In case of a class name clash (should not happen)
+   */
+  public static JCodeModel create (final int nClassCount, final int nMethodSize) throws JCodeModelException
+  {
+    return create (nClassCount, nMethodSize, 1);
+  }
+
+  /**
+   * Create a new code model with the classes split into layers. Each class references a class of
+   * the next layer, so that the model has no reference cycles and the layers can be compiled
+   * separately. With a single layer, each class references the next class, so that all classes form
+   * one reference cycle.
+   *
+   * @param nClassCount
+   *        Number of top-level classes to create.
+   * @param nMethodSize
+   *        Number of statements in each method.
+   * @param nLayerCount
+   *        Number of layers the classes are split into.
+   * @return The filled code model.
+   * @throws JCodeModelException
+   *         In case of a class name clash (should not happen)
+   */
+  public static JCodeModel create (final int nClassCount,
+                                   final int nMethodSize,
+                                   final int nLayerCount) throws JCodeModelException
+  {
+    final int nLayerSize = Math.max (1, nClassCount / Math.max (1, nLayerCount));
+    final JCodeModel cm = new JCodeModel ();
+    // Collides with java.util.List
+    final JDefinedClass aOtherList = cm._class (JMod.PUBLIC, "com.example.bench.other.List");
+    final AbstractJClass aString = cm.ref (String.class);
+
+    final List <JDefinedClass> aClasses = new ArrayList <> (nClassCount);
+    for (int i = 0; i < nClassCount; ++i)
+    {
+      final JDefinedClass c = cm._class (JMod.PUBLIC, "com.example.bench.p" + (i % PACKAGE_COUNT) + ".Class" + i);
+      c._implements (Serializable.class);
+      c.javadoc ().add ("Synthetic class " + i);
+      aClasses.add (c);
+    }
+
+    for (int i = 0; i < nClassCount; ++i)
+    {
+      final JDefinedClass c = aClasses.get (i);
+      // Reference a class from another package
+      final JDefinedClass aOther;
+      if (nLayerCount <= 1)
+        aOther = aClasses.get ((i + 1) % nClassCount);
+      else
+        aOther = i + nLayerSize < nClassCount ? aClasses.get (i + nLayerSize) : c;
+
+      final JFieldVar fNames = c.field (JMod.PRIVATE | JMod.FINAL,
+                                        cm.ref (List.class).narrow (aString),
+                                        "m_aNames",
+                                        cm.ref (ArrayList.class).narrowEmpty ()._new ());
+      final JFieldVar fOthers = c.field (JMod.PRIVATE, cm.ref (Map.class).narrow (aString, aOther), "m_aOthers");
+      final JFieldVar fOtherList = c.field (JMod.PRIVATE, aOtherList, "m_aOtherList");
+      final JFieldVar fCount = c.field (JMod.PRIVATE, cm.INT, "m_nCount");
+
+      for (int m = 0; m < METHODS_PER_CLASS; ++m)
+      {
+        final JMethod aMethod = c.method (JMod.PUBLIC, cm.INT, "compute" + m);
+        final JVar pKey = aMethod.param (JMod.FINAL, aString, "sKey");
+        final JVar pValue = aMethod.param (JMod.FINAL, cm.INT, "nValue");
+        final JBlock aBody = aMethod.body ();
+        final JVar vSum = aBody.decl (cm.INT, "nSum", JExpr.lit (0));
+        for (int s = 0; s < nMethodSize; ++s)
+        {
+          switch (s % 4)
+          {
+            case 0:
+              aBody.add (JExpr.invoke (fNames, "add").arg (pKey.plus (JExpr.lit (s))));
+              break;
+            case 1:
+              aBody.assignPlus (vSum, pValue.mul (JExpr.lit (s)));
+              break;
+            case 2:
+            {
+              final JConditional aIf = aBody._if (fOthers.ne (JExpr._null ()).cand (fOthers.invoke ("containsKey")
+                                                                                             .arg (pKey)));
+              aIf._then ().assignPlus (fCount, JExpr.lit (1));
+              aIf._else ().assign (fOtherList, JExpr._null ());
+              break;
+            }
+            default:
+            {
+              final JForLoop aFor = aBody._for ();
+              final JVar vIdx = aFor.init (cm.INT, "i" + s, JExpr.lit (0));
+              aFor.test (vIdx.lt (fNames.invoke ("size")));
+              aFor.update (vIdx.incr ());
+              aFor.body ().assignPlus (vSum, fNames.invoke ("get").arg (vIdx).invoke ("length"));
+              break;
+            }
+          }
+        }
+        aBody._return (vSum.plus (fCount));
+      }
+    }
+    return cm;
+  }
+}
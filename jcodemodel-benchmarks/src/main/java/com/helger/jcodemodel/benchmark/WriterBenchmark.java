@@ -0,0 +1,116 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.jcodemodel.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.exceptions.JCodeModelException;
+import com.helger.jcodemodel.writer.AbstractCodeWriter;
+import com.helger.jcodemodel.writer.FileCodeWriter;
+import com.helger.jcodemodel.writer.JCMWriter;
+import com.helger.jcodemodel.writer.StringCodeWriter;
+import com.helger.jcodemodel.writer.ZipCodeWriter;
+
+/**
+ * Measures {@link JCMWriter#build(AbstractCodeWriter)} into the different code writers.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class WriterBenchmark
+{
+  public enum EWriterType
+  {
+    STRING,
+    ZIP,
+    FILE;
+  }
+
+  @Param ({ "100", "1000" })
+  public int classCount;
+
+  @Param ({ "10", "100" })
+  public int methodSize;
+
+  @Param
+  public EWriterType writerType;
+
+  private JCodeModel m_aCM;
+  private Path m_aTargetDir;
+
+  @Setup
+  public void setup () throws JCodeModelException, IOException
+  {
+    m_aCM = SyntheticModel.create (classCount, methodSize);
+    m_aTargetDir = Files.createTempDirectory ("jcm-bench");
+  }
+
+  @TearDown
+  public void tearDown () throws IOException
+  {
+    try (final Stream <Path> aStream = Files.walk (m_aTargetDir))
+    {
+      aStream.sorted (Comparator.reverseOrder ()).map (Path::toFile).forEach (File::delete);
+    }
+  }
+
+  private AbstractCodeWriter _createWriter () throws IOException
+  {
+    switch (writerType)
+    {
+      case STRING:
+        return new StringCodeWriter (StandardCharsets.UTF_8, "\n");
+      case ZIP:
+        return new ZipCodeWriter (OutputStream.nullOutputStream (), "\n");
+      case FILE:
+        return new FileCodeWriter (m_aTargetDir.toFile (), StandardCharsets.UTF_8, "\n");
+      default:
+        throw new IllegalStateException ("Unsupported writer type " + writerType);
+    }
+  }
+
+  @Benchmark
+  public AbstractCodeWriter build () throws IOException
+  {
+    final AbstractCodeWriter aWriter = _createWriter ();
+    new JCMWriter (m_aCM).setCharset (StandardCharsets.UTF_8).setNewLine ("\n").build (aWriter);
+    return aWriter;
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.jcodemodel.writer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JPackage;
+import com.helger.jcodemodel.benchmark.SyntheticModel;
+import com.helger.jcodemodel.exceptions.JCodeModelException;
+import com.helger.jcodemodel.util.NullWriter;
+
+/**
+ * Measures {@link JFormatter#writeClassFull(JDefinedClass)} including the import resolution, without
+ * any I/O. This class lives in the writer package, because the method is package private.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class FormatterBenchmark
+{
+  @Param ({ "100", "1000" })
+  public int classCount;
+
+  @Param ({ "10", "100" })
+  public int methodSize;
+
+  private final List <JDefinedClass> m_aClasses = new ArrayList <> ();
+
+  @Setup
+  public void setup () throws JCodeModelException
+  {
+    final JCodeModel cm = SyntheticModel.create (classCount, methodSize);
+    m_aClasses.clear ();
+    for (final JPackage aPackage : cm.getAllPackages ())
+      m_aClasses.addAll (aPackage.classes ());
+  }
+
+  @Benchmark
+  public int writeClassFull ()
+  {
+    for (final JDefinedClass aClass : m_aClasses)
+      try (final JFormatter f = new JFormatter (new SourcePrintWriter (NullWriter.getInstance (), "\n"),
+                                                JCMWriter.DEFAULT_INDENT_STRING))
+      {
+        f.writeClassFull (aClass);
+      }
+    return m_aClasses.size ();
+  }
+}
@@ -278,7 +278,7 @@ public abstract class AbstractJClass extends AbstractJType
   @NonNull
   public JNarrowedClass narrow (@NonNull final AbstractJClass aClazz)
   {
-    return new JNarrowedClass (this, aClazz);
+    return owner ().narrowed (this, Collections.singletonList (aClazz));
   }
 
   @NonNull
@@ -290,13 +290,13 @@ public abstract class AbstractJClass extends AbstractJType
   @NonNull
   public AbstractJClass narrow (@NonNull final AbstractJClass... aClazz)
   {
-    return new JNarrowedClass (this, Arrays.asList (aClazz.clone ()));
+    return owner ().narrowed (this, Arrays.asList (aClazz));
   }
 
   @NonNull
   public AbstractJClass narrow (@NonNull final List <? extends AbstractJClass> aClazz)
   {
-    return new JNarrowedClass (this, new ArrayList <> (aClazz));
+    return owner ().narrowed (this, aClazz);
   }
 
   /**
@@ -305,7 +305,7 @@ public abstract class AbstractJClass extends AbstractJType
   @NonNull
   public AbstractJClass narrowEmpty ()
   {
-    return new JNarrowedClass (this, new ArrayList <> ());
+    return owner ().narrowed (this, Collections.emptyList ());
   }
 
   /**
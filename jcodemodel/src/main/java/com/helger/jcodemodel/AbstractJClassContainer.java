@@ -229,20 +229,24 @@ public abstract class AbstractJClassContainer <CLASSTYPE extends AbstractJClassC
     else
       sRealName = sName.toUpperCase (Locale.ROOT);
 
-    // Existing class?
-    if (m_aClasses != null)
+    // Inner classes of different classes may be created concurrently
+    synchronized (this)
     {
-      final CLASSTYPE aExistingClass = m_aClasses.get (sRealName);
-      if (aExistingClass != null)
-        throw new JClassAlreadyExistsException (aExistingClass);
-    }
-    else
-      m_aClasses = new TreeMap <> ();
+      // Existing class?
+      if (m_aClasses != null)
+      {
+        final CLASSTYPE aExistingClass = m_aClasses.get (sRealName);
+        if (aExistingClass != null)
+          throw new JClassAlreadyExistsException (aExistingClass);
+      }
+      else
+        m_aClasses = new TreeMap <> ();
 
-    // Create and add inner class
-    final CLASSTYPE c = createInnerClass (nMods, eClassType, sName);
-    m_aClasses.put (sRealName, c);
-    return c;
+      // Create and add inner class
+      final CLASSTYPE c = createInnerClass (nMods, eClassType, sName);
+      m_aClasses.put (sRealName, c);
+      return c;
+    }
   }
 
   /**
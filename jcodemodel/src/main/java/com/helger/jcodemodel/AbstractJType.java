@@ -290,71 +290,99 @@ public abstract class AbstractJType implements IJGenerable, IJOwned
         return true;
 
       // Top: Object object = (Anything)anything
-      if (thisClass == thisClass._package ().owner ().ref (Object.class))
+      final TypeHierarchyCache aCache = thisClass.owner ().typeHierarchyCache ();
+      if (aCache.isObjectClass (thisClass))
         return true;
 
       // Array covariance: i. e. Object[] array1 = (Integer[])array2
       if (isArray () && aThat.isArray ())
         return elementType ().isAssignableFrom (aThat.elementType (), false);
 
-      if (thisClass.erasure ().equals (thatClass.erasure ()))
+      if (TypeHierarchyCache.isCacheable (thisClass) && TypeHierarchyCache.isCacheable (thatClass))
       {
-        // Raw classes: i. e. List list1 = (List<T>)list2;
-        if (!thisClass.isParameterized ())
-          return true;
+        Boolean aCached = aCache.getAssignable (thisClass, thatClass, bAllowsRawTypeUnchekedConversion);
+        if (aCached == null)
+        {
+          aCached = Boolean.valueOf (_isAssignableFromClass (thisClass, thatClass, bAllowsRawTypeUnchekedConversion, true));
+          aCache.putAssignable (thisClass, thatClass, bAllowsRawTypeUnchekedConversion, aCached.booleanValue ());
+        }
+        return aCached.booleanValue ();
+      }
+      return _isAssignableFromClass (thisClass, thatClass, bAllowsRawTypeUnchekedConversion, false);
+    }
+
+    return false;
+  }
 
-        // Raw classes unchecked conversion: i. e. List<T> list1 = (List)list2
-        if (!thatClass.isParameterized ())
-          return bAllowsRawTypeUnchekedConversion;
+  private static boolean _isAssignableFromClass (@NonNull final AbstractJClass thisClass,
+                                                 @NonNull final AbstractJClass thatClass,
+                                                 final boolean bAllowsRawTypeUnchekedConversion,
+                                                 final boolean bCacheable)
+  {
+    if (thisClass.erasure ().equals (thatClass.erasure ()))
+    {
+      // Raw classes: i. e. List list1 = (List<T>)list2;
+      if (!thisClass.isParameterized ())
+        return true;
+
+      // Raw classes unchecked conversion: i. e. List<T> list1 = (List)list2
+      if (!thatClass.isParameterized ())
+        return bAllowsRawTypeUnchekedConversion;
 
-        for (int i = 0; i < thisClass.getTypeParameters ().size (); i++)
+      for (int i = 0; i < thisClass.getTypeParameters ().size (); i++)
+      {
+        final AbstractJClass thisParameter = thisClass.getTypeParameters ().get (i);
+        final AbstractJClass thatParameter = thatClass.getTypeParameters ().get (i);
+
+        if (thisParameter instanceof JTypeWildcard)
         {
-          final AbstractJClass thisParameter = thisClass.getTypeParameters ().get (i);
-          final AbstractJClass thatParameter = thatClass.getTypeParameters ().get (i);
+          final JTypeWildcard thisWildcard = (JTypeWildcard) thisParameter;
 
-          if (thisParameter instanceof JTypeWildcard)
+          if (thatParameter instanceof JTypeWildcard)
           {
-            final JTypeWildcard thisWildcard = (JTypeWildcard) thisParameter;
-
-            if (thatParameter instanceof JTypeWildcard)
-            {
-              final JTypeWildcard thatWildcard = (JTypeWildcard) thatParameter;
-              if (thisWildcard.boundMode () != thatWildcard.boundMode ())
-                return false;
-              if (thisWildcard.boundMode () == EWildcardBoundMode.EXTENDS)
-                return thisWildcard.bound ().isAssignableFrom (thatWildcard.bound (), false);
-              if (thisWildcard.boundMode () == EWildcardBoundMode.SUPER)
-                return thatWildcard.bound ().isAssignableFrom (thisWildcard.bound (), false);
-              throw new IllegalStateException ("Unsupported wildcard bound mode: " + thisWildcard.boundMode ());
-            }
-
+            final JTypeWildcard thatWildcard = (JTypeWildcard) thatParameter;
+            if (thisWildcard.boundMode () != thatWildcard.boundMode ())
+              return false;
             if (thisWildcard.boundMode () == EWildcardBoundMode.EXTENDS)
-              return thisWildcard.bound ().isAssignableFrom (thatParameter, false);
+              return thisWildcard.bound ().isAssignableFrom (thatWildcard.bound (), false);
             if (thisWildcard.boundMode () == EWildcardBoundMode.SUPER)
-              return thatParameter.isAssignableFrom (thisWildcard.bound (), false);
+              return thatWildcard.bound ().isAssignableFrom (thisWildcard.bound (), false);
             throw new IllegalStateException ("Unsupported wildcard bound mode: " + thisWildcard.boundMode ());
           }
 
-          if (!thisParameter.equals (thatParameter))
-            return false;
+          if (thisWildcard.boundMode () == EWildcardBoundMode.EXTENDS)
+            return thisWildcard.bound ().isAssignableFrom (thatParameter, false);
+          if (thisWildcard.boundMode () == EWildcardBoundMode.SUPER)
+            return thatParameter.isAssignableFrom (thisWildcard.bound (), false);
+          throw new IllegalStateException ("Unsupported wildcard bound mode: " + thisWildcard.boundMode ());
         }
-        return true;
-      }
-
-      final AbstractJClass thatClassBase = thatClass._extends ();
-      if (thatClassBase != null && this.isAssignableFrom (thatClassBase))
-        return true;
 
-      final Iterator <AbstractJClass> i = thatClass._implements ();
-      while (i.hasNext ())
-      {
-        final AbstractJClass thatClassInterface = i.next ();
-        if (this.isAssignableFrom (thatClassInterface))
-          return true;
+        if (!thisParameter.equals (thatParameter))
+          return false;
       }
-      // false so far
+      return true;
+    }
+
+    // The supertypes of thatClass must contain the erasure of thisClass
+    if (bCacheable)
+    {
+      final AbstractJClass aThisErasure = thisClass.erasure ();
+      if ((aThisErasure instanceof JReferencedClass || aThisErasure instanceof JDefinedClass) &&
+          !thatClass.owner ().typeHierarchyCache ().getSupertypeErasures (thatClass).contains (aThisErasure))
+        return false;
     }
 
+    final AbstractJClass thatClassBase = thatClass._extends ();
+    if (thatClassBase != null && thisClass.isAssignableFrom (thatClassBase))
+      return true;
+
+    final Iterator <AbstractJClass> i = thatClass._implements ();
+    while (i.hasNext ())
+    {
+      final AbstractJClass thatClassInterface = i.next ();
+      if (thisClass.isAssignableFrom (thatClassInterface))
+        return true;
+    }
     return false;
   }
 
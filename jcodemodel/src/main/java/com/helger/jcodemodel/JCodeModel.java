@@ -52,6 +52,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
 
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.util.Elements;
@@ -107,11 +110,36 @@ import com.helger.jcodemodel.util.JCSecureLoader;
  * <p>
  * Most of the time you'd want to populate new type definitions in a {@link JCodeModel}. See
  * {@link #_class(String, EClassType)}.
+ * <h2>Multi threading</h2>
+ * <p>
+ * A model may be populated from multiple threads, e.g. one thread per input file. The methods
+ * {@link #_package(String)}, {@link #_class(String)}, {@link #ref(Class)} and
+ * {@link #resourceDir(String)}, as well as {@link JPackage#_class(String)},
+ * {@link JDefinedClass#field(int, AbstractJType, String)},
+ * {@link JDefinedClass#method(int, AbstractJType, String)} and
+ * {@link JDefinedClass#constructor(int)} may be called concurrently. Packages, classes and resource
+ * directories are kept sorted by name, so the written output does not depend on the order in which
+ * they were created. The members of a single class keep their creation order, so each class should
+ * be populated by a single thread to get deterministic output.
  */
 public class JCodeModel implements Serializable
 {
   private static final String SEPARATOR_TWICE = JResourceDir.SEPARATOR_STR + JResourceDir.SEPARATOR_STR;
 
+  /**
+   * Default maximum number of entries in the cache of {@link #ref(String)}.
+   *
+   * @since 4.2.2
+   */
+  public static final int DEFAULT_REF_NAME_CACHE_MAX_SIZE = 10_000;
+
+  /**
+   * By default methods with duplicate signatures are only detected by the Java compiler.
+   *
+   * @since 4.2.2
+   */
+  public static final boolean DEFAULT_REJECT_DUPLICATE_METHOD_SIGNATURES = false;
+
   /**
    * Conversion from primitive type {@link Class} (such as {@link Integer#TYPE}) to its boxed type
    * (such as <code>Integer.class</code>). It's an unmodifiable map.
@@ -149,13 +177,29 @@ public class JCodeModel implements Serializable
   private IFileSystemConvention m_aFSConvention;
 
   /** The packages that this JCodeWriter contains. */
-  private final Map <String, JPackage> m_aPackages = new HashMap <> ();
+  private final Map <String, JPackage> m_aPackages = new ConcurrentSkipListMap <> ();
 
   /** The resource directories that this JCodeWriter contains. */
-  private final Map <FSName, JResourceDir> m_aResourceDirs = new HashMap <> ();
+  private final Map <FSName, JResourceDir> m_aResourceDirs = new ConcurrentSkipListMap <> ();
 
   /** All JReferencedClasses are pooled here. */
-  private final Map <Class <?>, JReferencedClass> m_aRefClassesCache = new HashMap <> ();
+  private final Map <Class <?>, JReferencedClass> m_aRefClassesCache = new ConcurrentHashMap <> ();
+
+  /**
+   * Results of {@link #ref(String)} by name, for classes that could be loaded as well as for classes
+   * that could not be loaded.
+   */
+  private final Map <String, AbstractJClass> m_aRefNameCache = new ConcurrentHashMap <> ();
+
+  private int m_nRefNameCacheMaxSize = DEFAULT_REF_NAME_CACHE_MAX_SIZE;
+
+  private boolean m_bRejectDuplicateMethodSignatures = DEFAULT_REJECT_DUPLICATE_METHOD_SIGNATURES;
+
+  /** All narrowed classes created via {@link AbstractJClass#narrow(AbstractJClass)} are pooled here. */
+  private transient Map <JNarrowedClass, JNarrowedClass> m_aNarrowedClassesCache = new ConcurrentHashMap <> ();
+
+  /** Supertypes and assignability results used by {@link AbstractJType#isAssignableFrom(AbstractJType)} */
+  private transient TypeHierarchyCache m_aTypeHierarchyCache = new TypeHierarchyCache ();
 
   /** Obtains a reference to the special "null" type. */
   public final JNullType NULL = new JNullType (this);
@@ -175,7 +219,7 @@ public class JCodeModel implements Serializable
    */
   private AbstractJClass m_aWildcard;
 
-  private final Set <AbstractJClass> m_aDontImportClasses = new HashSet <> ();
+  private final Set <AbstractJClass> m_aDontImportClasses = ConcurrentHashMap.newKeySet ();
 
   /**
    * Default constructor using the system default file system convention.
@@ -289,6 +333,7 @@ public class JCodeModel implements Serializable
   @NonNull
   public JPackage _package (@NonNull final String sName)
   {
+    // Packages of referenced classes are created on demand, also while formatting in parallel
     return m_aPackages.computeIfAbsent (sName, k -> new JPackage (k, this));
   }
 
@@ -302,6 +347,12 @@ public class JCodeModel implements Serializable
     return _package ("");
   }
 
+  @NonNull
+  Map <String, JPackage> internalGetPackageMap ()
+  {
+    return m_aPackages;
+  }
+
   /**
    * @return an iterator that walks the packages defined using this code writer.
    */
@@ -312,7 +363,7 @@ public class JCodeModel implements Serializable
   }
 
   /**
-   * @return a list with all packages. The list is mutable. Never <code>null</code>.
+   * @return a list with all packages, sorted by name. The list is mutable. Never <code>null</code>.
    */
   @NonNull
   public List <JPackage> getAllPackages ()
@@ -385,16 +436,16 @@ public class JCodeModel implements Serializable
         throw new JResourceAlreadyExistsException (aParentDir.fullChildName (sPart));
 
       // Get main subdir
-      final JResourceDir aFinalParentDir = aParentDir;
-      // aCur = m_aResourceDirs.computeIfAbsent (_createFSName (sDirName),
-      // k -> new JResourceDir (this, aFinalParentDir, k.getName ()));
       final FSName curName = _createFSName (sDirName);
       // cannot use computeifAbsent because exception thrown.
       aCur = m_aResourceDirs.get (curName);
       if (aCur == null)
       {
-        aCur = new JResourceDir (this, aFinalParentDir, curName.getName ());
-        m_aResourceDirs.put (curName, aCur);
+        final JResourceDir aNewDir = new JResourceDir (this, aParentDir, curName.getName ());
+        // Keep the instance of a concurrent caller, if any
+        aCur = m_aResourceDirs.putIfAbsent (curName, aNewDir);
+        if (aCur == null)
+          aCur = aNewDir;
       }
       aParentDir = aCur;
     }
@@ -625,7 +676,10 @@ public class JCodeModel implements Serializable
   }
 
   /**
-   * Check if any error-types leaked into output Java-sources.
+   * Check if any error-types leaked into output Java-sources. This walks all classes. When the
+   * model is written anyway,
+   * {@link com.helger.jcodemodel.writer.JCMWriter#hasWrittenErrorTypes()} provides the same
+   * information from the formatting pass.
    *
    * @return <code>true</code> if so
    * @see JCodeModel#errorClass(String)
@@ -692,7 +746,7 @@ public class JCodeModel implements Serializable
   {
     int r = 0;
     // avoid concurrent modification exception
-    for (final JPackage aItem : new ArrayList <> (m_aPackages.values ()))
+    for (final JPackage aItem : getAllPackages ())
       r += aItem.countArtifacts ();
     for (final JResourceDir aItem : new ArrayList <> (m_aResourceDirs.values ()))
       r += aItem.countArtifacts ();
@@ -713,6 +767,7 @@ public class JCodeModel implements Serializable
   @NonNull
   public AbstractJClass ref (@NonNull final Class <?> aClazz)
   {
+    // No computeIfAbsent, because creating a JReferencedClass may reference other classes
     JReferencedClass aRefClass = m_aRefClassesCache.get (aClazz);
     if (aRefClass == null)
     {
@@ -727,8 +782,11 @@ public class JCodeModel implements Serializable
         return new JArrayClass (this, _ref (aComponentType));
       }
 
-      aRefClass = new JReferencedClass (this, aClazz);
-      m_aRefClassesCache.put (aClazz, aRefClass);
+      final JReferencedClass aNewRefClass = new JReferencedClass (this, aClazz);
+      // Keep the instance of a concurrent caller, if any
+      aRefClass = m_aRefClassesCache.putIfAbsent (aClazz, aNewRefClass);
+      if (aRefClass == null)
+        aRefClass = aNewRefClass;
     }
     return aRefClass;
   }
@@ -820,15 +878,37 @@ public class JCodeModel implements Serializable
   /**
    * Obtains a reference to an existing class from its fully-qualified class name. <br>
    * First, this method attempts to load the class of the given name. If that fails, we assume that
-   * the class is derived straight from {@link Object}, and return a {@link AbstractJClass}.
+   * the class is derived straight from {@link Object}, and return a {@link AbstractJClass}.<br>
+   * The result is cached by name, so that repeated calls return the same instance without asking
+   * the class loaders again. This also applies to classes that could not be loaded. Use
+   * {@link #clearRefNameCache()} if the context class loader changes.
    *
    * @param sFullyQualifiedClassName
    *        FQCN
    * @return Singleton reference to this class. Might be a <code>JReferencedClass</code> or a
    *         {@link JArrayClass} or a {@link JDirectClass}
+   * @see #setRefNameCacheMaxSize(int)
    */
   @NonNull
   public AbstractJClass ref (@NonNull final String sFullyQualifiedClassName)
+  {
+    AbstractJClass ret = m_aRefNameCache.get (sFullyQualifiedClassName);
+    if (ret == null)
+    {
+      ret = _refUncached (sFullyQualifiedClassName);
+      if (m_aRefNameCache.size () < m_nRefNameCacheMaxSize)
+      {
+        // Keep the instance of a concurrent caller, if any
+        final AbstractJClass aOld = m_aRefNameCache.putIfAbsent (sFullyQualifiedClassName, ret);
+        if (aOld != null)
+          ret = aOld;
+      }
+    }
+    return ret;
+  }
+
+  @NonNull
+  private AbstractJClass _refUncached (@NonNull final String sFullyQualifiedClassName)
   {
     try
     {
@@ -854,6 +934,132 @@ public class JCodeModel implements Serializable
     return new JDirectClass (this, null, EClassType.CLASS, sFullyQualifiedClassName);
   }
 
+  /**
+   * @return The maximum number of names cached by {@link #ref(String)}. Defaults to
+   *         {@link #DEFAULT_REF_NAME_CACHE_MAX_SIZE}.
+   * @since 4.2.2
+   */
+  @Nonnegative
+  public int getRefNameCacheMaxSize ()
+  {
+    return m_nRefNameCacheMaxSize;
+  }
+
+  /**
+   * Set the maximum number of names cached by {@link #ref(String)}. If the cache is full, new names
+   * are resolved but no longer cached. Setting a smaller value than the current cache size clears
+   * the cache.
+   *
+   * @param nMaxSize
+   *        The maximum number of cached names. Must be &ge; 0. Use 0 to disable caching.
+   * @return this for chaining
+   * @since 4.2.2
+   */
+  @NonNull
+  public JCodeModel setRefNameCacheMaxSize (@Nonnegative final int nMaxSize)
+  {
+    ValueEnforcer.isGE0 (nMaxSize, "MaxSize");
+    m_nRefNameCacheMaxSize = nMaxSize;
+    if (m_aRefNameCache.size () > nMaxSize)
+      m_aRefNameCache.clear ();
+    return this;
+  }
+
+  /**
+   * Remove all entries from the cache of {@link #ref(String)}. Afterwards the class loaders are
+   * asked again.
+   *
+   * @since 4.2.2
+   */
+  public void clearRefNameCache ()
+  {
+    m_aRefNameCache.clear ();
+  }
+
+  /**
+   * @return <code>true</code> if classes containing two methods or constructors with the same name
+   *         and erased parameter types are rejected when written, <code>false</code> if not.
+   *         Default is {@link #DEFAULT_REJECT_DUPLICATE_METHOD_SIGNATURES}.
+   * @since 4.2.2
+   */
+  public boolean isRejectDuplicateMethodSignatures ()
+  {
+    return m_bRejectDuplicateMethodSignatures;
+  }
+
+  /**
+   * Enable or disable the detection of duplicate method signatures by the writer. If enabled,
+   * {@link com.helger.jcodemodel.writer.JCMWriter} calls {@link JDefinedClass#checkUniqueSignatures()}
+   * for each class before writing it, so that an {@link IllegalStateException} is thrown instead of
+   * writing code that does not compile. Only the complete signatures are checked, so overloads can
+   * be built step by step.
+   *
+   * @param bReject
+   *        <code>true</code> to reject duplicate signatures, <code>false</code> to leave the
+   *        detection to the Java compiler.
+   * @return this for chaining
+   * @since 4.2.2
+   */
+  @NonNull
+  public JCodeModel setRejectDuplicateMethodSignatures (final boolean bReject)
+  {
+    m_bRejectDuplicateMethodSignatures = bReject;
+    return this;
+  }
+
+  @NonNull
+  TypeHierarchyCache typeHierarchyCache ()
+  {
+    return m_aTypeHierarchyCache;
+  }
+
+  /**
+   * Remove all cached supertypes and assignability results of this model. This happens automatically
+   * when a {@link JDefinedClass} changes its super class, interfaces or type parameters, so this
+   * method is only needed if a type hierarchy was changed in another way.
+   *
+   * @see AbstractJType#isAssignableFrom(AbstractJType)
+   * @since 4.2.2
+   */
+  public void clearTypeHierarchyCache ()
+  {
+    m_aTypeHierarchyCache.clear ();
+  }
+
+  /**
+   * Get a hash of the content of this code model. It combines the names and
+   * {@link JPackage#getContentHash() content hashes} of all packages with the content of all
+   * resource directories. Two models with the same content have the same hash, independent of the
+   * order in which the content was created. It is computed on every call.
+   *
+   * @return The lower case hex encoded SHA-256 hash. Never <code>null</code>.
+   * @since 4.2.2
+   */
+  @NonNull
+  public String getContentHash ()
+  {
+    return ModelContentHasher.toHex (ModelContentHasher.hashCodeModel (this));
+  }
+
+  /**
+   * Get the canonical narrowed class for the provided basis and type arguments. Structurally equal
+   * narrowings of this model share the same instance.
+   *
+   * @param aBasis
+   *        The generic class to narrow. May not be <code>null</code>.
+   * @param aArgs
+   *        The type arguments. May not be <code>null</code>. The list is copied by the narrowed
+   *        class.
+   * @return The pooled narrowed class. Never <code>null</code>.
+   */
+  @NonNull
+  JNarrowedClass narrowed (@NonNull final AbstractJClass aBasis, @NonNull final List <? extends AbstractJClass> aArgs)
+  {
+    final JNarrowedClass aNew = new JNarrowedClass (aBasis, aArgs);
+    final JNarrowedClass aOld = m_aNarrowedClassesCache.putIfAbsent (aNew, aNew);
+    return aOld != null ? aOld : aNew;
+  }
+
   /**
    * @return Singleton {@link AbstractJClass} representation for "?", which is equivalent to "?
    *         extends Object".
@@ -1066,6 +1272,23 @@ public class JCodeModel implements Serializable
     return new HashSet <> (m_aDontImportClasses);
   }
 
+  private void readObject (@NonNull final ObjectInputStream aOIS) throws IOException, ClassNotFoundException
+  {
+    aOIS.defaultReadObject ();
+    internalInitTransientFields ();
+  }
+
+  /**
+   * Create the transient caches after this object was created without running its constructor,
+   * by deserialization or by {@link JCodeModelCopier}.
+   */
+  void internalInitTransientFields ()
+  {
+    // The pools are not serialized - they are filled again on demand
+    m_aNarrowedClassesCache = new ConcurrentHashMap <> ();
+    m_aTypeHierarchyCache = new TypeHierarchyCache ();
+  }
+
   /**
    * copy a codemodel using serialization.
    *
@@ -1094,9 +1317,26 @@ public class JCodeModel implements Serializable
    *
    * @return a new object, which should have the same representation but not linked to this in any
    *         way.
+   * @see JCodeModelCopier#copy(JCodeModel) for a faster alternative
    */
   public JCodeModel copy ()
   {
     return copySerial (this);
   }
+
+  /**
+   * Create a new copy of this model that only contains the packages accepted by the filter. The copy
+   * is created by {@link JCodeModelCopier}, see there for its requirements.
+   *
+   * @param aPackageFilter
+   *        The filter for the packages to copy. May not be <code>null</code>.
+   * @return a new object, not linked to this in any way.
+   * @see JCodeModelCopier#copy(JCodeModel, Predicate)
+   * @since 4.2.2
+   */
+  @NonNull
+  public JCodeModel copy (@NonNull final Predicate <? super JPackage> aPackageFilter)
+  {
+    return JCodeModelCopier.copy (this, aPackageFilter);
+  }
 }
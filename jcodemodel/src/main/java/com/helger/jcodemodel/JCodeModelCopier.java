@@ -0,0 +1,343 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.jcodemodel.ModelClassInfo.EContainerType;
+import com.helger.jcodemodel.ModelClassInfo.EKind;
+import com.helger.jcodemodel.ModelClassInfo.ModelInstantiator;
+
+/**
+ * Creates a deep copy of a {@link JCodeModel} without Java serialization. The object graph of the
+ * model is walked once and every object is copied exactly once, so all identity references (e.g.
+ * {@link JVar} usages, invoked {@link JMethod}s, referenced {@link JDefinedClass}es) point to the
+ * respective copy.
+ * <p>
+ * The copy follows the rules of serialization: objects are created without running their
+ * constructors and transient fields are not copied. Objects of this library and of other
+ * serializable classes outside of the JDK (e.g. custom statements) are copied, collections and
+ * arrays are recreated with copied content, and all other objects (e.g. strings, {@link Class}
+ * objects or the value of a {@link com.helger.jcodemodel.fmt.JSerializedObject}) are shared between
+ * the source and the copy. If the model contains objects of a class that customizes its
+ * serialization, the model is copied with {@link JCodeModel#copySerial(JCodeModel)} instead.
+ * </p>
+ * <p>
+ * This is an opt-in alternative to {@link JCodeModel#copy()}, which uses Java serialization. To
+ * create objects without their constructors, the copier reads them from a generated serialization
+ * stream that contains no field values, and then sets all fields, including <code>final</code>
+ * ones, via reflection. It therefore requires the same support of the JVM as
+ * {@link JCodeModel#copySerial(JCodeModel)}, e.g. no serialization filter rejecting the classes of
+ * the model, plus reflective access to the fields of the copied classes.
+ * </p>
+ * <p>
+ * The source model may not be modified while it is copied.
+ * </p>
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+@NotThreadSafe
+public final class JCodeModelCopier
+{
+  /** A collection or map copy whose content is added after all objects were copied. */
+  private static final class PendingContent
+  {
+    private final Object m_aTarget;
+    private final Object [] m_aContent;
+
+    PendingContent (@NonNull final Object aTarget, @NonNull final Object [] aContent)
+    {
+      m_aTarget = aTarget;
+      m_aContent = aContent;
+    }
+  }
+
+  private final Map <Object, Object> m_aCopies = new IdentityHashMap <> (1024);
+  private final Deque <Object> m_aOpen = new ArrayDeque <> ();
+  private final List <PendingContent> m_aPendingLists = new ArrayList <> ();
+  private final List <PendingContent> m_aPendingHashed = new ArrayList <> ();
+  private final ModelInstantiator m_aInstantiator = new ModelInstantiator ();
+  private boolean m_bSerializedCopyRequired;
+
+  private JCodeModelCopier ()
+  {}
+
+  /**
+   * Copy a collection or map. The content is registered to be added later.
+   */
+  @NonNull
+  private Object _copyContainer (@NonNull final Object aSrc, @NonNull final ModelClassInfo aInfo)
+  {
+    // Copy the comparator as well, in case it is part of the model
+    final Comparator <?> aComparator = (Comparator <?>) _map (ModelClassInfo.getComparator (aSrc));
+
+    final Object aRet;
+    if (aInfo.getKind () == EKind.MODEL)
+    {
+      // e.g. JCommentPart
+      aRet = _createModelObject (aSrc, aInfo);
+    }
+    else
+    {
+      final EContainerType eType = aInfo.getContainerType (aSrc, aComparator);
+      aRet = ModelClassInfo.createContainer (eType, aInfo, aComparator);
+    }
+    m_aCopies.put (aSrc, aRet);
+
+    // Copy the content now, but add it only after all objects are complete
+    final Object [] aContent;
+    if (aSrc instanceof Map <?, ?>)
+    {
+      final Map <?, ?> aSrcMap = (Map <?, ?>) aSrc;
+      aContent = new Object [aSrcMap.size () * 2];
+      int i = 0;
+      for (final Map.Entry <?, ?> aEntry : aSrcMap.entrySet ())
+      {
+        aContent[i++] = aEntry.getKey ();
+        aContent[i++] = aEntry.getValue ();
+      }
+    }
+    else
+      aContent = ((Collection <?>) aSrc).toArray ();
+    for (int i = 0; i < aContent.length; ++i)
+      aContent[i] = _map (aContent[i]);
+
+    final PendingContent aPending = new PendingContent (aRet, aContent);
+    // Lists don't care about hash codes or the order of their elements
+    if (ModelClassInfo.isOrderIndependentOfContent (aRet))
+      m_aPendingLists.add (aPending);
+    else
+      m_aPendingHashed.add (aPending);
+    return aRet;
+  }
+
+  @NonNull
+  private Object _createModelObject (@NonNull final Object aSrc, @NonNull final ModelClassInfo aInfo)
+  {
+    final Object aRet = m_aInstantiator.newInstance (aInfo);
+    m_aCopies.put (aSrc, aRet);
+    // Source and copy are queued as a pair, to avoid a lookup
+    m_aOpen.add (aSrc);
+    m_aOpen.add (aRet);
+    return aRet;
+  }
+
+  /**
+   * @param aSrc
+   *        The source object. May be <code>null</code>.
+   * @return The object to be referenced by the copy. Only <code>null</code> if the source is
+   *         <code>null</code>.
+   */
+  @Nullable
+  private Object _map (@Nullable final Object aSrc)
+  {
+    if (aSrc == null)
+      return null;
+
+    final ModelClassInfo aInfo = ModelClassInfo.get (aSrc.getClass ());
+    if (aInfo.getKind () == EKind.SHARED)
+    {
+      if (aInfo.isSerializedCopyRequired ())
+        m_bSerializedCopyRequired = true;
+      return aSrc;
+    }
+
+    final Object aCopy = m_aCopies.get (aSrc);
+    if (aCopy != null)
+      return aCopy;
+
+    if (aInfo.isContainer ())
+      return _copyContainer (aSrc, aInfo);
+
+    if (aInfo.getKind () == EKind.MODEL)
+      return _createModelObject (aSrc, aInfo);
+
+    // Array
+    final Class <?> aComponentType = aSrc.getClass ().getComponentType ();
+    final int nLength = Array.getLength (aSrc);
+    if (aComponentType.isPrimitive ())
+    {
+      final Object aRet = Array.newInstance (aComponentType, nLength);
+      System.arraycopy (aSrc, 0, aRet, 0, nLength);
+      m_aCopies.put (aSrc, aRet);
+      return aRet;
+    }
+    final Object [] aSrcArray = (Object []) aSrc;
+    final Object [] aRet = (Object []) Array.newInstance (aComponentType, nLength);
+    m_aCopies.put (aSrc, aRet);
+    for (int i = 0; i < nLength; ++i)
+      aRet[i] = _map (aSrcArray[i]);
+    return aRet;
+  }
+
+  private void _copyFields (@NonNull final Object aSrc, @NonNull final Object aDst)
+  {
+    try
+    {
+      for (final Field aField : ModelClassInfo.get (aSrc.getClass ()).getFields ())
+      {
+        final Class <?> aType = aField.getType ();
+        if (aType.isPrimitive ())
+          aField.set (aDst, aField.get (aSrc));
+        else
+          aField.set (aDst, _map (aField.get (aSrc)));
+      }
+    }
+    catch (final IllegalAccessException ex)
+    {
+      throw new IllegalStateException ("Failed to copy " + aSrc.getClass ().getName (), ex);
+    }
+  }
+
+  /**
+   * @return The copy or <code>null</code> if the model contains objects that can only be copied
+   *         with serialization.
+   */
+  @Nullable
+  private JCodeModel _copy (@NonNull final JCodeModel aSource, @NonNull final Predicate <? super JPackage> aPackageFilter)
+  {
+    // Only accepted packages are contained in the copy. Classes of other packages are only copied
+    // if they are referenced, but their package is not part of the copy.
+    final Map <String, JPackage> aSrcPackages = aSource.internalGetPackageMap ();
+    final Map <String, JPackage> aFilteredPackages = new ConcurrentSkipListMap <> ();
+    for (final Map.Entry <String, JPackage> aEntry : aSrcPackages.entrySet ())
+    {
+      final JPackage aPackage = aEntry.getValue ();
+      if (aPackageFilter.test (aPackage))
+        aFilteredPackages.put (aEntry.getKey (), aPackage);
+      else
+        m_aCopies.put (aPackage.internalGetClassMap (), new ConcurrentSkipListMap <> ());
+    }
+    if (aFilteredPackages.size () < aSrcPackages.size ())
+      m_aCopies.put (aSrcPackages, _copyContainer (aFilteredPackages, ModelClassInfo.get (aFilteredPackages.getClass ())));
+
+    final JCodeModel aCopy = (JCodeModel) _map (aSource);
+    while (!m_aOpen.isEmpty () && !m_bSerializedCopyRequired)
+    {
+      final Object aSrc = m_aOpen.removeFirst ();
+      _copyFields (aSrc, m_aOpen.removeFirst ());
+    }
+    if (m_bSerializedCopyRequired)
+      return null;
+
+    // All objects are complete, so hash codes and comparisons work.
+    // Nested content is discovered later, so it is added first.
+    for (final PendingContent aPending : m_aPendingLists)
+      ModelClassInfo.addContent (aPending.m_aTarget, aPending.m_aContent);
+    for (int i = m_aPendingHashed.size () - 1; i >= 0; --i)
+    {
+      final PendingContent aPending = m_aPendingHashed.get (i);
+      ModelClassInfo.addContent (aPending.m_aTarget, aPending.m_aContent);
+    }
+
+    aCopy.internalInitTransientFields ();
+    return aCopy;
+  }
+
+  /**
+   * Create a deep copy of the provided code model.
+   *
+   * @param aSource
+   *        The model to copy. May not be <code>null</code>.
+   * @return A new model that has the same content as the source but is not linked to it. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  public static JCodeModel copy (@NonNull final JCodeModel aSource)
+  {
+    return copy (aSource, x -> true);
+  }
+
+  /**
+   * Create a deep copy of the provided code model, that only contains the packages accepted by the
+   * provided filter. Classes of other packages are copied only if they are referenced from the
+   * copied content, and they are not written when the copy is built.
+   *
+   * @param aSource
+   *        The model to copy. May not be <code>null</code>.
+   * @param aPackageFilter
+   *        The filter for the packages to be contained in the copy. May not be <code>null</code>.
+   * @return A new model that is not linked to the source. Never <code>null</code>.
+   */
+  @NonNull
+  public static JCodeModel copy (@NonNull final JCodeModel aSource, @NonNull final Predicate <? super JPackage> aPackageFilter)
+  {
+    ValueEnforcer.notNull (aSource, "Source");
+    ValueEnforcer.notNull (aPackageFilter, "PackageFilter");
+    final JCodeModel ret = new JCodeModelCopier ()._copy (aSource, aPackageFilter);
+    return ret != null ? ret : _copySerial (aSource, aPackageFilter);
+  }
+
+  @NonNull
+  private static JCodeModel _copySerial (@NonNull final JCodeModel aSource,
+                                         @NonNull final Predicate <? super JPackage> aPackageFilter)
+  {
+    final JCodeModel ret = JCodeModel.copySerial (aSource);
+    // Same result as the filtering during the copy: the classes of rejected packages remain only
+    // if they are referenced
+    final Map <String, JPackage> aPackages = ret.internalGetPackageMap ();
+    for (final Map.Entry <String, JPackage> aEntry : aSource.internalGetPackageMap ().entrySet ())
+      if (!aPackageFilter.test (aEntry.getValue ()))
+      {
+        final JPackage aRemoved = aPackages.remove (aEntry.getKey ());
+        if (aRemoved != null)
+          aRemoved.internalGetClassMap ().clear ();
+      }
+    return ret;
+  }
+}
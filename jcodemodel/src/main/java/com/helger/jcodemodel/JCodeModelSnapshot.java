@@ -0,0 +1,1037 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.WillNotClose;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.jcodemodel.ModelClassInfo.EContainerType;
+import com.helger.jcodemodel.ModelClassInfo.EKind;
+import com.helger.jcodemodel.ModelClassInfo.ModelInstantiator;
+
+/**
+ * A compact binary format to persist a {@link JCodeModel} and to load it again, e.g. from a
+ * memory-mapped file. Compared to Java serialization the format has no per-object class
+ * descriptors and no recursion depth limit, and all strings are stored only once.
+ * <p>
+ * The layout (all numbers are unsigned varints unless noted otherwise):
+ * <ol>
+ * <li>The magic bytes <code>JCMS</code> and the format version.</li>
+ * <li>The string table: count, and per string the UTF-8 byte length and the bytes.</li>
+ * <li>The class table: count, and per class the name (string index), the kind and, for model classes
+ * (see {@link JCodeModelCopier}), the stored fields as pairs of declaring class and field name (string
+ * indices).</li>
+ * <li>The object table: count, and per object the class index plus the information required to
+ * create the object (array length, or container type and comparator). Object 0 is the
+ * {@link JCodeModel}.</li>
+ * <li>The object bodies in the order of the object table: the field values, followed by the content
+ * of collections, maps and arrays. The content of hash based collections and maps is sorted by
+ * name or object index, so that the same model always results in the same bytes.</li>
+ * </ol>
+ * Every value starts with a one byte tag. References to other objects of the model use the object
+ * index, strings use the string index, and boxed primitives, enum constants and {@link Class}
+ * objects are stored inline. Other values that are not part of the model (e.g. the content of a
+ * {@link com.helger.jcodemodel.fmt.JSerializedObject}) are stored with Java serialization, so
+ * snapshots should only be read from trusted sources.
+ * <p>
+ * Fields are matched by name when reading: values of fields that no longer exist are skipped and
+ * new fields keep their default value. Like with {@link JCodeModelCopier}, transient fields are not
+ * stored but initialized after reading.
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+@Immutable
+public final class JCodeModelSnapshot
+{
+  /** The version of the format written by this class */
+  public static final int FORMAT_VERSION = 1;
+
+  private static final byte [] MAGIC = { 'J', 'C', 'M', 'S' };
+
+  // Value tags
+  private static final int TAG_NULL = 0;
+  private static final int TAG_REF = 1;
+  private static final int TAG_STRING = 2;
+  private static final int TAG_FALSE = 3;
+  private static final int TAG_TRUE = 4;
+  private static final int TAG_INT = 5;
+  private static final int TAG_LONG = 6;
+  private static final int TAG_SHORT = 7;
+  private static final int TAG_BYTE = 8;
+  private static final int TAG_CHAR = 9;
+  private static final int TAG_FLOAT = 10;
+  private static final int TAG_DOUBLE = 11;
+  private static final int TAG_ENUM = 12;
+  private static final int TAG_CLASS = 13;
+  private static final int TAG_SERIALIZED = 14;
+
+  private static final Map <String, Class <?>> PRIMITIVE_CLASSES = new HashMap <> ();
+  static
+  {
+    for (final Class <?> aClass : new Class <?> [] { boolean.class,
+                                                     byte.class,
+                                                     char.class,
+                                                     short.class,
+                                                     int.class,
+                                                     long.class,
+                                                     float.class,
+                                                     double.class,
+                                                     void.class })
+      PRIMITIVE_CLASSES.put (aClass.getName (), aClass);
+  }
+
+  private JCodeModelSnapshot ()
+  {}
+
+  private static void _writeVarLong (@NonNull final OutputStream aOS, final long nValue) throws IOException
+  {
+    long n = nValue;
+    while ((n & ~0x7fL) != 0)
+    {
+      aOS.write ((int) ((n & 0x7f) | 0x80));
+      n >>>= 7;
+    }
+    aOS.write ((int) n);
+  }
+
+  private static long _zigZag (final int n)
+  {
+    return ((n << 1) ^ (n >> 31)) & 0xffffffffL;
+  }
+
+  private static int _unZigZag (final long n)
+  {
+    return (int) (n >>> 1) ^ -(int) (n & 1);
+  }
+
+  private static long _readVarLong (@NonNull final ByteBuffer aBB) throws IOException
+  {
+    long ret = 0;
+    for (int nShift = 0; nShift < 64; nShift += 7)
+    {
+      final int b = aBB.get () & 0xff;
+      ret |= (long) (b & 0x7f) << nShift;
+      if ((b & 0x80) == 0)
+        return ret;
+    }
+    throw new IOException ("Malformed varint in snapshot");
+  }
+
+  /** An unsynchronized alternative to {@link ByteArrayOutputStream} */
+  private static final class ByteSink
+  {
+    private byte [] m_aBytes;
+    private int m_nSize;
+
+    ByteSink (final int nInitialCapacity)
+    {
+      m_aBytes = new byte [nInitialCapacity];
+    }
+
+    private void _ensureCapacity (final int nAdditional)
+    {
+      if (m_nSize + nAdditional > m_aBytes.length)
+        m_aBytes = Arrays.copyOf (m_aBytes, Math.max (m_aBytes.length * 2, m_nSize + nAdditional));
+    }
+
+    void write (final int nByte)
+    {
+      _ensureCapacity (1);
+      m_aBytes[m_nSize++] = (byte) nByte;
+    }
+
+    void write (@NonNull final byte [] aBytes)
+    {
+      _ensureCapacity (aBytes.length);
+      System.arraycopy (aBytes, 0, m_aBytes, m_nSize, aBytes.length);
+      m_nSize += aBytes.length;
+    }
+
+    void writeVarLong (final long nValue)
+    {
+      _ensureCapacity (10);
+      long n = nValue;
+      while ((n & ~0x7fL) != 0)
+      {
+        m_aBytes[m_nSize++] = (byte) ((n & 0x7f) | 0x80);
+        n >>>= 7;
+      }
+      m_aBytes[m_nSize++] = (byte) n;
+    }
+
+    void writeTo (@NonNull final ByteSink aTarget)
+    {
+      aTarget._ensureCapacity (m_nSize);
+      System.arraycopy (m_aBytes, 0, aTarget.m_aBytes, aTarget.m_nSize, m_nSize);
+      aTarget.m_nSize += m_nSize;
+    }
+
+    void writeTo (@NonNull final OutputStream aOS) throws IOException
+    {
+      aOS.write (m_aBytes, 0, m_nSize);
+    }
+  }
+
+  private static final class SnapshotWriter
+  {
+    private final Map <String, Integer> m_aStrings = new HashMap <> ();
+    private final List <String> m_aStringList = new ArrayList <> ();
+    private final Map <Class <?>, Integer> m_aClasses = new HashMap <> ();
+    private final List <ModelClassInfo> m_aClassList = new ArrayList <> ();
+    private final Map <Object, Integer> m_aIDs = new IdentityHashMap <> (1024);
+    private final Deque <Object> m_aOpen = new ArrayDeque <> ();
+    private final ByteSink m_aObjectTable = new ByteSink (4096);
+    private final ByteSink m_aBodies = new ByteSink (16384);
+
+    private int _string (@NonNull final String s)
+    {
+      Integer ret = m_aStrings.get (s);
+      if (ret == null)
+      {
+        ret = Integer.valueOf (m_aStringList.size ());
+        m_aStrings.put (s, ret);
+        m_aStringList.add (s);
+      }
+      return ret.intValue ();
+    }
+
+    private int _class (@NonNull final ModelClassInfo aInfo)
+    {
+      final Class <?> aClass = aInfo.getHandledClass ();
+      Integer ret = m_aClasses.get (aClass);
+      if (ret == null)
+      {
+        ret = Integer.valueOf (m_aClassList.size ());
+        m_aClasses.put (aClass, ret);
+        m_aClassList.add (aInfo);
+        // Make sure the names are part of the string table
+        _string (aClass.getName ());
+        for (final Field aField : aInfo.getFields ())
+        {
+          _string (aField.getDeclaringClass ().getName ());
+          _string (aField.getName ());
+        }
+      }
+      return ret.intValue ();
+    }
+
+    /**
+     * Assign an object index and write the object table entry.
+     */
+    private int _register (@NonNull final Object aObj, @NonNull final ModelClassInfo aInfo) throws IOException
+    {
+      if (aInfo.getKind () == EKind.CONTAINER)
+      {
+        final Comparator <?> aComparator = ModelClassInfo.getComparator (aObj);
+        EContainerType eType = aInfo.getContainerType (aObj, aComparator);
+        ModelClassInfo aCreatedInfo = aInfo;
+        final Class <?> aReplacementClass = ModelClassInfo.getReplacementClass (eType);
+        if (aReplacementClass != null)
+        {
+          // Written like the container that is created when reading, so that writing the read
+          // model results in the same bytes
+          aCreatedInfo = ModelClassInfo.get (aReplacementClass);
+          eType = EContainerType.SAME_CLASS;
+        }
+        final int nClassIndex = _class (aCreatedInfo);
+        // The comparator may itself need to be registered, so it is done before the container
+        final ByteSink aSink = new ByteSink (8);
+        aSink.writeVarLong (eType.ordinal ());
+        _writeValue (aSink, aComparator);
+        return _addObject (aObj, nClassIndex, aSink);
+      }
+
+      final int nClassIndex = _class (aInfo);
+      ByteSink aCreationInfo = null;
+      if (aInfo.getKind () == EKind.ARRAY)
+      {
+        aCreationInfo = new ByteSink (4);
+        aCreationInfo.writeVarLong (Array.getLength (aObj));
+      }
+      return _addObject (aObj, nClassIndex, aCreationInfo);
+    }
+
+    private int _addObject (@NonNull final Object aObj,
+                            final int nClassIndex,
+                            @Nullable final ByteSink aCreationInfo) throws IOException
+    {
+      final int ret = m_aIDs.size ();
+      m_aIDs.put (aObj, Integer.valueOf (ret));
+      m_aOpen.add (aObj);
+      m_aObjectTable.writeVarLong (nClassIndex);
+      if (aCreationInfo != null)
+        aCreationInfo.writeTo (m_aObjectTable);
+      return ret;
+    }
+
+    private void _writeValue (@NonNull final ByteSink aSink, @Nullable final Object aValue) throws IOException
+    {
+      if (aValue == null)
+      {
+        aSink.write (TAG_NULL);
+        return;
+      }
+      if (aValue instanceof String)
+      {
+        aSink.write (TAG_STRING);
+        aSink.writeVarLong (_string ((String) aValue));
+        return;
+      }
+
+      final ModelClassInfo aInfo = ModelClassInfo.get (aValue.getClass ());
+      if (aInfo.getKind () != EKind.SHARED)
+      {
+        final Integer aID = m_aIDs.get (aValue);
+        aSink.write (TAG_REF);
+        aSink.writeVarLong (aID != null ? aID.intValue () : _register (aValue, aInfo));
+        return;
+      }
+
+      if (aValue instanceof Boolean)
+        aSink.write (((Boolean) aValue).booleanValue () ? TAG_TRUE : TAG_FALSE);
+      else
+        if (aValue instanceof Integer)
+        {
+          final int n = ((Integer) aValue).intValue ();
+          aSink.write (TAG_INT);
+          aSink.writeVarLong (_zigZag (n));
+        }
+        else
+          if (aValue instanceof Long)
+          {
+            final long n = ((Long) aValue).longValue ();
+            aSink.write (TAG_LONG);
+            aSink.writeVarLong ((n << 1) ^ (n >> 63));
+          }
+          else
+            if (aValue instanceof Short || aValue instanceof Byte)
+            {
+              final int n = ((Number) aValue).intValue ();
+              aSink.write (aValue instanceof Short ? TAG_SHORT : TAG_BYTE);
+              aSink.writeVarLong (_zigZag (n));
+            }
+            else
+              if (aValue instanceof Character)
+              {
+                aSink.write (TAG_CHAR);
+                aSink.writeVarLong (((Character) aValue).charValue ());
+              }
+              else
+                if (aValue instanceof Float)
+                {
+                  aSink.write (TAG_FLOAT);
+                  aSink.writeVarLong (Float.floatToRawIntBits (((Float) aValue).floatValue ()) & 0xffffffffL);
+                }
+                else
+                  if (aValue instanceof Double)
+                  {
+                    aSink.write (TAG_DOUBLE);
+                    aSink.writeVarLong (Double.doubleToRawLongBits (((Double) aValue).doubleValue ()));
+                  }
+                  else
+                    if (aValue instanceof Enum <?>)
+                    {
+                      final Enum <?> aEnum = (Enum <?>) aValue;
+                      aSink.write (TAG_ENUM);
+                      aSink.writeVarLong (_string (aEnum.getDeclaringClass ().getName ()));
+                      aSink.writeVarLong (_string (aEnum.name ()));
+                    }
+                    else
+                      if (aValue instanceof Class <?>)
+                      {
+                        aSink.write (TAG_CLASS);
+                        aSink.writeVarLong (_string (((Class <?>) aValue).getName ()));
+                      }
+                      else
+                      {
+                        if (!(aValue instanceof Serializable))
+                          throw new NotSerializableException (aValue.getClass ().getName ());
+                        final ByteArrayOutputStream aSerialized = new ByteArrayOutputStream ();
+                        try (final ObjectOutputStream aOOS = new ObjectOutputStream (aSerialized))
+                        {
+                          aOOS.writeObject (aValue);
+                        }
+                        aSink.write (TAG_SERIALIZED);
+                        aSink.writeVarLong (aSerialized.size ());
+                        aSink.write (aSerialized.toByteArray ());
+                      }
+    }
+
+    /**
+     * The key to sort the entries of unordered collections and maps with. It does not depend on
+     * hash codes, so that the same model is always written the same way.
+     */
+    @NonNull
+    private String _getSortKey (@Nullable final Object aKey)
+    {
+      if (aKey == null)
+        return "";
+      if (aKey instanceof String)
+        return "s" + aKey;
+      if (aKey instanceof Class <?>)
+        return "c" + ((Class <?>) aKey).getName ();
+      if (aKey instanceof Enum <?>)
+        return "e" + ((Enum <?>) aKey).getDeclaringClass ().getName () + '.' + ((Enum <?>) aKey).name ();
+      if (aKey instanceof Number || aKey instanceof Boolean || aKey instanceof Character)
+        return "v" + aKey.getClass ().getName () + ':' + aKey;
+      if (aKey instanceof AbstractJType)
+        return "t" + ((AbstractJType) aKey).fullName () + ':' + aKey.getClass ().getName ();
+      final Integer aID = m_aIDs.get (aKey);
+      if (aID != null)
+        return String.format ("r%010d", aID);
+      // Keeps the iteration order
+      return "~";
+    }
+
+    /**
+     * Sort the entries of an unordered collection or map by their keys.
+     *
+     * @param aContent
+     *        The content, for maps alternating keys and values. Modified in place.
+     * @param nEntrySize
+     *        1 for collections, 2 for maps.
+     */
+    private void _sortEntries (@NonNull final Object [] aContent, final int nEntrySize)
+    {
+      final int nEntries = aContent.length / nEntrySize;
+      final String [] aKeys = new String [nEntries];
+      final Integer [] aOrder = new Integer [nEntries];
+      for (int i = 0; i < nEntries; ++i)
+      {
+        aKeys[i] = _getSortKey (aContent[i * nEntrySize]);
+        aOrder[i] = Integer.valueOf (i);
+      }
+      // Stable, so equal keys keep their order
+      Arrays.sort (aOrder, Comparator.comparing (i -> aKeys[i.intValue ()]));
+
+      final Object [] aUnsorted = aContent.clone ();
+      for (int i = 0; i < nEntries; ++i)
+        System.arraycopy (aUnsorted, aOrder[i].intValue () * nEntrySize, aContent, i * nEntrySize, nEntrySize);
+    }
+
+    private void _writeBody (@NonNull final Object aObj) throws IOException
+    {
+      final ModelClassInfo aInfo = ModelClassInfo.get (aObj.getClass ());
+      try
+      {
+        for (final Field aField : aInfo.getFields ())
+          _writeValue (m_aBodies, aField.get (aObj));
+      }
+      catch (final IllegalAccessException ex)
+      {
+        throw new IllegalStateException ("Failed to read " + aObj.getClass ().getName (), ex);
+      }
+
+      if (aInfo.isContainer ())
+      {
+        final Object [] aContent;
+        final int nEntrySize;
+        if (aObj instanceof Map <?, ?>)
+        {
+          final Map <?, ?> aMap = (Map <?, ?>) aObj;
+          aContent = new Object [aMap.size () * 2];
+          int i = 0;
+          for (final Map.Entry <?, ?> aEntry : aMap.entrySet ())
+          {
+            aContent[i++] = aEntry.getKey ();
+            aContent[i++] = aEntry.getValue ();
+          }
+          nEntrySize = 2;
+        }
+        else
+        {
+          aContent = ((Collection <?>) aObj).toArray ();
+          nEntrySize = 1;
+        }
+        if (!ModelClassInfo.isOrdered (aObj))
+          _sortEntries (aContent, nEntrySize);
+
+        m_aBodies.writeVarLong (aContent.length);
+        for (final Object aElement : aContent)
+          _writeValue (m_aBodies, aElement);
+      }
+      else
+        if (aInfo.getKind () == EKind.ARRAY)
+        {
+          // The length is part of the object table
+          final int nLength = Array.getLength (aObj);
+          for (int i = 0; i < nLength; ++i)
+            _writeValue (m_aBodies, Array.get (aObj, i));
+        }
+    }
+
+    void write (@NonNull final JCodeModel aCM, @NonNull final OutputStream aOS) throws IOException
+    {
+      _register (aCM, ModelClassInfo.get (aCM.getClass ()));
+      while (!m_aOpen.isEmpty ())
+        _writeBody (m_aOpen.removeFirst ());
+
+      aOS.write (MAGIC);
+      _writeVarLong (aOS, FORMAT_VERSION);
+
+      _writeVarLong (aOS, m_aStringList.size ());
+      for (final String s : m_aStringList)
+      {
+        final byte [] aBytes = s.getBytes (StandardCharsets.UTF_8);
+        _writeVarLong (aOS, aBytes.length);
+        aOS.write (aBytes);
+      }
+
+      _writeVarLong (aOS, m_aClassList.size ());
+      for (final ModelClassInfo aInfo : m_aClassList)
+      {
+        _writeVarLong (aOS, m_aStrings.get (aInfo.getHandledClass ().getName ()).intValue ());
+        _writeVarLong (aOS, aInfo.getKind ().ordinal ());
+        if (aInfo.getKind () == EKind.MODEL)
+        {
+          final Field [] aFields = aInfo.getFields ();
+          _writeVarLong (aOS, aFields.length);
+          for (final Field aField : aFields)
+          {
+            _writeVarLong (aOS, m_aStrings.get (aField.getDeclaringClass ().getName ()).intValue ());
+            _writeVarLong (aOS, m_aStrings.get (aField.getName ()).intValue ());
+          }
+        }
+      }
+
+      _writeVarLong (aOS, m_aIDs.size ());
+      m_aObjectTable.writeTo (aOS);
+      m_aBodies.writeTo (aOS);
+    }
+  }
+
+  /** A reference to an object that may not have been created yet */
+  private static final class ObjectRef
+  {
+    private final int m_nID;
+
+    ObjectRef (final int nID)
+    {
+      m_nID = nID;
+    }
+  }
+
+  private static final class SnapshotReader
+  {
+    private static final EKind [] KINDS = EKind.values ();
+
+    private final ByteBuffer m_aBB;
+    private final ClassLoader m_aClassLoader = JCodeModelSnapshot.class.getClassLoader ();
+    private String [] m_aStrings;
+    private ModelClassInfo [] m_aClasses;
+    // Per class: the field to set for each stored value, null for fields that no longer exist
+    private Field [] [] m_aFieldMappings;
+    private Object [] m_aObjects;
+
+    SnapshotReader (@NonNull final ByteBuffer aBB)
+    {
+      m_aBB = aBB;
+    }
+
+    private int _readInt () throws IOException
+    {
+      final long n = _readVarLong (m_aBB);
+      if (n < 0 || n > Integer.MAX_VALUE)
+        throw new IOException ("Malformed number in snapshot: " + n);
+      return (int) n;
+    }
+
+    /**
+     * Read a count of entries that each take at least one byte.
+     */
+    private int _readCount () throws IOException
+    {
+      final int ret = _readInt ();
+      if (ret > m_aBB.remaining ())
+        throw new IOException ("Truncated snapshot: " + ret + " entries expected");
+      return ret;
+    }
+
+    @NonNull
+    private String _readString () throws IOException
+    {
+      final int nIndex = _readInt ();
+      if (nIndex >= m_aStrings.length)
+        throw new IOException ("Invalid string index " + nIndex + " in snapshot");
+      return m_aStrings[nIndex];
+    }
+
+    @NonNull
+    private Class <?> _loadClass (@NonNull final String sClassName) throws IOException
+    {
+      final Class <?> aPrimitive = PRIMITIVE_CLASSES.get (sClassName);
+      if (aPrimitive != null)
+        return aPrimitive;
+      try
+      {
+        return Class.forName (sClassName, false, m_aClassLoader);
+      }
+      catch (final ClassNotFoundException | LinkageError ex)
+      {
+        throw new IOException ("Snapshot references unknown class " + sClassName, ex);
+      }
+    }
+
+    private void _readHeader () throws IOException
+    {
+      final byte [] aMagic = new byte [MAGIC.length];
+      m_aBB.get (aMagic);
+      for (int i = 0; i < MAGIC.length; ++i)
+        if (aMagic[i] != MAGIC[i])
+          throw new IOException ("Not a JCodeModel snapshot");
+      final int nVersion = _readInt ();
+      if (nVersion != FORMAT_VERSION)
+        throw new IOException ("Unsupported snapshot version " + nVersion);
+
+      m_aStrings = new String [_readCount ()];
+      for (int i = 0; i < m_aStrings.length; ++i)
+      {
+        final int nLength = _readInt ();
+        if (nLength > m_aBB.remaining ())
+          throw new EOFException ("Truncated snapshot");
+        final byte [] aBytes = new byte [nLength];
+        m_aBB.get (aBytes);
+        m_aStrings[i] = new String (aBytes, StandardCharsets.UTF_8);
+      }
+
+      final int nClasses = _readCount ();
+      m_aClasses = new ModelClassInfo [nClasses];
+      m_aFieldMappings = new Field [nClasses] [];
+      for (int i = 0; i < nClasses; ++i)
+      {
+        final String sClassName = _readString ();
+        final int nKind = _readInt ();
+        final ModelClassInfo aInfo = ModelClassInfo.get (_loadClass (sClassName));
+        if (nKind >= KINDS.length || aInfo.getKind () != KINDS[nKind] || aInfo.getKind () == EKind.SHARED)
+          throw new IOException ("Class " + sClassName + " cannot be handled as stored in the snapshot");
+        m_aClasses[i] = aInfo;
+
+        if (aInfo.getKind () == EKind.MODEL)
+        {
+          final Map <String, Field> aCurrentFields = new HashMap <> ();
+          for (final Field aField : aInfo.getFields ())
+            aCurrentFields.put (aField.getDeclaringClass ().getName () + '#' + aField.getName (), aField);
+
+          final Field [] aMapping = new Field [_readCount ()];
+          for (int j = 0; j < aMapping.length; ++j)
+          {
+            final String sDeclaringClass = _readString ();
+            aMapping[j] = aCurrentFields.get (sDeclaringClass + '#' + _readString ());
+          }
+          m_aFieldMappings[i] = aMapping;
+        }
+      }
+    }
+
+    @Nullable
+    private Object _readValue () throws IOException
+    {
+      final int nTag = m_aBB.get () & 0xff;
+      switch (nTag)
+      {
+        case TAG_NULL:
+          return null;
+        case TAG_REF:
+        {
+          final int nID = _readInt ();
+          if (nID >= m_aObjects.length)
+            throw new IOException ("Invalid object index " + nID + " in snapshot");
+          final Object ret = m_aObjects[nID];
+          return ret != null ? ret : new ObjectRef (nID);
+        }
+        case TAG_STRING:
+          return _readString ();
+        case TAG_FALSE:
+          return Boolean.FALSE;
+        case TAG_TRUE:
+          return Boolean.TRUE;
+        case TAG_INT:
+        {
+          final long n = _readVarLong (m_aBB);
+          return Integer.valueOf (_unZigZag (n));
+        }
+        case TAG_LONG:
+        {
+          final long n = _readVarLong (m_aBB);
+          return Long.valueOf ((n >>> 1) ^ -(n & 1));
+        }
+        case TAG_SHORT:
+        {
+          final long n = _readVarLong (m_aBB);
+          return Short.valueOf ((short) _unZigZag (n));
+        }
+        case TAG_BYTE:
+        {
+          final long n = _readVarLong (m_aBB);
+          return Byte.valueOf ((byte) _unZigZag (n));
+        }
+        case TAG_CHAR:
+          return Character.valueOf ((char) _readVarLong (m_aBB));
+        case TAG_FLOAT:
+          return Float.valueOf (Float.intBitsToFloat ((int) _readVarLong (m_aBB)));
+        case TAG_DOUBLE:
+          return Double.valueOf (Double.longBitsToDouble (_readVarLong (m_aBB)));
+        case TAG_ENUM:
+        {
+          final Class <?> aEnumClass = _loadClass (_readString ());
+          final String sName = _readString ();
+          if (!aEnumClass.isEnum ())
+            throw new IOException (aEnumClass.getName () + " is not an enum");
+          for (final Object aConstant : aEnumClass.getEnumConstants ())
+            if (((Enum <?>) aConstant).name ().equals (sName))
+              return aConstant;
+          throw new IOException ("Unknown enum constant " + aEnumClass.getName () + "." + sName);
+        }
+        case TAG_CLASS:
+          return _loadClass (_readString ());
+        case TAG_SERIALIZED:
+        {
+          final int nLength = _readInt ();
+          if (nLength > m_aBB.remaining ())
+            throw new EOFException ("Truncated snapshot");
+          final byte [] aBytes = new byte [nLength];
+          m_aBB.get (aBytes);
+          try (final ObjectInputStream aOIS = new ObjectInputStream (new ByteArrayInputStream (aBytes)))
+          {
+            return aOIS.readObject ();
+          }
+          catch (final ClassNotFoundException ex)
+          {
+            throw new IOException ("Failed to deserialize value from snapshot", ex);
+          }
+        }
+        default:
+          throw new IOException ("Invalid value tag " + nTag + " in snapshot");
+      }
+    }
+
+    /**
+     * Read a value in an object body, where all objects exist already.
+     */
+    @Nullable
+    private Object _readResolvedValue () throws IOException
+    {
+      final Object ret = _readValue ();
+      if (ret instanceof ObjectRef)
+        throw new IOException ("Unresolved object reference in snapshot");
+      return ret;
+    }
+
+    @NonNull
+    private Object [] _readContent () throws IOException
+    {
+      final Object [] ret = new Object [_readCount ()];
+      for (int i = 0; i < ret.length; ++i)
+        ret[i] = _readResolvedValue ();
+      return ret;
+    }
+
+    @NonNull
+    JCodeModel read () throws IOException
+    {
+      _readHeader ();
+
+      // Read the object table first and create the objects of this library, so that the
+      // comparators of containers can reference them
+      final int nObjects = _readCount ();
+      if (nObjects == 0)
+        throw new IOException ("Snapshot contains no objects");
+      m_aObjects = new Object [nObjects];
+      final int [] aClassIndices = new int [nObjects];
+      final ModelInstantiator aInstantiator = new ModelInstantiator ();
+      final Object [] aCreationInfo = new Object [nObjects];
+      for (int i = 0; i < nObjects; ++i)
+      {
+        final int nClassIndex = _readInt ();
+        if (nClassIndex >= m_aClasses.length)
+          throw new IOException ("Invalid class index " + nClassIndex + " in snapshot");
+        aClassIndices[i] = nClassIndex;
+        final ModelClassInfo aInfo = m_aClasses[nClassIndex];
+        switch (aInfo.getKind ())
+        {
+          case MODEL:
+            m_aObjects[i] = aInstantiator.newInstance (aInfo);
+            break;
+          case ARRAY:
+            aCreationInfo[i] = Integer.valueOf (_readInt ());
+            break;
+          case CONTAINER:
+          {
+            final EContainerType eType = EContainerType.getFromOrdinalOrNull (_readInt ());
+            if (eType == null)
+              throw new IOException ("Invalid container type in snapshot");
+            aCreationInfo[i] = new Object [] { eType, _readValue () };
+            break;
+          }
+          default:
+            throw new IllegalStateException ("Unexpected kind " + aInfo.getKind ());
+        }
+      }
+      if (!(m_aObjects[0] instanceof JCodeModel))
+        throw new IOException ("Snapshot does not start with a JCodeModel");
+
+      for (int i = 0; i < nObjects; ++i)
+        if (m_aObjects[i] == null)
+        {
+          final ModelClassInfo aInfo = m_aClasses[aClassIndices[i]];
+          if (aInfo.getKind () == EKind.ARRAY)
+          {
+            final Object aArray = Array.newInstance (aInfo.getHandledClass ().getComponentType (),
+                                                     ((Integer) aCreationInfo[i]).intValue ());
+            m_aObjects[i] = aArray;
+          }
+          else
+          {
+            final Object [] aInfoArray = (Object []) aCreationInfo[i];
+            Object aComparator = aInfoArray[1];
+            if (aComparator instanceof ObjectRef)
+            {
+              aComparator = m_aObjects[((ObjectRef) aComparator).m_nID];
+              if (aComparator == null)
+                throw new IOException ("Unsupported comparator in snapshot");
+            }
+            m_aObjects[i] = ModelClassInfo.createContainer ((EContainerType) aInfoArray[0],
+                                                            aInfo,
+                                                            (Comparator <?>) aComparator);
+          }
+        }
+
+      // Fill all objects. Container content is added after all objects are complete, so that
+      // hash codes and comparisons work.
+      final List <Object> aPendingLists = new ArrayList <> ();
+      final List <Object> aPendingHashed = new ArrayList <> ();
+      for (int i = 0; i < nObjects; ++i)
+      {
+        final Object aObj = m_aObjects[i];
+        final ModelClassInfo aInfo = m_aClasses[aClassIndices[i]];
+        switch (aInfo.getKind ())
+        {
+          case MODEL:
+            try
+            {
+              for (final Field aField : m_aFieldMappings[aClassIndices[i]])
+              {
+                final Object aValue = _readResolvedValue ();
+                if (aField != null)
+                  aField.set (aObj, aValue);
+              }
+            }
+            catch (final IllegalAccessException | IllegalArgumentException ex)
+            {
+              throw new IOException ("Failed to restore " + aInfo.getHandledClass ().getName () + " from snapshot", ex);
+            }
+            if (aInfo.isContainer ())
+            {
+              final List <Object> aPending = ModelClassInfo.isOrderIndependentOfContent (aObj) ? aPendingLists
+                                                                                                : aPendingHashed;
+              aPending.add (aObj);
+              aPending.add (_readContent ());
+            }
+            break;
+          case ARRAY:
+          {
+            final int nLength = Array.getLength (aObj);
+            try
+            {
+              for (int j = 0; j < nLength; ++j)
+                Array.set (aObj, j, _readResolvedValue ());
+            }
+            catch (final IllegalArgumentException ex)
+            {
+              throw new IOException ("Failed to restore array from snapshot", ex);
+            }
+            break;
+          }
+          case CONTAINER:
+          {
+            final List <Object> aPending = ModelClassInfo.isOrderIndependentOfContent (aObj) ? aPendingLists
+                                                                                              : aPendingHashed;
+            aPending.add (aObj);
+            aPending.add (_readContent ());
+            break;
+          }
+          default:
+            throw new IllegalStateException ("Unexpected kind " + aInfo.getKind ());
+        }
+      }
+
+      // Nested content has higher indices, so it is added first
+      try
+      {
+        for (int i = 0; i < aPendingLists.size (); i += 2)
+          ModelClassInfo.addContent (aPendingLists.get (i), (Object []) aPendingLists.get (i + 1));
+        for (int i = aPendingHashed.size () - 2; i >= 0; i -= 2)
+          ModelClassInfo.addContent (aPendingHashed.get (i), (Object []) aPendingHashed.get (i + 1));
+      }
+      catch (final ClassCastException | IllegalArgumentException | NullPointerException ex)
+      {
+        throw new IOException ("Failed to restore collection content from snapshot", ex);
+      }
+
+      final JCodeModel ret = (JCodeModel) m_aObjects[0];
+      ret.internalInitTransientFields ();
+      return ret;
+    }
+  }
+
+  /**
+   * Write a snapshot of the provided code model.
+   *
+   * @param aCM
+   *        The code model to write. May not be <code>null</code>. It may not be modified while
+   *        the snapshot is written.
+   * @param aOS
+   *        The stream to write to. May not be <code>null</code>. It is not closed.
+   * @throws IOException
+   *         In case of a write error, or if the model contains values that cannot be persisted
+   */
+  public static void write (@NonNull final JCodeModel aCM, @NonNull @WillNotClose final OutputStream aOS) throws IOException
+  {
+    ValueEnforcer.notNull (aCM, "CodeModel");
+    ValueEnforcer.notNull (aOS, "OutputStream");
+    new SnapshotWriter ().write (aCM, aOS);
+  }
+
+  /**
+   * Write a snapshot of the provided code model to a file. An existing file is overwritten.
+   *
+   * @param aCM
+   *        The code model to write. May not be <code>null</code>.
+   * @param aPath
+   *        The file to write to. May not be <code>null</code>.
+   * @throws IOException
+   *         In case of a write error, or if the model contains values that cannot be persisted
+   */
+  public static void write (@NonNull final JCodeModel aCM, @NonNull final Path aPath) throws IOException
+  {
+    ValueEnforcer.notNull (aPath, "Path");
+    try (final OutputStream aOS = Files.newOutputStream (aPath))
+    {
+      write (aCM, aOS);
+    }
+  }
+
+  /**
+   * Read a code model from a snapshot. The buffer is read from its current position.
+   *
+   * @param aBuffer
+   *        The buffer containing the snapshot. May not be <code>null</code>.
+   * @return The read code model. Never <code>null</code>.
+   * @throws IOException
+   *         If the snapshot is malformed, has an unsupported version or references classes that
+   *         are not available
+   */
+  @NonNull
+  public static JCodeModel read (@NonNull final ByteBuffer aBuffer) throws IOException
+  {
+    ValueEnforcer.notNull (aBuffer, "Buffer");
+    try
+    {
+      return new SnapshotReader (aBuffer.slice ()).read ();
+    }
+    catch (final BufferUnderflowException ex)
+    {
+      final EOFException aEx = new EOFException ("Truncated snapshot");
+      aEx.initCause (ex);
+      throw aEx;
+    }
+  }
+
+  /**
+   * Read a code model from a snapshot file. The file is memory-mapped, so that only the parts of it
+   * that are currently read need to be in memory.
+   *
+   * @param aPath
+   *        The snapshot file. May not be <code>null</code>.
+   * @return The read code model. Never <code>null</code>.
+   * @throws IOException
+   *         If the file cannot be read, the snapshot is malformed, has an unsupported version or
+   *         references classes that are not available
+   */
+  @NonNull
+  public static JCodeModel read (@NonNull final Path aPath) throws IOException
+  {
+    ValueEnforcer.notNull (aPath, "Path");
+    final MappedByteBuffer aBuffer;
+    try (final FileChannel aChannel = FileChannel.open (aPath, StandardOpenOption.READ))
+    {
+      final long nSize = aChannel.size ();
+      if (nSize > Integer.MAX_VALUE)
+        throw new IOException ("Snapshot file " + aPath + " is too large: " + nSize + " bytes");
+      aBuffer = aChannel.map (FileChannel.MapMode.READ_ONLY, 0, nSize);
+    }
+    return read (aBuffer);
+  }
+}
@@ -84,19 +84,19 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   private AbstractJClass m_aSuperClass;
 
   /**
-   * List of interfaces that this class implements
+   * List of interfaces that this class implements. Lazily created.
    */
-  private final Set <AbstractJClass> m_aInterfaces = new TreeSet <> (ClassNameComparator.getInstance ());
+  private Set <AbstractJClass> m_aInterfaces;
 
   /**
-   * Set of the classes/interfaces permitted to inherit
+   * Set of the classes/interfaces permitted to inherit. Lazily created.
    */
-  private final LinkedHashSet<AbstractJClass> m_aPermited = new LinkedHashSet<>();
+  private LinkedHashSet<AbstractJClass> m_aPermited;
 
   /**
-   * Fields keyed by their names.
+   * Fields keyed by their names. Lazily created.
    */
-  private final LinkedHashMap <String, JFieldVar> m_aFields = new LinkedHashMap <> ();
+  private LinkedHashMap <String, JFieldVar> m_aFields;
 
   /**
    * Static initializer, if this class has one
@@ -114,14 +114,27 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   private JDocComment m_aJDoc;
 
   /**
-   * Set of constructors for this class, if any
+   * Set of constructors for this class, if any. Lazily created.
    */
-  private final List <JMethod> m_aConstructors = new ArrayList <> ();
+  private List <JMethod> m_aConstructors;
 
   /**
-   * Set of methods that are members of this class
+   * The constructors of {@link #m_aConstructors} grouped by their number of parameters, in
+   * declaration order. Created on demand and dropped when the parameters of a constructor may have
+   * changed.
    */
-  private final List <JMethod> m_aMethods = new ArrayList <> ();
+  private transient Map <Integer, List <JMethod>> m_aConstructorsByParamCount;
+
+  /**
+   * Set of methods that are members of this class. Lazily created.
+   */
+  private List <JMethod> m_aMethods;
+
+  /**
+   * The methods of {@link #m_aMethods} grouped by name, in declaration order. Lazily created
+   * together with {@link #m_aMethods}.
+   */
+  private Map <String, List <JMethod>> m_aMethodsByName;
 
   /**
    * Flag that controls whether this class should be really generated or not. Sometimes it is useful
@@ -137,14 +150,14 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
 
   /**
    * Set of enum constants that are keyed by names. In Java, enum constant order is actually
-   * significant, because of order ID they get. So let's preserve the order.
+   * significant, because of order ID they get. So let's preserve the order. Lazily created.
    */
-  private final Map <String, JEnumConstant> m_aEnumConstantsByName = new LinkedHashMap <> ();
+  private Map <String, JEnumConstant> m_aEnumConstantsByName;
 
   /**
-   * Record components for record types. Order is significant.
+   * Record components for record types. Order is significant. Lazily created.
    */
-  private final List <JRecordComponent> m_aRecordComponents = new ArrayList <> ();
+  private List <JRecordComponent> m_aRecordComponents;
 
   /**
    * Compact constructor for record types, if defined.
@@ -296,6 +309,7 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
     }
 
     m_aSuperClass = aSuperClass;
+    owner ().typeHierarchyCache ().clear ();
     return this;
   }
 
@@ -328,7 +342,11 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   @NonNull
   public JDefinedClass _implements (@NonNull final AbstractJClass aInterface)
   {
+    if (m_aInterfaces == null) {
+      m_aInterfaces = new TreeSet <> (ClassNameComparator.getInstance ());
+    }
     m_aInterfaces.add (aInterface);
+    owner ().typeHierarchyCache ().clear ();
     return this;
   }
 
@@ -345,6 +363,9 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   @NonNull
   public Iterator <AbstractJClass> _implements ()
   {
+    if (m_aInterfaces == null) {
+      return Collections.emptyIterator ();
+    }
     return m_aInterfaces.iterator ();
   }
 
@@ -358,6 +379,9 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   @NonNull
   public JDefinedClass permits(@NonNull final AbstractJClass... aClasses) {
     if (aClasses != null) {
+      if (m_aPermited == null) {
+        m_aPermited = new LinkedHashSet<>();
+      }
       for (@NonNull
       AbstractJClass ajc : aClasses) {
         if (ajc instanceof JDefinedClass jdc) {
@@ -384,6 +408,9 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   @NonNull
   public JEnumConstant enumConstant (@NonNull final String sName)
   {
+    if (m_aEnumConstantsByName == null) {
+      m_aEnumConstantsByName = new LinkedHashMap <> ();
+    }
     return m_aEnumConstantsByName.computeIfAbsent (sName, k -> new JEnumConstant (this, k));
   }
 
@@ -396,7 +423,7 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
    */
   public boolean containsEnumConstant (@NonNull final String sName)
   {
-    return m_aEnumConstantsByName.containsKey (sName);
+    return m_aEnumConstantsByName != null && m_aEnumConstantsByName.containsKey (sName);
   }
 
   /**
@@ -422,7 +449,7 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
     }
 
     final JRecordComponent comp = new JRecordComponent (this, aType, sName, false);
-    m_aRecordComponents.add (comp);
+    recordComponentsMutable ().add (comp);
     return comp;
   }
 
@@ -467,7 +494,7 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
     }
 
     final JRecordComponent comp = new JRecordComponent (this, aType.array (), sName, true);
-    m_aRecordComponents.add (comp);
+    recordComponentsMutable ().add (comp);
     return comp;
   }
 
@@ -479,6 +506,9 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   @ReturnsMutableObject
   public List <JRecordComponent> recordComponentsMutable ()
   {
+    if (m_aRecordComponents == null) {
+      m_aRecordComponents = new ArrayList <> ();
+    }
     return m_aRecordComponents;
   }
 
@@ -490,7 +520,7 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   @ReturnsImmutableObject
   public List <JRecordComponent> recordComponents ()
   {
-    return Collections.unmodifiableList (m_aRecordComponents);
+    return LazyCollectionViews.listView (() -> m_aRecordComponents);
   }
 
   /**
@@ -599,11 +629,16 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
                           @NonNull final String sName,
                           @Nullable final IJExpression aInit)
   {
-    ValueEnforcer.isFalse (m_aFields.containsKey (sName), () -> "trying to create the same field twice: " + sName);
+    // Different classes may be populated concurrently
+    synchronized (this)
+    {
+      final LinkedHashMap <String, JFieldVar> aFields = fieldsMutable ();
+      ValueEnforcer.isFalse (aFields.containsKey (sName), () -> "trying to create the same field twice: " + sName);
 
-    final JFieldVar f = new JFieldVar (this, JMods.forField (nMods), aType, sName, aInit);
-    m_aFields.put (sName, f);
-    return f;
+      final JFieldVar f = new JFieldVar (this, JMods.forField (nMods), aType, sName, aInit);
+      aFields.put (sName, f);
+      return f;
+    }
   }
 
   @NonNull
@@ -620,7 +655,13 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   @NonNull
   public LinkedHashMap <String, JFieldVar> fieldsMutable ()
   {
-    return m_aFields;
+    synchronized (this)
+    {
+      if (m_aFields == null) {
+        m_aFields = new LinkedHashMap <> ();
+      }
+      return m_aFields;
+    }
   }
 
   /**
@@ -645,7 +686,7 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
    */
   public void removeField (@NonNull final JFieldVar aField)
   {
-    if (m_aFields.remove (aField.name ()) != aField) {
+    if (m_aFields == null || m_aFields.remove (aField.name ()) != aField) {
       throw new IllegalArgumentException ("Failed to remove field " + aField);
     }
   }
@@ -657,14 +698,14 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
    */
   public boolean containsField (@Nullable final String sName)
   {
-    return sName != null && m_aFields.containsKey (sName);
+    return sName != null && m_aFields != null && m_aFields.containsKey (sName);
   }
 
   void internalRenameField (@NonNull final String sOldName,
                             @NonNull final String sNewName,
                             @NonNull final JFieldVar aField)
   {
-    if (m_aFields.remove (sOldName) == null) {
+    if (m_aFields == null || m_aFields.remove (sOldName) == null) {
       throw new IllegalArgumentException ("Failed to remove field with name '" +
                                           sOldName +
                                           "' for replacement with field with name '" +
@@ -713,7 +754,17 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   public JMethod constructor (final int nMods)
   {
     final JMethod c = new JMethod (nMods, this);
-    m_aConstructors.add (c);
+    synchronized (this)
+    {
+      if (m_aConstructors == null) {
+        m_aConstructors = new ArrayList <> ();
+      }
+      m_aConstructors.add (c);
+      if (m_aConstructorsByParamCount != null) {
+        // A new constructor has no parameters
+        m_aConstructorsByParamCount.computeIfAbsent (Integer.valueOf (0), k -> new ArrayList <> (1)).add (c);
+      }
+    }
     return c;
   }
 
@@ -723,7 +774,57 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   @NonNull
   public Iterator <JMethod> constructors ()
   {
-    return m_aConstructors.iterator ();
+    if (m_aConstructors == null) {
+      return Collections.emptyIterator ();
+    }
+    final Iterator <JMethod> it = m_aConstructors.iterator ();
+    return new Iterator <> ()
+    {
+      private JMethod m_aLast;
+
+      @Override
+      public boolean hasNext ()
+      {
+        return it.hasNext ();
+      }
+
+      @Override
+      public JMethod next ()
+      {
+        m_aLast = it.next ();
+        return m_aLast;
+      }
+
+      @Override
+      public void remove ()
+      {
+        synchronized (JDefinedClass.this)
+        {
+          it.remove ();
+          if (m_aConstructorsByParamCount != null) {
+            final Integer aKey = Integer.valueOf (m_aLast.params ().size ());
+            final List <JMethod> aCandidates = m_aConstructorsByParamCount.get (aKey);
+            // Identity, because JMethod does not override equals
+            aCandidates.remove (m_aLast);
+            if (aCandidates.isEmpty ()) {
+              m_aConstructorsByParamCount.remove (aKey);
+            }
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Called by {@link JMethod#paramsMutable()} of a constructor, as its number of parameters may
+   * change.
+   */
+  void internalInvalidateConstructorIndex ()
+  {
+    synchronized (this)
+    {
+      m_aConstructorsByParamCount = null;
+    }
   }
 
   /**
@@ -731,11 +832,14 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
    */
   public Stream <JMethod> constructorsStream ()
   {
+    if (m_aConstructors == null) {
+      return Stream.empty ();
+    }
     return m_aConstructors.stream ();
   }
 
   /**
-   * Looks for a method that has the specified method signature and return it.
+   * Looks for a constructor that has the specified signature and return it.
    *
    * @param aArgTypes
    *        Signature to search
@@ -744,7 +848,25 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   @Nullable
   public JMethod getConstructor (@NonNull final AbstractJType [] aArgTypes)
   {
-    for (final JMethod m : m_aConstructors) {
+    final List <JMethod> aCandidates;
+    synchronized (this)
+    {
+      if (m_aConstructors == null) {
+        return null;
+      }
+      if (m_aConstructorsByParamCount == null) {
+        final Map <Integer, List <JMethod>> aIndex = new HashMap <> ();
+        for (final JMethod m : m_aConstructors) {
+          aIndex.computeIfAbsent (Integer.valueOf (m.params ().size ()), k -> new ArrayList <> (1)).add (m);
+        }
+        m_aConstructorsByParamCount = aIndex;
+      }
+      aCandidates = m_aConstructorsByParamCount.get (Integer.valueOf (aArgTypes.length));
+    }
+    if (aCandidates == null) {
+      return null;
+    }
+    for (final JMethod m : aCandidates) {
       if (m.hasSignature (aArgTypes)) {
         return m;
       }
@@ -768,10 +890,101 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   {
     // XXX problems caught in M constructor
     final JMethod m = new JMethod (this, nMods, aType, sName);
-    m_aMethods.add (m);
+    synchronized (this)
+    {
+      _addMethod (m);
+    }
     return m;
   }
 
+  private void _addMethod (@NonNull final JMethod aMethod)
+  {
+    if (m_aMethods == null) {
+      m_aMethods = new ArrayList <> ();
+      m_aMethodsByName = new HashMap <> ();
+    }
+    m_aMethods.add (aMethod);
+    m_aMethodsByName.computeIfAbsent (aMethod.name (), k -> new ArrayList <> (1)).add (aMethod);
+  }
+
+  private void _removeFromIndex (@NonNull final String sName, @NonNull final JMethod aMethod)
+  {
+    final List <JMethod> aOverloads = m_aMethodsByName.get (sName);
+    if (aOverloads != null) {
+      // Identity, because JMethod does not override equals
+      aOverloads.remove (aMethod);
+      if (aOverloads.isEmpty ()) {
+        m_aMethodsByName.remove (sName);
+      }
+    }
+  }
+
+  /**
+   * Mutable view on {@link #m_aMethods} that keeps {@link #m_aMethodsByName} in sync.
+   */
+  private final class MethodsView extends AbstractCollection <JMethod>
+  {
+    @Override
+    public Iterator <JMethod> iterator ()
+    {
+      final Iterator <JMethod> it = m_aMethods.iterator ();
+      return new Iterator <> ()
+      {
+        private JMethod m_aLast;
+
+        @Override
+        public boolean hasNext ()
+        {
+          return it.hasNext ();
+        }
+
+        @Override
+        public JMethod next ()
+        {
+          m_aLast = it.next ();
+          return m_aLast;
+        }
+
+        @Override
+        public void remove ()
+        {
+          synchronized (JDefinedClass.this)
+          {
+            it.remove ();
+            _removeFromIndex (m_aLast.name (), m_aLast);
+          }
+        }
+      };
+    }
+
+    @Override
+    public int size ()
+    {
+      return m_aMethods.size ();
+    }
+
+    @Override
+    public boolean add (@NonNull final JMethod aMethod)
+    {
+      ValueEnforcer.notNull (aMethod, "Method");
+      synchronized (JDefinedClass.this)
+      {
+        _addMethod (aMethod);
+      }
+      return true;
+    }
+
+    @Override
+    public void clear ()
+    {
+      synchronized (JDefinedClass.this)
+      {
+        m_aMethods.clear ();
+        m_aMethodsByName.clear ();
+      }
+    }
+  }
+
   @NonNull
   public JMethod method (final int nMods, final Class <?> aType, final String sName)
   {
@@ -779,12 +992,19 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   }
 
   /**
-   * @return the set of methods defined in this class.
+   * @return the set of methods defined in this class. The collection is modifiable.
    */
   @NonNull
   public Collection <JMethod> methods ()
   {
-    return m_aMethods;
+    synchronized (this)
+    {
+      if (m_aMethods == null) {
+        m_aMethods = new ArrayList <> ();
+        m_aMethodsByName = new HashMap <> ();
+      }
+      return new MethodsView ();
+    }
   }
 
   /**
@@ -799,16 +1019,86 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   @Nullable
   public JMethod getMethod (final String sName, final AbstractJType [] aArgTypes)
   {
-    for (final JMethod m : m_aMethods) {
-      if (m.name ().equals (sName)) {
-        if (m.hasSignature (aArgTypes)) {
-          return m;
-        }
+    if (m_aMethodsByName == null) {
+      return null;
+    }
+    final List <JMethod> aOverloads = m_aMethodsByName.get (sName);
+    if (aOverloads == null) {
+      return null;
+    }
+    for (final JMethod m : aOverloads) {
+      if (m.hasSignature (aArgTypes)) {
+        return m;
       }
     }
     return null;
   }
 
+  /**
+   * Called by {@link JMethod#name(String)} after a method was renamed.
+   *
+   * @param sOldName
+   *        The previous name of the method
+   * @param aMethod
+   *        The renamed method
+   */
+  void internalRenameMethod (@NonNull final String sOldName, @NonNull final JMethod aMethod)
+  {
+    synchronized (this)
+    {
+      if (m_aMethodsByName == null) {
+        return;
+      }
+      final List <JMethod> aOverloads = m_aMethodsByName.get (sOldName);
+      // Only methods contained in this class are indexed
+      if (aOverloads != null && aOverloads.contains (aMethod)) {
+        _removeFromIndex (sOldName, aMethod);
+        m_aMethodsByName.computeIfAbsent (aMethod.name (), k -> new ArrayList <> (1)).add (aMethod);
+      }
+    }
+  }
+
+  /**
+   * Ensure that no two methods or constructors of this class and its nested classes have the same
+   * name and erased parameter types. As methods are built step by step, this can only be checked
+   * once they are complete. {@link com.helger.jcodemodel.writer.JCMWriter} calls this before writing
+   * a class if {@link JCodeModel#isRejectDuplicateMethodSignatures()} is enabled.
+   *
+   * @throws IllegalStateException
+   *         If a signature is used more than once
+   * @since 4.2.2
+   */
+  public void checkUniqueSignatures ()
+  {
+    synchronized (this)
+    {
+      if (m_aConstructors != null)
+        _checkUniqueSignatures (m_aConstructors);
+      if (m_aMethodsByName != null)
+        for (final List <JMethod> aOverloads : m_aMethodsByName.values ())
+          _checkUniqueSignatures (aOverloads);
+    }
+    if (m_aClasses != null)
+      for (final JDefinedClass aNested : m_aClasses.values ())
+        aNested.checkUniqueSignatures ();
+  }
+
+  private void _checkUniqueSignatures (@NonNull final List <JMethod> aMethods)
+  {
+    for (int i = 1; i < aMethods.size (); ++i)
+    {
+      final JMethod aMethod = aMethods.get (i);
+      final AbstractJType [] aParamTypes = aMethod.internalGetSignatureTypes ();
+      for (int j = 0; j < i; ++j)
+        if (aMethods.get (j).hasErasedSignature (aParamTypes))
+          throw new IllegalStateException ((aMethod.isConstructor () ? "A constructor"
+                                                                     : "The method '" + aMethod.name () + "'") +
+                                           " with the same erased signature is defined more than once in class '" +
+                                           fullName () +
+                                           "'");
+    }
+  }
+
   /**
    * @return <code>true</code> if a header comment (before the package) is present,
    *         <code>false</code> if not.
@@ -856,6 +1146,22 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
     return m_bHideFile;
   }
 
+  /**
+   * Get a hash of the content of this class, including its nested classes. The hash is computed
+   * bottom-up over the declarations, method bodies and expressions, and does not depend on object
+   * identities. Other classes referenced from this class only contribute their names. So the hash
+   * changes whenever the generated source of this class may change, and can e.g. be used to skip
+   * unchanged classes in incremental builds. It is computed on every call.
+   *
+   * @return The lower case hex encoded SHA-256 hash. Never <code>null</code>.
+   * @since 4.2.2
+   */
+  @NonNull
+  public String getContentHash ()
+  {
+    return ModelContentHasher.toHex (ModelContentHasher.hashClass (this));
+  }
+
   @Override
   public void declare (@NonNull final IJFormatter f)
   {
@@ -881,15 +1187,18 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
     if (isRecord ())
     {
       f.print ('(');
-      boolean bFirst = true;
-      for (final JRecordComponent comp : m_aRecordComponents)
+      if (m_aRecordComponents != null)
       {
-        if (bFirst) {
-          bFirst = false;
-        } else {
-          f.print (',');
+        boolean bFirst = true;
+        for (final JRecordComponent comp : m_aRecordComponents)
+        {
+          if (bFirst) {
+            bFirst = false;
+          } else {
+            f.print (',');
+          }
+          f.generable (comp);
         }
-        f.generable (comp);
       }
       f.print (')');
     }
@@ -904,7 +1213,7 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
     }
 
     // Add all interfaces
-    if (!m_aInterfaces.isEmpty ())
+    if (m_aInterfaces != null && !m_aInterfaces.isEmpty ())
     {
       if (!bHasSuperClass) {
         f.newline ();
@@ -914,7 +1223,7 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
       f.newline ().outdent ();
     }
 
-    if (!m_aPermited.isEmpty()) {
+    if (m_aPermited != null && !m_aPermited.isEmpty()) {
       f.print("permits");
       boolean first = true;
       for (AbstractJClass ajc : m_aPermited) {
@@ -940,7 +1249,7 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
     f.print ('{').newline ().indent ();
     boolean bFirst = true;
 
-    if (!m_aEnumConstantsByName.isEmpty ())
+    if (m_aEnumConstantsByName != null && !m_aEnumConstantsByName.isEmpty ())
     {
       for (final JEnumConstant c : m_aEnumConstantsByName.values ())
       {
@@ -955,8 +1264,10 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
     }
 
     // All fields
-    for (final JFieldVar field : m_aFields.values ()) {
-      f.declaration (field);
+    if (m_aFields != null) {
+      for (final JFieldVar field : m_aFields.values ()) {
+        f.declaration (field);
+      }
     }
 
     // Static init
@@ -988,13 +1299,17 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
     }
 
     // All regular constructors
-    for (final JMethod m : m_aConstructors) {
-      f.newline ().declaration (m);
+    if (m_aConstructors != null) {
+      for (final JMethod m : m_aConstructors) {
+        f.newline ().declaration (m);
+      }
     }
 
     // All regular methods
-    for (final JMethod m : m_aMethods) {
-      f.newline ().declaration (m);
+    if (m_aMethods != null) {
+      for (final JMethod m : m_aMethods) {
+        f.newline ().declaration (m);
+      }
     }
 
     // All inner classes
@@ -1045,6 +1360,7 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   @NonNull
   public JTypeVar generify (@NonNull final String sName)
   {
+    owner ().typeHierarchyCache ().clear ();
     return m_aGenerifiable.generify (sName);
   }
 
@@ -1052,6 +1368,7 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   @NonNull
   public JTypeVar generify (@NonNull final String sName, @NonNull final Class <?> aBoundClass)
   {
+    owner ().typeHierarchyCache ().clear ();
     return m_aGenerifiable.generify (sName, aBoundClass);
   }
 
@@ -1059,6 +1376,7 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass> imple
   @NonNull
   public JTypeVar generify (@NonNull final String sName, @NonNull final AbstractJClass aBoundClass)
   {
+    owner ().typeHierarchyCache ().clear ();
     return m_aGenerifiable.generify (sName, aBoundClass);
   }
 
@@ -40,8 +40,10 @@
  */
 package com.helger.jcodemodel;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
@@ -70,9 +72,9 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
   private boolean m_bIsSingleLineMode = false;
 
   /**
-   * list of @param tags
+   * list of @param tags. Like all the tag maps it is lazily created.
    */
-  private final Map <String, JCommentPart> m_aAtParams = new LinkedHashMap <> ();
+  private Map <String, JCommentPart> m_aAtParams;
 
   /**
    * The @return tag part.
@@ -82,21 +84,32 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
   /**
    * list of @throws tags
    */
-  private final Map <AbstractJClass, JCommentPart> m_aAtThrows = new LinkedHashMap <> ();
+  private Map <AbstractJClass, JCommentPart> m_aAtThrows;
 
   /**
    * Other comment tags (like @author, @deprecated, @since, @version etc.)
    */
-  private final Map <String, JCommentPart> m_aAtTags = new LinkedHashMap <> ();
+  private Map <String, JCommentPart> m_aAtTags;
 
   /** list of generic xdoclets */
-  private final Map <String, Map <String, String>> m_aAtXdoclets = new LinkedHashMap <> ();
+  private Map <String, Map <String, String>> m_aAtXdoclets;
 
   protected JDocComment (@NonNull final JCodeModel owner)
   {
     m_aOwner = ValueEnforcer.notNull (owner, "Owner");
   }
 
+  /**
+   * Only used by {@link JCodeModelCopier} and {@link JCodeModelSnapshot}, which set all fields,
+   * including the owner, via reflection afterwards. Until then the owner is <code>null</code>.
+   * Unlike for other model classes the constructor must run, to initialize the
+   * {@link java.util.ArrayList} state.
+   */
+  JDocComment ()
+  {
+    m_aOwner = null;
+  }
+
   @NonNull
   public JCodeModel owner ()
   {
@@ -146,6 +159,8 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
   @NonNull
   public JCommentPart addParam (@NonNull final String sParam)
   {
+    if (m_aAtParams == null)
+      m_aAtParams = new LinkedHashMap <> ();
     return m_aAtParams.computeIfAbsent (sParam, k -> new JCommentPart ());
   }
 
@@ -177,7 +192,7 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
   @Nullable
   public JCommentPart removeParam (@Nullable final String sParam)
   {
-    return m_aAtParams.remove (sParam);
+    return m_aAtParams == null ? null : m_aAtParams.remove (sParam);
   }
 
   @Nullable
@@ -188,13 +203,13 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
 
   public void removeAllParams ()
   {
-    m_aAtParams.clear ();
+    m_aAtParams = null;
   }
 
   @Nullable
   public JCommentPart getParam (@Nullable final String sParam)
   {
-    return m_aAtParams.get (sParam);
+    return m_aAtParams == null ? null : m_aAtParams.get (sParam);
   }
 
   @Nullable
@@ -249,6 +264,8 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
   @NonNull
   public JCommentPart addThrows (@NonNull final AbstractJClass aException)
   {
+    if (m_aAtThrows == null)
+      m_aAtThrows = new LinkedHashMap <> ();
     return m_aAtThrows.computeIfAbsent (aException, k -> new JCommentPart ());
   }
 
@@ -261,12 +278,12 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
   @Nullable
   public JCommentPart removeThrows (@Nullable final AbstractJClass aException)
   {
-    return m_aAtThrows.remove (aException);
+    return m_aAtThrows == null ? null : m_aAtThrows.remove (aException);
   }
 
   public void removeAllThrows ()
   {
-    m_aAtThrows.clear ();
+    m_aAtThrows = null;
   }
 
   @Nullable
@@ -278,26 +295,28 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
   @Nullable
   public JCommentPart getThrows (@Nullable final AbstractJClass aException)
   {
-    return m_aAtThrows.get (aException);
+    return m_aAtThrows == null ? null : m_aAtThrows.get (aException);
   }
 
   @NonNull
   public JCommentPart addTag (@NonNull final String sName)
   {
     ValueEnforcer.notEmpty (sName, "Name");
+    if (m_aAtTags == null)
+      m_aAtTags = new LinkedHashMap <> ();
     return m_aAtTags.computeIfAbsent (sName, k -> new JCommentPart ());
   }
 
   @Nullable
   public JCommentPart removeTag (@Nullable final String sName)
   {
-    return m_aAtTags.remove (sName);
+    return m_aAtTags == null ? null : m_aAtTags.remove (sName);
   }
 
   @Nullable
   public JCommentPart getTag (@Nullable final String sName)
   {
-    return m_aAtTags.get (sName);
+    return m_aAtTags == null ? null : m_aAtTags.get (sName);
   }
 
   /**
@@ -346,6 +365,8 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
   public Map <String, String> addXdoclet (@NonNull final String sName)
   {
     ValueEnforcer.notNull (sName, "Name");
+    if (m_aAtXdoclets == null)
+      m_aAtXdoclets = new LinkedHashMap <> ();
     return m_aAtXdoclets.computeIfAbsent (sName, k -> new LinkedHashMap <> ());
   }
 
@@ -393,22 +414,48 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
   @Nullable
   public Map <String, String> removeXdoclet (@Nullable final String name)
   {
-    return m_aAtXdoclets.remove (name);
+    return m_aAtXdoclets == null ? null : m_aAtXdoclets.remove (name);
   }
 
   public void removeAllXdoclets ()
   {
-    m_aAtXdoclets.clear ();
+    m_aAtXdoclets = null;
+  }
+
+  private static boolean _isNotEmpty (@Nullable final Map <?, ?> aMap)
+  {
+    return aMap != null && !aMap.isEmpty ();
+  }
+
+  @NonNull
+  private static <K, V> Set <Map.Entry <K, V>> _entrySet (@Nullable final Map <K, V> aMap)
+  {
+    return aMap == null ? Collections.emptySet () : aMap.entrySet ();
+  }
+
+  private boolean _hasAt ()
+  {
+    return _isNotEmpty (m_aAtParams) ||
+           m_aAtReturn != null ||
+           _isNotEmpty (m_aAtThrows) ||
+           _isNotEmpty (m_aAtTags) ||
+           _isNotEmpty (m_aAtXdoclets);
+  }
+
+  /**
+   * @return <code>true</code> if neither text nor any "@" comment is present, so that nothing is
+   *         generated for this comment.
+   * @since 4.2.2
+   */
+  boolean isEmptyIncludingTags ()
+  {
+    return isEmpty () && !_hasAt ();
   }
 
   public void generate (@NonNull final IJFormatter f)
   {
     // Is any "@" comment present?
-    final boolean bHasAt = !m_aAtParams.isEmpty () ||
-                           m_aAtReturn != null ||
-                           !m_aAtThrows.isEmpty () ||
-                           !m_aAtTags.isEmpty () ||
-                           !m_aAtXdoclets.isEmpty ();
+    final boolean bHasAt = _hasAt ();
     if (!isEmpty () || bHasAt)
     {
       final String sIndent = m_bIsSingleLineMode ? "// " : " * ";
@@ -423,7 +470,7 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
       if (!isEmpty () && bHasAt)
         f.print (sIndent).newline ();
 
-      for (final Map.Entry <String, JCommentPart> aEntry : m_aAtParams.entrySet ())
+      for (final Map.Entry <String, JCommentPart> aEntry : _entrySet (m_aAtParams))
       {
         f.print (sIndent + "@param ").print (aEntry.getKey ()).newline ();
         aEntry.getValue ().format (f, sIndentLarge);
@@ -433,17 +480,17 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
         f.print (sIndent + "@return").newline ();
         m_aAtReturn.format (f, sIndentLarge);
       }
-      for (final Map.Entry <AbstractJClass, JCommentPart> aEntry : m_aAtThrows.entrySet ())
+      for (final Map.Entry <AbstractJClass, JCommentPart> aEntry : _entrySet (m_aAtThrows))
       {
         f.print (sIndent + "@throws ").type (aEntry.getKey ()).newline ();
         aEntry.getValue ().format (f, sIndentLarge);
       }
-      for (final Map.Entry <String, JCommentPart> aEntry : m_aAtTags.entrySet ())
+      for (final Map.Entry <String, JCommentPart> aEntry : _entrySet (m_aAtTags))
       {
         f.print (sIndent + "@" + aEntry.getKey () + " ");
         aEntry.getValue ().format (f, "");
       }
-      for (final Map.Entry <String, Map <String, String>> aEntry : m_aAtXdoclets.entrySet ())
+      for (final Map.Entry <String, Map <String, String>> aEntry : _entrySet (m_aAtXdoclets))
       {
         f.print (sIndent + "@").print (aEntry.getKey ());
         if (aEntry.getValue () != null)
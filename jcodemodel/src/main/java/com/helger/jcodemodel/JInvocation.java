@@ -77,9 +77,11 @@ public class JInvocation implements IJExpressionStatement, IJOwnedMaybe
   private final boolean m_bIsConstructor;
 
   /**
-   * List of argument expressions for this method invocation
+   * List of argument expressions for this method invocation. <code>null</code>
+   * for no arguments and a singleton list for one argument, as this covers most
+   * invocations.
    */
-  private final List <IJExpression> m_aArgs = new ArrayList <> ();
+  private List <IJExpression> m_aArgs;
 
   /**
    * If isConstructor==true, this field keeps the type to be created.
@@ -156,7 +158,19 @@ public class JInvocation implements IJExpressionStatement, IJOwnedMaybe
   public JInvocation arg (@NonNull final IJExpression aArg)
   {
     ValueEnforcer.notNull (aArg, "Argument");
-    m_aArgs.add (aArg);
+    if (m_aArgs == null)
+      m_aArgs = Collections.singletonList (aArg);
+    else
+    {
+      if (m_aArgs.size () == 1)
+      {
+        // Arguments are never removed, so this is the singleton list
+        final List <IJExpression> aArgs = new ArrayList <> (4);
+        aArgs.add (m_aArgs.get (0));
+        m_aArgs = aArgs;
+      }
+      m_aArgs.add (aArg);
+    }
     return this;
   }
 
@@ -283,7 +297,13 @@ public class JInvocation implements IJExpressionStatement, IJOwnedMaybe
   @NonNull
   public List <IJExpression> args ()
   {
-    return new ArrayList <> (m_aArgs);
+    return new ArrayList <> (_args ());
+  }
+
+  @NonNull
+  private List <IJExpression> _args ()
+  {
+    return m_aArgs == null ? Collections.emptyList () : m_aArgs;
   }
 
   @NonNull
@@ -416,7 +436,7 @@ public class JInvocation implements IJExpressionStatement, IJOwnedMaybe
     }
 
     // Method arguments
-    f.generable (m_aArgs);
+    f.generable (_args ());
 
     // Close arg list
     if (m_bIsConstructor && m_aConstructorType.isArray ())
@@ -452,7 +472,7 @@ public class JInvocation implements IJExpressionStatement, IJOwnedMaybe
     if (!(EqualsHelper.equals (m_aObject, rhs.m_aObject) &&
           EqualsHelper.equals (m_bIsConstructor, rhs.m_bIsConstructor) &&
           (m_bIsConstructor || EqualsHelper.equals (_methodName (), rhs._methodName ())) &&
-          EqualsHelper.equals (m_aArgs, rhs.m_aArgs) &&
+          EqualsHelper.equals (_args (), rhs._args ()) &&
           EqualsHelper.equals (_typeFullName (), rhs._typeFullName ())))
     {
       return false;
@@ -477,7 +497,7 @@ public class JInvocation implements IJExpressionStatement, IJOwnedMaybe
     HashCodeGenerator aHCGen = new HashCodeGenerator (this).append (m_aObject).append (m_bIsConstructor);
     if (!m_bIsConstructor)
       aHCGen = aHCGen.append (_methodName ());
-    aHCGen = aHCGen.append (m_aArgs).append (_typeFullName ());
+    aHCGen = aHCGen.append (_args ()).append (_typeFullName ());
     if (m_aTypeVariables != null)
     {
       aHCGen = aHCGen.append (m_aTypeVariables.size ());
@@ -42,6 +42,7 @@ package com.helger.jcodemodel;
 
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -76,15 +77,15 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
   private String m_sName;
 
   /**
-   * List of parameters for this method's declaration
+   * List of parameters for this method's declaration. Lazily created.
    */
-  private final List <JVar> m_aParams = new ArrayList <> ();
+  private List <JVar> m_aParams;
 
   /**
    * Set of exceptions that this method may throw. A set instance lazily
    * created.
    */
-  private final Set <AbstractJClass> m_aThrows = new TreeSet <> (ClassNameComparator.getInstance ());
+  private Set <AbstractJClass> m_aThrows;
 
   /**
    * JBlock of statements that makes up the body this method
@@ -164,13 +165,15 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
   @NonNull
   public Set <AbstractJClass> throwsMutable ()
   {
+    if (m_aThrows == null)
+      m_aThrows = new TreeSet <> (ClassNameComparator.getInstance ());
     return m_aThrows;
   }
 
   @NonNull
   public Collection <AbstractJClass> getThrows ()
   {
-    return Collections.unmodifiableSet (throwsMutable ());
+    return LazyCollectionViews.setView (() -> m_aThrows);
   }
 
   /**
@@ -183,7 +186,7 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
   @NonNull
   public JMethod _throws (@NonNull final AbstractJClass aException)
   {
-    m_aThrows.add (aException);
+    throwsMutable ().add (aException);
     return this;
   }
 
@@ -201,6 +204,11 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
   @NonNull
   public List <JVar> paramsMutable ()
   {
+    if (m_aParams == null)
+      m_aParams = new ArrayList <> ();
+    // The caller may change the number of parameters
+    if (isConstructor ())
+      m_aOwningClass.internalInvalidateConstructorIndex ();
     return m_aParams;
   }
 
@@ -212,12 +220,14 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
   @NonNull
   public List <JVar> params ()
   {
-    return Collections.unmodifiableList (paramsMutable ());
+    return LazyCollectionViews.listView (() -> m_aParams);
   }
 
   @NonNull
   public JVar paramAtIndex (@Nonnegative final int nIndex) throws IndexOutOfBoundsException
   {
+    if (m_aParams == null)
+      throw new IndexOutOfBoundsException ("Index " + nIndex + " out of bounds for length 0");
     return m_aParams.get (nIndex);
   }
 
@@ -237,7 +247,7 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
   public JVar param (final int nMods, @NonNull final AbstractJType aType, @NonNull final String sName)
   {
     final JVar aVar = new JVar (JMods.forVar (nMods), ValueEnforcer.notNull(aType, "type"), sName, null);
-    m_aParams.add (aVar);
+    paramsMutable ().add (aVar);
     return aVar;
   }
 
@@ -429,7 +439,14 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
   public void name (@NonNull final String sName)
   {
     ValueEnforcer.notEmpty (sName, "Name");
-    m_sName = sName;
+    if (isConstructor ())
+      m_sName = sName;
+    else
+    {
+      final String sOldName = m_sName;
+      m_sName = sName;
+      m_aOwningClass.internalRenameMethod (sOldName, this);
+    }
   }
 
   /**
@@ -461,6 +478,8 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
   @NonNull
   public AbstractJType [] listParamTypes ()
   {
+    if (m_aParams == null)
+      return new AbstractJType [0];
     final AbstractJType [] r = new AbstractJType [m_aParams.size ()];
     for (int i = 0; i < r.length; i++)
       r[i] = m_aParams.get (i).type ();
@@ -475,6 +494,8 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
   @NonNull
   public JVar [] listParams ()
   {
+    if (m_aParams == null)
+      return new JVar [0];
     return m_aParams.toArray (new JVar [m_aParams.size ()]);
   }
 
@@ -487,17 +508,60 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
    */
   public boolean hasSignature (@NonNull final AbstractJType [] argTypes)
   {
-    final JVar [] aParams = listParams ();
-    if (aParams.length != argTypes.length)
+    final int nParamCount = m_aParams == null ? 0 : m_aParams.size ();
+    if (nParamCount != argTypes.length)
       return false;
 
-    for (int i = 0; i < aParams.length; i++)
-      if (!aParams[i].type ().equals (argTypes[i]))
+    for (int i = 0; i < nParamCount; i++)
+      if (!m_aParams.get (i).type ().equals (argTypes[i]))
         return false;
 
     return true;
   }
 
+  @NonNull
+  private static AbstractJType _erasure (@NonNull final AbstractJType aType)
+  {
+    if (aType instanceof JTypeVar)
+      return ((JTypeVar) aType)._extends ().erasure ();
+    return aType.erasure ();
+  }
+
+  /**
+   * Check if the erasure of the parameter types of this method, including the varargs array type,
+   * equals the erasure of the provided types.
+   *
+   * @param aParamTypes
+   *        The parameter types to compare to. May not be <code>null</code>.
+   * @return <code>true</code> if both erased signatures are equal
+   */
+  boolean hasErasedSignature (@NonNull final AbstractJType [] aParamTypes)
+  {
+    final int nParamCount = m_aParams == null ? 0 : m_aParams.size ();
+    if (nParamCount + (m_aVarParam == null ? 0 : 1) != aParamTypes.length)
+      return false;
+
+    for (int i = 0; i < nParamCount; i++)
+      if (!_erasure (m_aParams.get (i).type ()).equals (_erasure (aParamTypes[i])))
+        return false;
+
+    return m_aVarParam == null || _erasure (m_aVarParam.type ()).equals (_erasure (aParamTypes[nParamCount]));
+  }
+
+  /**
+   * @return The parameter types including the varargs array type if any.
+   */
+  @NonNull
+  AbstractJType [] internalGetSignatureTypes ()
+  {
+    final AbstractJType [] aParamTypes = listParamTypes ();
+    if (m_aVarParam == null)
+      return aParamTypes;
+    final AbstractJType [] ret = Arrays.copyOf (aParamTypes, aParamTypes.length + 1);
+    ret[aParamTypes.length] = m_aVarParam.type ();
+    return ret;
+  }
+
   /**
    * Get the block that makes up body of this method
    *
@@ -562,8 +626,9 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
 
     boolean bFirst = true;
     // break only if more than 3 variables are present
-    final boolean bNewLineAfterParam = (m_aParams.size () + (hasVarArgs () ? 1 : 0)) > 3;
-    for (final JVar var : m_aParams)
+    final List <JVar> aParams = m_aParams == null ? Collections.emptyList () : m_aParams;
+    final boolean bNewLineAfterParam = (aParams.size () + (hasVarArgs () ? 1 : 0)) > 3;
+    for (final JVar var : aParams)
     {
       if (bFirst)
         bFirst = false;
@@ -589,7 +654,7 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
     }
 
     f.outdent ().print (')');
-    if (!m_aThrows.isEmpty ())
+    if (m_aThrows != null && !m_aThrows.isEmpty ())
     {
       f.newline ().indent ().print ("throws").generable (m_aThrows).newline ().outdent ();
     }
@@ -41,7 +41,6 @@
 package com.helger.jcodemodel;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -66,6 +65,11 @@ public class JNarrowedClass extends AbstractJClass
    * Arguments to those parameters.
    */
   private final List <? extends AbstractJClass> m_aArgs;
+  /**
+   * Lazily calculated hash code, as instances are used as keys in the narrowed class pool of the
+   * owner. Transient because it depends on the identity hash codes of the arguments.
+   */
+  private transient int m_nHashCode;
 
   public JNarrowedClass (@NonNull final AbstractJClass aBasis, @NonNull final AbstractJClass aArg)
   {
@@ -74,7 +78,7 @@ public class JNarrowedClass extends AbstractJClass
 
   public JNarrowedClass (@NonNull final AbstractJClass aBasis, @NonNull final AbstractJClass [] aArgs)
   {
-    this (aBasis, Arrays.asList (aArgs));
+    this (aBasis, List.of (aArgs));
   }
 
   public JNarrowedClass (@NonNull final AbstractJClass aBasis, @NonNull final List <? extends AbstractJClass> aArgs)
@@ -83,7 +87,8 @@ public class JNarrowedClass extends AbstractJClass
     ValueEnforcer.isFalse (aBasis instanceof JNarrowedClass, () -> "aBasis may not be a narrowed class: " + aBasis);
     ValueEnforcer.notNull (aArgs, "NarrowingClasses");
     m_aBasis = aBasis;
-    m_aArgs = aArgs;
+    // Copied, as the cached hash code requires the arguments to stay unchanged
+    m_aArgs = List.copyOf (aArgs);
   }
 
   @Override
@@ -108,9 +113,10 @@ public class JNarrowedClass extends AbstractJClass
   {
     ValueEnforcer.notNull (aClazz, "NarrowingClass");
 
-    final List <AbstractJClass> newArgs = new ArrayList <> (m_aArgs);
+    final List <AbstractJClass> newArgs = new ArrayList <> (m_aArgs.size () + 1);
+    newArgs.addAll (m_aArgs);
     newArgs.add (aClazz);
-    return new JNarrowedClass (m_aBasis, newArgs);
+    return owner ().narrowed (m_aBasis, newArgs);
   }
 
   @Override
@@ -118,10 +124,11 @@ public class JNarrowedClass extends AbstractJClass
   {
     ValueEnforcer.notNull (aClazz, "NarrowingClass");
 
-    final List <AbstractJClass> newArgs = new ArrayList <> (m_aArgs);
+    final List <AbstractJClass> newArgs = new ArrayList <> (m_aArgs.size () + aClazz.length);
+    newArgs.addAll (m_aArgs);
     for (final AbstractJClass aClass : aClazz)
       newArgs.add (aClass);
-    return new JNarrowedClass (m_aBasis, newArgs);
+    return owner ().narrowed (m_aBasis, newArgs);
   }
 
   @Override
@@ -306,12 +313,13 @@ public class JNarrowedClass extends AbstractJClass
     }
 
     if (bDifferent)
-      return new JNarrowedClass (b, clazz);
+      return owner ().narrowed (b, clazz);
     return this;
   }
 
   //
-  // Equality is based on value
+  // Equality is based on value. Narrowed classes created via the owning
+  // JCodeModel are pooled, so equal instances are usually identical.
   //
 
   @Override
@@ -324,12 +332,20 @@ public class JNarrowedClass extends AbstractJClass
     if (obj == null || !getClass ().equals (obj.getClass ()))
       return false;
     final JNarrowedClass that = (JNarrowedClass) obj;
+    if (hashCode () != that.hashCode ())
+      return false;
     return m_aBasis.equals (that.m_aBasis) && m_aArgs.equals (that.m_aArgs);
   }
 
   @Override
   public int hashCode ()
   {
-    return m_aBasis.hashCode () * 37 + m_aArgs.hashCode ();
+    int ret = m_nHashCode;
+    if (ret == 0)
+    {
+      ret = m_aBasis.hashCode () * 37 + m_aArgs.hashCode ();
+      m_nHashCode = ret;
+    }
+    return ret;
   }
 }
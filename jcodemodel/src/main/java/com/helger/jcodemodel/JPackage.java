@@ -47,7 +47,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
@@ -149,7 +149,7 @@ public class JPackage implements
   /**
    * List of classes contained within this package keyed by their name.
    */
-  private final Map <FSName, JDefinedClass> m_aClasses = new TreeMap <> ();
+  private final Map <FSName, JDefinedClass> m_aClasses = new ConcurrentSkipListMap <> ();
 
   /**
    * Lazily created list of package annotations.
@@ -189,6 +189,23 @@ public class JPackage implements
     m_sName = sName;
   }
 
+  @NonNull
+  Map <FSName, JDefinedClass> internalGetClassMap ()
+  {
+    return m_aClasses;
+  }
+
+  /**
+   * @return <code>true</code> if this package contains neither classes nor annotations nor Javadoc,
+   *         so that nothing is generated for it. Doesn't create any lazy members.
+   */
+  boolean internalIsEmpty ()
+  {
+    return m_aClasses.isEmpty () &&
+           (m_aAnnotations == null || m_aAnnotations.isEmpty ()) &&
+           (m_aJavaDoc == null || m_aJavaDoc.isEmptyIncludingTags ());
+  }
+
   @Nullable
   public IJClassContainer <?> parentContainer ()
   {
@@ -259,10 +276,13 @@ public class JPackage implements
       throw new JResourceAlreadyExistsException (aRD.fullChildName (sClassFilename));
 
     // Create a new class
-    aDC = new JDefinedClass (this, nMods, sClassName, eClassType);
-    m_aClasses.put (aKey, aDC);
+    final JDefinedClass aNewDC = new JDefinedClass (this, nMods, sClassName, eClassType);
+    // Another thread may have created the same class in the meantime
+    aDC = m_aClasses.putIfAbsent (aKey, aNewDC);
+    if (aDC != null)
+      throw new JClassAlreadyExistsException (aDC);
 
-    return aDC;
+    return aNewDC;
   }
 
   /**
@@ -287,6 +307,37 @@ public class JPackage implements
     return m_aJavaDoc;
   }
 
+  /**
+   * Get a hash of the content of this package. It combines the annotations and the Javadoc of the
+   * package with the names and {@link JDefinedClass#getContentHash() content hashes} of all classes
+   * in this package. It is computed on every call.
+   *
+   * @return The lower case hex encoded SHA-256 hash. Never <code>null</code>.
+   * @see #getContentHash(boolean)
+   * @since 4.2.2
+   */
+  @NonNull
+  public String getContentHash ()
+  {
+    return getContentHash (true);
+  }
+
+  /**
+   * Get a hash of the content of this package. It is computed on every call.
+   *
+   * @param bIncludeClasses
+   *        <code>true</code> to include the names and {@link JDefinedClass#getContentHash() content
+   *        hashes} of all classes in this package, <code>false</code> to only hash the annotations
+   *        and the Javadoc of the package, as written to <code>package-info.java</code>.
+   * @return The lower case hex encoded SHA-256 hash. Never <code>null</code>.
+   * @since 4.2.2
+   */
+  @NonNull
+  public String getContentHash (final boolean bIncludeClasses)
+  {
+    return ModelContentHasher.toHex (ModelContentHasher.hashPackage (this, bIncludeClasses));
+  }
+
   @Nullable
   public JDocComment javadocOrNull ()
   {
@@ -0,0 +1,149 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Unmodifiable live views of collections that are only created when the first element is added. A
+ * view reads the backing field on every access, so it reflects elements added after it was
+ * obtained without allocating the collection beforehand.
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+final class LazyCollectionViews
+{
+  private static final class ListView <T> extends AbstractList <T> implements RandomAccess
+  {
+    private final Supplier <? extends List <T>> m_aList;
+
+    ListView (@NonNull final Supplier <? extends List <T>> aList)
+    {
+      m_aList = aList;
+    }
+
+    @Override
+    public T get (final int nIndex)
+    {
+      final List <T> aList = m_aList.get ();
+      if (aList == null)
+        throw new IndexOutOfBoundsException ("Index " + nIndex + " out of bounds for length 0");
+      return aList.get (nIndex);
+    }
+
+    @Override
+    public int size ()
+    {
+      final List <T> aList = m_aList.get ();
+      return aList == null ? 0 : aList.size ();
+    }
+  }
+
+  private static final class SetView <T> extends AbstractSet <T>
+  {
+    private final Supplier <? extends Set <T>> m_aSet;
+
+    SetView (@NonNull final Supplier <? extends Set <T>> aSet)
+    {
+      m_aSet = aSet;
+    }
+
+    @Override
+    public Iterator <T> iterator ()
+    {
+      final Set <T> aSet = m_aSet.get ();
+      return aSet == null ? Collections.emptyIterator () : Collections.unmodifiableSet (aSet).iterator ();
+    }
+
+    @Override
+    public int size ()
+    {
+      final Set <T> aSet = m_aSet.get ();
+      return aSet == null ? 0 : aSet.size ();
+    }
+
+    @Override
+    public boolean contains (@Nullable final Object aObj)
+    {
+      // Use the lookup of the backing set, e.g. with its comparator
+      final Set <T> aSet = m_aSet.get ();
+      return aSet != null && aSet.contains (aObj);
+    }
+  }
+
+  private LazyCollectionViews ()
+  {}
+
+  /**
+   * @param aList
+   *        Supplier of the backing list. It may return <code>null</code> while the list was not
+   *        created.
+   * @return An unmodifiable live view of the list. Never <code>null</code>.
+   */
+  @NonNull
+  static <T> List <T> listView (@NonNull final Supplier <? extends List <T>> aList)
+  {
+    return new ListView <> (aList);
+  }
+
+  /**
+   * @param aSet
+   *        Supplier of the backing set. It may return <code>null</code> while the set was not
+   *        created.
+   * @return An unmodifiable live view of the set. Never <code>null</code>.
+   */
+  @NonNull
+  static <T> Set <T> setView (@NonNull final Supplier <? extends Set <T>> aSet)
+  {
+    return new SetView <> (aSet);
+  }
+}
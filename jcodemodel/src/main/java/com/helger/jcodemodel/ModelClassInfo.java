@@ -0,0 +1,676 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamConstants;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Reflective information how the objects of a class are handled when a model is copied or
+ * persisted, see {@link JCodeModelCopier} and {@link JCodeModelSnapshot}. Both follow the rules of
+ * serialization: model objects are created without running the constructors of their serializable
+ * classes and only their non-transient fields are considered. This covers the classes of this
+ * library as well as serializable classes of the user, e.g. custom statements or sub classes of
+ * {@link JDefinedClass}. Classes of the JDK are never copied field by field.
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+@Immutable
+final class ModelClassInfo
+{
+  static final String MODEL_PACKAGE_PREFIX = "com.helger.jcodemodel.";
+
+  enum EKind
+  {
+    /** Not part of the model, e.g. strings and {@link Class} objects */
+    SHARED,
+    /**
+     * Part of this library or another serializable class outside of the JDK: created and filled
+     * field by field
+     */
+    MODEL,
+    /** JDK collection or map: recreated with its content */
+    CONTAINER,
+    /** Array: recreated with its content */
+    ARRAY
+  }
+
+  /**
+   * How an empty collection or map of the JDK is recreated. The order of the constants is part of
+   * the snapshot format and may not change.
+   */
+  enum EContainerType
+  {
+    /** A new instance of the same class */
+    SAME_CLASS,
+    /** {@link ConcurrentHashMap#newKeySet()} */
+    CONCURRENT_KEY_SET,
+    /** All others are immutable JDK implementations or unmodifiable views, recreated modifiable */
+    LIST,
+    NAVIGABLE_SET,
+    SORTED_SET,
+    SET,
+    NAVIGABLE_MAP,
+    SORTED_MAP,
+    MAP,
+    COLLECTION;
+
+    private static final EContainerType [] VALUES = values ();
+
+    @Nullable
+    static EContainerType getFromOrdinalOrNull (final int nOrdinal)
+    {
+      return nOrdinal >= 0 && nOrdinal < VALUES.length ? VALUES[nOrdinal] : null;
+    }
+  }
+
+  private static final ClassValue <ModelClassInfo> CACHE = new ClassValue <> ()
+  {
+    @Override
+    protected ModelClassInfo computeValue (final Class <?> aClass)
+    {
+      return _create (aClass);
+    }
+  };
+
+  private static final Field [] NO_FIELDS = new Field [0];
+
+  /** The number of model objects that are created from one deserialization stream */
+  private static final int INSTANCES_PER_STREAM = 64;
+
+  private final Class <?> m_aClass;
+  private final EKind m_eKind;
+  private final boolean m_bContainer;
+  private final boolean m_bSerializedCopyRequired;
+  private final Constructor <?> m_aCtor;
+  private final Constructor <?> m_aComparatorCtor;
+  private final byte [] m_aInstanceTemplate;
+  private final Field [] m_aFields;
+
+  private ModelClassInfo (@NonNull final Class <?> aClass,
+                          @NonNull final EKind eKind,
+                          final boolean bSerializedCopyRequired,
+                          @Nullable final Constructor <?> aCtor,
+                          @Nullable final Constructor <?> aComparatorCtor,
+                          @Nullable final byte [] aInstanceTemplate,
+                          @NonNull final Field [] aFields)
+  {
+    m_aClass = aClass;
+    m_eKind = eKind;
+    m_bContainer = Collection.class.isAssignableFrom (aClass) || Map.class.isAssignableFrom (aClass);
+    m_bSerializedCopyRequired = bSerializedCopyRequired;
+    m_aCtor = aCtor;
+    m_aComparatorCtor = aComparatorCtor;
+    m_aInstanceTemplate = aInstanceTemplate;
+    m_aFields = aFields;
+  }
+
+  @Nullable
+  private static Constructor <?> _getPublicConstructor (@NonNull final Class <?> aClass, @NonNull final Class <?>... aParamTypes)
+  {
+    if (!Modifier.isPublic (aClass.getModifiers ()))
+      return null;
+    try
+    {
+      final Constructor <?> ret = aClass.getConstructor (aParamTypes);
+      ret.setAccessible (true);
+      return ret;
+    }
+    catch (final NoSuchMethodException | RuntimeException ex)
+    {
+      return null;
+    }
+  }
+
+  private static boolean _isLibraryClass (@NonNull final Class <?> aClass)
+  {
+    return aClass.getName ().startsWith (MODEL_PACKAGE_PREFIX);
+  }
+
+  /**
+   * @param aClass
+   *        The class to check. May not be <code>null</code>.
+   * @return <code>true</code> if the class is loaded by the boot or the platform class loader.
+   */
+  static boolean isJdkClass (@NonNull final Class <?> aClass)
+  {
+    final ClassLoader aLoader = aClass.getClassLoader ();
+    return aLoader == null || aLoader == ClassLoader.getPlatformClassLoader ();
+  }
+
+  private static boolean _isSerializationMethod (@NonNull final Method aMethod)
+  {
+    final Class <?> [] aParamTypes = aMethod.getParameterTypes ();
+    switch (aMethod.getName ())
+    {
+      case "writeObject":
+        return aParamTypes.length == 1 && aParamTypes[0] == ObjectOutputStream.class;
+      case "readObject":
+        return aParamTypes.length == 1 && aParamTypes[0] == ObjectInputStream.class;
+      case "readObjectNoData":
+      case "writeReplace":
+      case "readResolve":
+        return aParamTypes.length == 0;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * @return <code>true</code> if a class customizes its serialization, so that copying it field by
+   *         field would not be equivalent. {@link JCodeModel} only initializes its transient fields.
+   */
+  private static boolean _hasCustomSerialization (@NonNull final Class <?> aClass)
+  {
+    if (Externalizable.class.isAssignableFrom (aClass))
+      return true;
+    for (Class <?> c = aClass; c != null && !isJdkClass (c); c = c.getSuperclass ())
+      if (c != JCodeModel.class)
+        for (final Method aMethod : c.getDeclaredMethods ())
+          if (_isSerializationMethod (aMethod))
+            return true;
+    return false;
+  }
+
+  /**
+   * A stream with {@link #INSTANCES_PER_STREAM} objects of the provided class. The class
+   * descriptor declares neither fields nor super classes, so like for an added class in the
+   * serialization specification all fields keep their default values.
+   */
+  @NonNull
+  private static byte [] _createInstanceTemplate (@NonNull final Class <?> aClass)
+  {
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    try (final DataOutputStream aDOS = new DataOutputStream (aBAOS))
+    {
+      aDOS.writeShort (ObjectStreamConstants.STREAM_MAGIC);
+      aDOS.writeShort (ObjectStreamConstants.STREAM_VERSION);
+      aDOS.writeByte (ObjectStreamConstants.TC_OBJECT);
+      aDOS.writeByte (ObjectStreamConstants.TC_CLASSDESC);
+      aDOS.writeUTF (aClass.getName ());
+      aDOS.writeLong (ObjectStreamClass.lookup (aClass).getSerialVersionUID ());
+      aDOS.writeByte (ObjectStreamConstants.SC_SERIALIZABLE);
+      aDOS.writeShort (0);
+      aDOS.writeByte (ObjectStreamConstants.TC_ENDBLOCKDATA);
+      aDOS.writeByte (ObjectStreamConstants.TC_NULL);
+      for (int i = 1; i < INSTANCES_PER_STREAM; ++i)
+      {
+        // The class descriptor has the first handle of the stream
+        aDOS.writeByte (ObjectStreamConstants.TC_OBJECT);
+        aDOS.writeByte (ObjectStreamConstants.TC_REFERENCE);
+        aDOS.writeInt (ObjectStreamConstants.baseWireHandle);
+      }
+    }
+    catch (final IOException ex)
+    {
+      throw new UncheckedIOException (ex);
+    }
+    return aBAOS.toByteArray ();
+  }
+
+  @Nullable
+  private static ModelClassInfo _createModel (@NonNull final Class <?> aClass)
+  {
+    if (_hasCustomSerialization (aClass))
+      return null;
+    final boolean bLibrary = _isLibraryClass (aClass);
+
+    final List <Field> aFields = new ArrayList <> ();
+    Class <?> c = aClass;
+    for (; c != null && Serializable.class.isAssignableFrom (c) && !isJdkClass (c); c = c.getSuperclass ())
+      for (final Field aField : c.getDeclaredFields ())
+      {
+        final int nMods = aField.getModifiers ();
+        if (!Modifier.isStatic (nMods) && !Modifier.isTransient (nMods))
+        {
+          aField.setAccessible (true);
+          aFields.add (aField);
+        }
+      }
+
+    Constructor <?> aCtor = null;
+    byte [] aInstanceTemplate = null;
+    if (c != null && Serializable.class.isAssignableFrom (c))
+    {
+      // A serializable JDK class like the ArrayList of JCommentPart needs its own deserialization,
+      // so the own constructor is used. This is only known to be safe for classes of this library.
+      if (!bLibrary)
+        return null;
+      try
+      {
+        aCtor = aClass.getDeclaredConstructor ();
+        aCtor.setAccessible (true);
+      }
+      catch (final NoSuchMethodException ex)
+      {
+        throw new IllegalStateException ("Cannot instantiate " + aClass.getName (), ex);
+      }
+    }
+    else
+      aInstanceTemplate = _createInstanceTemplate (aClass);
+
+    final ModelClassInfo ret = new ModelClassInfo (aClass,
+                                                   EKind.MODEL,
+                                                   false,
+                                                   aCtor,
+                                                   null,
+                                                   aInstanceTemplate,
+                                                   aFields.toArray (NO_FIELDS));
+    if (aInstanceTemplate != null)
+      try
+      {
+        // Fails e.g. if the first non-serializable super class has no accessible no-arg constructor
+        ret._openInstanceStream ().readObject ();
+      }
+      catch (final IOException | ClassNotFoundException ex)
+      {
+        if (bLibrary)
+          throw new IllegalStateException ("Cannot instantiate " + aClass.getName (), ex);
+        return null;
+      }
+    return ret;
+  }
+
+  @NonNull
+  private static ModelClassInfo _create (@NonNull final Class <?> aClass)
+  {
+    if (aClass.isArray ())
+      return new ModelClassInfo (aClass, EKind.ARRAY, false, null, null, null, NO_FIELDS);
+
+    final boolean bContainer = Collection.class.isAssignableFrom (aClass) || Map.class.isAssignableFrom (aClass);
+    final boolean bSerializableNonJdk = Serializable.class.isAssignableFrom (aClass) &&
+                                      !isJdkClass (aClass) &&
+                                      !Enum.class.isAssignableFrom (aClass) &&
+                                      !aClass.isSynthetic () &&
+                                      !aClass.isHidden ();
+    if (bSerializableNonJdk && !aClass.isRecord () && (_isLibraryClass (aClass) || !bContainer))
+    {
+      final ModelClassInfo ret = _createModel (aClass);
+      if (ret != null)
+        return ret;
+    }
+
+    if (bContainer)
+      return new ModelClassInfo (aClass,
+                                 EKind.CONTAINER,
+                                 false,
+                                 _getPublicConstructor (aClass),
+                                 _getPublicConstructor (aClass, Comparator.class),
+                                 null,
+                                 NO_FIELDS);
+    // Other serializable classes of the user can only be copied with serialization
+    return new ModelClassInfo (aClass, EKind.SHARED, bSerializableNonJdk, null, null, null, NO_FIELDS);
+  }
+
+  @NonNull
+  static ModelClassInfo get (@NonNull final Class <?> aClass)
+  {
+    return CACHE.get (aClass);
+  }
+
+  @NonNull
+  Class <?> getHandledClass ()
+  {
+    return m_aClass;
+  }
+
+  @NonNull
+  EKind getKind ()
+  {
+    return m_eKind;
+  }
+
+  /**
+   * @return <code>true</code> for shared objects of serializable classes outside of the JDK that
+   *         can't be copied field by field, e.g. because they customize their serialization. A
+   *         model containing them can only be copied with serialization.
+   */
+  boolean isSerializedCopyRequired ()
+  {
+    return m_bSerializedCopyRequired;
+  }
+
+  /**
+   * @return <code>true</code> if objects of this class are collections or maps. This may also be
+   *         the case for model objects, like {@link JCommentPart}.
+   */
+  boolean isContainer ()
+  {
+    return m_bContainer;
+  }
+
+  /**
+   * @return The non-static, non-transient fields of a model class, including the ones of the
+   *         super classes. Empty for all other kinds.
+   */
+  @NonNull
+  Field [] getFields ()
+  {
+    return m_aFields;
+  }
+
+  @NonNull
+  private static Object _instantiate (@NonNull final Constructor <?> aCtor, @NonNull final Object... aArgs)
+  {
+    try
+    {
+      return aCtor.newInstance (aArgs);
+    }
+    catch (final InstantiationException | IllegalAccessException | InvocationTargetException ex)
+    {
+      throw new IllegalStateException ("Failed to instantiate " + aCtor.getDeclaringClass ().getName (), ex);
+    }
+  }
+
+  @NonNull
+  private ObjectInputStream _openInstanceStream () throws IOException
+  {
+    return new ObjectInputStream (new ByteArrayInputStream (m_aInstanceTemplate))
+    {
+      @Override
+      protected Class <?> resolveClass (@NonNull final ObjectStreamClass aDesc)
+      {
+        // Independent of the class loader of the caller
+        return m_aClass;
+      }
+    };
+  }
+
+  /**
+   * Creates the objects of model classes like deserialization: without running the constructors
+   * of serializable classes and with all fields having their default values. Setting up the
+   * deserialization is expensive, so it is shared by several objects of the same class. Every
+   * copy or read operation uses its own instance.
+   */
+  @NotThreadSafe
+  static final class ModelInstantiator
+  {
+    private static final class Batch
+    {
+      private ObjectInputStream m_aOIS;
+      private int m_nRemaining;
+    }
+
+    private final Map <ModelClassInfo, Batch> m_aBatches = new IdentityHashMap <> ();
+
+    /**
+     * @param aInfo
+     *        The information of a model class. May not be <code>null</code>.
+     * @return A new object of the model class. Never <code>null</code>.
+     */
+    @NonNull
+    Object newInstance (@NonNull final ModelClassInfo aInfo)
+    {
+      if (aInfo.m_eKind != EKind.MODEL)
+        throw new IllegalStateException (aInfo.m_aClass.getName () + " is not a model class");
+      if (aInfo.m_aCtor != null)
+        return _instantiate (aInfo.m_aCtor);
+
+      final Batch aBatch = m_aBatches.computeIfAbsent (aInfo, k -> new Batch ());
+      try
+      {
+        if (aBatch.m_nRemaining == 0)
+        {
+          aBatch.m_aOIS = aInfo._openInstanceStream ();
+          aBatch.m_nRemaining = INSTANCES_PER_STREAM;
+        }
+        aBatch.m_nRemaining--;
+        return aBatch.m_aOIS.readObject ();
+      }
+      catch (final IOException | ClassNotFoundException ex)
+      {
+        throw new IllegalStateException ("Failed to instantiate " + aInfo.m_aClass.getName (), ex);
+      }
+    }
+  }
+
+  private boolean _canCreateSameClass (@Nullable final Comparator <?> aComparator)
+  {
+    return aComparator != null ? m_aComparatorCtor != null : m_aCtor != null;
+  }
+
+  @Nullable
+  static Comparator <?> getComparator (@NonNull final Object aContainer)
+  {
+    if (aContainer instanceof SortedMap <?, ?>)
+      return ((SortedMap <?, ?>) aContainer).comparator ();
+    if (aContainer instanceof SortedSet <?>)
+      return ((SortedSet <?>) aContainer).comparator ();
+    return null;
+  }
+
+  /**
+   * Determine how a JDK collection or map can be recreated.
+   *
+   * @param aContainer
+   *        The JDK collection or map. May not be <code>null</code>.
+   * @param aComparator
+   *        The comparator of the container. May be <code>null</code>.
+   * @return Never <code>null</code>.
+   */
+  @NonNull
+  EContainerType getContainerType (@NonNull final Object aContainer, @Nullable final Comparator <?> aComparator)
+  {
+    if (m_eKind == EKind.CONTAINER && _canCreateSameClass (aComparator))
+      return EContainerType.SAME_CLASS;
+    if (aContainer instanceof ConcurrentHashMap.KeySetView <?, ?>)
+      return EContainerType.CONCURRENT_KEY_SET;
+    if (aContainer instanceof List <?>)
+      return EContainerType.LIST;
+    if (aContainer instanceof NavigableSet <?>)
+      return EContainerType.NAVIGABLE_SET;
+    if (aContainer instanceof SortedSet <?>)
+      return EContainerType.SORTED_SET;
+    if (aContainer instanceof Set <?>)
+      return EContainerType.SET;
+    if (aContainer instanceof NavigableMap <?, ?>)
+      return EContainerType.NAVIGABLE_MAP;
+    if (aContainer instanceof SortedMap <?, ?>)
+      return EContainerType.SORTED_MAP;
+    if (aContainer instanceof Map <?, ?>)
+      return EContainerType.MAP;
+    return EContainerType.COLLECTION;
+  }
+
+  /**
+   * @param eType
+   *        The container type. May not be <code>null</code>.
+   * @return The class of the containers that {@link #createContainer(EContainerType, ModelClassInfo, Comparator)}
+   *         creates for the type instead of the original class. <code>null</code> for
+   *         {@link EContainerType#SAME_CLASS} and {@link EContainerType#CONCURRENT_KEY_SET}.
+   */
+  @Nullable
+  static Class <?> getReplacementClass (@NonNull final EContainerType eType)
+  {
+    switch (eType)
+    {
+      case LIST:
+      case COLLECTION:
+        return ArrayList.class;
+      case NAVIGABLE_SET:
+      case SORTED_SET:
+        return TreeSet.class;
+      case SET:
+        return LinkedHashSet.class;
+      case NAVIGABLE_MAP:
+      case SORTED_MAP:
+        return TreeMap.class;
+      case MAP:
+        return LinkedHashMap.class;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Create an empty container. Immutable JDK collections and unmodifiable views can't be recreated
+   * as they are, so modifiable collections and maps with the same ordering are used instead.
+   *
+   * @param eType
+   *        The type of container to create. May not be <code>null</code>.
+   * @param aSameClass
+   *        The class information of the original container. Only used for
+   *        {@link EContainerType#SAME_CLASS}. May be <code>null</code> otherwise.
+   * @param aComparator
+   *        The comparator to use for sorted containers. May be <code>null</code>.
+   * @return The new, modifiable collection or map. Never <code>null</code>.
+   */
+  @NonNull
+  @SuppressWarnings ({ "unchecked", "rawtypes" })
+  static Object createContainer (@NonNull final EContainerType eType,
+                                 @Nullable final ModelClassInfo aSameClass,
+                                 @Nullable final Comparator <?> aComparator)
+  {
+    switch (eType)
+    {
+      case SAME_CLASS:
+        if (aSameClass == null || !aSameClass._canCreateSameClass (aComparator))
+          throw new IllegalStateException ("Cannot instantiate " + (aSameClass == null ? "null" : aSameClass.m_aClass.getName ()));
+        return aComparator != null ? _instantiate (aSameClass.m_aComparatorCtor, aComparator)
+                                   : _instantiate (aSameClass.m_aCtor);
+      case CONCURRENT_KEY_SET:
+        return ConcurrentHashMap.newKeySet ();
+      case LIST:
+      case COLLECTION:
+        return new ArrayList <> ();
+      case NAVIGABLE_SET:
+      case SORTED_SET:
+        return new TreeSet <> ((Comparator) aComparator);
+      case SET:
+        return new LinkedHashSet <> ();
+      case NAVIGABLE_MAP:
+      case SORTED_MAP:
+        return new TreeMap <> ((Comparator) aComparator);
+      case MAP:
+        return new LinkedHashMap <> ();
+      default:
+        throw new IllegalStateException ("Unsupported container type " + eType);
+    }
+  }
+
+  /**
+   * @param aContainer
+   *        The collection or map to check. May not be <code>null</code>.
+   * @return <code>true</code> if the iteration order of the container is defined by its content or
+   *         by the order of insertion, and not by hash codes.
+   */
+  static boolean isOrdered (@NonNull final Object aContainer)
+  {
+    return aContainer instanceof List <?> ||
+           aContainer instanceof SortedSet <?> ||
+           aContainer instanceof SortedMap <?, ?> ||
+           aContainer instanceof LinkedHashSet <?> ||
+           aContainer instanceof LinkedHashMap <?, ?>;
+  }
+
+  /**
+   * @param aContainer
+   *        The collection or map to be filled. May not be <code>null</code>.
+   * @return <code>true</code> if the container neither depends on hash codes nor on comparisons of
+   *         its elements and can therefore be filled before the elements are complete.
+   */
+  static boolean isOrderIndependentOfContent (@NonNull final Object aContainer)
+  {
+    return aContainer instanceof List <?> || aContainer instanceof IdentityHashMap <?, ?>;
+  }
+
+  /**
+   * Add content to a collection or map.
+   *
+   * @param aContainer
+   *        The modifiable collection or map. May not be <code>null</code>.
+   * @param aContent
+   *        For maps alternating keys and values, for collections the elements.
+   */
+  @SuppressWarnings ("unchecked")
+  static void addContent (@NonNull final Object aContainer, @NonNull final Object [] aContent)
+  {
+    if (aContainer instanceof Map <?, ?>)
+    {
+      final Map <Object, Object> aMap = (Map <Object, Object>) aContainer;
+      for (int i = 0; i < aContent.length; i += 2)
+        aMap.put (aContent[i], aContent[i + 1]);
+    }
+    else
+    {
+      final Collection <Object> aCollection = (Collection <Object>) aContainer;
+      for (final Object aElement : aContent)
+        aCollection.add (aElement);
+    }
+  }
+}
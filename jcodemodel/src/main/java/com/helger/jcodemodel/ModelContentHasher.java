@@ -0,0 +1,677 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
+import com.helger.jcodemodel.ModelClassInfo.EKind;
+
+/**
+ * Computes the structural content hashes of {@link JDefinedClass}, {@link JPackage} and
+ * {@link JCodeModel}. The object graph below the hashed node is walked in a canonical order, so the
+ * hash only depends on the content and not on object identities, and unordered collections are
+ * hashed independent of their iteration order. Objects that are reached more than once are hashed
+ * as back references, which also handles cycles.
+ * <p>
+ * The walk stops at other declarations: classes that are not nested in the hashed class, and their
+ * fields and methods, only contribute their names. The owning {@link JCodeModel} and packages other
+ * than the hashed one are not walked either. Packages and models combine the hashes of their
+ * classes and packages, so all hashes are computed bottom-up.
+ * <p>
+ * The hashes are stable across runs and JVMs for the same version of this library. Objects of
+ * serializable classes outside of the JDK are walked like model objects. Other values that are not
+ * part of the model, like the content of a {@link com.helger.jcodemodel.fmt.JSerializedObject},
+ * are hashed via their serialized form, or via their string representation if they are not
+ * serializable.
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+@NotThreadSafe
+final class ModelContentHasher
+{
+  private static final String ALGORITHM = "SHA-256";
+
+  // Tags in the hashed stream
+  private static final byte TAG_NULL = 0;
+  private static final byte TAG_BACK_REF = 1;
+  private static final byte TAG_MODEL = 2;
+  private static final byte TAG_ORDERED = 3;
+  private static final byte TAG_UNORDERED = 4;
+  private static final byte TAG_ARRAY = 5;
+  private static final byte TAG_DECLARATION = 6;
+  private static final byte TAG_STRING = 7;
+  private static final byte TAG_BOOLEAN = 8;
+  private static final byte TAG_NUMBER = 9;
+  private static final byte TAG_CHAR = 10;
+  private static final byte TAG_ENUM = 11;
+  private static final byte TAG_CLASS = 12;
+  private static final byte TAG_BYTES = 13;
+  private static final byte TAG_OTHER = 14;
+
+  /**
+   * The fields of model classes, in a canonical order. Classes that can only be copied with
+   * serialization may keep their state in transient fields, so all their instance fields are used.
+   */
+  private static final ClassValue <Field []> SORTED_FIELDS = new ClassValue <> ()
+  {
+    @Override
+    protected Field [] computeValue (final Class <?> aClass)
+    {
+      final ModelClassInfo aInfo = ModelClassInfo.get (aClass);
+      final Field [] ret;
+      if (aInfo.getKind () == EKind.MODEL)
+        ret = aInfo.getFields ().clone ();
+      else
+      {
+        final List <Field> aFields = new ArrayList <> ();
+        for (Class <?> c = aClass; c != null && !ModelClassInfo.isJdkClass (c); c = c.getSuperclass ())
+          for (final Field aField : c.getDeclaredFields ())
+            if (!Modifier.isStatic (aField.getModifiers ()))
+            {
+              aField.setAccessible (true);
+              aFields.add (aField);
+            }
+        ret = aFields.toArray (new Field [0]);
+      }
+      Arrays.sort (ret,
+                   Comparator.comparing ((final Field f) -> f.getDeclaringClass ().getName ())
+                             .thenComparing (Field::getName));
+      return ret;
+    }
+  };
+
+  /** A stable identifier of each class, derived from its name */
+  private static final ClassValue <Long> CLASS_IDS = new ClassValue <> ()
+  {
+    @Override
+    protected Long computeValue (final Class <?> aClass)
+    {
+      final DigestSink aSink = new DigestSink ();
+      aSink.putString (aClass.getName ());
+      final byte [] aHash = aSink.digest ();
+      long ret = 0;
+      for (int i = 0; i < 8; ++i)
+        ret = (ret << 8) | (aHash[i] & 0xff);
+      return Long.valueOf (ret);
+    }
+  };
+
+  /** A message digest with a small buffer in front */
+  private static final class DigestSink
+  {
+    private final MessageDigest m_aDigest;
+    private final byte [] m_aBuffer = new byte [1024];
+    private int m_nSize;
+
+    DigestSink ()
+    {
+      try
+      {
+        m_aDigest = MessageDigest.getInstance (ALGORITHM);
+      }
+      catch (final NoSuchAlgorithmException ex)
+      {
+        throw new IllegalStateException (ALGORITHM + " is not supported", ex);
+      }
+    }
+
+    private void _flush ()
+    {
+      m_aDigest.update (m_aBuffer, 0, m_nSize);
+      m_nSize = 0;
+    }
+
+    void putByte (final int n)
+    {
+      if (m_nSize == m_aBuffer.length)
+        _flush ();
+      m_aBuffer[m_nSize++] = (byte) n;
+    }
+
+    void putInt (final int n)
+    {
+      putByte (n >>> 24);
+      putByte (n >>> 16);
+      putByte (n >>> 8);
+      putByte (n);
+    }
+
+    void putLong (final long n)
+    {
+      putInt ((int) (n >>> 32));
+      putInt ((int) n);
+    }
+
+    void putString (@NonNull final String s)
+    {
+      final int nLength = s.length ();
+      putInt (nLength);
+      int nIndex = 0;
+      while (nIndex < nLength)
+      {
+        if (m_aBuffer.length - m_nSize < 2)
+          _flush ();
+        final int nEnd = Math.min (nLength, nIndex + (m_aBuffer.length - m_nSize) / 2);
+        for (; nIndex < nEnd; ++nIndex)
+        {
+          final char c = s.charAt (nIndex);
+          m_aBuffer[m_nSize++] = (byte) (c >>> 8);
+          m_aBuffer[m_nSize++] = (byte) c;
+        }
+      }
+    }
+
+    void putBytes (@NonNull final byte [] aBytes)
+    {
+      putInt (aBytes.length);
+      _flush ();
+      m_aDigest.update (aBytes);
+    }
+
+    @NonNull
+    byte [] digest ()
+    {
+      _flush ();
+      return m_aDigest.digest ();
+    }
+  }
+
+  private final Object m_aRoot;
+  private final Map <Object, Integer> m_aVisited = new IdentityHashMap <> (256);
+  private final List <Object> m_aVisitOrder = new ArrayList <> ();
+  private DigestSink m_aSink = new DigestSink ();
+
+  private ModelContentHasher (@NonNull final Object aRoot)
+  {
+    m_aRoot = aRoot;
+  }
+
+  private boolean _isWalked (@NonNull final JDefinedClass aClass)
+  {
+    if (aClass == m_aRoot || aClass.isAnonymous ())
+      return true;
+    // Nested classes are part of their outer class
+    IJClassContainer <?> aOuter = aClass.getOuter ();
+    while (aOuter instanceof JDefinedClass)
+    {
+      if (aOuter == m_aRoot)
+        return true;
+      aOuter = ((JDefinedClass) aOuter).getOuter ();
+    }
+    return false;
+  }
+
+  /**
+   * Hash references to other declarations by name only.
+   *
+   * @return <code>true</code> if the object was hashed, <code>false</code> if its content needs to
+   *         be walked.
+   */
+  private boolean _hashDeclarationReference (@NonNull final Object aObj)
+  {
+    if (aObj == m_aRoot)
+      return false;
+
+    if (aObj instanceof JCodeModel)
+    {
+      m_aSink.putByte (TAG_DECLARATION);
+      m_aSink.putString (JCodeModel.class.getName ());
+      return true;
+    }
+    if (aObj instanceof JPackage)
+    {
+      m_aSink.putByte (TAG_DECLARATION);
+      m_aSink.putString (JPackage.class.getName ());
+      m_aSink.putString (((JPackage) aObj).name ());
+      return true;
+    }
+    if (aObj instanceof JResourceDir)
+    {
+      m_aSink.putByte (TAG_DECLARATION);
+      m_aSink.putString (JResourceDir.class.getName ());
+      m_aSink.putString (((JResourceDir) aObj).name ());
+      return true;
+    }
+    if (aObj instanceof JDefinedClass)
+    {
+      final JDefinedClass aClass = (JDefinedClass) aObj;
+      if (_isWalked (aClass))
+        return false;
+      m_aSink.putByte (TAG_DECLARATION);
+      m_aSink.putString (JDefinedClass.class.getName ());
+      m_aSink.putString (aClass.fullName ());
+      return true;
+    }
+    if (aObj instanceof JMethod)
+    {
+      final JMethod aMethod = (JMethod) aObj;
+      if (_isWalked (aMethod.owningClass ()))
+        return false;
+      m_aSink.putByte (TAG_DECLARATION);
+      m_aSink.putString (JMethod.class.getName ());
+      m_aSink.putString (aMethod.owningClass ().fullName ());
+      m_aSink.putString (aMethod.name ());
+      final AbstractJType [] aParamTypes = aMethod.listParamTypes ();
+      m_aSink.putInt (aParamTypes.length);
+      for (final AbstractJType aParamType : aParamTypes)
+        m_aSink.putString (aParamType.fullName ());
+      return true;
+    }
+    if (aObj instanceof JFieldVar)
+    {
+      final JFieldVar aField = (JFieldVar) aObj;
+      if (_isWalked (aField.owner ()))
+        return false;
+      m_aSink.putByte (TAG_DECLARATION);
+      m_aSink.putString (JFieldVar.class.getName ());
+      m_aSink.putString (aField.owner ().fullName ());
+      m_aSink.putString (aField.name ());
+      return true;
+    }
+    return false;
+  }
+
+  private void _hashValue (@NonNull final Object aValue)
+  {
+    if (aValue instanceof String)
+    {
+      m_aSink.putByte (TAG_STRING);
+      m_aSink.putString ((String) aValue);
+    }
+    else
+      if (aValue instanceof Boolean)
+      {
+        m_aSink.putByte (TAG_BOOLEAN);
+        m_aSink.putByte (((Boolean) aValue).booleanValue () ? 1 : 0);
+      }
+      else
+        if (aValue instanceof Character)
+        {
+          m_aSink.putByte (TAG_CHAR);
+          m_aSink.putInt (((Character) aValue).charValue ());
+        }
+        else
+          if (aValue instanceof Byte || aValue instanceof Short || aValue instanceof Integer || aValue instanceof Long)
+          {
+            m_aSink.putByte (TAG_NUMBER);
+            m_aSink.putString (aValue.getClass ().getName ());
+            m_aSink.putLong (((Number) aValue).longValue ());
+          }
+          else
+            if (aValue instanceof Float)
+            {
+              m_aSink.putByte (TAG_NUMBER);
+              m_aSink.putString (Float.class.getName ());
+              m_aSink.putInt (Float.floatToIntBits (((Float) aValue).floatValue ()));
+            }
+            else
+              if (aValue instanceof Double)
+              {
+                m_aSink.putByte (TAG_NUMBER);
+                m_aSink.putString (Double.class.getName ());
+                m_aSink.putLong (Double.doubleToLongBits (((Double) aValue).doubleValue ()));
+              }
+              else
+                if (aValue instanceof Enum <?>)
+                {
+                  m_aSink.putByte (TAG_ENUM);
+                  m_aSink.putString (((Enum <?>) aValue).getDeclaringClass ().getName ());
+                  m_aSink.putString (((Enum <?>) aValue).name ());
+                }
+                else
+                  if (aValue instanceof Class <?>)
+                  {
+                    m_aSink.putByte (TAG_CLASS);
+                    m_aSink.putString (((Class <?>) aValue).getName ());
+                  }
+                  else
+                    if (aValue instanceof Charset)
+                    {
+                      m_aSink.putByte (TAG_OTHER);
+                      m_aSink.putString (Charset.class.getName ());
+                      m_aSink.putString (((Charset) aValue).name ());
+                    }
+                    else
+                      if (aValue instanceof NonBlockingByteArrayOutputStream)
+                      {
+                        m_aSink.putByte (TAG_BYTES);
+                        m_aSink.putBytes (((NonBlockingByteArrayOutputStream) aValue).toByteArray ());
+                      }
+                      else
+                      {
+                        byte [] aSerialized = null;
+                        if (aValue instanceof Serializable)
+                        {
+                          final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+                          try (final ObjectOutputStream aOOS = new ObjectOutputStream (aBAOS))
+                          {
+                            aOOS.writeObject (aValue);
+                            aSerialized = aBAOS.toByteArray ();
+                          }
+                          catch (final IOException ex)
+                          {
+                            // Not serializable after all
+                          }
+                        }
+                        if (aSerialized != null)
+                        {
+                          m_aSink.putByte (TAG_BYTES);
+                          m_aSink.putBytes (aSerialized);
+                        }
+                        else
+                        {
+                          m_aSink.putByte (TAG_OTHER);
+                          m_aSink.putString (aValue.getClass ().getName ());
+                          m_aSink.putString (String.valueOf (aValue));
+                        }
+                      }
+  }
+
+  private void _hashContent (@NonNull final Object aContainer)
+  {
+    if (ModelClassInfo.isOrdered (aContainer))
+    {
+      m_aSink.putByte (TAG_ORDERED);
+      if (aContainer instanceof Map <?, ?>)
+      {
+        final Map <?, ?> aMap = (Map <?, ?>) aContainer;
+        m_aSink.putInt (aMap.size () * 2);
+        for (final Map.Entry <?, ?> aEntry : aMap.entrySet ())
+        {
+          _hash (aEntry.getKey ());
+          _hash (aEntry.getValue ());
+        }
+      }
+      else
+      {
+        final Collection <?> aCollection = (Collection <?>) aContainer;
+        m_aSink.putInt (aCollection.size ());
+        for (final Object aElement : aCollection)
+          _hash (aElement);
+      }
+      return;
+    }
+
+    final Object [] aContent;
+    final int nEntrySize;
+    if (aContainer instanceof Map <?, ?>)
+    {
+      final Map <?, ?> aMap = (Map <?, ?>) aContainer;
+      aContent = new Object [aMap.size () * 2];
+      int i = 0;
+      for (final Map.Entry <?, ?> aEntry : aMap.entrySet ())
+      {
+        aContent[i++] = aEntry.getKey ();
+        aContent[i++] = aEntry.getValue ();
+      }
+      nEntrySize = 2;
+    }
+    else
+    {
+      aContent = ((Collection <?>) aContainer).toArray ();
+      nEntrySize = 1;
+    }
+
+    // Hash each entry separately and combine the sorted entry hashes. Objects first reached within
+    // an entry are forgotten afterwards, so that back references don't depend on the iteration
+    // order.
+    final byte [] [] aEntryHashes = new byte [aContent.length / nEntrySize] [];
+    final DigestSink aOuterSink = m_aSink;
+    final int nVisitMark = m_aVisitOrder.size ();
+    for (int i = 0; i < aEntryHashes.length; ++i)
+    {
+      m_aSink = new DigestSink ();
+      for (int j = 0; j < nEntrySize; ++j)
+        _hash (aContent[i * nEntrySize + j]);
+      aEntryHashes[i] = m_aSink.digest ();
+      while (m_aVisitOrder.size () > nVisitMark)
+        m_aVisited.remove (m_aVisitOrder.remove (m_aVisitOrder.size () - 1));
+    }
+    m_aSink = aOuterSink;
+
+    Arrays.sort (aEntryHashes, Arrays::compare);
+    m_aSink.putByte (TAG_UNORDERED);
+    m_aSink.putInt (aEntryHashes.length);
+    for (final byte [] aEntryHash : aEntryHashes)
+      m_aSink.putBytes (aEntryHash);
+  }
+
+  private void _hashFields (@NonNull final Object aObj, @Nullable final Object aSkippedValue)
+  {
+    try
+    {
+      for (final Field aField : SORTED_FIELDS.get (aObj.getClass ()))
+      {
+        final Object aValue = aField.get (aObj);
+        _hash (aValue == aSkippedValue && aValue != null ? null : aValue);
+      }
+    }
+    catch (final IllegalAccessException ex)
+    {
+      throw new IllegalStateException ("Failed to read " + aObj.getClass ().getName (), ex);
+    }
+  }
+
+  private void _hash (@Nullable final Object aObj)
+  {
+    if (aObj == null)
+    {
+      m_aSink.putByte (TAG_NULL);
+      return;
+    }
+
+    final ModelClassInfo aInfo = ModelClassInfo.get (aObj.getClass ());
+    if (aInfo.getKind () == EKind.SHARED && !aInfo.isSerializedCopyRequired ())
+    {
+      _hashValue (aObj);
+      return;
+    }
+
+    // Members are created lazily, also by read-only accessors. So empty ones are treated like
+    // missing ones.
+    if (aInfo.getKind () == EKind.CONTAINER &&
+        (aObj instanceof Collection <?> ? ((Collection <?>) aObj).isEmpty () : ((Map <?, ?>) aObj).isEmpty ()))
+    {
+      m_aSink.putByte (TAG_NULL);
+      return;
+    }
+    if (aObj instanceof JDocComment && ((JDocComment) aObj).isEmptyIncludingTags ())
+    {
+      m_aSink.putByte (TAG_NULL);
+      return;
+    }
+
+    final Integer aVisitIndex = m_aVisited.get (aObj);
+    if (aVisitIndex != null)
+    {
+      m_aSink.putByte (TAG_BACK_REF);
+      m_aSink.putInt (aVisitIndex.intValue ());
+      return;
+    }
+    if (aInfo.getKind () == EKind.MODEL && _hashDeclarationReference (aObj))
+      return;
+
+    m_aVisited.put (aObj, Integer.valueOf (m_aVisitOrder.size ()));
+    m_aVisitOrder.add (aObj);
+
+    switch (aInfo.getKind ())
+    {
+      case SHARED:
+        // A class outside of the JDK that customizes its serialization. Walking it like a model
+        // object is faster than serializing it, and doesn't depend on the iteration order of
+        // hash based containers.
+        m_aSink.putByte (TAG_MODEL);
+        m_aSink.putLong (CLASS_IDS.get (aObj.getClass ()).longValue ());
+        _hashFields (aObj, null);
+        break;
+      case MODEL:
+        m_aSink.putByte (TAG_MODEL);
+        m_aSink.putLong (CLASS_IDS.get (aObj.getClass ()).longValue ());
+        _hashFields (aObj, null);
+        // e.g. JCommentPart
+        if (aInfo.isContainer ())
+          _hashContent (aObj);
+        break;
+      case CONTAINER:
+        _hashContent (aObj);
+        break;
+      case ARRAY:
+      {
+        m_aSink.putByte (TAG_ARRAY);
+        m_aSink.putString (aObj.getClass ().getComponentType ().getName ());
+        final int nLength = Array.getLength (aObj);
+        m_aSink.putInt (nLength);
+        for (int i = 0; i < nLength; ++i)
+          _hash (Array.get (aObj, i));
+        break;
+      }
+      default:
+        throw new IllegalStateException ("Unexpected kind " + aInfo.getKind ());
+    }
+  }
+
+  @NonNull
+  static String toHex (@NonNull final byte [] aHash)
+  {
+    return HexFormat.of ().formatHex (aHash);
+  }
+
+  /**
+   * @param aClass
+   *        The class to hash. May not be <code>null</code>.
+   * @return The hash of the class including its nested classes. Never <code>null</code>.
+   */
+  @NonNull
+  static byte [] hashClass (@NonNull final JDefinedClass aClass)
+  {
+    final ModelContentHasher aHasher = new ModelContentHasher (aClass);
+    aHasher._hash (aClass);
+    return aHasher.m_aSink.digest ();
+  }
+
+  /**
+   * @param aPackage
+   *        The package to hash. May not be <code>null</code>.
+   * @param bIncludeClasses
+   *        <code>true</code> to include all classes of the package, <code>false</code> to only hash
+   *        the package declaration (annotations and Javadoc).
+   * @return The hash of the package. Never <code>null</code>.
+   */
+  @NonNull
+  static byte [] hashPackage (@NonNull final JPackage aPackage, final boolean bIncludeClasses)
+  {
+    final ModelContentHasher aHasher = new ModelContentHasher (aPackage);
+    aHasher.m_aVisited.put (aPackage, Integer.valueOf (0));
+    aHasher.m_aVisitOrder.add (aPackage);
+    final DigestSink aSink = aHasher.m_aSink;
+    aSink.putByte (TAG_MODEL);
+    aSink.putString (JPackage.class.getName ());
+    // The classes are combined from their own hashes
+    final Map <?, JDefinedClass> aClasses = aPackage.internalGetClassMap ();
+    aHasher._hashFields (aPackage, aClasses);
+    if (bIncludeClasses)
+    {
+      aSink.putInt (aClasses.size ());
+      for (final JDefinedClass aClass : aClasses.values ())
+      {
+        aSink.putString (aClass.name ());
+        aSink.putBytes (hashClass (aClass));
+      }
+    }
+    return aSink.digest ();
+  }
+
+  /**
+   * @param aCM
+   *        The code model to hash. May not be <code>null</code>.
+   * @return The hash of all packages and resource directories. Never <code>null</code>.
+   */
+  @NonNull
+  static byte [] hashCodeModel (@NonNull final JCodeModel aCM)
+  {
+    final DigestSink aSink = new DigestSink ();
+    aSink.putByte (TAG_MODEL);
+    aSink.putString (JCodeModel.class.getName ());
+    final List <JPackage> aPackages = aCM.getAllPackages ();
+    for (final JPackage aPackage : aPackages)
+    {
+      // Packages are also created when classes are referenced
+      if (aPackage.internalIsEmpty ())
+        continue;
+      aSink.putByte (1);
+      aSink.putString (aPackage.name ());
+      aSink.putBytes (hashPackage (aPackage, true));
+    }
+    aSink.putByte (0);
+    final List <JResourceDir> aResourceDirs = aCM.getAllResourceDirs ();
+    aSink.putInt (aResourceDirs.size ());
+    for (final JResourceDir aResourceDir : aResourceDirs)
+    {
+      final ModelContentHasher aHasher = new ModelContentHasher (aResourceDir);
+      aHasher._hash (aResourceDir);
+      aSink.putBytes (aHasher.m_aSink.digest ());
+    }
+    return aSink.digest ();
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.ThreadSafe;
+
+/**
+ * Per {@link JCodeModel} cache of the type hierarchy, used by
+ * {@link AbstractJType#isAssignableFrom(AbstractJType)}. It contains the erasures of all supertypes
+ * of a class and the results of previous assignability checks. Only types whose hierarchy can only
+ * change via {@link JDefinedClass} are cached, so the cache is cleared whenever a
+ * {@link JDefinedClass} changes its super class, interfaces or type parameters.
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+@ThreadSafe
+final class TypeHierarchyCache
+{
+  /** The maximum number of cached assignability results. */
+  static final int MAX_ASSIGNABLE_ENTRIES = 100_000;
+
+  private static final class Key
+  {
+    private final AbstractJType m_aThis;
+    private final AbstractJType m_aThat;
+    private final boolean m_bAllowsRawTypeUncheckedConversion;
+    private final int m_nHashCode;
+
+    Key (@NonNull final AbstractJType aThis,
+         @NonNull final AbstractJType aThat,
+         final boolean bAllowsRawTypeUncheckedConversion)
+    {
+      m_aThis = aThis;
+      m_aThat = aThat;
+      m_bAllowsRawTypeUncheckedConversion = bAllowsRawTypeUncheckedConversion;
+      m_nHashCode = (aThis.hashCode () * 31 + aThat.hashCode ()) * 31 + (bAllowsRawTypeUncheckedConversion ? 1 : 0);
+    }
+
+    @Override
+    public boolean equals (final Object o)
+    {
+      if (o == this)
+        return true;
+      if (!(o instanceof Key))
+        return false;
+      final Key rhs = (Key) o;
+      return m_bAllowsRawTypeUncheckedConversion == rhs.m_bAllowsRawTypeUncheckedConversion &&
+             m_aThis.equals (rhs.m_aThis) &&
+             m_aThat.equals (rhs.m_aThat);
+    }
+
+    @Override
+    public int hashCode ()
+    {
+      return m_nHashCode;
+    }
+  }
+
+  private final Map <AbstractJClass, Set <AbstractJClass>> m_aSupertypeErasures = new ConcurrentHashMap <> ();
+  private final Map <Key, Boolean> m_aAssignable = new ConcurrentHashMap <> ();
+  private volatile AbstractJClass m_aObjectClass;
+
+  TypeHierarchyCache ()
+  {}
+
+  /**
+   * @param aClass
+   *        The class to check. May not be <code>null</code>.
+   * @return <code>true</code> if the passed class is <code>java.lang.Object</code> of its model.
+   */
+  boolean isObjectClass (@NonNull final AbstractJClass aClass)
+  {
+    AbstractJClass aObjectClass = m_aObjectClass;
+    if (aObjectClass == null)
+    {
+      aObjectClass = aClass.owner ().ref (Object.class);
+      m_aObjectClass = aObjectClass;
+    }
+    return aClass == aObjectClass;
+  }
+
+  /**
+   * Check if the hierarchy of the passed type can be cached. This is the case for primitive types,
+   * referenced and defined classes and narrowings, wildcards and arrays built from them. Type
+   * variables may get additional bounds at any time and are therefore never cached.
+   *
+   * @param aType
+   *        The type to check. May not be <code>null</code>.
+   * @return <code>true</code> if the type is cacheable
+   */
+  static boolean isCacheable (@NonNull final AbstractJType aType)
+  {
+    if (aType instanceof JPrimitiveType || aType instanceof JReferencedClass || aType instanceof JDefinedClass)
+      return true;
+    if (aType instanceof JArrayClass)
+      return isCacheable (aType.elementType ());
+    if (aType instanceof JTypeWildcard)
+      return isCacheable (((JTypeWildcard) aType).bound ());
+    if (aType instanceof JNarrowedClass)
+    {
+      final JNarrowedClass aNarrowed = (JNarrowedClass) aType;
+      if (!isCacheable (aNarrowed.erasure ()))
+        return false;
+      for (final AbstractJClass aArg : aNarrowed.getTypeParameters ())
+        if (!isCacheable (aArg))
+          return false;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Get the erasures of all supertypes of the passed class, including the class itself.
+   *
+   * @param aClass
+   *        A cacheable class. Its erasure is used. May not be <code>null</code>.
+   * @return The unmodifiable set of all supertype erasures. Never <code>null</code>.
+   */
+  @NonNull
+  Set <AbstractJClass> getSupertypeErasures (@NonNull final AbstractJClass aClass)
+  {
+    final AbstractJClass aErasure = aClass.erasure ();
+    Set <AbstractJClass> ret = m_aSupertypeErasures.get (aErasure);
+    if (ret == null)
+    {
+      final Set <AbstractJClass> aSet = new HashSet <> ();
+      final Deque <AbstractJClass> aOpen = new ArrayDeque <> ();
+      aOpen.add (aErasure);
+      while (!aOpen.isEmpty ())
+      {
+        final AbstractJClass aCur = aOpen.removeFirst ();
+        if (!aSet.add (aCur))
+          continue;
+
+        // Reuse the closure of already known supertypes
+        final Set <AbstractJClass> aKnown = aCur == aErasure ? null : m_aSupertypeErasures.get (aCur);
+        if (aKnown != null)
+          aSet.addAll (aKnown);
+        else
+        {
+          final AbstractJClass aSuper = aCur._extends ();
+          if (aSuper != null)
+            aOpen.add (aSuper.erasure ());
+          final Iterator <AbstractJClass> it = aCur._implements ();
+          while (it.hasNext ())
+            aOpen.add (it.next ().erasure ());
+        }
+      }
+      ret = Collections.unmodifiableSet (aSet);
+      m_aSupertypeErasures.put (aErasure, ret);
+    }
+    return ret;
+  }
+
+  @Nullable
+  Boolean getAssignable (@NonNull final AbstractJType aThis,
+                         @NonNull final AbstractJType aThat,
+                         final boolean bAllowsRawTypeUncheckedConversion)
+  {
+    return m_aAssignable.get (new Key (aThis, aThat, bAllowsRawTypeUncheckedConversion));
+  }
+
+  void putAssignable (@NonNull final AbstractJType aThis,
+                      @NonNull final AbstractJType aThat,
+                      final boolean bAllowsRawTypeUncheckedConversion,
+                      final boolean bAssignable)
+  {
+    if (m_aAssignable.size () < MAX_ASSIGNABLE_ENTRIES)
+      m_aAssignable.put (new Key (aThis, aThat, bAllowsRawTypeUncheckedConversion), Boolean.valueOf (bAssignable));
+  }
+
+  /**
+   * Remove all cached hierarchy information. Must be called whenever a supertype or a type
+   * parameter of a class changes.
+   */
+  void clear ()
+  {
+    if (!m_aSupertypeErasures.isEmpty ())
+      m_aSupertypeErasures.clear ();
+    if (!m_aAssignable.isEmpty ())
+      m_aAssignable.clear ();
+  }
+}
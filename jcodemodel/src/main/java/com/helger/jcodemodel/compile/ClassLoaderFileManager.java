@@ -54,6 +54,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.jar.JarEntry;
 
@@ -67,6 +68,7 @@ import javax.tools.JavaFileObject.Kind;
 import javax.tools.StandardLocation;
 
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 import com.helger.annotation.style.UnsupportedOperation;
 import com.helger.base.string.StringHelper;
@@ -90,11 +92,31 @@ public class ClassLoaderFileManager extends ForwardingJavaFileManager <JavaFileM
   public static final String CLASS_FILE_EXTENSION = JavaFileObject.Kind.CLASS.extension;
 
   private final DynamicClassLoader m_aCL;
+  private final Map <String, List <JavaFileObject>> m_aPackageCache;
 
   public ClassLoaderFileManager (final JavaFileManager aFileManager, final DynamicClassLoader cl)
+  {
+    this (aFileManager, cl, null);
+  }
+
+  /**
+   * @param aFileManager
+   *        The file manager to delegate to.
+   * @param cl
+   *        The class loader to read from and to write to.
+   * @param aPackageCache
+   *        An optional map that caches the class path content per package name. It may be shared
+   *        between file managers, as long as the parent of their class loaders is the same. May be
+   *        <code>null</code> to scan the class path on every lookup.
+   * @since 4.2.2
+   */
+  public ClassLoaderFileManager (final JavaFileManager aFileManager,
+                                 final DynamicClassLoader cl,
+                                 @Nullable final Map <String, List <JavaFileObject>> aPackageCache)
   {
     super (aFileManager);
     m_aCL = cl;
+    m_aPackageCache = aPackageCache;
   }
 
   @Override
@@ -120,12 +142,40 @@ public class ClassLoaderFileManager extends ForwardingJavaFileManager <JavaFileM
       return super.list (location, packageName, kinds, recurse);
 
     if (location == StandardLocation.CLASS_PATH && kinds.contains (JavaFileObject.Kind.CLASS))
+    {
       // app specific classes are here
-      return find (packageName);
+      List <JavaFileObject> aClassPath = m_aPackageCache == null ? null : m_aPackageCache.get (packageName);
+      if (aClassPath == null)
+      {
+        aClassPath = find (packageName);
+        if (m_aPackageCache != null)
+          m_aPackageCache.put (packageName, aClassPath);
+      }
+      return _withCompiledCode (packageName, aClassPath);
+    }
 
     return Collections.emptyList ();
   }
 
+  /**
+   * Add the classes that were already compiled into the dynamic class loader, so that they can be
+   * referenced by the sources being compiled.
+   */
+  @NonNull
+  private List <JavaFileObject> _withCompiledCode (@NonNull final String packageName,
+                                                   @NonNull final List <JavaFileObject> aClassPath)
+  {
+    List <JavaFileObject> ret = aClassPath;
+    for (final CompiledCodeJavaFile cc : m_aCL.getAllCodeInPackage (packageName))
+      if (cc.hasByteCode ())
+      {
+        if (ret == aClassPath)
+          ret = new ArrayList <> (aClassPath);
+        ret.add (cc);
+      }
+    return ret;
+  }
+
   public List <JavaFileObject> find (@NonNull final String packageName) throws IOException
   {
     final String sJavaPackageName = StringReplace.replaceAll (packageName, '.', '/');
@@ -231,6 +281,8 @@ public class ClassLoaderFileManager extends ForwardingJavaFileManager <JavaFileM
   {
     if (file instanceof CustomJavaFileObject)
       return ((CustomJavaFileObject) file).binaryName ();
+    if (file instanceof CompiledCodeJavaFile)
+      return ((CompiledCodeJavaFile) file).getClassName ();
 
     // if it's not CustomJavaFileObject, then it's coming from standard file
     // manager - let it handle the file
@@ -0,0 +1,341 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.compile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.Immutable;
+
+/**
+ * Splits Java sources into partitions that can be compiled independently of each other. The
+ * references between the top-level classes are derived from the identifiers contained in the
+ * sources: a source references every top-level class whose simple name occurs in it. This over
+ * approximates the real references (e.g. for names in comments), which only reduces the
+ * parallelism but never breaks the compilation. The strongly connected components of the resulting
+ * graph are grouped into layers, so that every component only references components of previous
+ * layers.
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+@Immutable
+final class CompilePartitioner
+{
+  private CompilePartitioner ()
+  {}
+
+  @NonNull
+  static String getSimpleName (@NonNull final String sFilename)
+  {
+    final int nStart = sFilename.lastIndexOf ('/') + 1;
+    final int nEnd = sFilename.lastIndexOf ('.');
+    return nEnd > nStart ? sFilename.substring (nStart, nEnd) : sFilename.substring (nStart);
+  }
+
+  /**
+   * @param aFilenames
+   *        The filenames of the sources.
+   * @param aSources
+   *        The sources, in the same order as the filenames.
+   * @return For each source the indices of all other sources it references.
+   */
+  @NonNull
+  static int [] [] getReferences (@NonNull final List <String> aFilenames,
+                                  @NonNull final List <? extends CharSequence> aSources)
+  {
+    final int nCount = aFilenames.size ();
+    // Classes with the same simple name in different packages are all referenced
+    final Map <String, int []> aBySimpleName = new HashMap <> (nCount * 2);
+    for (int i = 0; i < nCount; ++i)
+    {
+      final int nIndex = i;
+      aBySimpleName.merge (getSimpleName (aFilenames.get (i)), new int [] { i }, (a, b) -> {
+        final int [] ret = Arrays.copyOf (a, a.length + 1);
+        ret[a.length] = nIndex;
+        return ret;
+      });
+    }
+
+    final int [] [] ret = new int [nCount] [];
+    final boolean [] aSeen = new boolean [nCount];
+    for (int i = 0; i < nCount; ++i)
+    {
+      final CharSequence aSource = aSources.get (i);
+      final int nLen = aSource.length ();
+      int [] aRefs = new int [4];
+      int nRefs = 0;
+      aSeen[i] = true;
+      int nPos = 0;
+      while (nPos < nLen)
+      {
+        if (!Character.isJavaIdentifierStart (aSource.charAt (nPos)))
+        {
+          ++nPos;
+          continue;
+        }
+        final int nStart = nPos++;
+        while (nPos < nLen && Character.isJavaIdentifierPart (aSource.charAt (nPos)))
+          ++nPos;
+        final int [] aTargets = aBySimpleName.get (aSource.subSequence (nStart, nPos).toString ());
+        if (aTargets != null)
+          for (final int nTarget : aTargets)
+            if (!aSeen[nTarget])
+            {
+              aSeen[nTarget] = true;
+              if (nRefs == aRefs.length)
+                aRefs = Arrays.copyOf (aRefs, nRefs * 2);
+              aRefs[nRefs++] = nTarget;
+            }
+      }
+      ret[i] = Arrays.copyOf (aRefs, nRefs);
+
+      aSeen[i] = false;
+      for (int j = 0; j < nRefs; ++j)
+        aSeen[aRefs[j]] = false;
+    }
+    return ret;
+  }
+
+  /**
+   * Determine the strongly connected components using Tarjan's algorithm, without recursion so that
+   * long reference chains don't overflow the stack.
+   *
+   * @param aRefs
+   *        The references as returned by {@link #getReferences(List, List)}.
+   * @return The component index of each node. The components are numbered in reverse topological
+   *         order, so a component only references components with a lower or the same index.
+   */
+  @NonNull
+  static int [] getComponents (@NonNull final int [] [] aRefs)
+  {
+    final int nCount = aRefs.length;
+    final int [] aIndex = new int [nCount];
+    final int [] aLowLink = new int [nCount];
+    final int [] ret = new int [nCount];
+    Arrays.fill (aIndex, -1);
+
+    final int [] aStack = new int [nCount];
+    final boolean [] aOnStack = new boolean [nCount];
+    int nStackSize = 0;
+    // The explicit call stack: node and index of the next reference to visit
+    final int [] aCallNode = new int [nCount];
+    final int [] aCallRef = new int [nCount];
+    int nNextIndex = 0;
+    int nNextComponent = 0;
+
+    for (int nRoot = 0; nRoot < nCount; ++nRoot)
+    {
+      if (aIndex[nRoot] >= 0)
+        continue;
+
+      int nDepth = 0;
+      aCallNode[0] = nRoot;
+      aCallRef[0] = 0;
+      aIndex[nRoot] = aLowLink[nRoot] = nNextIndex++;
+      aStack[nStackSize++] = nRoot;
+      aOnStack[nRoot] = true;
+
+      while (nDepth >= 0)
+      {
+        final int nNode = aCallNode[nDepth];
+        if (aCallRef[nDepth] < aRefs[nNode].length)
+        {
+          final int nTarget = aRefs[nNode][aCallRef[nDepth]++];
+          if (aIndex[nTarget] < 0)
+          {
+            // Descend
+            ++nDepth;
+            aCallNode[nDepth] = nTarget;
+            aCallRef[nDepth] = 0;
+            aIndex[nTarget] = aLowLink[nTarget] = nNextIndex++;
+            aStack[nStackSize++] = nTarget;
+            aOnStack[nTarget] = true;
+          }
+          else
+            if (aOnStack[nTarget])
+              aLowLink[nNode] = Math.min (aLowLink[nNode], aIndex[nTarget]);
+        }
+        else
+        {
+          if (aLowLink[nNode] == aIndex[nNode])
+          {
+            // Node is the root of a component
+            int nMember;
+            do
+            {
+              nMember = aStack[--nStackSize];
+              aOnStack[nMember] = false;
+              ret[nMember] = nNextComponent;
+            } while (nMember != nNode);
+            ++nNextComponent;
+          }
+          --nDepth;
+          if (nDepth >= 0)
+          {
+            final int nParent = aCallNode[nDepth];
+            aLowLink[nParent] = Math.min (aLowLink[nParent], aLowLink[nNode]);
+          }
+        }
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Split the provided sources into layers of independent partitions.
+   *
+   * @param aSources
+   *        The sources to partition, from filename to content. May not be <code>null</code>.
+   * @return The layers in compilation order. Each layer contains the strongly connected components
+   *         that only reference components of previous layers, each component is the list of its
+   *         filenames. Never <code>null</code>.
+   */
+  @NonNull
+  static List <List <List <String>>> getLayers (@NonNull final Map <String, ? extends CharSequence> aSources)
+  {
+    final List <String> aFilenames = new ArrayList <> (aSources.size ());
+    final List <CharSequence> aContents = new ArrayList <> (aSources.size ());
+    for (final Entry <String, ? extends CharSequence> e : aSources.entrySet ())
+    {
+      aFilenames.add (e.getKey ());
+      aContents.add (e.getValue ());
+    }
+
+    final int [] [] aRefs = getReferences (aFilenames, aContents);
+    final int [] aComponentOfNode = getComponents (aRefs);
+    int nComponents = 0;
+    for (final int nComponent : aComponentOfNode)
+      nComponents = Math.max (nComponents, nComponent + 1);
+
+    final List <List <Integer>> aNodesOfComponent = new ArrayList <> (nComponents);
+    for (int i = 0; i < nComponents; ++i)
+      aNodesOfComponent.add (new ArrayList <> ());
+    for (int i = 0; i < aComponentOfNode.length; ++i)
+      aNodesOfComponent.get (aComponentOfNode[i]).add (Integer.valueOf (i));
+
+    // Components are in reverse topological order, so the layers of all referenced components are
+    // known when a component is reached
+    final int [] aLayerOfComponent = new int [nComponents];
+    final List <List <List <String>>> ret = new ArrayList <> ();
+    for (int nComponent = 0; nComponent < nComponents; ++nComponent)
+    {
+      int nLayer = 0;
+      for (final Integer aNode : aNodesOfComponent.get (nComponent))
+        for (final int nTarget : aRefs[aNode.intValue ()])
+        {
+          final int nTargetComponent = aComponentOfNode[nTarget];
+          if (nTargetComponent != nComponent)
+            nLayer = Math.max (nLayer, aLayerOfComponent[nTargetComponent] + 1);
+        }
+      aLayerOfComponent[nComponent] = nLayer;
+      if (nLayer == ret.size ())
+        ret.add (new ArrayList <> ());
+      final List <String> aComponent = new ArrayList <> ();
+      for (final Integer aNode : aNodesOfComponent.get (nComponent))
+        aComponent.add (aFilenames.get (aNode.intValue ()));
+      ret.get (nLayer).add (aComponent);
+    }
+    return ret;
+  }
+
+  /**
+   * Split the provided sources into layers of partitions. The partitions of a layer are independent
+   * of each other and only reference the partitions of previous layers. The components of a layer
+   * are distributed to the partitions so that they have about the same number of sources.
+   *
+   * @param aSources
+   *        The sources to partition, from filename to content. May not be <code>null</code>.
+   * @param nMaxPartitions
+   *        The maximum number of partitions per layer. Must be &gt; 0.
+   * @param nMinPartitionSize
+   *        The minimum number of sources per partition, so that small layers are not split. Must be
+   *        &gt; 0.
+   * @return The layers in compilation order, each layer is the list of its partitions from filename
+   *         to content. <code>null</code> if no layer has more than one partition, in which case
+   *         compiling all sources at once is faster.
+   */
+  @Nullable
+  static List <List <Map <String, CharSequence>>> getPartitions (@NonNull final Map <String, ? extends CharSequence> aSources,
+                                                                  final int nMaxPartitions,
+                                                                  final int nMinPartitionSize)
+  {
+    final List <List <List <String>>> aLayers = getLayers (aSources);
+    final List <List <Map <String, CharSequence>>> ret = new ArrayList <> (aLayers.size ());
+    boolean bAnySplit = false;
+    for (final List <List <String>> aLayer : aLayers)
+    {
+      int nLayerSize = 0;
+      for (final List <String> aComponent : aLayer)
+        nLayerSize += aComponent.size ();
+      final int nPartitions = Math.max (1,
+                                        Math.min (Math.min (nMaxPartitions, aLayer.size ()),
+                                                  nLayerSize / nMinPartitionSize));
+      if (nPartitions > 1)
+        bAnySplit = true;
+
+      // Biggest components first, each one into the currently smallest partition
+      final List <List <String>> aSorted = new ArrayList <> (aLayer);
+      aSorted.sort ((a, b) -> Integer.compare (b.size (), a.size ()));
+      final List <Map <String, CharSequence>> aPartitions = new ArrayList <> (nPartitions);
+      for (int i = 0; i < nPartitions; ++i)
+        aPartitions.add (new HashMap <> ());
+      for (final List <String> aComponent : aSorted)
+      {
+        Map <String, CharSequence> aSmallest = aPartitions.get (0);
+        for (final Map <String, CharSequence> aPartition : aPartitions)
+          if (aPartition.size () < aSmallest.size ())
+            aSmallest = aPartition;
+        for (final String sFilename : aComponent)
+          aSmallest.put (sFilename, aSources.get (sFilename));
+      }
+      ret.add (aPartitions);
+    }
+    return bAnySplit ? ret : null;
+  }
+}
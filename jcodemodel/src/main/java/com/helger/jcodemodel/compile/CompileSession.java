@@ -0,0 +1,349 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.compile;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
+import com.helger.base.string.StringHelper;
+
+/**
+ * A long-lived compilation context for repeatedly compiling the content of {@link MemoryCodeWriter}
+ * objects, e.g. in a service that generates code at runtime.
+ * <p>
+ * Compared to {@link MemoryCodeWriter#compile(DynamicClassLoader)} only sources that changed since
+ * the last successful compilation are compiled again, together with the unchanged sources that
+ * mention the simple name of a changed or removed source - transitively, as the byte code of a
+ * source may depend on classes it doesn't name, e.g. via the return type of a method of a referenced
+ * class. The byte code of all other sources is reused.
+ * </p>
+ * <p>
+ * The sources are compiled with the compiler backend of the writer if one is set, with the backend
+ * of the session otherwise. The backends cache the class path content per parent class loader. For
+ * a {@link JavacCompilerBackend} the session additionally keeps the file manager of the compiler
+ * until it is closed.
+ * </p>
+ * <p>
+ * Each compilation returns a new {@link DynamicClassLoader}, because a class loader can't define a
+ * class twice. The class path of the parent class loader must not change while the session is
+ * used.
+ * </p>
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+@NotThreadSafe
+public class CompileSession implements AutoCloseable
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (CompileSession.class);
+
+  private final ClassLoader m_aParentCL;
+  private final ICompilerBackend m_aCompilerBackend;
+  /** The file managers kept between compilations, per javac backend */
+  private final Map <JavacCompilerBackend, StandardJavaFileManager> m_aFileManagers = new IdentityHashMap <> ();
+  /** Source content of the last successful compilation, by filename */
+  private final Map <String, String> m_aSources = new HashMap <> ();
+  /** Classes created from each source of the last successful compilation, by filename */
+  private final Map <String, List <CompiledCodeJavaFile>> m_aCompiledCode = new HashMap <> ();
+  private int m_nLastCompiledSourceCount = 0;
+
+  /**
+   * Create a session with the same parent class loader as {@link MemoryCodeWriter#dynCL()}.
+   */
+  public CompileSession ()
+  {
+    this (JavaCompiler.class.getClassLoader ());
+  }
+
+  /**
+   * @param aParentCL
+   *        The parent class loader of all created {@link DynamicClassLoader}s. Its classes are
+   *        visible to the compiler. May be <code>null</code> for the bootstrap class loader.
+   */
+  public CompileSession (@Nullable final ClassLoader aParentCL)
+  {
+    this (aParentCL, null);
+  }
+
+  /**
+   * @param aParentCL
+   *        The parent class loader of all created {@link DynamicClassLoader}s. Its classes are
+   *        visible to the compiler. May be <code>null</code> for the bootstrap class loader.
+   * @param aCompilerBackend
+   *        The compiler backend to use for writers without an explicit one. May be
+   *        <code>null</code> for {@link MemoryCodeWriter#getDefaultCompilerBackend()}.
+   */
+  public CompileSession (@Nullable final ClassLoader aParentCL, @Nullable final ICompilerBackend aCompilerBackend)
+  {
+    m_aParentCL = aParentCL;
+    m_aCompilerBackend = aCompilerBackend;
+  }
+
+  /**
+   * @return The number of source files that were compiled by the last successful call to
+   *         {@link #compile(MemoryCodeWriter)}.
+   */
+  @Nonnegative
+  public int getLastCompiledSourceCount ()
+  {
+    return m_nLastCompiledSourceCount;
+  }
+
+  @NonNull
+  private static String _getSimpleName (@NonNull final String sFilename)
+  {
+    final String sName = sFilename.substring (sFilename.lastIndexOf ('/') + 1);
+    return StringHelper.trimEnd (sName, MemoryCodeWriter.JAVA_FILE_EXTENSION);
+  }
+
+  private static boolean _containsAny (@NonNull final String sContent, @NonNull final Set <String> aNames)
+  {
+    for (final String sName : aNames)
+      if (sContent.contains (sName))
+        return true;
+    return false;
+  }
+
+  /**
+   * Add all sources that reference a source to be compiled, directly or indirectly. E.g. if A calls
+   * <code>b.getC ().foo ()</code> without naming C, A must be compiled again if C changes, because
+   * B is compiled again.
+   *
+   * @param aSources
+   *        All sources by filename.
+   * @param aToCompile
+   *        The filenames of the sources to be compiled. Modified.
+   */
+  private static void _addReferencingSources (@NonNull final Map <String, String> aSources,
+                                              @NonNull final Set <String> aToCompile)
+  {
+    if (aToCompile.isEmpty () || aToCompile.size () == aSources.size ())
+      return;
+
+    final List <String> aFilenames = new ArrayList <> (aSources.keySet ());
+    final List <String> aContents = new ArrayList <> (aFilenames.size ());
+    for (final String sFilename : aFilenames)
+      aContents.add (aSources.get (sFilename));
+    final int [] [] aRefs = CompilePartitioner.getReferences (aFilenames, aContents);
+
+    // Invert the references
+    final List <List <Integer>> aReferencedBy = new ArrayList <> (aFilenames.size ());
+    for (int i = 0; i < aFilenames.size (); ++i)
+      aReferencedBy.add (new ArrayList <> ());
+    for (int i = 0; i < aRefs.length; ++i)
+      for (final int nTarget : aRefs[i])
+        aReferencedBy.get (nTarget).add (Integer.valueOf (i));
+
+    final Deque <Integer> aOpen = new ArrayDeque <> ();
+    for (int i = 0; i < aFilenames.size (); ++i)
+      if (aToCompile.contains (aFilenames.get (i)))
+        aOpen.add (Integer.valueOf (i));
+    while (!aOpen.isEmpty ())
+      for (final Integer aSource : aReferencedBy.get (aOpen.removeFirst ().intValue ()))
+        if (aToCompile.add (aFilenames.get (aSource.intValue ())))
+          aOpen.add (aSource);
+  }
+
+  /**
+   * Compile the java sources of the provided writer and add its other files as resources.
+   *
+   * @param aWriter
+   *        The writer containing the sources. Its diagnostic listener and compiler backend are used.
+   *        May not be <code>null</code>.
+   * @return <code>null</code> if compiling didn't work. A new class loader containing all classes
+   *         and resources otherwise.
+   * @throws IllegalStateException
+   *         If neither the writer nor the session have a compiler backend and no default one is
+   *         available
+   */
+  @Nullable
+  public DynamicClassLoader compile (@NonNull final MemoryCodeWriter aWriter)
+  {
+    ValueEnforcer.notNull (aWriter, "Writer");
+
+    // The sources are kept for the next compilation, so they need to be immutable
+    final Map <String, String> aSources = new HashMap <> ();
+    for (final Entry <String, CharSequence> e : aWriter.getSources ().entrySet ())
+      aSources.put (e.getKey (), e.getValue ().toString ());
+    final Map <String, NonBlockingByteArrayOutputStream> aNonJava = aWriter.getResources ();
+
+    // Find the changed sources
+    final Set <String> aToCompile = new TreeSet <> ();
+    final Set <String> aChangedNames = new HashSet <> ();
+    for (final Entry <String, String> e : aSources.entrySet ())
+      if (!e.getValue ().equals (m_aSources.get (e.getKey ())))
+      {
+        aToCompile.add (e.getKey ());
+        aChangedNames.add (_getSimpleName (e.getKey ()));
+      }
+    for (final String sFilename : m_aSources.keySet ())
+      if (!aSources.containsKey (sFilename))
+        aChangedNames.add (_getSimpleName (sFilename));
+
+    // Sources that may reference a changed class must be compiled again as well
+    if (!aChangedNames.isEmpty ())
+      for (final Entry <String, String> e : aSources.entrySet ())
+        if (_containsAny (e.getValue (), aChangedNames))
+          aToCompile.add (e.getKey ());
+    _addReferencingSources (aSources, aToCompile);
+
+    // Reuse the byte code of all other sources
+    final DynamicClassLoader aCL = new DynamicClassLoader (m_aParentCL);
+    for (final String sFilename : aSources.keySet ())
+      if (!aToCompile.contains (sFilename))
+        for (final CompiledCodeJavaFile cc : m_aCompiledCode.get (sFilename))
+          aCL.setCode (cc);
+
+    final Map <String, List <CompiledCodeJavaFile>> aNewCode = new HashMap <> ();
+    boolean bAllCodeAssigned = true;
+    if (!aToCompile.isEmpty ())
+    {
+      final Map <String, String> aCompilationUnits = new HashMap <> ();
+      for (final String sFilename : aToCompile)
+      {
+        aCompilationUnits.put (sFilename, aSources.get (sFilename));
+        aNewCode.put (sFilename, new ArrayList <> ());
+      }
+
+      ICompilerBackend aBackend = aWriter.getCompilerBackend ();
+      if (aBackend == null)
+        aBackend = m_aCompilerBackend != null ? m_aCompilerBackend : MemoryCodeWriter.getDefaultCompilerBackend ();
+
+      LOGGER.info ("Compiling " +
+                   aToCompile.size () +
+                   " of " +
+                   aSources.size () +
+                   " sources with " +
+                   aBackend.getName () +
+                   ": " +
+                   aToCompile);
+
+      final DiagnosticListener <? super JavaFileObject> aDL = aWriter.getDiagnosticListener ();
+      final DiagnosticListener <? super JavaFileObject> aLoggingDL = x -> LOGGER.error (x.toString ());
+      final DiagnosticListener <? super JavaFileObject> aRealDL = aDL != null ? x -> {
+        aLoggingDL.report (x);
+        aDL.report (x);
+      } : aLoggingDL;
+
+      final List <CompiledCodeJavaFile> aCompiledCode;
+      if (aBackend instanceof JavacCompilerBackend)
+      {
+        final JavacCompilerBackend aJavac = (JavacCompilerBackend) aBackend;
+        final StandardJavaFileManager aStdFileManager = m_aFileManagers.computeIfAbsent (aJavac,
+                                                                                        JavacCompilerBackend::createStandardFileManager);
+        aCompiledCode = aJavac.compile (aCompilationUnits, aCL, aRealDL, aStdFileManager);
+      }
+      else
+        aCompiledCode = aBackend.compile (aCompilationUnits, aCL, aRealDL);
+      if (aCompiledCode == null)
+      {
+        LOGGER.error ("Error compiling: " + aToCompile);
+        // Keep the state of the last successful compilation
+        return null;
+      }
+
+      for (final CompiledCodeJavaFile cc : aCompiledCode)
+      {
+        final String sSourceName = cc.getSourceName ();
+        final List <CompiledCodeJavaFile> aCode = sSourceName == null ? null : aNewCode.get (sSourceName);
+        if (aCode != null)
+          aCode.add (cc);
+        else
+          bAllCodeAssigned = false;
+      }
+    }
+
+    // Remember for the next compilation
+    m_aSources.clear ();
+    m_aSources.putAll (aSources);
+    m_aCompiledCode.keySet ().retainAll (aSources.keySet ());
+    m_aCompiledCode.putAll (aNewCode);
+    if (!bAllCodeAssigned)
+    {
+      // The backend didn't report the source of a class. As it is unknown which source created
+      // it, all sources of this compilation are compiled again the next time
+      m_aSources.keySet ().removeAll (aToCompile);
+      m_aCompiledCode.keySet ().removeAll (aToCompile);
+    }
+    m_nLastCompiledSourceCount = aToCompile.size ();
+
+    aCL.addResources (aNonJava);
+    return aCL;
+  }
+
+  /**
+   * Close the file managers of the compiler and forget the sources and classes of the last
+   * compilation. The session can't be used afterwards.
+   */
+  @Override
+  public void close () throws IOException
+  {
+    for (final StandardJavaFileManager aStdFileManager : m_aFileManagers.values ())
+      aStdFileManager.close ();
+    m_aFileManagers.clear ();
+    m_aSources.clear ();
+    m_aCompiledCode.clear ();
+  }
+}
@@ -0,0 +1,347 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.compile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+
+/**
+ * A persistent, content addressed cache of compiled byte code, that survives restarts of the JVM.
+ * <p>
+ * The key of an entry is the hash of all source files of a compilation (names and content), the
+ * compiler options and a fingerprint of the compilation environment. An entry contains the byte
+ * code of all classes created by the compilation, so a hit allows to skip the compiler entirely.
+ * See {@link MemoryCodeWriter#compile(DynamicClassLoader, CompiledCodeCache)}.
+ * </p>
+ * <p>
+ * The default fingerprint contains the Java version and the name, size and modification time of
+ * each class path entry. Changes inside class path directories are not detected, so if classes are
+ * loaded from directories, a custom fingerprint (e.g. the version of the application) should be
+ * provided.
+ * </p>
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+@ThreadSafe
+public class CompiledCodeCache
+{
+  /** The file extension of the cache entries */
+  public static final String FILE_EXTENSION = ".jcc";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (CompiledCodeCache.class);
+  private static final int MAGIC = 0x4a434343;
+  private static final int FORMAT_VERSION = 1;
+
+  private final Path m_aDirectory;
+  private final String m_sFingerprint;
+  private final AtomicInteger m_aHitCount = new AtomicInteger (0);
+  private final AtomicInteger m_aMissCount = new AtomicInteger (0);
+
+  /**
+   * Create a cache using the default fingerprint.
+   *
+   * @param aDirectory
+   *        The directory containing the cache entries. It is created if it doesn't exist. May not be
+   *        <code>null</code>.
+   * @see #getDefaultFingerprint()
+   */
+  public CompiledCodeCache (@NonNull final Path aDirectory)
+  {
+    this (aDirectory, getDefaultFingerprint ());
+  }
+
+  /**
+   * @param aDirectory
+   *        The directory containing the cache entries. It is created if it doesn't exist. May not be
+   *        <code>null</code>.
+   * @param sFingerprint
+   *        The fingerprint of the compilation environment. Entries are only found again with the
+   *        same fingerprint. May not be <code>null</code>.
+   */
+  public CompiledCodeCache (@NonNull final Path aDirectory, @NonNull final String sFingerprint)
+  {
+    ValueEnforcer.notNull (aDirectory, "Directory");
+    ValueEnforcer.notNull (sFingerprint, "Fingerprint");
+    m_aDirectory = aDirectory;
+    m_sFingerprint = sFingerprint;
+  }
+
+  /**
+   * @return The Java version and the name, size and modification time of each entry of the class
+   *         path and the module path of this JVM. Never <code>null</code>.
+   */
+  @NonNull
+  public static String getDefaultFingerprint ()
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    aSB.append (Runtime.version ());
+    for (final String sProperty : new String [] { "java.class.path", "jdk.module.path" })
+    {
+      final String sPath = System.getProperty (sProperty);
+      if (sPath != null && !sPath.isEmpty ())
+        for (final String sEntry : sPath.split (File.pathSeparator))
+        {
+          final File aFile = new File (sEntry);
+          aSB.append ('\n')
+             .append (sEntry)
+             .append (' ')
+             .append (aFile.length ())
+             .append (' ')
+             .append (aFile.lastModified ());
+        }
+    }
+    return aSB.toString ();
+  }
+
+  /**
+   * @return The directory containing the cache entries. Never <code>null</code>.
+   */
+  @NonNull
+  public final Path getDirectory ()
+  {
+    return m_aDirectory;
+  }
+
+  /**
+   * @return The fingerprint of the compilation environment. Never <code>null</code>.
+   */
+  @NonNull
+  public final String getFingerprint ()
+  {
+    return m_sFingerprint;
+  }
+
+  /**
+   * @return The number of calls to {@link #get(String)} that found an entry.
+   */
+  @Nonnegative
+  public int getHitCount ()
+  {
+    return m_aHitCount.get ();
+  }
+
+  /**
+   * @return The number of calls to {@link #get(String)} that didn't find an entry.
+   */
+  @Nonnegative
+  public int getMissCount ()
+  {
+    return m_aMissCount.get ();
+  }
+
+  private static void _update (@NonNull final MessageDigest aMD, @NonNull final CharSequence s)
+  {
+    final ByteBuffer aBytes = StandardCharsets.UTF_8.encode (CharBuffer.wrap (s));
+    final int nLen = aBytes.remaining ();
+    aMD.update (new byte [] { (byte) (nLen >>> 24), (byte) (nLen >>> 16), (byte) (nLen >>> 8), (byte) nLen });
+    aMD.update (aBytes);
+  }
+
+  /**
+   * Create the key of a compilation.
+   *
+   * @param aSources
+   *        The source files of the compilation, from filename to content. May not be
+   *        <code>null</code>.
+   * @param aOptions
+   *        The compiler options. May be <code>null</code>.
+   * @return The hex encoded key. Never <code>null</code>.
+   */
+  @NonNull
+  public String getKey (@NonNull final Map <String, ? extends CharSequence> aSources,
+                        @Nullable final Iterable <String> aOptions)
+  {
+    ValueEnforcer.notNull (aSources, "Sources");
+
+    final MessageDigest aMD;
+    try
+    {
+      aMD = MessageDigest.getInstance ("SHA-256");
+    }
+    catch (final NoSuchAlgorithmException ex)
+    {
+      throw new IllegalStateException (ex);
+    }
+    _update (aMD, m_sFingerprint);
+    if (aOptions != null)
+      for (final String sOption : aOptions)
+        _update (aMD, sOption);
+    // Separate the options from the sources
+    aMD.update ((byte) 0);
+    for (final Map.Entry <String, ? extends CharSequence> e : new TreeMap <> (aSources).entrySet ())
+    {
+      _update (aMD, e.getKey ());
+      _update (aMD, e.getValue ());
+    }
+    return HexFormat.of ().formatHex (aMD.digest ());
+  }
+
+  @NonNull
+  private Path _getFile (@NonNull final String sKey)
+  {
+    return m_aDirectory.resolve (sKey + FILE_EXTENSION);
+  }
+
+  /**
+   * Read the byte code of a previous compilation.
+   *
+   * @param sKey
+   *        The key as created by {@link #getKey(Map, Iterable)}. May not be <code>null</code>.
+   * @return <code>null</code> if there is no entry for the key, or if the entry can't be read. The
+   *         byte code of all classes otherwise.
+   */
+  @Nullable
+  public List <CompiledCodeJavaFile> get (@NonNull final String sKey)
+  {
+    ValueEnforcer.notNull (sKey, "Key");
+
+    final Path aFile = _getFile (sKey);
+    try (final InputStream aIS = Files.newInputStream (aFile);
+         final DataInputStream aDIS = new DataInputStream (new BufferedInputStream (aIS)))
+    {
+      if (aDIS.readInt () != MAGIC || aDIS.readInt () != FORMAT_VERSION)
+        throw new IOException ("Unsupported cache entry format");
+      final int nCount = aDIS.readInt ();
+      final List <CompiledCodeJavaFile> ret = new ArrayList <> (nCount);
+      for (int i = 0; i < nCount; ++i)
+      {
+        final String sClassName = aDIS.readUTF ();
+        final byte [] aByteCode = new byte [aDIS.readInt ()];
+        aDIS.readFully (aByteCode);
+        ret.add (new CompiledCodeJavaFile (sClassName, aByteCode));
+      }
+      m_aHitCount.incrementAndGet ();
+      return ret;
+    }
+    catch (final NoSuchFileException ex)
+    {
+      // Not cached
+    }
+    catch (final Exception ex)
+    {
+      LOGGER.warn ("Failed to read compiled code cache entry '" + aFile + "'", ex);
+    }
+    m_aMissCount.incrementAndGet ();
+    return null;
+  }
+
+  /**
+   * Store the byte code of a compilation. The entry is written to a temporary file first and then
+   * moved into place, so concurrent readers never see a partial entry.
+   *
+   * @param sKey
+   *        The key as created by {@link #getKey(Map, Iterable)}. May not be <code>null</code>.
+   * @param aCompiledCode
+   *        The byte code of all classes of the compilation. May not be <code>null</code>.
+   * @throws IOException
+   *         In case writing fails
+   */
+  public void put (@NonNull final String sKey, @NonNull final Collection <CompiledCodeJavaFile> aCompiledCode) throws IOException
+  {
+    ValueEnforcer.notNull (sKey, "Key");
+    ValueEnforcer.notNull (aCompiledCode, "CompiledCode");
+
+    Files.createDirectories (m_aDirectory);
+    final Path aTempFile = Files.createTempFile (m_aDirectory, sKey, ".tmp");
+    try
+    {
+      try (final OutputStream aOS = Files.newOutputStream (aTempFile);
+           final DataOutputStream aDOS = new DataOutputStream (new BufferedOutputStream (aOS)))
+      {
+        aDOS.writeInt (MAGIC);
+        aDOS.writeInt (FORMAT_VERSION);
+        aDOS.writeInt (aCompiledCode.size ());
+        for (final CompiledCodeJavaFile cc : aCompiledCode)
+        {
+          final byte [] aByteCode = cc.getByteCode ();
+          aDOS.writeUTF (cc.getClassName ());
+          aDOS.writeInt (aByteCode.length);
+          aDOS.write (aByteCode);
+        }
+      }
+      try
+      {
+        Files.move (aTempFile, _getFile (sKey), StandardCopyOption.ATOMIC_MOVE);
+      }
+      catch (final AtomicMoveNotSupportedException ex)
+      {
+        Files.move (aTempFile, _getFile (sKey), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    finally
+    {
+      Files.deleteIfExists (aTempFile);
+    }
+  }
+}
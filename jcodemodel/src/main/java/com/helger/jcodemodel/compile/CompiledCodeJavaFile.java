@@ -41,11 +41,14 @@
 package com.helger.jcodemodel.compile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 
 import javax.tools.SimpleJavaFileObject;
 
+import org.jspecify.annotations.Nullable;
+
 import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
 
 /**
@@ -60,6 +63,7 @@ public class CompiledCodeJavaFile extends SimpleJavaFileObject
 {
   private final NonBlockingByteArrayOutputStream m_aBAOS = new NonBlockingByteArrayOutputStream ();
   private final String m_sClassName;
+  private String m_sSourceName;
 
   public CompiledCodeJavaFile (final String className) throws Exception
   {
@@ -67,11 +71,53 @@ public class CompiledCodeJavaFile extends SimpleJavaFileObject
     m_sClassName = className;
   }
 
+  /**
+   * Create a file with existing byte code, e.g. from a {@link CompiledCodeCache}.
+   *
+   * @param className
+   *        The full class name, including the package.
+   * @param aByteCode
+   *        The byte code of the class.
+   * @throws Exception
+   *         If the class name is not a valid URI
+   * @since 4.2.2
+   */
+  public CompiledCodeJavaFile (final String className, final byte [] aByteCode) throws Exception
+  {
+    this (className);
+    m_aBAOS.write (aByteCode, 0, aByteCode.length);
+  }
+
   public String getClassName ()
   {
     return m_sClassName;
   }
 
+  /**
+   * @return The filename of the source this class was compiled from, e.g.
+   *         "org/example/Foo.java". <code>null</code> if unknown.
+   * @since 4.2.2
+   */
+  @Nullable
+  public String getSourceName ()
+  {
+    return m_sSourceName;
+  }
+
+  /**
+   * Set the filename of the source this class was compiled from. Called by the
+   * {@link ICompilerBackend}s.
+   *
+   * @param sSourceName
+   *        The source filename, e.g. "org/example/Foo.java". May be
+   *        <code>null</code> if unknown.
+   * @since 4.2.2
+   */
+  public void setSourceName (@Nullable final String sSourceName)
+  {
+    m_sSourceName = sSourceName;
+  }
+
   @Override
   public OutputStream openOutputStream () throws IOException
   {
@@ -82,4 +128,23 @@ public class CompiledCodeJavaFile extends SimpleJavaFileObject
   {
     return m_aBAOS.toByteArray ();
   }
+
+  /**
+   * @return <code>true</code> if the compiler already wrote the byte code of this class.
+   * @since 4.2.2
+   */
+  public boolean hasByteCode ()
+  {
+    return m_aBAOS.size () > 0;
+  }
+
+  /**
+   * Allows the compiler to read this class again, if it is on the class path of a later
+   * compilation.
+   */
+  @Override
+  public InputStream openInputStream () throws IOException
+  {
+    return m_aBAOS.getAsInputStream ();
+  }
 }
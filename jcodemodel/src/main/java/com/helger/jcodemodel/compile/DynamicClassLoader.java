@@ -43,15 +43,25 @@ package com.helger.jcodemodel.compile;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.ref.Cleaner;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jspecify.annotations.NonNull;
 
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
 import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
 
 /**
@@ -61,11 +71,36 @@ import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
  * {@link #addResources(Map)}; then you can use it as a normal classloader, eg
  * {@link ClassLoader#loadClass(String)} or {@link ClassLoader#getResource(String)}
  * </p>
+ * <p>
+ * The class loader is parallel capable. Its classes can only be unloaded together with the class
+ * loader itself, so each independent model should be loaded by its own class loader, e.g. via a
+ * {@link DynamicClassLoaderRegistry}. The static methods {@link #getLiveClassCount()} and
+ * {@link #getMetaspaceUsed()} help to monitor this.
+ * </p>
  */
+@ThreadSafe
 public class DynamicClassLoader extends ClassLoader
 {
-  private final Map <String, CompiledCodeJavaFile> m_aCustomCompiledCode = new HashMap <> ();
-  private final Map <String, NonBlockingByteArrayOutputStream> m_aCustomResources = new HashMap <> ();
+  private static final Cleaner CLEANER = Cleaner.create ();
+  private static final AtomicLong TOTAL_CLASS_COUNT = new AtomicLong (0);
+  private static final AtomicLong LIVE_CLASS_COUNT = new AtomicLong (0);
+
+  static
+  {
+    registerAsParallelCapable ();
+  }
+
+  private final Map <String, CompiledCodeJavaFile> m_aCustomCompiledCode = new ConcurrentHashMap <> ();
+  /**
+   * The content of {@link #m_aCustomCompiledCode} by package name, as the compiler lists packages
+   * very often. Both are modified while holding {@link #m_aCodeLock}.
+   */
+  private final Map <String, Map <String, CompiledCodeJavaFile>> m_aCustomCompiledCodeByPackage = new ConcurrentHashMap <> ();
+  private final Object m_aCodeLock = new Object ();
+  private final Map <String, NonBlockingByteArrayOutputStream> m_aCustomResources = new ConcurrentHashMap <> ();
+  /** Shared with the cleaning action, so it must not reference this object */
+  private final AtomicInteger m_aDefinedClassCount = new AtomicInteger (0);
+  private volatile boolean m_bDisposed = false;
 
   /**
    * internal url handler that generates url to load inside its own resources, if exists. It
@@ -108,6 +143,46 @@ public class DynamicClassLoader extends ClassLoader
   public DynamicClassLoader (final ClassLoader parent)
   {
     super (parent);
+    final AtomicInteger aDefinedClassCount = m_aDefinedClassCount;
+    CLEANER.register (this, () -> LIVE_CLASS_COUNT.addAndGet (-aDefinedClassCount.get ()));
+  }
+
+  /**
+   * @return The number of classes defined by this class loader so far.
+   * @since 4.2.2
+   */
+  @Nonnegative
+  public int getDefinedClassCount ()
+  {
+    return m_aDefinedClassCount.get ();
+  }
+
+  /**
+   * @return <code>true</code> if {@link #dispose()} was called on this class loader.
+   * @since 4.2.2
+   */
+  public boolean isDisposed ()
+  {
+    return m_bDisposed;
+  }
+
+  /**
+   * Drop the byte code and the resources of this class loader. Classes that were not yet loaded
+   * can't be loaded afterwards, so this should only be called when the classes of this loader are
+   * no longer used. The loaded classes are unloaded by the JVM as soon as neither this class loader
+   * nor any of its classes or their instances are referenced anymore.
+   *
+   * @since 4.2.2
+   */
+  public void dispose ()
+  {
+    m_bDisposed = true;
+    synchronized (m_aCodeLock)
+    {
+      m_aCustomCompiledCode.clear ();
+      m_aCustomCompiledCodeByPackage.clear ();
+    }
+    m_aCustomResources.clear ();
   }
 
   /**
@@ -118,7 +193,20 @@ public class DynamicClassLoader extends ClassLoader
    */
   public void setCode (@NonNull final CompiledCodeJavaFile cc)
   {
-    m_aCustomCompiledCode.put (cc.getName (), cc);
+    synchronized (m_aCodeLock)
+    {
+      m_aCustomCompiledCode.put (cc.getName (), cc);
+      m_aCustomCompiledCodeByPackage.computeIfAbsent (_getPackageName (cc.getClassName ()),
+                                                      k -> new ConcurrentHashMap <> ())
+                                    .put (cc.getName (), cc);
+    }
+  }
+
+  @NonNull
+  private static String _getPackageName (@NonNull final String sClassName)
+  {
+    final int nLastDot = sClassName.lastIndexOf ('.');
+    return nLastDot < 0 ? "" : sClassName.substring (0, nLastDot);
   }
 
   /**
@@ -133,6 +221,21 @@ public class DynamicClassLoader extends ClassLoader
     return m_aCustomCompiledCode.get (fullClassName);
   }
 
+  /**
+   * get the bytecode of all classes directly contained in a package.
+   *
+   * @param sPackageName
+   *        the package name, eg java.lang. Empty for the default package.
+   * @return all compiled code of that package, excluding sub packages. Never <code>null</code>.
+   * @since 4.2.2
+   */
+  @NonNull
+  public List <CompiledCodeJavaFile> getAllCodeInPackage (@NonNull final String sPackageName)
+  {
+    final Map <String, CompiledCodeJavaFile> aCode = m_aCustomCompiledCodeByPackage.get (sPackageName);
+    return aCode == null ? new ArrayList <> () : new ArrayList <> (aCode.values ());
+  }
+
   /**
    * add a map of path-> resource
    *
@@ -151,7 +254,11 @@ public class DynamicClassLoader extends ClassLoader
     if (cc != null)
     {
       final byte [] aByteCode = cc.getByteCode ();
-      return defineClass (sName, aByteCode, 0, aByteCode.length);
+      final Class <?> ret = defineClass (sName, aByteCode, 0, aByteCode.length);
+      m_aDefinedClassCount.incrementAndGet ();
+      TOTAL_CLASS_COUNT.incrementAndGet ();
+      LIVE_CLASS_COUNT.incrementAndGet ();
+      return ret;
     }
 
     return super.findClass (sName);
@@ -173,4 +280,40 @@ public class DynamicClassLoader extends ClassLoader
 
     return super.findResource (sName);
   }
+
+  /**
+   * @return The number of classes defined by all {@link DynamicClassLoader}s since the start of
+   *         the JVM.
+   * @since 4.2.2
+   */
+  @Nonnegative
+  public static long getTotalClassCount ()
+  {
+    return TOTAL_CLASS_COUNT.get ();
+  }
+
+  /**
+   * @return The number of classes defined by all {@link DynamicClassLoader}s that were not yet
+   *         garbage collected. The classes of a class loader are counted until the class loader
+   *         itself was collected, so the value is updated only after a garbage collection.
+   * @since 4.2.2
+   */
+  @Nonnegative
+  public static long getLiveClassCount ()
+  {
+    return LIVE_CLASS_COUNT.get ();
+  }
+
+  /**
+   * @return The number of bytes of the metaspace, that contains the class meta data of all loaded
+   *         classes, currently in use. -1 if the JVM has no memory pool named "Metaspace".
+   * @since 4.2.2
+   */
+  public static long getMetaspaceUsed ()
+  {
+    for (final MemoryPoolMXBean aPool : ManagementFactory.getMemoryPoolMXBeans ())
+      if (aPool.getType () == MemoryType.NON_HEAP && "Metaspace".equals (aPool.getName ()))
+        return aPool.getUsage ().getUsed ();
+    return -1;
+  }
 }
@@ -0,0 +1,250 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.compile;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+
+/**
+ * A registry of reference counted {@link DynamicClassLoader}s, e.g. one per generated model of a
+ * long running service. Each user of a class loader acquires a {@link Lease} and closes it when the
+ * classes are no longer needed. When the last lease of a class loader is closed, the class loader
+ * is removed from the registry and {@link DynamicClassLoader#dispose() disposed}, so that the JVM
+ * can unload its classes and free their metaspace as soon as they are no longer referenced.
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+@ThreadSafe
+public class DynamicClassLoaderRegistry
+{
+  private static final class Entry
+  {
+    private final DynamicClassLoader m_aCL;
+    /** Guarded by the map of the registry */
+    private int m_nRefCount = 1;
+
+    Entry (@NonNull final DynamicClassLoader aCL)
+    {
+      m_aCL = aCL;
+    }
+  }
+
+  /**
+   * A single reference to a registered class loader. Closing it more than once has no effect.
+   */
+  public final class Lease implements AutoCloseable
+  {
+    private final String m_sKey;
+    private final Entry m_aEntry;
+    private final AtomicBoolean m_aClosed = new AtomicBoolean (false);
+
+    Lease (@NonNull final String sKey, @NonNull final Entry aEntry)
+    {
+      m_sKey = sKey;
+      m_aEntry = aEntry;
+    }
+
+    /**
+     * @return The key of the class loader in the registry. Never <code>null</code>.
+     */
+    @NonNull
+    public String getKey ()
+    {
+      return m_sKey;
+    }
+
+    /**
+     * @return The leased class loader. Never <code>null</code>.
+     */
+    @NonNull
+    public DynamicClassLoader getClassLoader ()
+    {
+      return m_aEntry.m_aCL;
+    }
+
+    /**
+     * @return <code>true</code> if this lease was already closed.
+     */
+    public boolean isClosed ()
+    {
+      return m_aClosed.get ();
+    }
+
+    @Override
+    public void close ()
+    {
+      if (m_aClosed.compareAndSet (false, true))
+        _release (m_sKey, m_aEntry);
+    }
+  }
+
+  private final Map <String, Entry> m_aMap = new HashMap <> ();
+
+  public DynamicClassLoaderRegistry ()
+  {}
+
+  /**
+   * Acquire the class loader registered for the provided key.
+   *
+   * @param sKey
+   *        The key of the class loader, e.g. the name of the model. May not be <code>null</code>.
+   * @return <code>null</code> if no class loader is registered for the key.
+   */
+  @Nullable
+  public Lease acquire (@NonNull final String sKey)
+  {
+    ValueEnforcer.notNull (sKey, "Key");
+
+    synchronized (m_aMap)
+    {
+      final Entry aEntry = m_aMap.get (sKey);
+      if (aEntry == null)
+        return null;
+      aEntry.m_nRefCount++;
+      return new Lease (sKey, aEntry);
+    }
+  }
+
+  /**
+   * Acquire the class loader registered for the provided key, and create and register it if it is
+   * not yet registered. The factory is called outside of any lock, so e.g. a compilation doesn't
+   * block other keys. If two threads create a class loader for the same key at the same time, the
+   * class loader of the first one is registered and the other one is disposed.
+   *
+   * @param sKey
+   *        The key of the class loader, e.g. the name of the model. May not be <code>null</code>.
+   * @param aFactory
+   *        The factory to create the class loader, e.g. {@link MemoryCodeWriter#compile()}. May
+   *        not be <code>null</code>. It may return <code>null</code> if the creation failed.
+   * @return <code>null</code> if the factory returned <code>null</code>.
+   */
+  @Nullable
+  public Lease acquire (@NonNull final String sKey, @NonNull final Supplier <? extends DynamicClassLoader> aFactory)
+  {
+    ValueEnforcer.notNull (aFactory, "Factory");
+
+    final Lease aExisting = acquire (sKey);
+    if (aExisting != null)
+      return aExisting;
+
+    final DynamicClassLoader aCL = aFactory.get ();
+    if (aCL == null)
+      return null;
+
+    synchronized (m_aMap)
+    {
+      final Entry aEntry = m_aMap.get (sKey);
+      if (aEntry == null)
+      {
+        final Entry aNewEntry = new Entry (aCL);
+        m_aMap.put (sKey, aNewEntry);
+        return new Lease (sKey, aNewEntry);
+      }
+      aEntry.m_nRefCount++;
+      aCL.dispose ();
+      return new Lease (sKey, aEntry);
+    }
+  }
+
+  private void _release (@NonNull final String sKey, @NonNull final Entry aEntry)
+  {
+    synchronized (m_aMap)
+    {
+      if (--aEntry.m_nRefCount > 0)
+        return;
+      m_aMap.remove (sKey, aEntry);
+    }
+    aEntry.m_aCL.dispose ();
+  }
+
+  /**
+   * @param sKey
+   *        The key to check. May be <code>null</code>.
+   * @return <code>true</code> if a class loader with at least one open lease is registered for the
+   *         key.
+   */
+  public boolean contains (@Nullable final String sKey)
+  {
+    if (sKey == null)
+      return false;
+    synchronized (m_aMap)
+    {
+      return m_aMap.containsKey (sKey);
+    }
+  }
+
+  /**
+   * @return The number of registered class loaders, that have at least one open lease.
+   */
+  @Nonnegative
+  public int getClassLoaderCount ()
+  {
+    synchronized (m_aMap)
+    {
+      return m_aMap.size ();
+    }
+  }
+
+  /**
+   * @return The number of classes defined by the registered class loaders.
+   */
+  @Nonnegative
+  public long getDefinedClassCount ()
+  {
+    long ret = 0;
+    synchronized (m_aMap)
+    {
+      for (final Entry aEntry : m_aMap.values ())
+        ret += aEntry.m_aCL.getDefinedClassCount ();
+    }
+    return ret;
+  }
+}
@@ -0,0 +1,439 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.compile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaFileObject;
+
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.internal.compiler.ClassFile;
+import org.eclipse.jdt.internal.compiler.Compiler;
+import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.jdt.internal.compiler.ICompilerRequestor;
+import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFormatException;
+import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
+import org.eclipse.jdt.internal.compiler.env.INameEnvironment;
+import org.eclipse.jdt.internal.compiler.env.NameEnvironmentAnswer;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.string.StringHelper;
+
+/**
+ * The {@link ICompilerBackend} using the Eclipse compiler for Java (ECJ). It doesn't need a JDK and
+ * starts faster than javac, which helps with many small compilations. ECJ must be on the class path
+ * (<code>org.eclipse.jdt:ecj</code>).
+ * <p>
+ * The byte code of the classes and the packages found via the parent class loader are cached and
+ * shared by all compilations with the same parent, so that the name environment of the compiler is
+ * warm after the first compilation. Only errors are reported to the diagnostic listener.
+ * </p>
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+@ThreadSafe
+public class EcjCompilerBackend implements ICompilerBackend
+{
+  /** The name of this backend */
+  public static final String NAME = "ecj";
+  /** A class contained in ECJ, to check if it is available */
+  static final String ECJ_CLASS_NAME = "org.eclipse.jdt.internal.compiler.Compiler";
+
+  private static final byte [] NOT_FOUND = new byte [0];
+
+  /**
+   * The warm part of the name environment: the content of the parent class loader.
+   */
+  private static final class ClassPathCache
+  {
+    private final ClassLoader m_aParentCL;
+    /** Byte code by binary name with '/', {@link #NOT_FOUND} if not existing */
+    private final Map <String, byte []> m_aByteCode = new ConcurrentHashMap <> ();
+    /** Whether a name with '/' is a package */
+    private final Map <String, Boolean> m_aPackages = new ConcurrentHashMap <> ();
+
+    ClassPathCache (@Nullable final ClassLoader aParentCL)
+    {
+      m_aParentCL = aParentCL;
+    }
+
+    @Nullable
+    private InputStream _getResource (@NonNull final String sName)
+    {
+      return m_aParentCL == null ? ClassLoader.getSystemResourceAsStream (sName)
+                                 : m_aParentCL.getResourceAsStream (sName);
+    }
+
+    @Nullable
+    byte [] getByteCode (@NonNull final String sName)
+    {
+      final byte [] ret = m_aByteCode.computeIfAbsent (sName, k -> {
+        try (final InputStream aIS = _getResource (k + ClassLoaderFileManager.CLASS_FILE_EXTENSION))
+        {
+          return aIS == null ? NOT_FOUND : aIS.readAllBytes ();
+        }
+        catch (final IOException ex)
+        {
+          return NOT_FOUND;
+        }
+      });
+      return ret == NOT_FOUND ? null : ret;
+    }
+
+    boolean isPackage (@NonNull final String sName)
+    {
+      // The class loader API doesn't list packages. Everything that is not a class is considered
+      // to be a package, like in other in-memory ECJ integrations.
+      return m_aPackages.computeIfAbsent (sName, k -> Boolean.valueOf (getByteCode (k) == null)).booleanValue ();
+    }
+  }
+
+  /**
+   * The name environment of a single compilation.
+   */
+  private static final class NameEnvironment implements INameEnvironment
+  {
+    private final ClassPathCache m_aClassPath;
+    private final DynamicClassLoader m_aCL;
+    /** Source by main type name with '/' */
+    private final Map <String, ICompilationUnit> m_aUnits;
+
+    NameEnvironment (@NonNull final ClassPathCache aClassPath,
+                     @NonNull final DynamicClassLoader aCL,
+                     @NonNull final Map <String, ICompilationUnit> aUnits)
+    {
+      m_aClassPath = aClassPath;
+      m_aCL = aCL;
+      m_aUnits = aUnits;
+    }
+
+    @NonNull
+    private static String _getName (@Nullable final char [] [] aParts, @Nullable final char [] aLast)
+    {
+      final StringBuilder aSB = new StringBuilder ();
+      if (aParts != null)
+        for (final char [] aPart : aParts)
+        {
+          if (aSB.length () > 0)
+            aSB.append ('/');
+          aSB.append (aPart);
+        }
+      if (aLast != null)
+      {
+        if (aSB.length () > 0)
+          aSB.append ('/');
+        aSB.append (aLast);
+      }
+      return aSB.toString ();
+    }
+
+    @Nullable
+    private NameEnvironmentAnswer _findType (@NonNull final String sName)
+    {
+      final ICompilationUnit aUnit = m_aUnits.get (sName);
+      if (aUnit != null)
+        return new NameEnvironmentAnswer (aUnit, null);
+
+      // Classes already compiled into the class loader, e.g. from the cache
+      final CompiledCodeJavaFile cc = m_aCL.getCode (sName.replace ('/', '.'));
+      final byte [] aByteCode = cc != null && cc.hasByteCode () ? cc.getByteCode () : m_aClassPath.getByteCode (sName);
+      if (aByteCode == null)
+        return null;
+
+      try
+      {
+        final char [] aFilename = (sName + ClassLoaderFileManager.CLASS_FILE_EXTENSION).toCharArray ();
+        return new NameEnvironmentAnswer (new ClassFileReader (aByteCode, aFilename, true), null);
+      }
+      catch (final ClassFormatException ex)
+      {
+        return null;
+      }
+    }
+
+    public NameEnvironmentAnswer findType (final char [] [] aCompoundTypeName)
+    {
+      return _findType (_getName (aCompoundTypeName, null));
+    }
+
+    public NameEnvironmentAnswer findType (final char [] aTypeName, final char [] [] aPackageName)
+    {
+      return _findType (_getName (aPackageName, aTypeName));
+    }
+
+    public boolean isPackage (final char [] [] aParentPackageName, final char [] aPackageName)
+    {
+      final String sName = _getName (aParentPackageName, aPackageName);
+      if (m_aUnits.containsKey (sName) || m_aCL.getCode (sName.replace ('/', '.')) != null)
+        return false;
+      return m_aClassPath.isPackage (sName);
+    }
+
+    public void cleanup ()
+    {
+      // Nothing to clean up, the class path cache is kept for the next compilation
+    }
+  }
+
+  /**
+   * Adapter from ECJ problems to <code>javax.tools</code> diagnostics.
+   */
+  private static final class EcjDiagnostic implements Diagnostic <JavaFileObject>
+  {
+    private final CategorizedProblem m_aProblem;
+    private final JavaFileObject m_aSource;
+
+    EcjDiagnostic (@NonNull final CategorizedProblem aProblem, @Nullable final JavaFileObject aSource)
+    {
+      m_aProblem = aProblem;
+      m_aSource = aSource;
+    }
+
+    public Kind getKind ()
+    {
+      return m_aProblem.isError () ? Kind.ERROR : m_aProblem.isWarning () ? Kind.WARNING : Kind.NOTE;
+    }
+
+    public JavaFileObject getSource ()
+    {
+      return m_aSource;
+    }
+
+    public long getPosition ()
+    {
+      return m_aProblem.getSourceStart ();
+    }
+
+    public long getStartPosition ()
+    {
+      return m_aProblem.getSourceStart ();
+    }
+
+    public long getEndPosition ()
+    {
+      return m_aProblem.getSourceEnd ();
+    }
+
+    public long getLineNumber ()
+    {
+      return m_aProblem.getSourceLineNumber ();
+    }
+
+    public long getColumnNumber ()
+    {
+      return NOPOS;
+    }
+
+    public String getCode ()
+    {
+      return Integer.toString (m_aProblem.getID ());
+    }
+
+    public String getMessage (final Locale aLocale)
+    {
+      return m_aProblem.getMessage ();
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new String (m_aProblem.getOriginatingFileName ()) +
+             ":" +
+             m_aProblem.getSourceLineNumber () +
+             ": " +
+             getKind ().name ().toLowerCase (Locale.ROOT) +
+             ": " +
+             m_aProblem.getMessage ();
+    }
+  }
+
+  private final Map <String, String> m_aCompilerOptions;
+  private volatile ClassPathCache m_aClassPathCache;
+
+  /**
+   * Create a backend that compiles for the Java version of the running JVM, or the latest version
+   * supported by ECJ if that is lower.
+   *
+   * @throws IllegalStateException
+   *         If ECJ is not on the class path
+   * @see #isAvailable()
+   */
+  public EcjCompilerBackend ()
+  {
+    if (!isAvailable ())
+      throw new IllegalStateException ("ECJ is not on the class path");
+
+    String sVersion = Integer.toString (Runtime.version ().feature ());
+    if (CompilerOptions.versionToJdkLevel (sVersion) == 0)
+      sVersion = CompilerOptions.getLatestVersion ();
+
+    final Map <String, String> aOptions = new HashMap <> ();
+    aOptions.put (CompilerOptions.OPTION_Source, sVersion);
+    aOptions.put (CompilerOptions.OPTION_TargetPlatform, sVersion);
+    aOptions.put (CompilerOptions.OPTION_Compliance, sVersion);
+    aOptions.put (CompilerOptions.OPTION_LineNumberAttribute, CompilerOptions.GENERATE);
+    aOptions.put (CompilerOptions.OPTION_SourceFileAttribute, CompilerOptions.GENERATE);
+    m_aCompilerOptions = aOptions;
+  }
+
+  /**
+   * @return <code>true</code> if ECJ is on the class path.
+   */
+  public static boolean isAvailable ()
+  {
+    try
+    {
+      Class.forName (ECJ_CLASS_NAME, false, EcjCompilerBackend.class.getClassLoader ());
+      return true;
+    }
+    catch (final ClassNotFoundException | LinkageError ex)
+    {
+      return false;
+    }
+  }
+
+  @NonNull
+  public String getName ()
+  {
+    return NAME;
+  }
+
+  @NonNull
+  private ClassPathCache _getClassPathCache (@Nullable final ClassLoader aParentCL)
+  {
+    ClassPathCache ret = m_aClassPathCache;
+    if (ret == null || ret.m_aParentCL != aParentCL)
+    {
+      // Usually all compilations use the same parent
+      ret = new ClassPathCache (aParentCL);
+      m_aClassPathCache = ret;
+    }
+    return ret;
+  }
+
+  @NonNull
+  private static char [] _toCharArray (@NonNull final CharSequence aCS)
+  {
+    if (aCS instanceof String)
+      return ((String) aCS).toCharArray ();
+    final char [] ret = new char [aCS.length ()];
+    if (aCS instanceof StringBuilder)
+      ((StringBuilder) aCS).getChars (0, ret.length, ret, 0);
+    else
+      for (int i = 0; i < ret.length; ++i)
+        ret[i] = aCS.charAt (i);
+    return ret;
+  }
+
+  @Nullable
+  public List <CompiledCodeJavaFile> compile (@NonNull final Map <String, ? extends CharSequence> aSources,
+                                              @NonNull final DynamicClassLoader aCL,
+                                              @Nullable final DiagnosticListener <? super JavaFileObject> aDL)
+  {
+    final Map <String, ICompilationUnit> aUnits = new HashMap <> ();
+    final Map <String, JavaFileObject> aSourceFiles = new HashMap <> ();
+    for (final Map.Entry <String, ? extends CharSequence> e : aSources.entrySet ())
+    {
+      final String sFilename = e.getKey ();
+      aUnits.put (StringHelper.trimEnd (sFilename, MemoryCodeWriter.JAVA_FILE_EXTENSION),
+                  new CompilationUnit (_toCharArray (e.getValue ()), sFilename, null));
+      aSourceFiles.put (sFilename, new SourceJavaFile (sFilename, e.getValue ()));
+    }
+
+    final List <CompiledCodeJavaFile> ret = new ArrayList <> ();
+    final boolean [] aHasErrors = { false };
+    final ICompilerRequestor aRequestor = aResult -> {
+      if (aResult.hasErrors ())
+      {
+        aHasErrors[0] = true;
+        if (aDL != null)
+        {
+          final JavaFileObject aSource = aSourceFiles.get (new String (aResult.getFileName ()));
+          for (final CategorizedProblem aProblem : aResult.getErrors ())
+            aDL.report (new EcjDiagnostic (aProblem, aSource));
+        }
+      }
+      else
+      {
+        final String sSourceName = new String (aResult.getFileName ());
+        for (final ClassFile aClassFile : aResult.getClassFiles ())
+          try
+          {
+            final CompiledCodeJavaFile cc = new CompiledCodeJavaFile (CharOperation.toString (aClassFile.getCompoundName ()),
+                                                                      aClassFile.getBytes ());
+            cc.setSourceName (sSourceName);
+            aCL.setCode (cc);
+            ret.add (cc);
+          }
+          catch (final Exception ex)
+          {
+            throw new UnsupportedOperationException (ex);
+          }
+      }
+    };
+
+    final NameEnvironment aEnv = new NameEnvironment (_getClassPathCache (aCL.getParent ()), aCL, aUnits);
+    final Compiler aCompiler = new Compiler (aEnv,
+                                             DefaultErrorHandlingPolicies.proceedWithAllProblems (),
+                                             new CompilerOptions (m_aCompilerOptions),
+                                             aRequestor,
+                                             new DefaultProblemFactory (Locale.ROOT));
+    aCompiler.compile (aUnits.values ().toArray (new ICompilationUnit [0]));
+    return aHasErrors[0] ? null : ret;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.compile;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaFileObject;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * An in-process Java compiler used by {@link MemoryCodeWriter#compile(DynamicClassLoader)}.
+ * Implementations must be thread-safe, so that one instance can be shared between compilations.
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ * @see JavacCompilerBackend
+ * @see EcjCompilerBackend
+ */
+public interface ICompilerBackend
+{
+  /**
+   * @return The name of the compiler, e.g. "javac". It is part of the key of the
+   *         {@link CompiledCodeCache}, as different compilers create different byte code. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  String getName ();
+
+  /**
+   * Compile the provided sources. The classes of the provided class loader (including the classes
+   * of its parent) are visible to the compiler.
+   *
+   * @param aSources
+   *        The sources to compile, from filename (e.g. "org/example/Foo.java") to content. May not
+   *        be <code>null</code>.
+   * @param aCL
+   *        The class loader to compile against. The created classes are added to it. May not be
+   *        <code>null</code>.
+   * @param aDL
+   *        The listener for the diagnostics of the compiler. May be <code>null</code>.
+   * @return <code>null</code> if the compilation failed. All created classes, including nested
+   *         classes, otherwise. The filename of their source should be set via
+   *         {@link CompiledCodeJavaFile#setSourceName(String)}.
+   */
+  @Nullable
+  List <CompiledCodeJavaFile> compile (@NonNull Map <String, ? extends CharSequence> aSources,
+                                       @NonNull DynamicClassLoader aCL,
+                                       @Nullable DiagnosticListener <? super JavaFileObject> aDL);
+}
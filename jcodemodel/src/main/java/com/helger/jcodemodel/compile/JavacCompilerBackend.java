@@ -0,0 +1,228 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.compile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.tools.DiagnosticListener;
+import javax.tools.FileObject;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+
+/**
+ * The {@link ICompilerBackend} using a {@link JavaCompiler} from <code>javax.tools</code>, by
+ * default the javac of the JDK. The class path content is cached per package and parent class
+ * loader, and reused by all compilations.
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+@ThreadSafe
+public class JavacCompilerBackend implements ICompilerBackend
+{
+  /** The name of the default instance */
+  public static final String NAME = "javac";
+
+  private final JavaCompiler m_aCompiler;
+  private final String m_sName;
+  /** Class path content per package name, per parent class loader */
+  private final Map <ClassLoader, Map <String, List <JavaFileObject>>> m_aPackageCaches = Collections.synchronizedMap (new WeakHashMap <> ());
+
+  /**
+   * Create a backend using the javac of the JDK.
+   *
+   * @throws IllegalStateException
+   *         If the JVM contains no system Java compiler, e.g. because it is a JRE.
+   * @see #isSystemCompilerAvailable()
+   */
+  public JavacCompilerBackend ()
+  {
+    this (_getSystemCompiler (), NAME);
+  }
+
+  /**
+   * @param aCompiler
+   *        The compiler to use. May not be <code>null</code>.
+   * @param sName
+   *        The name of the compiler. May not be <code>null</code>.
+   */
+  public JavacCompilerBackend (@NonNull final JavaCompiler aCompiler, @NonNull final String sName)
+  {
+    ValueEnforcer.notNull (aCompiler, "Compiler");
+    ValueEnforcer.notNull (sName, "Name");
+    m_aCompiler = aCompiler;
+    m_sName = sName;
+  }
+
+  @NonNull
+  private static JavaCompiler _getSystemCompiler ()
+  {
+    final JavaCompiler ret = ToolProvider.getSystemJavaCompiler ();
+    if (ret == null)
+      throw new IllegalStateException ("This JVM contains no system Java compiler");
+    return ret;
+  }
+
+  /**
+   * @return <code>true</code> if the JVM contains a system Java compiler, so that the default
+   *         constructor can be used.
+   */
+  public static boolean isSystemCompilerAvailable ()
+  {
+    return ToolProvider.getSystemJavaCompiler () != null;
+  }
+
+  @NonNull
+  public String getName ()
+  {
+    return m_sName;
+  }
+
+  /**
+   * Create a file manager of the compiler that can be reused for multiple calls to
+   * {@link #compile(Map, DynamicClassLoader, DiagnosticListener, StandardJavaFileManager)}. File
+   * managers are not thread-safe.
+   *
+   * @return A new file manager. Never <code>null</code>. Must be closed by the caller.
+   */
+  @NonNull
+  public StandardJavaFileManager createStandardFileManager ()
+  {
+    return m_aCompiler.getStandardFileManager (null, null, StandardCharsets.UTF_8);
+  }
+
+  @Nullable
+  public List <CompiledCodeJavaFile> compile (@NonNull final Map <String, ? extends CharSequence> aSources,
+                                              @NonNull final DynamicClassLoader aCL,
+                                              @Nullable final DiagnosticListener <? super JavaFileObject> aDL)
+  {
+    try (final StandardJavaFileManager aStdFileManager = createStandardFileManager ())
+    {
+      return compile (aSources, aCL, aDL, aStdFileManager);
+    }
+    catch (final IOException ex)
+    {
+      throw new UncheckedIOException (ex);
+    }
+  }
+
+  /**
+   * Compile the provided sources with an existing file manager, e.g. one that is kept by a
+   * {@link CompileSession}. The file manager is not closed.
+   *
+   * @param aSources
+   *        The sources to compile, from filename (e.g. "org/example/Foo.java") to content. May not
+   *        be <code>null</code>.
+   * @param aCL
+   *        The class loader to compile against. The created classes are added to it. May not be
+   *        <code>null</code>.
+   * @param aDL
+   *        The listener for the diagnostics of the compiler. May be <code>null</code>.
+   * @param aStdFileManager
+   *        The file manager to use, created by {@link #createStandardFileManager()}. It must not
+   *        be used by another thread at the same time. May not be <code>null</code>.
+   * @return <code>null</code> if the compilation failed. All created classes, including nested
+   *         classes, otherwise.
+   */
+  @Nullable
+  public List <CompiledCodeJavaFile> compile (@NonNull final Map <String, ? extends CharSequence> aSources,
+                                              @NonNull final DynamicClassLoader aCL,
+                                              @Nullable final DiagnosticListener <? super JavaFileObject> aDL,
+                                              @NonNull final StandardJavaFileManager aStdFileManager)
+  {
+    ValueEnforcer.notNull (aStdFileManager, "StdFileManager");
+
+    final List <JavaFileObject> aCompilationUnits = new ArrayList <> (aSources.size ());
+    for (final Map.Entry <String, ? extends CharSequence> e : aSources.entrySet ())
+      aCompilationUnits.add (new SourceJavaFile (e.getKey (), e.getValue ()));
+
+    final Map <String, List <JavaFileObject>> aPackageCache = m_aPackageCaches.computeIfAbsent (aCL.getParent (),
+                                                                                               k -> new ConcurrentHashMap <> ());
+    // All classes written by the compiler, including nested ones
+    final Set <CompiledCodeJavaFile> aCompiledCode = new LinkedHashSet <> ();
+    // Not closed, as that would close the file manager it forwards to
+    final ClassLoaderFileManager aFileManager = new ClassLoaderFileManager (aStdFileManager, aCL, aPackageCache)
+    {
+      @Override
+      public JavaFileObject getJavaFileForOutput (final Location location,
+                                                  final String className,
+                                                  final Kind kind,
+                                                  final FileObject sibling) throws IOException
+      {
+        final JavaFileObject ret = super.getJavaFileForOutput (location, className, kind, sibling);
+        final CompiledCodeJavaFile aCode = (CompiledCodeJavaFile) ret;
+        // javac passes the source file as the sibling of each class
+        aCode.setSourceName (sibling instanceof SourceJavaFile ? ((SourceJavaFile) sibling).getFilename () : null);
+        aCompiledCode.add (aCode);
+        return ret;
+      }
+    };
+
+    final JavaCompiler.CompilationTask task = m_aCompiler.getTask (null,
+                                                                   aFileManager,
+                                                                   aDL,
+                                                                   null,
+                                                                   null,
+                                                                   aCompilationUnits);
+    if (!task.call ().booleanValue ())
+      return null;
+    return new ArrayList <> (aCompiledCode);
+  }
+}
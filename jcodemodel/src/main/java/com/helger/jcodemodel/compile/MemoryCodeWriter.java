@@ -42,35 +42,42 @@ package com.helger.jcodemodel.compile;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.Writer;
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.tools.Diagnostic;
 import javax.tools.DiagnosticListener;
-import javax.tools.FileObject;
-import javax.tools.ForwardingJavaFileManager;
 import javax.tools.JavaCompiler;
-import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
-import javax.tools.ToolProvider;
 
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.helger.annotation.Nonnegative;
+import com.helger.base.enforce.ValueEnforcer;
 import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
 import com.helger.base.state.ESuccess;
-import com.helger.base.string.StringHelper;
-import com.helger.base.string.StringReplace;
-import com.helger.collection.commons.CommonsArrayList;
-import com.helger.collection.commons.ICommonsList;
 import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JPackage;
 import com.helger.jcodemodel.writer.AbstractCodeWriter;
 import com.helger.jcodemodel.writer.JCMWriter;
+import com.helger.jcodemodel.writer.JavaUnicodeEscapeWriter;
+import com.helger.jcodemodel.writer.SourcePrintWriter;
 
 /**
  * An {@link AbstractCodeWriter} that stores the files created in the program memory.
@@ -82,19 +89,88 @@ import com.helger.jcodemodel.writer.JCMWriter;
  * Give access to the internal resources using {@link #getBinaries()} can also be compiled into
  * memory using {@link #compile()}
  * </p>
+ * <p>
+ * Java sources written via {@link #openSource(JPackage, String)} are kept as characters, so that
+ * they are handed to the compiler without encoding and decoding them. See {@link #getSources()}.
+ * </p>
  */
 public class MemoryCodeWriter extends AbstractCodeWriter
 {
   private static final Logger LOGGER = LoggerFactory.getLogger (MemoryCodeWriter.class);
-  private static final JavaCompiler JAVAC = ToolProvider.getSystemJavaCompiler ();
   public static final String JAVA_FILE_EXTENSION = JavaFileObject.Kind.SOURCE.extension;
+  /**
+   * The default number of compiler threads
+   *
+   * @since 4.2.2
+   */
+  public static final int DEFAULT_COMPILER_THREADS = 1;
+  /**
+   * The minimum number of sources of a partition, so that the overhead of an additional compilation
+   * task pays off.
+   */
+  static final int MIN_PARTITION_SIZE = 32;
+
+  private static volatile ICompilerBackend s_aDefaultCompilerBackend;
 
   private DiagnosticListener <? super JavaFileObject> m_aDL;
+  private ICompilerBackend m_aCompilerBackend;
+  private int m_nCompilerThreads = DEFAULT_COMPILER_THREADS;
   private final Map <String, NonBlockingByteArrayOutputStream> m_aBinaries = new HashMap <> ();
+  private final Map <String, StringBuilder> m_aSources = new HashMap <> ();
+
+  /**
+   * An unsynchronized {@link Writer} appending to a {@link StringBuilder}.
+   */
+  private static final class StringBuilderWriter extends Writer
+  {
+    private final StringBuilder m_aSB;
+
+    StringBuilderWriter (@NonNull final StringBuilder aSB)
+    {
+      m_aSB = aSB;
+    }
+
+    @Override
+    public void write (final int c)
+    {
+      m_aSB.append ((char) c);
+    }
+
+    @Override
+    public void write (final char [] aBuf, final int nOfs, final int nLen)
+    {
+      m_aSB.append (aBuf, nOfs, nLen);
+    }
+
+    @Override
+    public void write (final String sStr, final int nOfs, final int nLen)
+    {
+      m_aSB.append (sStr, nOfs, nOfs + nLen);
+    }
+
+    @Override
+    public void flush ()
+    {}
+
+    @Override
+    public void close ()
+    {}
+  }
 
   public MemoryCodeWriter ()
   {
-    super (Charset.defaultCharset (), System.lineSeparator ());
+    this (Charset.defaultCharset ());
+  }
+
+  /**
+   * @param aEncoding
+   *        The encoding of the files. For Java sources it only determines which characters are
+   *        escaped. May be <code>null</code> for the platform encoding.
+   * @since 4.2.2
+   */
+  public MemoryCodeWriter (@Nullable final Charset aEncoding)
+  {
+    super (aEncoding, System.lineSeparator ());
   }
 
   @Override
@@ -128,13 +204,163 @@ public class MemoryCodeWriter extends AbstractCodeWriter
   }
 
   /**
-   * @return an unmodifiable map of the internal binaries. It's a map from filename to the payload.
-   *         Don't modify the payload, as it is not copied!
+   * @return The compiler backend used if none is set explicitly: javac if the JVM contains it,
+   *         ECJ if it is on the class path otherwise. Never <code>null</code>.
+   * @throws IllegalStateException
+   *         If neither javac nor ECJ are available
+   * @since 4.2.2
+   */
+  @NonNull
+  public static ICompilerBackend getDefaultCompilerBackend ()
+  {
+    ICompilerBackend ret = s_aDefaultCompilerBackend;
+    if (ret == null)
+    {
+      if (JavacCompilerBackend.isSystemCompilerAvailable ())
+        ret = new JavacCompilerBackend ();
+      else
+        try
+        {
+          Class.forName (EcjCompilerBackend.ECJ_CLASS_NAME, false, MemoryCodeWriter.class.getClassLoader ());
+          ret = new EcjCompilerBackend ();
+        }
+        catch (final ClassNotFoundException ex)
+        {
+          throw new IllegalStateException ("This JVM contains no system Java compiler and ECJ is not on the class path");
+        }
+      s_aDefaultCompilerBackend = ret;
+    }
+    return ret;
+  }
+
+  /**
+   * @return The compiler backend to use. <code>null</code> for the default one.
+   * @see #getDefaultCompilerBackend()
+   * @since 4.2.2
+   */
+  @Nullable
+  public final ICompilerBackend getCompilerBackend ()
+  {
+    return m_aCompilerBackend;
+  }
+
+  /**
+   * Set the compiler backend to use, e.g. {@link EcjCompilerBackend}. The backends are
+   * thread-safe and should be shared between writers, as they cache the class path content.
+   *
+   * @param aCompilerBackend
+   *        The compiler backend to use. May be <code>null</code> for the default one.
+   * @return this for chaining
+   * @see #getDefaultCompilerBackend()
+   * @since 4.2.2
+   */
+  @NonNull
+  public final MemoryCodeWriter setCompilerBackend (@Nullable final ICompilerBackend aCompilerBackend)
+  {
+    m_aCompilerBackend = aCompilerBackend;
+    return this;
+  }
+
+  /**
+   * @return The maximum number of compilation tasks running in parallel. Defaults to
+   *         {@link #DEFAULT_COMPILER_THREADS}.
+   * @since 4.2.2
+   */
+  @Nonnegative
+  public final int getCompilerThreads ()
+  {
+    return m_nCompilerThreads;
+  }
+
+  /**
+   * Set the maximum number of compilation tasks running in parallel. If the value is &gt; 1, the
+   * sources are split along the references between the top-level classes into layers of
+   * independent partitions. The partitions of a layer are compiled concurrently, each with a
+   * separate compilation task, against the byte code of the previous layers. If the references
+   * don't allow any split, or if a partition fails to compile, all sources are compiled in a single
+   * task, so the result is always the same as with a single thread.
+   *
+   * @param nCompilerThreads
+   *        The maximum number of compiler threads. Must be &gt; 0.
+   * @return this for chaining
+   * @since 4.2.2
+   */
+  @NonNull
+  public final MemoryCodeWriter setCompilerThreads (@Nonnegative final int nCompilerThreads)
+  {
+    ValueEnforcer.isGT0 (nCompilerThreads, "CompilerThreads");
+    m_nCompilerThreads = nCompilerThreads;
+    return this;
+  }
+
+  @NonNull
+  private Charset _getCharset ()
+  {
+    final Charset ret = encoding ();
+    return ret != null ? ret : Charset.defaultCharset ();
+  }
+
+  /**
+   * @return an unmodifiable map of all files, including the Java sources. It's a map from filename
+   *         to the payload. The Java sources written via {@link #openSource(JPackage, String)} are
+   *         encoded on every call, so {@link #getSources()} and {@link #getResources()} should be
+   *         preferred. Don't modify the payload, as it is not copied!
    */
   @NonNull
   public Map <String, NonBlockingByteArrayOutputStream> getBinaries ()
   {
-    return Collections.unmodifiableMap (m_aBinaries);
+    if (m_aSources.isEmpty ())
+      return Collections.unmodifiableMap (m_aBinaries);
+
+    final Charset aCharset = _getCharset ();
+    final Map <String, NonBlockingByteArrayOutputStream> ret = new HashMap <> (m_aBinaries);
+    for (final Entry <String, StringBuilder> e : m_aSources.entrySet ())
+    {
+      final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+      aBAOS.write (e.getValue ().toString ().getBytes (aCharset));
+      ret.put (e.getKey (), aBAOS);
+    }
+    return Collections.unmodifiableMap (ret);
+  }
+
+  /**
+   * @return an unmodifiable map of all Java sources, from filename to content. The content of the
+   *         sources written via {@link #openSource(JPackage, String)} is not copied. Java sources
+   *         written as binary are decoded with the configured encoding.
+   * @since 4.2.2
+   */
+  @NonNull
+  public Map <String, CharSequence> getSources ()
+  {
+    Map <String, CharSequence> ret = null;
+    for (final Entry <String, NonBlockingByteArrayOutputStream> e : m_aBinaries.entrySet ())
+      if (e.getKey ().endsWith (JAVA_FILE_EXTENSION))
+      {
+        if (ret == null)
+          ret = new HashMap <> (m_aSources);
+        ret.put (e.getKey (), e.getValue ().getAsString (_getCharset ()));
+      }
+    return Collections.unmodifiableMap (ret != null ? ret : m_aSources);
+  }
+
+  /**
+   * @return an unmodifiable map of all files that are not Java sources, from filename to the
+   *         payload. Don't modify the payload, as it is not copied!
+   * @since 4.2.2
+   */
+  @NonNull
+  public Map <String, NonBlockingByteArrayOutputStream> getResources ()
+  {
+    final Map <String, NonBlockingByteArrayOutputStream> ret = new HashMap <> ();
+    for (final Entry <String, NonBlockingByteArrayOutputStream> e : m_aBinaries.entrySet ())
+      if (!e.getKey ().endsWith (JAVA_FILE_EXTENSION))
+        ret.put (e.getKey (), e.getValue ());
+    return Collections.unmodifiableMap (ret);
+  }
+
+  private static void _warnDuplicate (@NonNull final String sFullname)
+  {
+    LOGGER.warn ("The filename '" + sFullname + "' is contained more than once. Expect compilation errors.");
   }
 
   @Override
@@ -148,17 +374,44 @@ public class MemoryCodeWriter extends AbstractCodeWriter
     NonBlockingByteArrayOutputStream aBAOS = m_aBinaries.get (sFullname);
     if (aBAOS == null)
     {
+      if (m_aSources.remove (sFullname) != null)
+        _warnDuplicate (sFullname);
       aBAOS = new NonBlockingByteArrayOutputStream ();
       m_aBinaries.put (sFullname, aBAOS);
     }
     else
     {
-      LOGGER.warn ("The filename '" + sFullname + "' is contained more than once. Expect compilation errors.");
+      _warnDuplicate (sFullname);
     }
 
     return aBAOS;
   }
 
+  /**
+   * Java sources are kept as characters. The characters that can't be encoded with the configured
+   * encoding are escaped nevertheless, so that the result is the same as when writing bytes.
+   */
+  @Override
+  public SourcePrintWriter openSource (@NonNull final JPackage aPackage,
+                                       @NonNull final String sFilename) throws IOException
+  {
+    if (!sFilename.endsWith (JAVA_FILE_EXTENSION))
+      return super.openSource (aPackage, sFilename);
+
+    final String sFullname = toDirName (aPackage) + "/" + sFilename;
+
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("MemoryCodeWriter.openSource (" + sFullname + ")");
+
+    final StringBuilder aSB = new StringBuilder ();
+    if (m_aSources.put (sFullname, aSB) != null || m_aBinaries.remove (sFullname) != null)
+      _warnDuplicate (sFullname);
+
+    // No additional buffer needed, the StringBuilder is the buffer
+    return new SourcePrintWriter (new JavaUnicodeEscapeWriter (new StringBuilderWriter (aSB), _getCharset ()),
+                                  getNewLine ());
+  }
+
   /**
    * Compiling the contained java sources.
    *
@@ -169,33 +422,43 @@ public class MemoryCodeWriter extends AbstractCodeWriter
   @NonNull
   public ESuccess compile (@NonNull final DynamicClassLoader aDynamicClassLoader)
   {
-    final ICommonsList <JavaFileObject> aCompilationUnits = new CommonsArrayList <> ();
-
-    final Map <String, NonBlockingByteArrayOutputStream> aNonJava = new HashMap <> ();
-
-    for (final Entry <String, NonBlockingByteArrayOutputStream> e : getBinaries ().entrySet ())
-      if (e.getKey ().endsWith (JAVA_FILE_EXTENSION))
-        try
-        {
-          // Use the configured encoding
-          aCompilationUnits.add (new SourceJavaFile (e.getKey (), e.getValue ().getAsString (encoding ())));
+    return compile (aDynamicClassLoader, null);
+  }
 
-          final String className = StringHelper.trimEnd (StringReplace.replaceAll (e.getKey (), '/', '.'),
-                                                         JAVA_FILE_EXTENSION);
-          final CompiledCodeJavaFile cc = new CompiledCodeJavaFile (className);
-          aDynamicClassLoader.setCode (cc);
-        }
-        catch (final Exception e1)
-        {
-          throw new UnsupportedOperationException (e1);
-        }
-      else
-        aNonJava.put (e.getKey (), e.getValue ());
+  /**
+   * Compiling the contained java sources, reusing the byte code of a previous compilation of the
+   * same sources from the provided cache.
+   *
+   * @param aDynamicClassLoader
+   *        The dynamic class loader to use. May not be <code>null</code>.
+   * @param aCache
+   *        The persistent cache of compiled code to use. May be <code>null</code> to always
+   *        compile.
+   * @return {@link ESuccess#SUCCESS} if if worked, <code>false</code> if not.
+   * @since 4.2.2
+   */
+  @NonNull
+  public ESuccess compile (@NonNull final DynamicClassLoader aDynamicClassLoader, @Nullable final CompiledCodeCache aCache)
+  {
+    final Map <String, CharSequence> aSources = getSources ();
+    final Map <String, NonBlockingByteArrayOutputStream> aNonJava = getResources ();
 
-    if (!aCompilationUnits.isEmpty ())
-      try
+    final ICompilerBackend aBackend = m_aCompilerBackend != null ? m_aCompilerBackend : getDefaultCompilerBackend ();
+    final String sCacheKey = aCache == null || aSources.isEmpty () ? null
+                                                                   : aCache.getKey (aSources,
+                                                                                    Collections.singletonList (aBackend.getName ()));
+    final List <CompiledCodeJavaFile> aCachedCode = sCacheKey == null ? null : aCache.get (sCacheKey);
+    if (aCachedCode != null)
+    {
+      LOGGER.info ("Using the cached byte code of " + aSources.size () + " sources");
+      for (final CompiledCodeJavaFile cc : aCachedCode)
+        aDynamicClassLoader.setCode (cc);
+    }
+    else
+      if (!aSources.isEmpty ())
       {
-        LOGGER.info ("Compiling: " + aCompilationUnits.getAllMapped (FileObject::getName));
+        final Set <String> aFilenames = new TreeSet <> (aSources.keySet ());
+        LOGGER.info ("Compiling with " + aBackend.getName () + ": " + aFilenames);
 
         final DiagnosticListener <? super JavaFileObject> aLoggingDL = x -> LOGGER.error (x.toString ());
         final DiagnosticListener <? super JavaFileObject> aRealDL = m_aDL != null ? x -> {
@@ -203,30 +466,133 @@ public class MemoryCodeWriter extends AbstractCodeWriter
           m_aDL.report (x);
         } : aLoggingDL;
 
-        final ForwardingJavaFileManager <JavaFileManager> aFileManager = new ClassLoaderFileManager (JAVAC.getStandardFileManager (aRealDL,
-                                                                                                                                   null,
-                                                                                                                                   StandardCharsets.UTF_8),
-                                                                                                     aDynamicClassLoader);
-        final JavaCompiler.CompilationTask task = JAVAC.getTask (null,
-                                                                 aFileManager,
-                                                                 aRealDL,
-                                                                 null,
-                                                                 null,
-                                                                 aCompilationUnits);
-        if (!task.call ().booleanValue ())
+        List <CompiledCodeJavaFile> aCompiledCode = null;
+        List <List <Map <String, CharSequence>>> aLayers = null;
+        if (m_nCompilerThreads > 1)
+          aLayers = CompilePartitioner.getPartitions (aSources, m_nCompilerThreads, MIN_PARTITION_SIZE);
+        if (aLayers != null)
+        {
+          aCompiledCode = _compilePartitions (aBackend, aLayers, aDynamicClassLoader, aRealDL);
+          if (aCompiledCode == null)
+          {
+            if (Thread.currentThread ().isInterrupted ())
+            {
+              LOGGER.error ("Interrupted while compiling: " + aFilenames);
+              return ESuccess.FAILURE;
+            }
+            LOGGER.info ("Failed to compile the partitions, compiling all sources in a single task");
+          }
+        }
+        if (aCompiledCode == null)
+          aCompiledCode = aBackend.compile (aSources, aDynamicClassLoader, aRealDL);
+        if (aCompiledCode == null)
         {
-          LOGGER.error ("Error compiling: " + aCompilationUnits.getAllMapped (FileObject::getName));
+          LOGGER.error ("Error compiling: " + aFilenames);
           return ESuccess.FAILURE;
         }
-      }
-      catch (final Exception e1)
-      {
-        throw new UnsupportedOperationException (e1);
+
+        if (sCacheKey != null)
+          try
+          {
+            aCache.put (sCacheKey, aCompiledCode);
+          }
+          catch (final IOException ex)
+          {
+            // The compilation itself worked
+            LOGGER.warn ("Failed to store the compiled code in the cache", ex);
+          }
       }
     aDynamicClassLoader.addResources (aNonJava);
     return ESuccess.SUCCESS;
   }
 
+  /**
+   * Compile the partitions layer by layer. Each partition is compiled with a separate class loader
+   * that only contains the byte code of the previous layers, so that the partitions of a layer
+   * don't see the incomplete output of each other. The diagnostics are only forwarded if all
+   * partitions compiled, as all sources are compiled again otherwise.
+   *
+   * @return The byte code of all partitions, also added to the provided class loader.
+   *         <code>null</code> if a partition failed to compile.
+   */
+  @Nullable
+  private List <CompiledCodeJavaFile> _compilePartitions (@NonNull final ICompilerBackend aBackend,
+                                                          @NonNull final List <List <Map <String, CharSequence>>> aLayers,
+                                                          @NonNull final DynamicClassLoader aDynamicClassLoader,
+                                                          @NonNull final DiagnosticListener <? super JavaFileObject> aDL)
+  {
+    int nPartitions = 0;
+    for (final List <Map <String, CharSequence>> aLayer : aLayers)
+      nPartitions += aLayer.size ();
+    LOGGER.info ("Compiling " + nPartitions + " partitions in " + aLayers.size () + " layers");
+
+    final List <Diagnostic <? extends JavaFileObject>> aDiagnostics = new ArrayList <> ();
+    final DiagnosticListener <JavaFileObject> aCollectingDL = x -> {
+      synchronized (aDiagnostics)
+      {
+        aDiagnostics.add (x);
+      }
+    };
+    final AtomicInteger aThreadIndex = new AtomicInteger (0);
+    final ExecutorService aExecutor = Executors.newFixedThreadPool (m_nCompilerThreads, r -> {
+      final Thread t = new Thread (r, "jcodemodel-compiler-" + aThreadIndex.incrementAndGet ());
+      t.setDaemon (true);
+      return t;
+    });
+    try
+    {
+      final List <CompiledCodeJavaFile> ret = new ArrayList <> ();
+      for (final List <Map <String, CharSequence>> aLayer : aLayers)
+      {
+        final List <CompiledCodeJavaFile> aPrevious = new ArrayList <> (ret);
+        final List <Future <List <CompiledCodeJavaFile>>> aFutures = new ArrayList <> (aLayer.size ());
+        for (final Map <String, CharSequence> aPartition : aLayer)
+          aFutures.add (aExecutor.submit ( () -> {
+            final DynamicClassLoader aPartitionCL = new DynamicClassLoader (aDynamicClassLoader.getParent ());
+            for (final CompiledCodeJavaFile cc : aPrevious)
+              aPartitionCL.setCode (cc);
+            return aBackend.compile (aPartition, aPartitionCL, aCollectingDL);
+          }));
+
+        boolean bSuccess = true;
+        for (final Future <List <CompiledCodeJavaFile>> aFuture : aFutures)
+        {
+          final List <CompiledCodeJavaFile> aCompiledCode = aFuture.get ();
+          if (aCompiledCode == null)
+            bSuccess = false;
+          else
+            ret.addAll (aCompiledCode);
+        }
+        if (!bSuccess)
+          return null;
+      }
+
+      for (final CompiledCodeJavaFile cc : ret)
+        aDynamicClassLoader.setCode (cc);
+      for (final Diagnostic <? extends JavaFileObject> aDiagnostic : aDiagnostics)
+        aDL.report (aDiagnostic);
+      return ret;
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      return null;
+    }
+    catch (final ExecutionException ex)
+    {
+      final Throwable aCause = ex.getCause ();
+      if (aCause instanceof RuntimeException)
+        throw (RuntimeException) aCause;
+      if (aCause instanceof Error)
+        throw (Error) aCause;
+      throw new IllegalStateException ("Failed to compile a partition", aCause);
+    }
+    finally
+    {
+      aExecutor.shutdownNow ();
+    }
+  }
+
   /**
    * Creates a dynamic class loaders that delegates unknown resources and classes to the classloader
    * of the this class.
@@ -253,6 +619,42 @@ public class MemoryCodeWriter extends AbstractCodeWriter
     return compile (aDCL).isSuccess () ? aDCL : null;
   }
 
+  /**
+   * Shortcut for {@link #compile(DynamicClassLoader, CompiledCodeCache)} with a correct class
+   * loader.
+   *
+   * @param aCache
+   *        The persistent cache of compiled code to use. May be <code>null</code> to always
+   *        compile.
+   * @return <code>null</code> if compiling didn't work. The non-<code>null</code> class loader
+   *         otherwise.
+   * @since 4.2.2
+   */
+  @Nullable
+  public DynamicClassLoader compile (@Nullable final CompiledCodeCache aCache)
+  {
+    final DynamicClassLoader aDCL = dynCL ();
+    return compile (aDCL, aCache).isSuccess () ? aDCL : null;
+  }
+
+  /**
+   * Compile the contained java sources within a long-lived session, that only compiles the sources
+   * changed since the last compilation of the session. The compiler backend of this writer is used
+   * if one is set.
+   *
+   * @param aSession
+   *        The compile session to use. May not be <code>null</code>.
+   * @return <code>null</code> if compiling didn't work. The non-<code>null</code> class loader
+   *         otherwise.
+   * @see CompileSession#compile(MemoryCodeWriter)
+   * @since 4.2.2
+   */
+  @Nullable
+  public DynamicClassLoader compile (@NonNull final CompileSession aSession)
+  {
+    return aSession.compile (this);
+  }
+
   @NonNull
   public static MemoryCodeWriter from (@NonNull final JCodeModel jcm)
   {
@@ -53,25 +53,36 @@ import javax.tools.SimpleJavaFileObject;
  */
 public class SourceJavaFile extends SimpleJavaFileObject
 {
-  private final String m_sContent;
+  private final String m_sFilename;
+  private final CharSequence m_aContent;
 
   /**
    * create a {@link SimpleJavaFileObject} based on a .java file
    *
    * @param sFilename
    *        Filename
-   * @param sContent
-   *        Content of the Java file
+   * @param aContent
+   *        Content of the Java file. It is not copied.
    */
-  public SourceJavaFile (final String sFilename, final String sContent)
+  public SourceJavaFile (final String sFilename, final CharSequence aContent)
   {
     super (URI.create ("string:///" + sFilename), Kind.SOURCE);
-    m_sContent = sContent;
+    m_sFilename = sFilename;
+    m_aContent = aContent;
+  }
+
+  /**
+   * @return The filename this object was created with, e.g. "org/example/Foo.java".
+   * @since 4.2.2
+   */
+  public String getFilename ()
+  {
+    return m_sFilename;
   }
 
   @Override
   public CharSequence getCharContent (final boolean ignoreEncodingErrors) throws IOException
   {
-    return m_sContent;
+    return m_aContent;
   }
 }
@@ -67,14 +67,20 @@ public class UnicodeEscapeWriter extends FilterWriter
         ESCAPE.set (i, true);
   }
 
+  /**
+   * Result of {@link #requireEscaping(int)} for all US-ASCII characters. Lazily filled on first
+   * write, so that overridden implementations are fully initialized.
+   */
+  private boolean [] m_aEscapeASCII;
+
   public UnicodeEscapeWriter (@NonNull final Writer aNext)
   {
     super (aNext);
   }
 
   /**
-   * Check if a character needs escaping or not. Can be overridden in
-   * subclasses.
+   * Check if a character needs escaping or not. Can be overridden in subclasses. The result for
+   * US-ASCII characters (&lt; 0x80) must not change over time, as it is cached.
    *
    * @param ch
    *        Character to check
@@ -86,18 +92,37 @@ public class UnicodeEscapeWriter extends FilterWriter
     return ch >= 128 || ESCAPE.get (ch);
   }
 
+  @NonNull
+  private boolean [] _getEscapeASCII ()
+  {
+    boolean [] ret = m_aEscapeASCII;
+    if (ret == null)
+    {
+      ret = new boolean [0x80];
+      for (int i = 0; i < ret.length; i++)
+        ret[i] = requireEscaping (i);
+      m_aEscapeASCII = ret;
+    }
+    return ret;
+  }
+
+  private void _writeEscaped (final int ch) throws IOException
+  {
+    out.write ("\\u");
+    final String s = Integer.toHexString (ch);
+    // Leading spaces
+    for (int i = s.length (); i < 4; i++)
+      out.write ('0');
+    out.write (s);
+  }
+
   @Override
   public final void write (final int ch) throws IOException
   {
     if (requireEscaping (ch))
     {
       // need to escape
-      out.write ("\\u");
-      final String s = Integer.toHexString (ch);
-      // Leading spaces
-      for (int i = s.length (); i < 4; i++)
-        out.write ('0');
-      out.write (s);
+      _writeEscaped (ch);
     }
     else
       out.write (ch);
@@ -106,9 +131,23 @@ public class UnicodeEscapeWriter extends FilterWriter
   @Override
   public final void write (@NonNull final char [] aBuf, @Nonnegative final int nOfs, @Nonnegative final int nLen) throws IOException
   {
+    final boolean [] aEscapeASCII = _getEscapeASCII ();
     final int nMax = nOfs + nLen;
+    // Start of the current run of characters that need no escaping
+    int nRunStart = nOfs;
     for (int i = nOfs; i < nMax; i++)
-      write (aBuf[i]);
+    {
+      final char c = aBuf[i];
+      if (c < 0x80 ? aEscapeASCII[c] : requireEscaping (c))
+      {
+        if (i > nRunStart)
+          out.write (aBuf, nRunStart, i - nRunStart);
+        _writeEscaped (c);
+        nRunStart = i + 1;
+      }
+    }
+    if (nMax > nRunStart)
+      out.write (aBuf, nRunStart, nMax - nRunStart);
   }
 
   @Override
@@ -120,12 +159,28 @@ public class UnicodeEscapeWriter extends FilterWriter
   @Override
   public final void write (@NonNull final String sStr, @Nonnegative final int nOfs, @Nonnegative final int nLen) throws IOException
   {
-    write (sStr.toCharArray (), nOfs, nLen);
+    final boolean [] aEscapeASCII = _getEscapeASCII ();
+    final int nMax = nOfs + nLen;
+    // Start of the current run of characters that need no escaping
+    int nRunStart = nOfs;
+    for (int i = nOfs; i < nMax; i++)
+    {
+      final char c = sStr.charAt (i);
+      if (c < 0x80 ? aEscapeASCII[c] : requireEscaping (c))
+      {
+        if (i > nRunStart)
+          out.write (sStr, nRunStart, i - nRunStart);
+        _writeEscaped (c);
+        nRunStart = i + 1;
+      }
+    }
+    if (nMax > nRunStart)
+      out.write (sStr, nRunStart, nMax - nRunStart);
   }
 
   @Override
   public final void write (@NonNull final String sStr) throws IOException
   {
-    write (sStr.toCharArray (), 0, sStr.length ());
+    write (sStr, 0, sStr.length ());
   }
 }
@@ -96,6 +96,17 @@ public abstract class AbstractCodeWriter implements Closeable
     return m_sNewLine;
   }
 
+  /**
+   * @return <code>true</code> if this writer allows multiple files to be written from different
+   *         threads at the same time. <code>false</code> by default.
+   * @see JCMWriter#setWriterThreads(int)
+   * @since 4.2.2
+   */
+  public boolean isConcurrentWriteSupported ()
+  {
+    return false;
+  }
+
   /**
    * Called by CodeModel to store the specified file. The callee must allocate a storage to store
    * the specified file.<br>
@@ -115,6 +126,57 @@ public abstract class AbstractCodeWriter implements Closeable
   @NonNull
   public abstract OutputStream openBinary (@NonNull String sDirName, @NonNull String sFilename) throws IOException;
 
+  /**
+   * @return <code>true</code> if this writer keeps the files of a previous build in its target, so
+   *         that {@link JCMWriter} may skip unchanged files (see
+   *         {@link JCMWriter#setPreviousManifest(JCMWriterManifest)}). <code>false</code> by
+   *         default, e.g. for writers that create a new archive or write to memory.
+   * @since 4.2.2
+   */
+  public boolean isKeepFileSupported ()
+  {
+    return false;
+  }
+
+  /**
+   * Check if a file of a previous build still exists, so that it doesn't need to be written again.
+   * Only called if {@link #isKeepFileSupported()} is <code>true</code>. May be called from multiple
+   * threads at the same time.
+   *
+   * @param sDirName
+   *        The directory name, relative to the target directory. May not be <code>null</code> but
+   *        maybe empty.
+   * @param sFilename
+   *        File name without the path. Something like "Foo.java".
+   * @return <code>true</code> if the file exists and can be kept via
+   *         {@link #keepFile(String, String)}. <code>false</code> by default.
+   * @since 4.2.2
+   */
+  public boolean canKeepFile (@NonNull final String sDirName, @NonNull final String sFilename)
+  {
+    return false;
+  }
+
+  /**
+   * Called by {@link JCMWriter} instead of {@link #openBinary(String, String)} for a file that is
+   * not written again, because it is unchanged compared to a previous build (see
+   * {@link JCMWriter#setPreviousManifest(JCMWriterManifest)}) and
+   * {@link #canKeepFile(String, String)} returned <code>true</code>. Writers that remove existing
+   * files, like {@link FileCodeWriter} with {@link FileCodeWriter#setDeleteStaleFiles(boolean)},
+   * must keep this file. Does nothing by default.
+   *
+   * @param sDirName
+   *        The directory name, relative to the target directory. May not be <code>null</code> but
+   *        maybe empty.
+   * @param sFilename
+   *        File name without the path. Something like "Foo.java".
+   * @throws IOException
+   *         On IO error
+   * @since 4.2.2
+   */
+  public void keepFile (@NonNull final String sDirName, @NonNull final String sFilename) throws IOException
+  {}
+
   @NonNull
   protected static String toDirName (@NonNull final JPackage aPackage)
   {
@@ -45,12 +45,16 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 
+import com.helger.annotation.Nonnegative;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
 import com.helger.base.string.StringHelper;
 
 /**
@@ -62,6 +66,46 @@ public class FileCodeWriter extends AbstractCodeWriter
 {
   public static final boolean DEFAULT_MARK_READ_ONLY = false;
   public static final Charset DEFAULT_CHARSET = null;
+  public static final boolean DEFAULT_WRITE_ONLY_IF_CHANGED = false;
+  public static final boolean DEFAULT_DELETE_STALE_FILES = false;
+
+  /**
+   * Buffers the content of a single file and only writes it to disk if it differs from the
+   * existing file.
+   */
+  private final class ChangeDetectingOutputStream extends OutputStream
+  {
+    private final File m_aFile;
+    private final NonBlockingByteArrayOutputStream m_aBuffer = new NonBlockingByteArrayOutputStream ();
+    private boolean m_bClosed = false;
+
+    ChangeDetectingOutputStream (@NonNull final File aFile)
+    {
+      m_aFile = aFile;
+    }
+
+    @Override
+    public void write (final int b)
+    {
+      m_aBuffer.write (b);
+    }
+
+    @Override
+    public void write (final byte [] aBuf, final int nOfs, final int nLen)
+    {
+      m_aBuffer.write (aBuf, nOfs, nLen);
+    }
+
+    @Override
+    public void close () throws IOException
+    {
+      if (!m_bClosed)
+      {
+        m_bClosed = true;
+        _writeIfChanged (m_aFile, m_aBuffer.toByteArray ());
+      }
+    }
+  }
 
   /** The target directory to put source code. */
   private final File m_aTargetDir;
@@ -72,6 +116,19 @@ public class FileCodeWriter extends AbstractCodeWriter
   /** Files that shall be marked as read only. */
   private final Set <File> m_aReadOnlyFiles = new HashSet <> ();
 
+  /** Only write files whose content differs from the existing file */
+  private boolean m_bWriteOnlyIfChanged = DEFAULT_WRITE_ONLY_IF_CHANGED;
+
+  /** Delete files in the target directory that were not produced by this writer */
+  private boolean m_bDeleteStaleFiles = DEFAULT_DELETE_STALE_FILES;
+
+  /** All files produced by this writer. Only filled if stale files should be deleted. */
+  private final Set <File> m_aProducedFiles = new HashSet <> ();
+
+  private int m_nWrittenFiles;
+  private int m_nSkippedFiles;
+  private int m_nDeletedFiles;
+
   public FileCodeWriter (@NonNull final File aTargetDir) throws IOException
   {
     this (aTargetDir, DEFAULT_MARK_READ_ONLY, DEFAULT_CHARSET, JCMWriter.DEFAULT_NEW_LINE);
@@ -112,15 +169,155 @@ public class FileCodeWriter extends AbstractCodeWriter
       throw new IOException (aTargetDir + ": non-existent directory");
   }
 
+  /**
+   * @return <code>true</code> if files are only written if their content differs from the existing
+   *         file on disk. Defaults to {@link #DEFAULT_WRITE_ONLY_IF_CHANGED}.
+   * @since 4.2.2
+   */
+  public final boolean isWriteOnlyIfChanged ()
+  {
+    return m_bWriteOnlyIfChanged;
+  }
+
+  /**
+   * Enable or disable the incremental mode. If enabled, each file is buffered in memory and compared
+   * to the existing file on disk. Unchanged files are not touched, so that their modification time
+   * is retained and incremental compilers don't consider them changed.
+   *
+   * @param bWriteOnlyIfChanged
+   *        <code>true</code> to only write changed files, <code>false</code> to always write.
+   * @return this for chaining
+   * @since 4.2.2
+   */
+  @NonNull
+  public final FileCodeWriter setWriteOnlyIfChanged (final boolean bWriteOnlyIfChanged)
+  {
+    m_bWriteOnlyIfChanged = bWriteOnlyIfChanged;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if files in the target directory that were not produced by this writer
+   *         are deleted upon {@link #close()}. Defaults to {@link #DEFAULT_DELETE_STALE_FILES}.
+   * @since 4.2.2
+   */
+  public final boolean isDeleteStaleFiles ()
+  {
+    return m_bDeleteStaleFiles;
+  }
+
+  /**
+   * Enable or disable the deletion of stale files. If enabled, all files in the target directory
+   * (recursively) that were neither produced nor {@link #keepFile(String, String) kept} by this
+   * writer are deleted upon {@link #close()}, as well as the directories that become empty. Only
+   * enable this, if this writer is the only one writing into the target directory - e.g. use the
+   * same writer for sources and resources.
+   *
+   * @param bDeleteStaleFiles
+   *        <code>true</code> to delete stale files, <code>false</code> to keep them.
+   * @return this for chaining
+   * @since 4.2.2
+   */
+  @NonNull
+  public final FileCodeWriter setDeleteStaleFiles (final boolean bDeleteStaleFiles)
+  {
+    m_bDeleteStaleFiles = bDeleteStaleFiles;
+    return this;
+  }
+
+  /**
+   * @return The number of files that were written to disk.
+   * @since 4.2.2
+   */
+  @Nonnegative
+  public final int getWrittenFileCount ()
+  {
+    return m_nWrittenFiles;
+  }
+
+  /**
+   * @return The number of files that were not written, because they were unchanged. Always 0 if
+   *         {@link #isWriteOnlyIfChanged()} is <code>false</code>.
+   * @since 4.2.2
+   */
+  @Nonnegative
+  public final int getSkippedFileCount ()
+  {
+    return m_nSkippedFiles;
+  }
+
+  /**
+   * @return The number of stale files that were deleted. Always 0 if {@link #isDeleteStaleFiles()}
+   *         is <code>false</code>.
+   * @since 4.2.2
+   */
+  @Nonnegative
+  public final int getDeletedFileCount ()
+  {
+    return m_nDeletedFiles;
+  }
+
   @Override
   @NonNull
   public OutputStream openBinary (@NonNull final String sDirName, @NonNull final String sFilename) throws IOException
   {
+    if (m_bWriteOnlyIfChanged)
+    {
+      final File aFile = getTargetFile (sDirName, sFilename);
+      _registerFile (aFile);
+      return new ChangeDetectingOutputStream (aFile);
+    }
+
+    m_nWrittenFiles++;
     return new FileOutputStream (getFile (sDirName, sFilename));
   }
 
+  @Override
+  public boolean isKeepFileSupported ()
+  {
+    return true;
+  }
+
   @NonNull
-  protected File getFile (@NonNull final String sDirName, @NonNull final String sFilename) throws IOException
+  private File _getExistingFile (@NonNull final String sDirName, @NonNull final String sFilename)
+  {
+    final File aDir = StringHelper.isEmpty (sDirName) ? m_aTargetDir : new File (m_aTargetDir, sDirName);
+    return new File (aDir, sFilename);
+  }
+
+  @Override
+  public boolean canKeepFile (@NonNull final String sDirName, @NonNull final String sFilename)
+  {
+    return _getExistingFile (sDirName, sFilename).isFile ();
+  }
+
+  @Override
+  public void keepFile (@NonNull final String sDirName, @NonNull final String sFilename)
+  {
+    _registerFile (_getExistingFile (sDirName, sFilename));
+  }
+
+  private void _registerFile (@NonNull final File aFile)
+  {
+    if (m_bMarkReadOnly)
+      m_aReadOnlyFiles.add (aFile);
+    if (m_bDeleteStaleFiles)
+      m_aProducedFiles.add (aFile.getAbsoluteFile ());
+  }
+
+  /**
+   * Get the file to be written and ensure the parent directory exists.
+   *
+   * @param sDirName
+   *        The directory name, relative to the target directory. May be empty.
+   * @param sFilename
+   *        The file name without the path.
+   * @return The file to be written. It may already exist.
+   * @throws IOException
+   *         If the parent directory could not be created
+   */
+  @NonNull
+  protected File getTargetFile (@NonNull final String sDirName, @NonNull final String sFilename) throws IOException
   {
     final File aDir;
     if (StringHelper.isEmpty (sDirName))
@@ -132,18 +329,85 @@ public class FileCodeWriter extends AbstractCodeWriter
       if (!aDir.mkdirs ())
         throw new IOException (aDir + ": failed to create directory");
 
-    final File aFile = new File (aDir, sFilename);
+    return new File (aDir, sFilename);
+  }
+
+  @NonNull
+  protected File getFile (@NonNull final String sDirName, @NonNull final String sFilename) throws IOException
+  {
+    final File aFile = getTargetFile (sDirName, sFilename);
     if (aFile.exists ())
     {
       if (!aFile.delete ())
         throw new IOException (aFile + ": Can't delete previous version");
     }
 
-    if (m_bMarkReadOnly)
-      m_aReadOnlyFiles.add (aFile);
+    _registerFile (aFile);
     return aFile;
   }
 
+  private static boolean _isUnchanged (@NonNull final File aFile, @NonNull final byte [] aContent) throws IOException
+  {
+    // Size check first, so that the content is only read if it may be equal
+    if (!aFile.isFile () || aFile.length () != aContent.length)
+      return false;
+    return Arrays.equals (Files.readAllBytes (aFile.toPath ()), aContent);
+  }
+
+  private void _writeIfChanged (@NonNull final File aFile, @NonNull final byte [] aContent) throws IOException
+  {
+    if (_isUnchanged (aFile, aContent))
+    {
+      m_nSkippedFiles++;
+      return;
+    }
+
+    if (aFile.exists ())
+    {
+      // May be read-only from a previous run
+      if (!aFile.delete ())
+        throw new IOException (aFile + ": Can't delete previous version");
+    }
+    try (final OutputStream aOS = new FileOutputStream (aFile))
+    {
+      aOS.write (aContent);
+    }
+    m_nWrittenFiles++;
+  }
+
+  /**
+   * Recursively delete all files that were not produced by this writer. Directories that become
+   * empty by that are deleted as well.
+   *
+   * @return <code>true</code> if at least one file or directory was deleted.
+   */
+  private boolean _deleteStaleFiles (@NonNull final File aDir) throws IOException
+  {
+    boolean bDeleted = false;
+    final File [] aChildren = aDir.listFiles ();
+    if (aChildren != null)
+      for (final File aChild : aChildren)
+        if (aChild.isDirectory ())
+        {
+          if (_deleteStaleFiles (aChild))
+          {
+            bDeleted = true;
+            final String [] aRemaining = aChild.list ();
+            if (aRemaining != null && aRemaining.length == 0 && !aChild.delete ())
+              throw new IOException (aChild + ": Can't delete empty directory");
+          }
+        }
+        else
+          if (!m_aProducedFiles.contains (aChild.getAbsoluteFile ()))
+          {
+            if (!aChild.delete ())
+              throw new IOException (aChild + ": Can't delete stale file");
+            m_nDeletedFiles++;
+            bDeleted = true;
+          }
+    return bDeleted;
+  }
+
   @Override
   public void close () throws IOException
   {
@@ -151,5 +415,9 @@ public class FileCodeWriter extends AbstractCodeWriter
     for (final File f : m_aReadOnlyFiles)
       if (!f.setReadOnly ())
         throw new IOException (f + ": Can't make file read-only");
+
+    // remove everything that was not produced
+    if (m_bDeleteStaleFiles)
+      _deleteStaleFiles (m_aTargetDir);
   }
 }
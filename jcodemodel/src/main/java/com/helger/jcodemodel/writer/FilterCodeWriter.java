@@ -75,6 +75,24 @@ public class FilterCodeWriter extends AbstractCodeWriter
     return m_aCore.openBinary (sDirName, sFilename);
   }
 
+  @Override
+  public boolean isKeepFileSupported ()
+  {
+    return m_aCore.isKeepFileSupported ();
+  }
+
+  @Override
+  public boolean canKeepFile (@NonNull final String sDirName, @NonNull final String sFilename)
+  {
+    return m_aCore.canKeepFile (sDirName, sFilename);
+  }
+
+  @Override
+  public void keepFile (@NonNull final String sDirName, @NonNull final String sFilename) throws IOException
+  {
+    m_aCore.keepFile (sDirName, sFilename);
+  }
+
   @Override
   public SourcePrintWriter openSource (@NonNull final JPackage aPkg, @NonNull final String sFilename) throws IOException
   {
@@ -43,17 +43,40 @@ package com.helger.jcodemodel.writer;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.Collection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 
 import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
 import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.io.nonblocking.NonBlockingStringWriter;
+import com.helger.jcodemodel.AbstractJClass;
 import com.helger.jcodemodel.IJFormatter;
 import com.helger.jcodemodel.JAnnotationUse;
 import com.helger.jcodemodel.JCodeModel;
@@ -81,6 +104,135 @@ public class JCMWriter
   /** Default Java feature (major release version) targeted by generated code. */
   public static final int DEFAULT_JAVA_FEATURE = 17;
 
+  /** Default number of threads used to format source files. 1 means serial. */
+  public static final int DEFAULT_PARALLELISM = 1;
+
+  /** Default number of threads used to write source files. 0 means the calling thread. */
+  public static final int DEFAULT_WRITER_THREADS = 0;
+
+  /**
+   * Number of formatted source files that may be pending per formatting thread in a parallel build.
+   * Bounds the memory used by buffered but not yet written files.
+   */
+  private static final int MAX_PENDING_SOURCES_PER_THREAD = 4;
+
+  /**
+   * A source file that is formatted in memory by a parallel build and written later on, in the
+   * order it was scheduled in.
+   */
+  private static final class PendingSource
+  {
+    private final JPackage m_aPackage;
+    private final String m_sFilename;
+    private final FutureTask <String> m_aContent;
+
+    PendingSource (@NonNull final JPackage aPackage,
+                   @NonNull final String sFilename,
+                   @NonNull final FutureTask <String> aContent)
+    {
+      m_aPackage = aPackage;
+      m_sFilename = sFilename;
+      m_aContent = aContent;
+    }
+  }
+
+  /**
+   * Collects the hashes of all source files of a build and decides which files can be skipped
+   * because they are unchanged compared to a previous build.
+   */
+  private static final class ManifestCollector
+  {
+    private final byte [] m_aSettingsHash;
+    private final JCMWriterManifest m_aPreviousManifest;
+    private final AbstractCodeWriter m_aSourceWriter;
+    private final Map <String, String> m_aHashes = new TreeMap <> ();
+    /** Directory and file name of all unchanged files */
+    private final List <String []> m_aUnchangedFiles = new ArrayList <> ();
+
+    ManifestCollector (@NonNull final String sSettings,
+                       @Nullable final JCMWriterManifest aPreviousManifest,
+                       @NonNull final AbstractCodeWriter aSourceWriter)
+    {
+      m_aSettingsHash = _createDigest ().digest (sSettings.getBytes (StandardCharsets.UTF_8));
+      // Without support of the writer, all files are written
+      m_aPreviousManifest = aSourceWriter.isKeepFileSupported () ? aPreviousManifest : null;
+      m_aSourceWriter = aSourceWriter;
+    }
+
+    @NonNull
+    private static MessageDigest _createDigest ()
+    {
+      try
+      {
+        return MessageDigest.getInstance ("SHA-256");
+      }
+      catch (final NoSuchAlgorithmException ex)
+      {
+        throw new IllegalStateException ("SHA-256 is not supported", ex);
+      }
+    }
+
+    /**
+     * The import resolution of a class depends on the names of all classes of its package, so they
+     * are part of the hash of each file.
+     */
+    @NonNull
+    byte [] getPackageContextHash (@NonNull final JPackage aPackage)
+    {
+      final MessageDigest aDigest = _createDigest ();
+      aDigest.update (m_aSettingsHash);
+      aDigest.update (aPackage.name ().getBytes (StandardCharsets.UTF_8));
+      for (final JDefinedClass aClass : aPackage.classes ())
+      {
+        aDigest.update ((byte) '\n');
+        aDigest.update (aClass.name ().getBytes (StandardCharsets.UTF_8));
+      }
+      return aDigest.digest ();
+    }
+
+    /**
+     * Record the hash of a file.
+     *
+     * @return <code>true</code> if the file has the same hash in the previous manifest, still exists
+     *         and doesn't need to be written.
+     */
+    boolean isUnchanged (@NonNull final byte [] aPackageContextHash,
+                         @NonNull final JPackage aPackage,
+                         @NonNull final String sFilename,
+                         @NonNull final String sContentHash)
+    {
+      final MessageDigest aDigest = _createDigest ();
+      aDigest.update (aPackageContextHash);
+      aDigest.update (sContentHash.getBytes (StandardCharsets.UTF_8));
+      final String sHash = HexFormat.of ().formatHex (aDigest.digest ());
+      final String sPath = JCMWriterManifest.getPath (aPackage, sFilename);
+      m_aHashes.put (sPath, sHash);
+      if (m_aPreviousManifest == null || !sHash.equals (m_aPreviousManifest.getHash (sPath)))
+        return false;
+      final String sDirName = AbstractCodeWriter.toDirName (aPackage);
+      if (!m_aSourceWriter.canKeepFile (sDirName, sFilename))
+        return false;
+      m_aUnchangedFiles.add (new String [] { sDirName, sFilename });
+      return true;
+    }
+
+    /**
+     * Tell the writer which files are kept from the previous build. Called from the building
+     * thread after all files were written, because writers need not be thread-safe.
+     */
+    void keepUnchangedFiles () throws IOException
+    {
+      for (final String [] aFile : m_aUnchangedFiles)
+        m_aSourceWriter.keepFile (aFile[0], aFile[1]);
+    }
+
+    @NonNull
+    JCMWriterManifest build ()
+    {
+      return new JCMWriterManifest (m_aHashes);
+    }
+  }
+
   private final JCodeModel m_aCM;
 
   /** The charset used for building the output - null means system default */
@@ -100,6 +252,42 @@ public class JCMWriter
    */
   private int m_nJavaFeature = DEFAULT_JAVA_FEATURE;
 
+  /**
+   * Number of threads used to format source files.
+   */
+  private int m_nParallelism = DEFAULT_PARALLELISM;
+
+  /**
+   * Number of threads used to write source files.
+   */
+  private int m_nWriterThreads = DEFAULT_WRITER_THREADS;
+
+  /**
+   * Walk each class only once while formatting.
+   */
+  private boolean m_bSinglePassFormatting = JFormatter.DEFAULT_SINGLE_PASS;
+
+  /**
+   * Name of the manifest file written next to the source files. <code>null</code> means no manifest
+   * is written.
+   */
+  private String m_sManifestFilename;
+
+  /**
+   * Manifest of a previous build. Files with an unchanged hash are not written.
+   */
+  private JCMWriterManifest m_aPreviousManifest;
+
+  /**
+   * Manifest of the last build.
+   */
+  private volatile JCMWriterManifest m_aLastManifest;
+
+  /**
+   * Classes that referenced error types in the last build. Filled from the formatting threads.
+   */
+  private final Set <JDefinedClass> m_aErrorTypeClasses = ConcurrentHashMap.newKeySet ();
+
   public JCMWriter (@NonNull final JCodeModel aCM)
   {
     ValueEnforcer.notNull (aCM, "CodeModel");
@@ -193,6 +381,244 @@ public class JCMWriter
     return this;
   }
 
+  /**
+   * @return The number of threads used to format source files. Defaults to
+   *         {@link #DEFAULT_PARALLELISM}.
+   */
+  @Nonnegative
+  public int getParallelism ()
+  {
+    return m_nParallelism;
+  }
+
+  /**
+   * Set the number of threads used to format source files. If the value is &gt; 1, each top-level
+   * class is formatted independently on a thread pool and the results are handed to the source
+   * writer in the same order as in a serial build, so the output is identical.
+   *
+   * @param nParallelism
+   *        The number of formatting threads. Must be &gt; 0.
+   * @return this for chaining
+   * @see #build(AbstractCodeWriter, AbstractCodeWriter, Executor)
+   */
+  @NonNull
+  public JCMWriter setParallelism (@Nonnegative final int nParallelism)
+  {
+    ValueEnforcer.isGT0 (nParallelism, "Parallelism");
+    m_nParallelism = nParallelism;
+    return this;
+  }
+
+  /**
+   * @return The number of threads used to write source files. Defaults to
+   *         {@link #DEFAULT_WRITER_THREADS}.
+   * @since 4.2.2
+   */
+  @Nonnegative
+  public int getWriterThreads ()
+  {
+    return m_nWriterThreads;
+  }
+
+  /**
+   * Set the number of threads used to write source files. If the value is &gt; 0, formatted source
+   * files are written on dedicated threads (virtual threads if available), so that formatting and
+   * writing overlap. The number of formatted but not yet written files is bounded. If the source
+   * writer does not support concurrent writing (see
+   * {@link AbstractCodeWriter#isConcurrentWriteSupported()}), only one writer thread is used and
+   * the files are written in the same order as in a serial build.
+   *
+   * @param nWriterThreads
+   *        The number of writer threads. Must be &ge; 0. 0 means that the calling thread writes.
+   * @return this for chaining
+   * @since 4.2.2
+   */
+  @NonNull
+  public JCMWriter setWriterThreads (@Nonnegative final int nWriterThreads)
+  {
+    ValueEnforcer.isGE0 (nWriterThreads, "WriterThreads");
+    m_nWriterThreads = nWriterThreads;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if each class is walked only once while formatting. Defaults to
+   *         {@link JFormatter#DEFAULT_SINGLE_PASS}.
+   * @since 4.2.2
+   */
+  public boolean isSinglePassFormatting ()
+  {
+    return m_bSinglePassFormatting;
+  }
+
+  /**
+   * Enable or disable single pass formatting. In single pass mode the output of a class is recorded
+   * while the imports are collected and replayed afterwards, instead of walking the class a second
+   * time. The output is the same in both modes.
+   *
+   * @param bSinglePassFormatting
+   *        <code>true</code> to walk each class only once
+   * @return this for chaining
+   * @since 4.2.2
+   */
+  @NonNull
+  public JCMWriter setSinglePassFormatting (final boolean bSinglePassFormatting)
+  {
+    m_bSinglePassFormatting = bSinglePassFormatting;
+    return this;
+  }
+
+  /**
+   * @return The name of the manifest file written into the root directory of the source writer.
+   *         <code>null</code> if no manifest is written, which is the default.
+   * @since 4.2.2
+   */
+  @Nullable
+  public String getManifestFilename ()
+  {
+    return m_sManifestFilename;
+  }
+
+  /**
+   * Set the name of a manifest file that is written into the root directory of the source writer
+   * after all source files. It contains the hashes of all source files of the build (including
+   * skipped ones), see {@link JCMWriterManifest}.
+   *
+   * @param sManifestFilename
+   *        The file name, e.g. {@link JCMWriterManifest#DEFAULT_FILENAME}. May be <code>null</code>
+   *        to write no manifest.
+   * @return this for chaining
+   * @since 4.2.2
+   */
+  @NonNull
+  public JCMWriter setManifestFilename (@Nullable final String sManifestFilename)
+  {
+    m_sManifestFilename = sManifestFilename;
+    return this;
+  }
+
+  /**
+   * @return The manifest of a previous build, used to skip unchanged files. May be
+   *         <code>null</code>.
+   * @since 4.2.2
+   */
+  @Nullable
+  public JCMWriterManifest getPreviousManifest ()
+  {
+    return m_aPreviousManifest;
+  }
+
+  /**
+   * Set the manifest of a previous build. Source files whose hash is the same as in this manifest
+   * are neither formatted nor written. The hash of a file covers the
+   * {@link JDefinedClass#getContentHash() content of its class}, the names of all classes in the
+   * same package, the settings of this writer and the encoding and line separator of the code
+   * writer. Files are only skipped if the code writer keeps the files of the previous build
+   * ({@link AbstractCodeWriter#isKeepFileSupported()}, e.g. {@link FileCodeWriter} and
+   * {@link PathCodeWriter} on a directory) and the file still exists
+   * ({@link AbstractCodeWriter#canKeepFile(String, String)}). Skipped files are reported via
+   * {@link AbstractCodeWriter#keepFile(String, String)}. All other code writers get all files.
+   *
+   * @param aPreviousManifest
+   *        The previous manifest, e.g. read via {@link JCMWriterManifest#readFrom(java.nio.file.Path)}.
+   *        May be <code>null</code> to write all files.
+   * @return this for chaining
+   * @since 4.2.2
+   */
+  @NonNull
+  public JCMWriter setPreviousManifest (@Nullable final JCMWriterManifest aPreviousManifest)
+  {
+    m_aPreviousManifest = aPreviousManifest;
+    return this;
+  }
+
+  /**
+   * @return The manifest of the last build. Only available if a manifest file name or a previous
+   *         manifest was set. <code>null</code> otherwise or if nothing was built yet.
+   * @since 4.2.2
+   */
+  @Nullable
+  public JCMWriterManifest getLastManifest ()
+  {
+    return m_aLastManifest;
+  }
+
+  /**
+   * @return <code>true</code> if at least one class written by the last build references error
+   *         types, which are printed as <code>Object</code>. This is determined while formatting,
+   *         so it is cheaper than {@link JCodeModel#buildsErrorTypeRefs()}. Classes skipped as
+   *         unchanged (see {@link #setPreviousManifest(JCMWriterManifest)}) are not considered.
+   * @see #getAllClassesWithErrorTypes()
+   * @since 4.2.2
+   */
+  public boolean hasWrittenErrorTypes ()
+  {
+    return !m_aErrorTypeClasses.isEmpty ();
+  }
+
+  /**
+   * @return All classes written by the last build that reference error types, sorted by their full
+   *         name. Never <code>null</code> but maybe empty.
+   * @see #hasWrittenErrorTypes()
+   * @since 4.2.2
+   */
+  @NonNull
+  public List <JDefinedClass> getAllClassesWithErrorTypes ()
+  {
+    final List <JDefinedClass> ret = new ArrayList <> (m_aErrorTypeClasses);
+    ret.sort (Comparator.comparing (JDefinedClass::fullName));
+    return ret;
+  }
+
+  private void _writeClassFull (@NonNull final JFormatter f, @NonNull final JDefinedClass c)
+  {
+    f.writeClassFull (c);
+    if (f.hasWrittenErrorTypes ())
+      m_aErrorTypeClasses.add (c);
+  }
+
+  @Nullable
+  private ManifestCollector _createManifestCollector (@NonNull final AbstractCodeWriter aSourceWriter)
+  {
+    if (m_sManifestFilename == null && m_aPreviousManifest == null)
+      return null;
+
+    // Everything that influences the formatting of all files
+    final List <String> aDontImportClasses = new ArrayList <> ();
+    for (final AbstractJClass aClass : m_aCM.getAllDontImportClasses ())
+      aDontImportClasses.add (aClass.fullName ());
+    Collections.sort (aDontImportClasses);
+    final Charset aEncoding = aSourceWriter.encoding ();
+    final String sSettings = "indent=" +
+                             m_sIndentString +
+                             "\nnewline=" +
+                             aSourceWriter.getNewLine () +
+                             "\nencoding=" +
+                             (aEncoding != null ? aEncoding : Charset.defaultCharset ()).name () +
+                             "\njava=" +
+                             m_nJavaFeature +
+                             "\nsinglepass=" +
+                             m_bSinglePassFormatting +
+                             "\ndontimport=" +
+                             aDontImportClasses;
+    return new ManifestCollector (sSettings, m_aPreviousManifest, aSourceWriter);
+  }
+
+  private void _finishManifest (@NonNull final AbstractCodeWriter aSourceWriter,
+                                @Nullable final ManifestCollector aManifest) throws IOException
+  {
+    if (aManifest == null)
+      return;
+    aManifest.keepUnchangedFiles ();
+    final JCMWriterManifest aLastManifest = aManifest.build ();
+    m_aLastManifest = aLastManifest;
+    if (m_sManifestFilename != null)
+      try (final OutputStream aOS = aSourceWriter.openBinary (m_aCM.rootPackage (), m_sManifestFilename))
+      {
+        aLastManifest.writeTo (aOS);
+      }
+  }
+
   /**
    * Generates Java source code. A convenience method for
    * <code>build(destDir,destDir,status)</code>.
@@ -293,44 +719,281 @@ public class JCMWriter
     ValueEnforcer.notNull (aSourceWriter, "SourceWriter");
     ValueEnforcer.notNull (aResourceWriter, "ResourceWriter");
 
+    m_aErrorTypeClasses.clear ();
+    if (m_nParallelism > 1 || m_nWriterThreads > 0)
+    {
+      final AtomicInteger aThreadIndex = new AtomicInteger (0);
+      final ExecutorService aExecutor = Executors.newFixedThreadPool (m_nParallelism, r -> {
+        final Thread t = new Thread (r, "jcodemodel-writer-" + aThreadIndex.incrementAndGet ());
+        t.setDaemon (true);
+        return t;
+      });
+      try
+      {
+        build (aSourceWriter, aResourceWriter, aExecutor);
+      }
+      finally
+      {
+        aExecutor.shutdownNow ();
+      }
+      return;
+    }
+
+    try
+    {
+      // Copy to avoid concurrent modification exception
+      final List <JPackage> aPackages = m_aCM.getAllPackages ();
+      final Set <AbstractJClass> aDontImportClasses = PackageImportContext.getAllClassesForImport (m_aCM.getAllDontImportClasses ());
+      final ManifestCollector aManifest = _createManifestCollector (aSourceWriter);
+      for (final JPackage aPackage : aPackages)
+        _buildPackage (aSourceWriter, new PackageImportContext (aPackage, aDontImportClasses), aManifest);
+      _finishManifest (aSourceWriter, aManifest);
+
+      // Write resources only
+      _buildResourceDirs (aResourceWriter);
+    }
+    finally
+    {
+      aSourceWriter.close ();
+      aResourceWriter.close ();
+    }
+  }
+
+  /**
+   * Generates Java source code, formatting the source files on the provided executor. The formatted
+   * files are handed to the source writer in the same order as in a serial build, so the output is
+   * identical to the one of {@link #build(AbstractCodeWriter, AbstractCodeWriter)}. The writers
+   * themselves are only accessed from the calling thread, unless writer threads are configured via
+   * {@link #setWriterThreads(int)}.
+   *
+   * @param aSourceWriter
+   *        Source code writer
+   * @param aResourceWriter
+   *        Resource writer
+   * @param aExecutor
+   *        The executor to format the source files on. It is not shut down by this method.
+   * @throws IOException
+   *         on IO error
+   */
+  public void build (@NonNull final AbstractCodeWriter aSourceWriter,
+                     @NonNull final AbstractCodeWriter aResourceWriter,
+                     @NonNull final Executor aExecutor) throws IOException
+  {
+    ValueEnforcer.notNull (aSourceWriter, "SourceWriter");
+    ValueEnforcer.notNull (aResourceWriter, "ResourceWriter");
+    ValueEnforcer.notNull (aExecutor, "Executor");
+
+    m_aErrorTypeClasses.clear ();
+
+    final int nMaxPending = Math.max (m_nParallelism, Runtime.getRuntime ().availableProcessors ()) *
+                            MAX_PENDING_SOURCES_PER_THREAD;
+    final Deque <PendingSource> aPending = new ArrayDeque <> ();
+    final PipelinedSourceWriter aPipeline = m_nWriterThreads > 0 ? new PipelinedSourceWriter (aSourceWriter,
+                                                                                              m_nWriterThreads,
+                                                                                              nMaxPending)
+                                                                 : null;
+    boolean bSuccess = false;
     try
     {
       // Copy to avoid concurrent modification exception
       final List <JPackage> aPackages = m_aCM.getAllPackages ();
+
+      // Created on demand by the formatter - must exist before formatting concurrently
+      m_aCM._package ("java.lang");
+      final Set <AbstractJClass> aDontImportClasses = PackageImportContext.getAllClassesForImport (m_aCM.getAllDontImportClasses ());
+      final String sNewLine = aSourceWriter.getNewLine ();
+      final ManifestCollector aManifest = _createManifestCollector (aSourceWriter);
+      final boolean bCheckSignatures = m_aCM.isRejectDuplicateMethodSignatures ();
+
       for (final JPackage aPackage : aPackages)
-        buildPackage (aSourceWriter, aPackage);
+      {
+        // Shared by all classes of the package
+        final PackageImportContext aImportContext = new PackageImportContext (aPackage, aDontImportClasses);
+        final byte [] aPackageContextHash = aManifest == null ? null : aManifest.getPackageContextHash (aPackage);
+        for (final JDefinedClass c : aPackage.classes ())
+        {
+          if (c.isHidden ())
+          {
+            // don't generate this file
+            continue;
+          }
+          if (bCheckSignatures)
+            c.checkUniqueSignatures ();
+          if (aManifest != null &&
+              aManifest.isUnchanged (aPackageContextHash, aPackage, c.name () + ".java", c.getContentHash ()))
+          {
+            // unchanged since the previous build
+            continue;
+          }
+          final Callable <String> aFormatter = () -> _formatToString (sNewLine,
+                                                                     aImportContext,
+                                                                     f -> _writeClassFull (f, c));
+          if (aPipeline != null)
+            aPipeline.schedule (aPackage, c.name () + ".java", aFormatter, aExecutor);
+          else
+          {
+            _schedule (aPending, aPackage, c.name () + ".java", aFormatter, aExecutor);
+            while (aPending.size () > nMaxPending)
+              _writePending (aSourceWriter, aPending.removeFirst ());
+          }
+        }
+
+        if (_hasPackageInfo (aPackage) &&
+            (aManifest == null ||
+             !aManifest.isUnchanged (aPackageContextHash, aPackage, "package-info.java", aPackage.getContentHash (false))))
+        {
+          final Callable <String> aFormatter = () -> _formatToString (sNewLine,
+                                                                     aImportContext,
+                                                                     f -> _writePackageInfo (f, aPackage));
+          if (aPipeline != null)
+            aPipeline.schedule (aPackage, "package-info.java", aFormatter, aExecutor);
+          else
+            _schedule (aPending, aPackage, "package-info.java", aFormatter, aExecutor);
+        }
+      }
+
+      if (aPipeline != null)
+        aPipeline.finish ();
+      while (!aPending.isEmpty ())
+        _writePending (aSourceWriter, aPending.removeFirst ());
+      _finishManifest (aSourceWriter, aManifest);
 
       // Write resources only
-      final List <JResourceDir> aResourceDirs = m_aCM.getAllResourceDirs ();
-      for (final JResourceDir aResourceDir : aResourceDirs)
-        buildResourceDir (aResourceWriter, aResourceDir);
+      _buildResourceDirs (aResourceWriter);
+      bSuccess = true;
     }
     finally
     {
+      // Don't leave anything running in case of an error
+      for (final PendingSource aSource : aPending)
+        aSource.m_aContent.cancel (true);
+      if (aPipeline != null && !bSuccess)
+        aPipeline.cancel ();
+
       aSourceWriter.close ();
       aResourceWriter.close ();
     }
   }
 
+  private static void _schedule (@NonNull final Deque <PendingSource> aPending,
+                                 @NonNull final JPackage aPackage,
+                                 @NonNull final String sFilename,
+                                 @NonNull final Callable <String> aFormatter,
+                                 @NonNull final Executor aExecutor)
+  {
+    final FutureTask <String> aTask = new FutureTask <> (aFormatter);
+    aPending.addLast (new PendingSource (aPackage, sFilename, aTask));
+    aExecutor.execute (aTask);
+  }
+
+  private static void _writePending (@NonNull final AbstractCodeWriter aSourceWriter,
+                                     @NonNull final PendingSource aSource) throws IOException
+  {
+    final String sContent;
+    try
+    {
+      sContent = aSource.m_aContent.get ();
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new InterruptedIOException ("Interrupted while formatting " + aSource.m_sFilename);
+    }
+    catch (final ExecutionException ex)
+    {
+      final Throwable aCause = ex.getCause ();
+      if (aCause instanceof RuntimeException)
+        throw (RuntimeException) aCause;
+      if (aCause instanceof Error)
+        throw (Error) aCause;
+      throw new IOException ("Failed to format " + aSource.m_sFilename, aCause);
+    }
+
+    try (final SourcePrintWriter aWriter = aSourceWriter.openSource (aSource.m_aPackage, aSource.m_sFilename))
+    {
+      aWriter.print (sContent);
+    }
+  }
+
+  @NonNull
+  private String _formatToString (@NonNull final String sNewLine,
+                                  @NonNull final PackageImportContext aImportContext,
+                                  @NonNull final Consumer <JFormatter> aFormatter)
+  {
+    final NonBlockingStringWriter aSW = new NonBlockingStringWriter ();
+    try (final JFormatter f = _createJavaSourceFormatter (new SourcePrintWriter (aSW, sNewLine), aImportContext))
+    {
+      aFormatter.accept (f);
+    }
+    return aSW.getAsString ();
+  }
+
+  private void _buildResourceDirs (@NonNull final AbstractCodeWriter aResourceWriter) throws IOException
+  {
+    final List <JResourceDir> aResourceDirs = m_aCM.getAllResourceDirs ();
+    for (final JResourceDir aResourceDir : aResourceDirs)
+      buildResourceDir (aResourceWriter, aResourceDir);
+  }
+
   @NonNull
   private JFormatter _createJavaSourceFileWriter (@NonNull final AbstractCodeWriter aSrcWriter,
-                                                  @NonNull final JPackage aPackage,
+                                                  @NonNull final PackageImportContext aImportContext,
                                                   @NonNull final String sClassFilename) throws IOException
   {
-    final SourcePrintWriter aWriter = aSrcWriter.openSource (aPackage, sClassFilename);
+    final SourcePrintWriter aWriter = aSrcWriter.openSource (aImportContext.getPackage (), sClassFilename);
+    return _createJavaSourceFormatter (aWriter, aImportContext);
+  }
+
+  @NonNull
+  private JFormatter _createJavaSourceFormatter (@NonNull final SourcePrintWriter aWriter,
+                                                 @NonNull final PackageImportContext aImportContext)
+  {
     final JFormatter ret = new JFormatter (aWriter, m_sIndentString);
     ret.setJavaFeature (m_nJavaFeature);
-    // Add all classes to not be imported (may be empty)
-    ret.addDontImportClasses (m_aCM.getAllDontImportClasses ());
+    ret.setSinglePass (m_bSinglePassFormatting);
+    // Contains all classes to not be imported (may be empty)
+    ret.setPackageImportContext (aImportContext);
     return ret;
   }
 
+  private static boolean _hasPackageInfo (@NonNull final JPackage aPackage)
+  {
+    return !aPackage.annotations ().isEmpty () || !aPackage.javadoc ().isEmpty ();
+  }
+
+  private static void _writePackageInfo (@NonNull final IJFormatter f, @NonNull final JPackage aPackage)
+  {
+    final JDocComment aJavaDoc = aPackage.javadoc ();
+    if (!aJavaDoc.isEmpty ())
+      f.generable (aJavaDoc);
+
+    // TODO: think about importing
+    for (final JAnnotationUse a : aPackage.annotations ())
+      f.generable (a).newline ();
+
+    f.declaration (aPackage);
+  }
+
   public void buildPackage (@NonNull final AbstractCodeWriter aSourceWriter, @NonNull final JPackage aPackage)
                                                                                                                throws IOException
   {
     ValueEnforcer.notNull (aSourceWriter, "SourceWriter");
     ValueEnforcer.notNull (aPackage, "Package");
 
+    _buildPackage (aSourceWriter,
+                   new PackageImportContext (aPackage,
+                                             PackageImportContext.getAllClassesForImport (m_aCM.getAllDontImportClasses ())),
+                   null);
+  }
+
+  private void _buildPackage (@NonNull final AbstractCodeWriter aSourceWriter,
+                              @NonNull final PackageImportContext aImportContext,
+                              @Nullable final ManifestCollector aManifest) throws IOException
+  {
+    final JPackage aPackage = aImportContext.getPackage ();
+    final byte [] aPackageContextHash = aManifest == null ? null : aManifest.getPackageContextHash (aPackage);
+    final boolean bCheckSignatures = m_aCM.isRejectDuplicateMethodSignatures ();
+
     // write classes
     for (final JDefinedClass c : aPackage.classes ())
     {
@@ -339,28 +1002,29 @@ public class JCMWriter
         // don't generate this file
         continue;
       }
+      if (bCheckSignatures)
+        c.checkUniqueSignatures ();
+      if (aManifest != null &&
+          aManifest.isUnchanged (aPackageContextHash, aPackage, c.name () + ".java", c.getContentHash ()))
+      {
+        // unchanged since the previous build
+        continue;
+      }
 
-      try (final JFormatter f = _createJavaSourceFileWriter (aSourceWriter, aPackage, c.name () + ".java"))
+      try (final JFormatter f = _createJavaSourceFileWriter (aSourceWriter, aImportContext, c.name () + ".java"))
       {
-        f.writeClassFull (c);
+        _writeClassFull (f, c);
       }
     }
 
     // write package annotations
-    final Collection <JAnnotationUse> aAnnotations = aPackage.annotations ();
-    final JDocComment aJavaDoc = aPackage.javadoc ();
-    if (!aAnnotations.isEmpty () || !aJavaDoc.isEmpty ())
+    if (_hasPackageInfo (aPackage) &&
+        (aManifest == null ||
+         !aManifest.isUnchanged (aPackageContextHash, aPackage, "package-info.java", aPackage.getContentHash (false))))
     {
-      try (final IJFormatter f = _createJavaSourceFileWriter (aSourceWriter, aPackage, "package-info.java"))
+      try (final IJFormatter f = _createJavaSourceFileWriter (aSourceWriter, aImportContext, "package-info.java"))
       {
-        if (!aJavaDoc.isEmpty ())
-          f.generable (aJavaDoc);
-
-        // TODO: think about importing
-        for (final JAnnotationUse a : aAnnotations)
-          f.generable (a).newline ();
-
-        f.declaration (aPackage);
+        _writePackageInfo (f, aPackage);
       }
     }
   }
@@ -0,0 +1,229 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.WillNotClose;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsImmutableObject;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.jcodemodel.JPackage;
+
+/**
+ * The hashes of all source files written by a {@link JCMWriter}, see
+ * {@link JCMWriter#setManifestFilename(String)}. A manifest of a previous build can be passed to
+ * {@link JCMWriter#setPreviousManifest(JCMWriterManifest)} to skip formatting and writing the files
+ * that did not change.
+ * <p>
+ * The manifest is stored as UTF-8 text: a header line, followed by one line per file with the hash
+ * and the path separated by a single space. Paths use '/' as separator, e.g.
+ * <code>org/example/Foo.java</code>.
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+@Immutable
+public final class JCMWriterManifest
+{
+  /** The default name of the manifest file */
+  public static final String DEFAULT_FILENAME = "jcodemodel-manifest.txt";
+
+  private static final String HEADER = "# jcodemodel manifest 1";
+
+  private final Map <String, String> m_aHashes;
+
+  /**
+   * Constructor
+   *
+   * @param aHashes
+   *        Map from file path to hash. May not be <code>null</code>. The map is copied.
+   */
+  public JCMWriterManifest (@NonNull final Map <String, String> aHashes)
+  {
+    ValueEnforcer.notNull (aHashes, "Hashes");
+    for (final Map.Entry <String, String> aEntry : aHashes.entrySet ())
+    {
+      ValueEnforcer.notEmpty (aEntry.getKey (), "Path");
+      ValueEnforcer.notEmpty (aEntry.getValue (), "Hash");
+      ValueEnforcer.isTrue (aEntry.getKey ().indexOf ('\n') < 0 && aEntry.getKey ().indexOf ('\r') < 0,
+                            "Path may not contain line breaks");
+      ValueEnforcer.isTrue (aEntry.getValue ().indexOf (' ') < 0, "Hash may not contain spaces");
+    }
+    m_aHashes = Collections.unmodifiableMap (new TreeMap <> (aHashes));
+  }
+
+  /**
+   * Get the path of a source file as used in the manifest.
+   *
+   * @param aPackage
+   *        The package of the file. May not be <code>null</code>.
+   * @param sFilename
+   *        The name of the file within the package. May not be <code>null</code>.
+   * @return The path, e.g. <code>org/example/Foo.java</code>. Never <code>null</code>.
+   */
+  @NonNull
+  public static String getPath (@NonNull final JPackage aPackage, @NonNull final String sFilename)
+  {
+    if (aPackage.isUnnamed ())
+      return sFilename;
+    return aPackage.name ().replace ('.', '/') + '/' + sFilename;
+  }
+
+  /**
+   * @return The number of files contained in this manifest.
+   */
+  public int size ()
+  {
+    return m_aHashes.size ();
+  }
+
+  /**
+   * @param sPath
+   *        The path of the file. May be <code>null</code>.
+   * @return The hash of the file or <code>null</code> if the file is not contained.
+   */
+  @Nullable
+  public String getHash (@Nullable final String sPath)
+  {
+    return m_aHashes.get (sPath);
+  }
+
+  /**
+   * @return All hashes sorted by path. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsImmutableObject
+  public Map <String, String> getAllHashes ()
+  {
+    return m_aHashes;
+  }
+
+  /**
+   * Write this manifest.
+   *
+   * @param aOS
+   *        The stream to write to. May not be <code>null</code>. It is not closed.
+   * @throws IOException
+   *         on IO error
+   */
+  public void writeTo (@NonNull @WillNotClose final OutputStream aOS) throws IOException
+  {
+    ValueEnforcer.notNull (aOS, "OutputStream");
+    final Writer aWriter = new OutputStreamWriter (aOS, StandardCharsets.UTF_8);
+    aWriter.write (HEADER);
+    aWriter.write ('\n');
+    for (final Map.Entry <String, String> aEntry : m_aHashes.entrySet ())
+    {
+      aWriter.write (aEntry.getValue ());
+      aWriter.write (' ');
+      aWriter.write (aEntry.getKey ());
+      aWriter.write ('\n');
+    }
+    aWriter.flush ();
+  }
+
+  /**
+   * Read a manifest.
+   *
+   * @param aIS
+   *        The stream to read from. May not be <code>null</code>. It is not closed.
+   * @return The read manifest. Never <code>null</code>.
+   * @throws IOException
+   *         on IO error or if the content is not a manifest
+   */
+  @NonNull
+  public static JCMWriterManifest readFrom (@NonNull @WillNotClose final InputStream aIS) throws IOException
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    final BufferedReader aReader = new BufferedReader (new InputStreamReader (aIS, StandardCharsets.UTF_8));
+    if (!HEADER.equals (aReader.readLine ()))
+      throw new IOException ("Not a jcodemodel manifest");
+    final Map <String, String> aHashes = new TreeMap <> ();
+    String sLine;
+    while ((sLine = aReader.readLine ()) != null)
+    {
+      if (sLine.isEmpty ())
+        continue;
+      final int nSep = sLine.indexOf (' ');
+      if (nSep <= 0 || nSep == sLine.length () - 1)
+        throw new IOException ("Malformed manifest line: " + sLine);
+      aHashes.put (sLine.substring (nSep + 1), sLine.substring (0, nSep));
+    }
+    return new JCMWriterManifest (aHashes);
+  }
+
+  /**
+   * Read a manifest from a file.
+   *
+   * @param aPath
+   *        The manifest file. May not be <code>null</code>.
+   * @return The read manifest or <code>null</code> if the file does not exist.
+   * @throws IOException
+   *         on IO error or if the content is not a manifest
+   */
+  @Nullable
+  public static JCMWriterManifest readFrom (@NonNull final Path aPath) throws IOException
+  {
+    ValueEnforcer.notNull (aPath, "Path");
+    if (!Files.isRegularFile (aPath))
+      return null;
+    try (final InputStream aIS = Files.newInputStream (aPath))
+    {
+      return readFrom (aIS);
+    }
+  }
+}
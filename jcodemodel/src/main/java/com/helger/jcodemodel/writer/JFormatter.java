@@ -132,16 +132,13 @@ public class JFormatter implements IJFormatter
       {
         // make sure that there's no other class with this name within the
         // same package
-        for (final JDefinedClass aClass : aEnclosingClass._package ().classes ())
+        // even if this is the only "String" class we use,
+        // if the class called "String" is in the same package,
+        // we still need to import it.
+        if (_containsClassName (aEnclosingClass._package (), aSingleRef.name ()))
         {
-          // even if this is the only "String" class we use,
-          // if the class called "String" is in the same package,
-          // we still need to import it.
-          if (aClass.name ().equals (aSingleRef.name ()))
-          {
-            // collision -> ambiguous
-            return true;
-          }
+          // collision -> ambiguous
+          return true;
         }
       }
 
@@ -232,40 +229,58 @@ public class JFormatter implements IJFormatter
      * Only used by {@link JFormatter#containsErrorTypes(JDefinedClass)
      * containsErrorTypes} method
      */
-    FIND_ERROR_TYPES
-  }
+    FIND_ERROR_TYPES,
 
-  private static final Map <String, Boolean> RESERVERD_JAVA_LANG_NAME = new HashMap <> ();
+    /**
+     * Collect all the type names and identifiers and record everything that
+     * would be printed, with placeholders for the type names. The recording is
+     * replayed in {@link #PRINTING} mode after the imports were decided, so
+     * that the class tree is only walked once.
+     */
+    RECORDING
+  }
 
   /**
-   * check if a name already represents a class in the "java.lang" package. e.g.
-   * "String" should return <code>true</code>, but "blub" should return
-   * <code>false</code>. See https://github.com/phax/jcodemodel/issues/71
-   *
-   * @param sSimpleClassName
-   *        simple class name to test (without the package).
-   * @return the existence of such a class in the java.lang (cached)
+   * Tokens in the recording that are neither text nor type placeholders.
    */
-  static boolean isJavaLangClass (final String sSimpleClassName)
+  private enum ERecordedToken
   {
-    if (sSimpleClassName == null)
-      return false;
+    NEWLINE,
+    INDENT,
+    OUTDENT
+  }
 
-    final Boolean ret = RESERVERD_JAVA_LANG_NAME.get (sSimpleClassName);
-    if (ret != null)
-      return ret.booleanValue ();
+  /**
+   * Default value for single pass formatting in
+   * {@link #writeClassFull(JDefinedClass)}.
+   *
+   * @since 4.2.2
+   */
+  public static final boolean DEFAULT_SINGLE_PASS = true;
 
-    boolean bIsJavaLang = true;
-    try
+  /**
+   * Get the class that is imported for the provided class. Anonymous classes
+   * are resolved to their base class and narrowed classes to their erasure.
+   *
+   * @param aClass
+   *        The class to resolve. May be <code>null</code>.
+   * @return The class to be imported. May be <code>null</code>.
+   */
+  @Nullable
+  static AbstractJClass getClassForImport (@Nullable final AbstractJClass aClass)
+  {
+    AbstractJClass aRealClass = aClass;
+    if (aRealClass instanceof JAnonymousClass)
     {
-      Class.forName ("java.lang." + sSimpleClassName);
+      // get the super class of the anonymous class
+      return getClassForImport (((JAnonymousClass) aRealClass).base ());
     }
-    catch (final Exception ex)
+    if (aRealClass instanceof JNarrowedClass)
     {
-      bIsJavaLang = false;
+      // Never imported narrowed class but the erasure only
+      aRealClass = aRealClass.erasure ();
     }
-    RESERVERD_JAVA_LANG_NAME.put (sSimpleClassName, Boolean.valueOf (bIsJavaLang));
-    return bIsJavaLang;
+    return aRealClass;
   }
 
   private final class ImportedClasses
@@ -277,35 +292,19 @@ public class JFormatter implements IJFormatter
     public ImportedClasses ()
     {}
 
-    @Nullable
-    private AbstractJClass _getClassForImport (@Nullable final AbstractJClass aClass)
-    {
-      AbstractJClass aRealClass = aClass;
-      if (aRealClass instanceof JAnonymousClass)
-      {
-        // get the super class of the anonymous class
-        return _getClassForImport (((JAnonymousClass) aRealClass).base ());
-      }
-      if (aRealClass instanceof JNarrowedClass)
-      {
-        // Never imported narrowed class but the erasure only
-        aRealClass = aRealClass.erasure ();
-      }
-      return aRealClass;
-    }
-
     public void addDontImportClass (@NonNull final AbstractJClass aClass)
     {
-      final AbstractJClass aRealClass = _getClassForImport (aClass);
+      final AbstractJClass aRealClass = getClassForImport (aClass);
       m_aDontImportClasses.add (aRealClass);
     }
 
     public boolean add (@NonNull final AbstractJClass aClass)
     {
-      final AbstractJClass aRealClass = _getClassForImport (aClass);
+      final AbstractJClass aRealClass = getClassForImport (aClass);
       final String sSimpleName = aRealClass.name ();
 
-      if (m_aDontImportClasses.contains (aRealClass))
+      if (m_aDontImportClasses.contains (aRealClass) ||
+          (m_aImportContext != null && m_aImportContext.isDontImportClass (aRealClass)))
       {
         if (m_bDebugImport)
           LOGGER.info ("The class '" + aRealClass.fullName () + "' should not be imported!");
@@ -334,7 +333,7 @@ public class JFormatter implements IJFormatter
 
     public boolean contains (@Nullable final AbstractJClass aClass)
     {
-      final AbstractJClass aRealClass = _getClassForImport (aClass);
+      final AbstractJClass aRealClass = getClassForImport (aClass);
 
       return m_aClasses.contains (aRealClass);
     }
@@ -374,6 +373,15 @@ public class JFormatter implements IJFormatter
    */
   private EMode m_eMode = EMode.PRINTING;
 
+  /**
+   * Everything printed in {@link EMode#RECORDING} mode: {@link String} and
+   * {@link Character} for text, {@link AbstractJClass} as type placeholders
+   * and {@link ERecordedToken} for the rest.
+   */
+  private final List <Object> m_aRecording = new ArrayList <> ();
+
+  private boolean m_bSinglePass = DEFAULT_SINGLE_PASS;
+
   /**
    * Current number of indentation strings to print
    */
@@ -392,10 +400,11 @@ public class JFormatter implements IJFormatter
   private char m_cLastChar = 0;
   private boolean m_bAtBeginningOfLine = true;
   private JPackage m_aPckJavaLang;
+  private JPackage m_aPckCurrent;
 
   /**
-   * Only used by {@link IJFormatter#containsErrorTypes(JDefinedClass)
-   * containsErrorTypes} method
+   * Set by {@link IJFormatter#containsErrorTypes(JDefinedClass)
+   * containsErrorTypes} and when an error type is printed
    */
   private boolean m_bContainsErrorTypes;
 
@@ -403,6 +412,12 @@ public class JFormatter implements IJFormatter
 
   private int m_nJavaFeature = JCMWriter.DEFAULT_JAVA_FEATURE;
 
+  /**
+   * The import resolution shared by all classes of a package. May be
+   * <code>null</code>.
+   */
+  private PackageImportContext m_aImportContext;
+
   /**
    * Constructor
    *
@@ -463,6 +478,46 @@ public class JFormatter implements IJFormatter
     return this;
   }
   
+  /**
+   * @return <code>true</code> if {@link #writeClassFull(JDefinedClass)} walks
+   *         the class only once and replays the recorded output, or
+   *         <code>false</code> if the class is walked once for collecting the
+   *         imports and once for printing. Defaults to
+   *         {@link #DEFAULT_SINGLE_PASS}.
+   * @since 4.2.2
+   */
+  public boolean isSinglePass ()
+  {
+    return m_bSinglePass;
+  }
+
+  /**
+   * Enable or disable single pass formatting. Both modes create the same
+   * output.
+   *
+   * @param bSinglePass
+   *        <code>true</code> to walk each class only once
+   * @return this for chaining
+   * @since 4.2.2
+   */
+  @NonNull
+  public JFormatter setSinglePass (final boolean bSinglePass)
+  {
+    m_bSinglePass = bSinglePass;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if the last class written with
+   *         {@link #writeClassFull(JDefinedClass)} references error types,
+   *         which are printed as <code>Object</code>.
+   * @since 4.2.2
+   */
+  public boolean hasWrittenErrorTypes ()
+  {
+    return m_bContainsErrorTypes;
+  }
+
   public String getNewLine()
   {
     return m_aPW.getNewLine();
@@ -470,20 +525,26 @@ public class JFormatter implements IJFormatter
 
   public boolean isPrinting ()
   {
-    return m_eMode == EMode.PRINTING;
+    return m_eMode == EMode.PRINTING || m_eMode == EMode.RECORDING;
   }
 
   @NonNull
   public JFormatter indent ()
   {
-    m_nIndentLevel++;
+    if (m_eMode == EMode.RECORDING)
+      m_aRecording.add (ERecordedToken.INDENT);
+    else
+      m_nIndentLevel++;
     return this;
   }
 
   @NonNull
   public JFormatter outdent ()
   {
-    m_nIndentLevel--;
+    if (m_eMode == EMode.RECORDING)
+      m_aRecording.add (ERecordedToken.OUTDENT);
+    else
+      m_nIndentLevel--;
     return this;
   }
 
@@ -581,6 +642,9 @@ public class JFormatter implements IJFormatter
       }
       m_cLastChar = c;
     }
+    else
+      if (m_eMode == EMode.RECORDING)
+        m_aRecording.add (Character.valueOf (c));
     return this;
   }
 
@@ -593,6 +657,9 @@ public class JFormatter implements IJFormatter
       m_aPW.print (sStr);
       m_cLastChar = sStr.charAt (sStr.length () - 1);
     }
+    else
+      if (m_eMode == EMode.RECORDING && sStr.length () > 0)
+        m_aRecording.add (sStr);
     return this;
   }
 
@@ -611,6 +678,7 @@ public class JFormatter implements IJFormatter
       case PRINTING:
         if (aType.isError ())
         {
+          m_bContainsErrorTypes = true;
           print ("Object");
         }
         else
@@ -650,6 +718,17 @@ public class JFormatter implements IJFormatter
         if (aType.isError ())
           m_bContainsErrorTypes = true;
         break;
+      case RECORDING:
+        if (aType.isError ())
+          m_bContainsErrorTypes = true;
+        else
+        {
+          final String sShortName = aType.name ();
+          m_aCollectedReferences.computeIfAbsent (sShortName, k -> new NameUsage (sShortName)).addReferencedType (aType);
+        }
+        // Printed on replay, when the imports are known
+        m_aRecording.add (aType);
+        break;
     }
     return this;
   }
@@ -668,6 +747,10 @@ public class JFormatter implements IJFormatter
       case PRINTING:
         print (sID);
         break;
+      case RECORDING:
+        m_aCollectedReferences.computeIfAbsent (sID, NameUsage::new).setVariableName ();
+        print (sID);
+        break;
     }
     return this;
   }
@@ -681,6 +764,9 @@ public class JFormatter implements IJFormatter
       m_cLastChar = 0;
       m_bAtBeginningOfLine = true;
     }
+    else
+      if (m_eMode == EMode.RECORDING)
+        m_aRecording.add (ERecordedToken.NEWLINE);
     return this;
   }
 
@@ -820,8 +906,32 @@ public class JFormatter implements IJFormatter
     }
   }
 
+  /**
+   * Check if the package contains a top-level class with the provided name.
+   * Uses the shared package import context if available.
+   *
+   * @param aPackage
+   *        The package to check. May not be <code>null</code>.
+   * @param sSimpleName
+   *        The simple class name to search.
+   * @return <code>true</code> if such a class exists
+   */
+  private boolean _containsClassName (@NonNull final JPackage aPackage, @NonNull final String sSimpleName)
+  {
+    if (m_aImportContext != null && m_aImportContext.getPackage () == aPackage)
+      return m_aImportContext.containsClassName (sSimpleName);
+
+    final JDefinedClass aClass = aPackage._getClass (sSimpleName);
+    return aClass != null && aClass.name ().equals (sSimpleName);
+  }
+
   private boolean _isUnambiguousJavaLangImport (@NonNull final AbstractJClass aJavaLangReference)
   {
+    // A class with the same name in the package of the written class shadows
+    // the java.lang class
+    if (m_aPckCurrent != null && _containsClassName (m_aPckCurrent, aJavaLangReference.name ()))
+      return false;
+
     final NameUsage aNU = m_aCollectedReferences.get (aJavaLangReference.name ());
     if (aNU == null)
       return true;
@@ -917,11 +1027,15 @@ public class JFormatter implements IJFormatter
   void writeClassFull (@NonNull final JDefinedClass aClassToBeWritten)
   {
     m_aPckJavaLang = aClassToBeWritten.owner ()._package ("java.lang");
+    m_aPckCurrent = aClassToBeWritten._package ();
 
     // first collect all the types and identifiers
-    m_eMode = EMode.COLLECTING;
+    // In single pass mode the output is recorded at the same time
+    m_eMode = m_bSinglePass ? EMode.RECORDING : EMode.COLLECTING;
     m_aCollectedReferences.clear ();
     m_aImportedClasses.clear ();
+    m_aRecording.clear ();
+    m_bContainsErrorTypes = false;
     declaration (aClassToBeWritten);
 
     if (m_bDebugImport)
@@ -997,7 +1111,45 @@ public class JFormatter implements IJFormatter
     if (bAnyImport)
       newline ();
 
-    declaration (aClassToBeWritten);
+    if (m_bSinglePass)
+    {
+      _replayRecording ();
+      m_aRecording.clear ();
+    }
+    else
+      declaration (aClassToBeWritten);
+  }
+
+  /**
+   * Print everything recorded in {@link EMode#RECORDING} mode. The type
+   * placeholders are resolved against the now known imports.
+   */
+  private void _replayRecording ()
+  {
+    for (final Object aToken : m_aRecording)
+    {
+      if (aToken instanceof final String sStr)
+        print (sStr);
+      else
+        if (aToken instanceof final Character aChar)
+          print (aChar.charValue ());
+        else
+          if (aToken instanceof final AbstractJClass aType)
+            type (aType);
+          else
+            switch ((ERecordedToken) aToken)
+            {
+              case NEWLINE:
+                newline ();
+                break;
+              case INDENT:
+                indent ();
+                break;
+              case OUTDENT:
+                outdent ();
+                break;
+            }
+    }
   }
 
   /**
@@ -1014,6 +1166,18 @@ public class JFormatter implements IJFormatter
         m_aImportedClasses.addDontImportClass (aClass);
   }
 
+  /**
+   * Set the import resolution context that is shared by all classes of a
+   * package. It is only used for classes of that package.
+   *
+   * @param aImportContext
+   *        The context to use. May be <code>null</code>.
+   */
+  void setPackageImportContext (@Nullable final PackageImportContext aImportContext)
+  {
+    m_aImportContext = aImportContext;
+  }
+
   public static boolean containsErrorTypes (@NonNull final JDefinedClass aClass)
   {
     try (final JFormatter aFormatter = new JFormatter (new SourcePrintWriter (NullWriter.getInstance (), "\n"), "\t"))
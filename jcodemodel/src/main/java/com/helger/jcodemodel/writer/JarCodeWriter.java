@@ -0,0 +1,565 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.io.nonblocking.NonBlockingBufferedOutputStream;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
+import com.helger.base.string.StringHelper;
+
+/**
+ * Writes all the files into a jar (or zip) file. In contrast to {@link ZipCodeWriter} the
+ * compression level can be chosen, entries can be stored uncompressed and entries can be compressed
+ * on multiple threads. Entries are always written in the order they were created, so the output
+ * does not depend on the parallelism. If a manifest is set, it is written as the first entry
+ * <code>META-INF/MANIFEST.MF</code>.<br>
+ * ZIP64 is not supported, so the number of entries is limited to 65535 and the size of the archive
+ * to 4 GB.
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+public class JarCodeWriter extends AbstractCodeWriter
+{
+  /** Default compression level. */
+  public static final int DEFAULT_COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+  /** By default entries are compressed. */
+  public static final boolean DEFAULT_STORED = false;
+  /** Default number of threads used to compress entries. 1 means serial. */
+  public static final int DEFAULT_PARALLELISM = 1;
+
+  /**
+   * Number of compressed entries that may be pending per compression thread. Bounds the memory used
+   * by compressed but not yet written entries.
+   */
+  private static final int MAX_PENDING_ENTRIES_PER_THREAD = 4;
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int END_OF_CENTRAL_DIR_SIGNATURE = 0x06054b50;
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int CENTRAL_HEADER_SIZE = 46;
+  private static final int END_OF_CENTRAL_DIR_SIZE = 22;
+  /** General purpose flag: file names are UTF-8 encoded */
+  private static final int FLAG_UTF8 = 0x0800;
+  private static final long MAX_UINT32 = 0xffffffffL;
+  private static final int MAX_UINT16 = 0xffff;
+
+  /**
+   * A single entry in its final form - compressed or stored, with size and CRC.
+   */
+  private static final class Entry
+  {
+    private final byte [] m_aName;
+    private final int m_nMethod;
+    private final long m_nCRC;
+    private final long m_nSize;
+    private final byte [] m_aData;
+    private final int m_nDataLength;
+    private long m_nOffset;
+
+    Entry (@NonNull final byte [] aName,
+           final int nMethod,
+           final long nCRC,
+           final long nSize,
+           @NonNull final byte [] aData,
+           @Nonnegative final int nDataLength)
+    {
+      m_aName = aName;
+      m_nMethod = nMethod;
+      m_nCRC = nCRC;
+      m_nSize = nSize;
+      m_aData = aData;
+      m_nDataLength = nDataLength;
+    }
+
+    int getVersionNeeded ()
+    {
+      return m_nMethod == ZipEntry.DEFLATED ? 20 : 10;
+    }
+  }
+
+  /**
+   * Buffers the content of a single entry and hands it over for compression when closed.
+   */
+  private final class EntryOutputStream extends OutputStream
+  {
+    private final byte [] m_aName;
+    private final NonBlockingByteArrayOutputStream m_aBuffer = new NonBlockingByteArrayOutputStream ();
+    private boolean m_bClosed = false;
+
+    EntryOutputStream (@NonNull final byte [] aName)
+    {
+      m_aName = aName;
+    }
+
+    @Override
+    public void write (final int b)
+    {
+      m_aBuffer.write (b);
+    }
+
+    @Override
+    public void write (final byte [] aBuf, final int nOfs, final int nLen)
+    {
+      m_aBuffer.write (aBuf, nOfs, nLen);
+    }
+
+    @Override
+    public void close () throws IOException
+    {
+      if (!m_bClosed)
+      {
+        m_bClosed = true;
+        _addEntry (m_aName, m_aBuffer.toByteArray ());
+      }
+    }
+  }
+
+  private final OutputStream m_aOS;
+  private final int m_nDosTime;
+  private final int m_nDosDate;
+
+  private int m_nCompressionLevel = DEFAULT_COMPRESSION_LEVEL;
+  private boolean m_bStored = DEFAULT_STORED;
+  private int m_nParallelism = DEFAULT_PARALLELISM;
+  private Manifest m_aManifest;
+
+  /** Created on the first entry, if parallelism &gt; 1 */
+  private ExecutorService m_aExecutor;
+  /** Entries being compressed, in the order they were created */
+  private final Deque <FutureTask <Entry>> m_aPending = new ArrayDeque <> ();
+  /** Entries already written, for the central directory */
+  private final List <Entry> m_aWritten = new ArrayList <> ();
+  /** To detect duplicate entries */
+  private final Set <String> m_aNames = new HashSet <> ();
+  private long m_nOffset = 0;
+  private boolean m_bStarted = false;
+  private boolean m_bClosed = false;
+
+  /**
+   * @param aTarget
+   *        Jar file will be written to this stream. It is closed by {@link #close()}.
+   */
+  public JarCodeWriter (@NonNull final OutputStream aTarget)
+  {
+    this (aTarget, JCMWriter.DEFAULT_NEW_LINE);
+  }
+
+  /**
+   * @param aTarget
+   *        Jar file will be written to this stream. It is closed by {@link #close()}.
+   * @param sNewLine
+   *        The new line string to be used for source files
+   */
+  public JarCodeWriter (@NonNull final OutputStream aTarget, @NonNull final String sNewLine)
+  {
+    super (null, sNewLine);
+    ValueEnforcer.notNull (aTarget, "Target");
+    m_aOS = new NonBlockingBufferedOutputStream (aTarget);
+
+    final LocalDateTime aNow = LocalDateTime.now ();
+    m_nDosTime = (aNow.getHour () << 11) | (aNow.getMinute () << 5) | (aNow.getSecond () >> 1);
+    m_nDosDate = ((aNow.getYear () - 1980) << 9) | (aNow.getMonthValue () << 5) | aNow.getDayOfMonth ();
+
+    // Default manifest
+    m_aManifest = new Manifest ();
+    m_aManifest.getMainAttributes ().put (Attributes.Name.MANIFEST_VERSION, "1.0");
+    m_aManifest.getMainAttributes ().put (new Attributes.Name ("Created-By"), "jcodemodel");
+  }
+
+  private void _checkNotStarted ()
+  {
+    ValueEnforcer.isFalse (m_bStarted, "The settings must be changed before the first entry is written");
+  }
+
+  /**
+   * @return The compression level used for compressed entries. Defaults to
+   *         {@link #DEFAULT_COMPRESSION_LEVEL}.
+   */
+  public final int getCompressionLevel ()
+  {
+    return m_nCompressionLevel;
+  }
+
+  /**
+   * Set the compression level for compressed entries. Must be called before the first entry is
+   * written.
+   *
+   * @param nCompressionLevel
+   *        The compression level between {@link Deflater#NO_COMPRESSION} and
+   *        {@link Deflater#BEST_COMPRESSION}, or {@link Deflater#DEFAULT_COMPRESSION}.
+   * @return this for chaining
+   */
+  @NonNull
+  public final JarCodeWriter setCompressionLevel (final int nCompressionLevel)
+  {
+    ValueEnforcer.isTrue (nCompressionLevel >= Deflater.DEFAULT_COMPRESSION &&
+                          nCompressionLevel <= Deflater.BEST_COMPRESSION,
+                          () -> "Invalid compression level " + nCompressionLevel);
+    _checkNotStarted ();
+    m_nCompressionLevel = nCompressionLevel;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if entries are stored uncompressed. Defaults to
+   *         {@link #DEFAULT_STORED}.
+   */
+  public final boolean isStored ()
+  {
+    return m_bStored;
+  }
+
+  /**
+   * Store entries uncompressed instead of compressing them. This is the fastest option but creates
+   * the largest files. Must be called before the first entry is written.
+   *
+   * @param bStored
+   *        <code>true</code> to store entries uncompressed, <code>false</code> to compress them.
+   * @return this for chaining
+   */
+  @NonNull
+  public final JarCodeWriter setStored (final boolean bStored)
+  {
+    _checkNotStarted ();
+    m_bStored = bStored;
+    return this;
+  }
+
+  /**
+   * @return The number of threads used to compress entries. Defaults to
+   *         {@link #DEFAULT_PARALLELISM}.
+   */
+  @Nonnegative
+  public final int getParallelism ()
+  {
+    return m_nParallelism;
+  }
+
+  /**
+   * Set the number of threads used to compress entries. The output is the same for every value.
+   * Must be called before the first entry is written.
+   *
+   * @param nParallelism
+   *        Number of threads. Must be &gt; 0. 1 means that entries are compressed on the writing
+   *        thread.
+   * @return this for chaining
+   */
+  @NonNull
+  public final JarCodeWriter setParallelism (@Nonnegative final int nParallelism)
+  {
+    ValueEnforcer.isGT0 (nParallelism, "Parallelism");
+    _checkNotStarted ();
+    m_nParallelism = nParallelism;
+    return this;
+  }
+
+  /**
+   * @return The manifest to be written. May be <code>null</code>. By default it contains the
+   *         manifest version and the "Created-By" attribute. It may be modified until the first
+   *         entry is written.
+   */
+  @Nullable
+  public final Manifest getManifest ()
+  {
+    return m_aManifest;
+  }
+
+  /**
+   * Set the manifest to be written. Must be called before the first entry is written.
+   *
+   * @param aManifest
+   *        The manifest to be written. May be <code>null</code> to create a plain zip file without a
+   *        manifest.
+   * @return this for chaining
+   */
+  @NonNull
+  public final JarCodeWriter setManifest (@Nullable final Manifest aManifest)
+  {
+    _checkNotStarted ();
+    m_aManifest = aManifest;
+    return this;
+  }
+
+  private void _startIfNecessary () throws IOException
+  {
+    if (!m_bStarted)
+    {
+      m_bStarted = true;
+      if (m_nParallelism > 1)
+      {
+        final AtomicInteger aThreadIndex = new AtomicInteger (0);
+        m_aExecutor = Executors.newFixedThreadPool (m_nParallelism, r -> {
+          final Thread t = new Thread (r, "jcodemodel-jar-" + aThreadIndex.incrementAndGet ());
+          t.setDaemon (true);
+          return t;
+        });
+      }
+
+      if (m_aManifest != null)
+      {
+        final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+        m_aManifest.write (aBAOS);
+        _addEntry (JarFile.MANIFEST_NAME.getBytes (StandardCharsets.UTF_8), aBAOS.toByteArray ());
+      }
+    }
+  }
+
+  @Override
+  @NonNull
+  public OutputStream openBinary (@NonNull final String sDirName, @NonNull final String sFilename) throws IOException
+  {
+    ValueEnforcer.isFalse (m_bClosed, "Writer is already closed");
+    _startIfNecessary ();
+
+    final String sFullName;
+    if (StringHelper.isNotEmpty (sDirName))
+      sFullName = sDirName + '/' + sFilename;
+    else
+      sFullName = sFilename;
+
+    if (sFullName.equals (JarFile.MANIFEST_NAME) && m_aManifest != null)
+      throw new ZipException ("duplicate entry: " + sFullName + " - use setManifest instead");
+    return new EntryOutputStream (sFullName.getBytes (StandardCharsets.UTF_8));
+  }
+
+  private void _addEntry (@NonNull final byte [] aName, @NonNull final byte [] aContent) throws IOException
+  {
+    final String sName = new String (aName, StandardCharsets.UTF_8);
+    if (!m_aNames.add (sName))
+      throw new ZipException ("duplicate entry: " + sName);
+    if (m_aNames.size () > MAX_UINT16)
+      throw new ZipException ("Too many entries - ZIP64 is not supported");
+
+    final FutureTask <Entry> aTask = new FutureTask <> ( () -> _createEntry (aName, aContent));
+    m_aPending.addLast (aTask);
+    if (m_aExecutor != null)
+    {
+      m_aExecutor.execute (aTask);
+      while (m_aPending.size () > m_nParallelism * MAX_PENDING_ENTRIES_PER_THREAD)
+        _writeEntry (m_aPending.removeFirst ());
+    }
+    else
+    {
+      aTask.run ();
+      _writeEntry (m_aPending.removeFirst ());
+    }
+  }
+
+  @NonNull
+  private Entry _createEntry (@NonNull final byte [] aName, @NonNull final byte [] aContent)
+  {
+    final CRC32 aCRC = new CRC32 ();
+    aCRC.update (aContent);
+
+    if (m_bStored)
+      return new Entry (aName, ZipEntry.STORED, aCRC.getValue (), aContent.length, aContent, aContent.length);
+
+    // Raw deflate without zlib header, as required by the zip format
+    final Deflater aDeflater = new Deflater (m_nCompressionLevel, true);
+    try
+    {
+      aDeflater.setInput (aContent);
+      aDeflater.finish ();
+      byte [] aBuf = new byte [Math.max (64, aContent.length / 2)];
+      int nLen = 0;
+      while (!aDeflater.finished ())
+      {
+        if (nLen == aBuf.length)
+          aBuf = Arrays.copyOf (aBuf, aBuf.length * 2);
+        nLen += aDeflater.deflate (aBuf, nLen, aBuf.length - nLen);
+      }
+      return new Entry (aName, ZipEntry.DEFLATED, aCRC.getValue (), aContent.length, aBuf, nLen);
+    }
+    finally
+    {
+      aDeflater.end ();
+    }
+  }
+
+  private void _writeEntry (@NonNull final FutureTask <Entry> aTask) throws IOException
+  {
+    final Entry aEntry;
+    try
+    {
+      aEntry = aTask.get ();
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new InterruptedIOException ("Interrupted while compressing");
+    }
+    catch (final ExecutionException ex)
+    {
+      throw new IOException ("Failed to compress entry", ex.getCause ());
+    }
+
+    if (m_nOffset + LOCAL_HEADER_SIZE + aEntry.m_aName.length + aEntry.m_nDataLength > MAX_UINT32)
+      throw new ZipException ("Archive too large - ZIP64 is not supported");
+
+    final ByteBuffer aHeader = ByteBuffer.allocate (LOCAL_HEADER_SIZE + aEntry.m_aName.length)
+                                         .order (ByteOrder.LITTLE_ENDIAN);
+    aHeader.putInt (LOCAL_HEADER_SIGNATURE);
+    aHeader.putShort ((short) aEntry.getVersionNeeded ());
+    aHeader.putShort ((short) FLAG_UTF8);
+    aHeader.putShort ((short) aEntry.m_nMethod);
+    aHeader.putShort ((short) m_nDosTime);
+    aHeader.putShort ((short) m_nDosDate);
+    aHeader.putInt ((int) aEntry.m_nCRC);
+    aHeader.putInt (aEntry.m_nDataLength);
+    aHeader.putInt ((int) aEntry.m_nSize);
+    aHeader.putShort ((short) aEntry.m_aName.length);
+    // no extra field
+    aHeader.putShort ((short) 0);
+    aHeader.put (aEntry.m_aName);
+    m_aOS.write (aHeader.array ());
+    m_aOS.write (aEntry.m_aData, 0, aEntry.m_nDataLength);
+
+    aEntry.m_nOffset = m_nOffset;
+    m_nOffset += aHeader.capacity () + aEntry.m_nDataLength;
+    m_aWritten.add (aEntry);
+  }
+
+  private void _writeCentralDirectory () throws IOException
+  {
+    final long nStart = m_nOffset;
+    for (final Entry aEntry : m_aWritten)
+    {
+      final ByteBuffer aHeader = ByteBuffer.allocate (CENTRAL_HEADER_SIZE + aEntry.m_aName.length)
+                                           .order (ByteOrder.LITTLE_ENDIAN);
+      aHeader.putInt (CENTRAL_HEADER_SIGNATURE);
+      // version made by
+      aHeader.putShort ((short) 20);
+      aHeader.putShort ((short) aEntry.getVersionNeeded ());
+      aHeader.putShort ((short) FLAG_UTF8);
+      aHeader.putShort ((short) aEntry.m_nMethod);
+      aHeader.putShort ((short) m_nDosTime);
+      aHeader.putShort ((short) m_nDosDate);
+      aHeader.putInt ((int) aEntry.m_nCRC);
+      aHeader.putInt (aEntry.m_nDataLength);
+      aHeader.putInt ((int) aEntry.m_nSize);
+      aHeader.putShort ((short) aEntry.m_aName.length);
+      // extra field, comment, disk number, internal and external attributes
+      aHeader.putShort ((short) 0);
+      aHeader.putShort ((short) 0);
+      aHeader.putShort ((short) 0);
+      aHeader.putShort ((short) 0);
+      aHeader.putInt (0);
+      aHeader.putInt ((int) aEntry.m_nOffset);
+      aHeader.put (aEntry.m_aName);
+      m_aOS.write (aHeader.array ());
+      m_nOffset += aHeader.capacity ();
+    }
+    if (m_nOffset > MAX_UINT32)
+      throw new ZipException ("Archive too large - ZIP64 is not supported");
+
+    final ByteBuffer aEnd = ByteBuffer.allocate (END_OF_CENTRAL_DIR_SIZE).order (ByteOrder.LITTLE_ENDIAN);
+    aEnd.putInt (END_OF_CENTRAL_DIR_SIGNATURE);
+    // disk numbers
+    aEnd.putShort ((short) 0);
+    aEnd.putShort ((short) 0);
+    aEnd.putShort ((short) m_aWritten.size ());
+    aEnd.putShort ((short) m_aWritten.size ());
+    aEnd.putInt ((int) (m_nOffset - nStart));
+    aEnd.putInt ((int) nStart);
+    // comment length
+    aEnd.putShort ((short) 0);
+    m_aOS.write (aEnd.array ());
+  }
+
+  @Override
+  public void close () throws IOException
+  {
+    // May be called twice, if this writer is used for sources and resources
+    if (m_bClosed)
+      return;
+    m_bClosed = true;
+
+    try
+    {
+      _startIfNecessary ();
+      while (!m_aPending.isEmpty ())
+        _writeEntry (m_aPending.removeFirst ());
+      _writeCentralDirectory ();
+    }
+    finally
+    {
+      // Don't leave anything running in case of an error
+      for (final FutureTask <Entry> aTask : m_aPending)
+        aTask.cancel (true);
+      if (m_aExecutor != null)
+        m_aExecutor.shutdownNow ();
+      m_aOS.close ();
+    }
+  }
+}
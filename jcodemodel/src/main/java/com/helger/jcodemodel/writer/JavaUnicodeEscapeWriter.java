@@ -41,8 +41,10 @@
 package com.helger.jcodemodel.writer;
 
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.BitSet;
 
 import org.jspecify.annotations.NonNull;
@@ -68,11 +70,36 @@ public class JavaUnicodeEscapeWriter extends UnicodeEscapeWriter
   // can't change this signature to Encoder because
   // we can't have Encoder in method signature
   private final CharsetEncoder m_aEncoder;
+  // true if the charset can only encode US-ASCII
+  private final boolean m_bASCIIOnly;
+  // true if the charset can encode every character except lone surrogates
+  private final boolean m_bUnicode;
 
   public JavaUnicodeEscapeWriter (@NonNull final OutputStreamWriter bw)
   {
-    super (bw);
-    m_aEncoder = Charset.forName (bw.getEncoding ()).newEncoder ();
+    this (bw, Charset.forName (bw.getEncoding ()));
+  }
+
+  /**
+   * Constructor for writers that don't encode themselves, e.g. if the characters are kept in
+   * memory.
+   *
+   * @param aWriter
+   *        The writer to write to. May not be <code>null</code>.
+   * @param aCharset
+   *        The charset that determines which characters need to be escaped. May not be
+   *        <code>null</code>.
+   * @since 4.2.2
+   */
+  public JavaUnicodeEscapeWriter (@NonNull final Writer aWriter, @NonNull final Charset aCharset)
+  {
+    super (aWriter);
+    m_aEncoder = aCharset.newEncoder ();
+    m_bASCIIOnly = aCharset.equals (StandardCharsets.US_ASCII);
+    m_bUnicode = aCharset.equals (StandardCharsets.UTF_8) ||
+                 aCharset.equals (StandardCharsets.UTF_16) ||
+                 aCharset.equals (StandardCharsets.UTF_16BE) ||
+                 aCharset.equals (StandardCharsets.UTF_16LE);
   }
 
   @Override
@@ -86,6 +113,12 @@ public class JavaUnicodeEscapeWriter extends UnicodeEscapeWriter
     if (ch < 0x80)
       return false;
 
+    // Skip the encoder for the common charsets
+    if (m_bASCIIOnly)
+      return true;
+    if (m_bUnicode)
+      return Character.isSurrogate ((char) ch);
+
     return !m_aEncoder.canEncode ((char) ch);
   }
 }
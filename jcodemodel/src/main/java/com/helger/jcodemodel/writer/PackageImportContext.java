@@ -0,0 +1,145 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.jcodemodel.AbstractJClass;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JPackage;
+
+/**
+ * The parts of the import resolution that are the same for all classes of a
+ * package. It is created once per package before the classes are written and
+ * shared by all {@link JFormatter}s of that package, so that each formatter
+ * only needs hash lookups instead of rescanning the package.
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+@Immutable
+final class PackageImportContext
+{
+  private final JPackage m_aPackage;
+  private final Set <String> m_aClassNames;
+  private final Set <AbstractJClass> m_aDontImportClasses;
+
+  /**
+   * Constructor
+   *
+   * @param aPackage
+   *        The package whose classes are written. May not be <code>null</code>.
+   * @param aDontImportClasses
+   *        The classes that should not be imported, as returned by
+   *        {@link #getAllClassesForImport(Iterable)}. May not be
+   *        <code>null</code>. Is not copied, so that it can be shared between
+   *        multiple packages.
+   */
+  PackageImportContext (@NonNull final JPackage aPackage, @NonNull final Set <AbstractJClass> aDontImportClasses)
+  {
+    ValueEnforcer.notNull (aPackage, "Package");
+    ValueEnforcer.notNull (aDontImportClasses, "DontImportClasses");
+
+    m_aPackage = aPackage;
+    final Set <String> aClassNames = new HashSet <> ();
+    for (final JDefinedClass aClass : aPackage.classes ())
+      aClassNames.add (aClass.name ());
+    m_aClassNames = aClassNames;
+    m_aDontImportClasses = aDontImportClasses;
+  }
+
+  /**
+   * @return The package this context belongs to. Never <code>null</code>.
+   */
+  @NonNull
+  JPackage getPackage ()
+  {
+    return m_aPackage;
+  }
+
+  /**
+   * Check if the package contains a top-level class with the provided simple
+   * name. Such a class shadows a class of the same name in
+   * <code>java.lang</code>.
+   *
+   * @param sSimpleName
+   *        The simple name to check. May be <code>null</code>.
+   * @return <code>true</code> if such a class exists
+   */
+  boolean containsClassName (@Nullable final String sSimpleName)
+  {
+    return m_aClassNames.contains (sSimpleName);
+  }
+
+  /**
+   * @param aClassForImport
+   *        The class to check, as returned by
+   *        {@link JFormatter#getClassForImport(AbstractJClass)}.
+   * @return <code>true</code> if the class should never be imported
+   */
+  boolean isDontImportClass (@Nullable final AbstractJClass aClassForImport)
+  {
+    return m_aDontImportClasses.contains (aClassForImport);
+  }
+
+  /**
+   * Resolve all classes to the class that would be imported for them.
+   *
+   * @param aClasses
+   *        The classes to resolve. May be <code>null</code>.
+   * @return A new set with the resolved classes. Never <code>null</code>.
+   */
+  @NonNull
+  static Set <AbstractJClass> getAllClassesForImport (@Nullable final Iterable <? extends AbstractJClass> aClasses)
+  {
+    final Set <AbstractJClass> ret = new HashSet <> ();
+    if (aClasses != null)
+      for (final AbstractJClass aClass : aClasses)
+        ret.add (JFormatter.getClassForImport (aClass));
+    return ret;
+  }
+}
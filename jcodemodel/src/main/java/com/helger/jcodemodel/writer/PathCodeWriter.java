@@ -0,0 +1,188 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.string.StringHelper;
+
+/**
+ * Writes all the files under the specified {@link Path}. Compared to {@link FileCodeWriter} each
+ * directory is only created once and each file is opened with a single call, overwriting an
+ * existing file. As only the {@link Files} API is used, the target may be located in any
+ * {@link java.nio.file.FileSystem}, e.g. a zip file system or an in-memory file system.<br>
+ * This writer may be used from multiple threads at the same time.
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+@ThreadSafe
+public class PathCodeWriter extends AbstractCodeWriter
+{
+  /** The target directory to put source code. */
+  private final Path m_aTargetDir;
+
+  /** All directories known to exist */
+  private final Set <Path> m_aCreatedDirs = ConcurrentHashMap.newKeySet ();
+
+  private final AtomicInteger m_aWrittenFiles = new AtomicInteger (0);
+
+  public PathCodeWriter (@NonNull final Path aTargetDir) throws IOException
+  {
+    this (aTargetDir, null);
+  }
+
+  public PathCodeWriter (@NonNull final Path aTargetDir, @Nullable final Charset aEncoding) throws IOException
+  {
+    this (aTargetDir, aEncoding, JCMWriter.DEFAULT_NEW_LINE);
+  }
+
+  public PathCodeWriter (@NonNull final Path aTargetDir,
+                         @Nullable final Charset aEncoding,
+                         @NonNull final String sNewLine) throws IOException
+  {
+    super (aEncoding, sNewLine);
+    ValueEnforcer.notNull (aTargetDir, "TargetDir");
+    if (!Files.isDirectory (aTargetDir))
+      throw new IOException (aTargetDir + ": non-existent directory");
+    m_aTargetDir = aTargetDir;
+    m_aCreatedDirs.add (aTargetDir);
+  }
+
+  /**
+   * @return The target directory provided in the constructor. Never <code>null</code>.
+   */
+  @NonNull
+  public final Path getTargetDir ()
+  {
+    return m_aTargetDir;
+  }
+
+  /**
+   * @return The number of files that were written.
+   */
+  @Nonnegative
+  public final int getWrittenFileCount ()
+  {
+    return m_aWrittenFiles.get ();
+  }
+
+  /**
+   * Get the file to be written and ensure the parent directory exists.
+   *
+   * @param sDirName
+   *        The directory name, relative to the target directory. May be empty.
+   * @param sFilename
+   *        The file name without the path.
+   * @return The file to be written. It may already exist.
+   * @throws IOException
+   *         If the parent directory could not be created
+   */
+  @NonNull
+  protected Path getTargetFile (@NonNull final String sDirName, @NonNull final String sFilename) throws IOException
+  {
+    final Path aDir = StringHelper.isEmpty (sDirName) ? m_aTargetDir : m_aTargetDir.resolve (sDirName);
+    if (!m_aCreatedDirs.contains (aDir))
+    {
+      // Concurrent creation of the same directory is fine
+      Files.createDirectories (aDir);
+      m_aCreatedDirs.add (aDir);
+    }
+    return aDir.resolve (sFilename);
+  }
+
+  @Override
+  public boolean isConcurrentWriteSupported ()
+  {
+    return true;
+  }
+
+  /**
+   * @return <code>true</code> if the target directory is on the default file system, whose files
+   *         remain between builds. <code>false</code> e.g. for zip file systems, that are usually
+   *         created anew for each build.
+   */
+  @Override
+  public boolean isKeepFileSupported ()
+  {
+    return m_aTargetDir.getFileSystem () == FileSystems.getDefault ();
+  }
+
+  @Override
+  public boolean canKeepFile (@NonNull final String sDirName, @NonNull final String sFilename)
+  {
+    final Path aDir = StringHelper.isEmpty (sDirName) ? m_aTargetDir : m_aTargetDir.resolve (sDirName);
+    return Files.isRegularFile (aDir.resolve (sFilename));
+  }
+
+  @Override
+  @NonNull
+  public OutputStream openBinary (@NonNull final String sDirName, @NonNull final String sFilename) throws IOException
+  {
+    final OutputStream ret = Files.newOutputStream (getTargetFile (sDirName, sFilename),
+                                                    StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.WRITE);
+    m_aWrittenFiles.incrementAndGet ();
+    return ret;
+  }
+
+  @Override
+  public void close () throws IOException
+  {
+    // The file system is owned by the caller
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.jcodemodel.JPackage;
+
+/**
+ * Writes formatted source files on dedicated writer threads, so that formatting and I/O overlap.
+ * The number of files that are scheduled but not yet written is bounded - scheduling blocks until a
+ * file was written. If the code writer does not support concurrent writes, a single writer thread
+ * is used and the files are written in the order they were scheduled.<br>
+ * Virtual threads are used for writing if the runtime supports them.
+ *
+ * @author Philip Helger
+ * @since 4.2.2
+ */
+final class PipelinedSourceWriter
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (PipelinedSourceWriter.class);
+
+  private final AbstractCodeWriter m_aSourceWriter;
+  private final ExecutorService m_aWriterPool;
+  private final Semaphore m_aPendingPermits;
+  private final AtomicReference <Throwable> m_aFirstError = new AtomicReference <> ();
+  private final AtomicInteger m_aWrittenFiles = new AtomicInteger (0);
+  private final AtomicLong m_aWrittenChars = new AtomicLong (0);
+  private final long m_nStartNanos = System.nanoTime ();
+
+  PipelinedSourceWriter (@NonNull final AbstractCodeWriter aSourceWriter,
+                         @Nonnegative final int nWriterThreads,
+                         @Nonnegative final int nMaxPending)
+  {
+    m_aSourceWriter = aSourceWriter;
+    final int nThreads = aSourceWriter.isConcurrentWriteSupported () ? nWriterThreads : 1;
+    m_aWriterPool = Executors.newFixedThreadPool (nThreads, _createThreadFactory ("jcodemodel-io-"));
+    m_aPendingPermits = new Semaphore (nMaxPending);
+  }
+
+  @NonNull
+  private static ThreadFactory _createThreadFactory (@NonNull final String sPrefix)
+  {
+    try
+    {
+      // Thread.ofVirtual ().name (sPrefix, 1).factory () - requires Java 21
+      final Class <?> aBuilderClass = Class.forName ("java.lang.Thread$Builder");
+      Object aBuilder = Thread.class.getMethod ("ofVirtual").invoke (null);
+      aBuilder = aBuilderClass.getMethod ("name", String.class, long.class).invoke (aBuilder, sPrefix, Long.valueOf (1));
+      return (ThreadFactory) aBuilderClass.getMethod ("factory").invoke (aBuilder);
+    }
+    catch (final ReflectiveOperationException | RuntimeException ex)
+    {
+      // Older runtime - use platform threads
+      final AtomicInteger aThreadIndex = new AtomicInteger (0);
+      return r -> {
+        final Thread t = new Thread (r, sPrefix + aThreadIndex.incrementAndGet ());
+        t.setDaemon (true);
+        return t;
+      };
+    }
+  }
+
+  private void _checkError () throws IOException
+  {
+    final Throwable t = m_aFirstError.get ();
+    if (t == null)
+      return;
+    if (t instanceof IOException)
+      throw (IOException) t;
+    if (t instanceof RuntimeException)
+      throw (RuntimeException) t;
+    if (t instanceof Error)
+      throw (Error) t;
+    throw new IOException ("Failed to write source file", t);
+  }
+
+  /**
+   * Format a source file on the provided executor and write it on a writer thread. Blocks if too
+   * many files are pending.
+   *
+   * @param aPackage
+   *        The package of the source file
+   * @param sFilename
+   *        The file name of the source file
+   * @param aFormatter
+   *        Creates the content of the source file
+   * @param aFormatExecutor
+   *        The executor to format on
+   * @throws IOException
+   *         If a previous file could not be written or if interrupted
+   */
+  void schedule (@NonNull final JPackage aPackage,
+                 @NonNull final String sFilename,
+                 @NonNull final Callable <String> aFormatter,
+                 @NonNull final Executor aFormatExecutor) throws IOException
+  {
+    try
+    {
+      m_aPendingPermits.acquire ();
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new InterruptedIOException ("Interrupted while scheduling " + sFilename);
+    }
+    _checkError ();
+
+    final FutureTask <String> aContent = new FutureTask <> (aFormatter);
+    aFormatExecutor.execute (aContent);
+    m_aWriterPool.execute ( () -> {
+      try
+      {
+        if (m_aFirstError.get () != null)
+        {
+          // Don't write anything after an error
+          aContent.cancel (true);
+          return;
+        }
+
+        final String sContent = aContent.get ();
+        try (final SourcePrintWriter aWriter = m_aSourceWriter.openSource (aPackage, sFilename))
+        {
+          aWriter.print (sContent);
+        }
+        m_aWrittenFiles.incrementAndGet ();
+        m_aWrittenChars.addAndGet (sContent.length ());
+      }
+      catch (final ExecutionException ex)
+      {
+        m_aFirstError.compareAndSet (null, ex.getCause ());
+      }
+      catch (final InterruptedException ex)
+      {
+        m_aFirstError.compareAndSet (null, new InterruptedIOException ("Interrupted while writing " + sFilename));
+      }
+      catch (final IOException | RuntimeException | Error ex)
+      {
+        m_aFirstError.compareAndSet (null, ex);
+      }
+      finally
+      {
+        m_aPendingPermits.release ();
+      }
+    });
+  }
+
+  /**
+   * Wait until all scheduled files are written and log the throughput.
+   *
+   * @throws IOException
+   *         If a file could not be written or if interrupted
+   */
+  void finish () throws IOException
+  {
+    m_aWriterPool.shutdown ();
+    try
+    {
+      while (!m_aWriterPool.awaitTermination (1, TimeUnit.SECONDS))
+      {
+        // Wait
+      }
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new InterruptedIOException ("Interrupted while waiting for the source files to be written");
+    }
+    _checkError ();
+
+    final long nMillis = Math.max (1, TimeUnit.NANOSECONDS.toMillis (System.nanoTime () - m_nStartNanos));
+    final int nFiles = m_aWrittenFiles.get ();
+    LOGGER.info ("Wrote " +
+                 nFiles +
+                 " source files with " +
+                 m_aWrittenChars.get () +
+                 " characters in " +
+                 nMillis +
+                 " ms (" +
+                 (nFiles * 1000L / nMillis) +
+                 " files/s)");
+  }
+
+  /**
+   * Stop writing in case of an error. Files already being written are finished.
+   */
+  void cancel ()
+  {
+    m_aFirstError.compareAndSet (null, new InterruptedIOException ("Cancelled"));
+    m_aWriterPool.shutdownNow ();
+  }
+}
@@ -44,7 +44,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.jspecify.annotations.NonNull;
@@ -217,4 +219,36 @@ public final class AbstractJTypeTest
     final JNarrowedClass cls = aList.narrow (aList.narrow (codeModel.ref (Integer.class)));
     assertEquals ("List<List<Integer>>", cls.name ());
   }
+
+  @Test
+  public void testIsAssignableFromChangedHierarchy () throws Exception
+  {
+    final JCodeModel codeModel = JCodeModel.createUnified ();
+    final AbstractJClass _Integer = codeModel.ref (Integer.class);
+    final AbstractJClass _Collection = codeModel.ref (Collection.class);
+    final AbstractJClass _Serializable = codeModel.ref (Serializable.class);
+    final JDefinedClass aBase = codeModel._class ("test.Base");
+    final JDefinedClass aDerived = codeModel._class ("test.Derived");
+
+    _assertIsNotAssignable (aBase, aDerived);
+    _assertIsNotAssignable (_Serializable, aDerived);
+    _assertIsNotAssignable (_Collection.narrow (_Integer), aDerived);
+
+    // Results must reflect later changes of the hierarchy
+    aDerived._extends (aBase);
+    _assertIsAssignable (aBase, aDerived);
+    _assertIsNotAssignable (aDerived, aBase);
+    _assertIsNotAssignable (_Serializable, aDerived);
+
+    aBase._implements (_Serializable);
+    _assertIsAssignable (_Serializable, aDerived);
+
+    aBase._implements (codeModel.ref (List.class).narrow (_Integer));
+    _assertIsAssignable (_Collection.narrow (_Integer), aDerived);
+    _assertIsAssignable (_Collection.narrow (_Integer.wildcardExtends ()), aDerived);
+    _assertIsAssignable (_Collection, aDerived);
+
+    codeModel.clearTypeHierarchyCache ();
+    _assertIsAssignable (_Collection.narrow (_Integer), aDerived);
+  }
 }
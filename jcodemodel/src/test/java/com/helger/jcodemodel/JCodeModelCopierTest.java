@@ -0,0 +1,244 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.jcodemodel.exceptions.JCodeModelException;
+import com.helger.jcodemodel.writer.StringCodeWriter;
+
+/**
+ * Test class for class {@link JCodeModelCopier}.
+ *
+ * @author Philip Helger
+ */
+public final class JCodeModelCopierTest
+{
+  /** A statement that is not part of this library */
+  private static final class CustomStatement implements IJStatement
+  {
+    private final JVar m_aVar;
+    private final List <JVar> m_aVars;
+
+    CustomStatement (@NonNull final JVar aVar)
+    {
+      m_aVar = aVar;
+      m_aVars = Arrays.asList (aVar);
+    }
+
+    public void state (@NonNull final IJFormatter f)
+    {
+      f.print ("// custom ").var (m_aVar).newline ();
+    }
+  }
+
+  /** A statement that can only be copied with serialization */
+  private static final class CustomSerializationStatement implements IJStatement
+  {
+    private transient JVar m_aVar;
+
+    CustomSerializationStatement (@NonNull final JVar aVar)
+    {
+      m_aVar = aVar;
+    }
+
+    public void state (@NonNull final IJFormatter f)
+    {
+      f.print ("// serialized ").var (m_aVar).newline ();
+    }
+
+    private void writeObject (@NonNull final ObjectOutputStream aOOS) throws IOException
+    {
+      aOOS.defaultWriteObject ();
+      aOOS.writeObject (m_aVar);
+    }
+
+    private void readObject (@NonNull final ObjectInputStream aOIS) throws IOException, ClassNotFoundException
+    {
+      aOIS.defaultReadObject ();
+      m_aVar = (JVar) aOIS.readObject ();
+    }
+  }
+
+  @NonNull
+  private static JCodeModel _createCM () throws JCodeModelException
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aBase = cm._class (JMod.PUBLIC | JMod.ABSTRACT, "org.example.base.Base");
+    aBase.javadoc ().add ("The base class.");
+    aBase.javadoc ().addParam ("T").add ("The value type");
+    final JTypeVar aT = aBase.generify ("T");
+    final JFieldVar aValue = aBase.field (JMod.PRIVATE, aT, "m_aValue");
+    final JMethod aGetter = aBase.method (JMod.PUBLIC, aT, "getValue");
+    aGetter.body ()._return (aValue);
+
+    final JDefinedClass aImpl = cm._class (JMod.PUBLIC, "org.example.impl.Impl");
+    aImpl._extends (aBase.narrow (String.class));
+    aImpl._implements (Serializable.class);
+    final JMethod aMethod = aImpl.method (JMod.PUBLIC, cm.ref (List.class).narrow (String.class), "toList");
+    final JVar aParam = aMethod.param (JMod.FINAL, String.class, "sSuffix");
+    final JVar aList = aMethod.body ()
+                              .decl (cm.ref (List.class).narrow (String.class),
+                                     "aList",
+                                     cm.ref (List.class).staticInvoke ("of").arg (JExpr.invoke (aGetter)).arg (aParam));
+    aMethod.body ()._return (aList);
+    return cm;
+  }
+
+  @Test
+  public void testCopy () throws JCodeModelException
+  {
+    final JCodeModel cm = _createCM ();
+    final JCodeModel aCopy = JCodeModelCopier.copy (cm);
+    assertNotSame (cm, aCopy);
+    assertEquals (StringCodeWriter.represent (cm), StringCodeWriter.represent (aCopy));
+    assertEquals (StringCodeWriter.represent (JCodeModel.copySerial (cm)), StringCodeWriter.represent (aCopy));
+
+    // References point to the copied objects
+    final JDefinedClass aBase = aCopy._getClass ("org.example.base.Base");
+    final JDefinedClass aImpl = aCopy._getClass ("org.example.impl.Impl");
+    assertNotNull (aBase);
+    assertNotNull (aImpl);
+    assertNotSame (cm._getClass ("org.example.base.Base"), aBase);
+    assertSame (aCopy, aBase.owner ());
+    assertSame (aBase, aImpl._extends ().erasure ());
+    assertSame (aCopy.rootPackage (), aCopy._package (""));
+    assertTrue (aImpl.isAssignableFrom (aImpl));
+    assertTrue (aBase.isAssignableFrom (aImpl));
+
+    // The copy can be modified independently
+    aImpl.method (JMod.PUBLIC, aCopy.VOID, "onlyInCopy");
+    assertNull (cm._getClass ("org.example.impl.Impl").getMethod ("onlyInCopy", new AbstractJType [0]));
+    assertFalse (StringCodeWriter.represent (cm).equals (StringCodeWriter.represent (aCopy)));
+
+    // Pools work on the copy
+    assertSame (aCopy.ref (List.class).narrow (String.class), aCopy.ref (List.class).narrow (String.class));
+  }
+
+  @Test
+  public void testCopyCustomStatement () throws JCodeModelException
+  {
+    final JCodeModel cm = _createCM ();
+    final JMethod aMethod = cm._getClass ("org.example.impl.Impl").getMethod ("toList", new AbstractJType [] { cm.ref (String.class) });
+    final CustomStatement aStatement = new CustomStatement (aMethod.params ().get (0));
+    aMethod.body ().add (aStatement);
+
+    final JCodeModel aCopy = JCodeModelCopier.copy (cm);
+    assertEquals (StringCodeWriter.represent (cm), StringCodeWriter.represent (aCopy));
+
+    // The statement is copied and references the copied parameter
+    final JMethod aCopiedMethod = aCopy._getClass ("org.example.impl.Impl")
+                                       .getMethod ("toList", new AbstractJType [] { aCopy.ref (String.class) });
+    final List <IJObject> aContents = aCopiedMethod.body ().getContents ();
+    final CustomStatement aCopiedStatement = (CustomStatement) aContents.get (aContents.size () - 1);
+    assertNotSame (aStatement, aCopiedStatement);
+    assertSame (aCopiedMethod.params ().get (0), aCopiedStatement.m_aVar);
+    assertNotSame (aStatement.m_aVars, aCopiedStatement.m_aVars);
+    assertEquals (Arrays.asList (aCopiedStatement.m_aVar), aCopiedStatement.m_aVars);
+
+    // Containers without a public constructor are modifiable in the copy
+    aCopiedStatement.m_aVars.add (aCopiedStatement.m_aVar);
+    assertEquals (1, aStatement.m_aVars.size ());
+  }
+
+  @Test
+  public void testCopyCustomSerialization () throws JCodeModelException
+  {
+    final JCodeModel cm = _createCM ();
+    final JMethod aMethod = cm._getClass ("org.example.impl.Impl").getMethod ("toList", new AbstractJType [] { cm.ref (String.class) });
+    final CustomSerializationStatement aStatement = new CustomSerializationStatement (aMethod.params ().get (0));
+    aMethod.body ().add (aStatement);
+
+    for (final JCodeModel aCopy : new JCodeModel [] { JCodeModelCopier.copy (cm),
+                                                      JCodeModelCopier.copy (cm, p -> p.name ().equals ("org.example.impl")) })
+    {
+      final JDefinedClass aImpl = aCopy._getClass ("org.example.impl.Impl");
+      final JMethod aCopiedMethod = aImpl.getMethod ("toList", new AbstractJType [] { aCopy.ref (String.class) });
+      final List <IJObject> aContents = aCopiedMethod.body ().getContents ();
+      final CustomSerializationStatement aCopiedStatement = (CustomSerializationStatement) aContents.get (aContents.size () -
+                                                                                                          1);
+      assertNotSame (aStatement, aCopiedStatement);
+      assertSame (aCopiedMethod.params ().get (0), aCopiedStatement.m_aVar);
+      assertSame (aCopy, aImpl.owner ());
+    }
+    assertEquals (StringCodeWriter.represent (cm), StringCodeWriter.represent (JCodeModelCopier.copy (cm)));
+
+    // The package filter is applied after serialization
+    final JCodeModel aCopy = JCodeModelCopier.copy (cm, p -> p.name ().equals ("org.example.impl"));
+    assertNull (aCopy._getClass ("org.example.base.Base"));
+    assertEquals ("org.example.base.Base", aCopy._getClass ("org.example.impl.Impl")._extends ().erasure ().fullName ());
+    final String sCopy = StringCodeWriter.represent (aCopy);
+    assertTrue (sCopy.contains ("class Impl"));
+    assertFalse (sCopy.contains ("class Base"));
+  }
+
+  @Test
+  public void testCopyPackageSubset () throws JCodeModelException
+  {
+    final JCodeModel cm = _createCM ();
+    final JCodeModel aCopy = cm.copy (p -> p.name ().equals ("org.example.impl"));
+
+    final JDefinedClass aImpl = aCopy._getClass ("org.example.impl.Impl");
+    assertNotNull (aImpl);
+    assertNull (aCopy._getClass ("org.example.base.Base"));
+    assertEquals ("org.example.base.Base", aImpl._extends ().erasure ().fullName ());
+
+    final String sCopy = StringCodeWriter.represent (aCopy);
+    assertTrue (sCopy.contains ("class Impl"));
+    assertFalse (sCopy.contains ("class Base"));
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.jcodemodel.exceptions.JCodeModelException;
+import com.helger.jcodemodel.writer.StringCodeWriter;
+
+/**
+ * Test class for class {@link JCodeModelSnapshot}.
+ *
+ * @author Philip Helger
+ */
+public final class JCodeModelSnapshotTest
+{
+  @NonNull
+  private static JCodeModel _createCM () throws JCodeModelException
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aBase = cm._class (JMod.PUBLIC | JMod.ABSTRACT, "org.example.base.Base");
+    aBase.javadoc ().add ("The base class with non-ASCII text: äöü €");
+    final JTypeVar aT = aBase.generify ("T");
+    final JFieldVar aValue = aBase.field (JMod.PRIVATE, aT, "m_aValue");
+    aBase.method (JMod.PUBLIC, aT, "getValue").body ()._return (aValue);
+
+    final JDefinedClass aImpl = cm._class (JMod.PUBLIC, "org.example.impl.Impl");
+    aImpl._extends (aBase.narrow (String.class));
+    aImpl.field (JMod.PUBLIC | JMod.STATIC | JMod.FINAL, cm.LONG, "MAX", JExpr.lit (Long.MAX_VALUE));
+    aImpl.field (JMod.PUBLIC | JMod.STATIC | JMod.FINAL, cm.INT, "MIN", JExpr.lit (Integer.MIN_VALUE));
+    aImpl.field (JMod.PUBLIC | JMod.STATIC | JMod.FINAL, cm.DOUBLE, "PI", JExpr.lit (Math.PI));
+    aImpl.field (JMod.PUBLIC | JMod.STATIC | JMod.FINAL, cm.CHAR, "C", JExpr.lit ('€'));
+    final JMethod aMethod = aImpl.method (JMod.PUBLIC, cm.ref (List.class).narrow (String.class), "toList");
+    aMethod._throws (IOException.class);
+    final JVar aParam = aMethod.param (JMod.FINAL, String.class, "sSuffix");
+    aMethod.body ()._return (cm.ref (List.class).staticInvoke ("of").arg (JExpr.invoke ("getValue")).arg (aParam));
+    return cm;
+  }
+
+  @NonNull
+  private static byte [] _write (@NonNull final JCodeModel cm) throws IOException
+  {
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    JCodeModelSnapshot.write (cm, aBAOS);
+    return aBAOS.toByteArray ();
+  }
+
+  @Test
+  public void testRoundTrip () throws Exception
+  {
+    final JCodeModel cm = _createCM ();
+    final byte [] aBytes = _write (cm);
+    final JCodeModel aRead = JCodeModelSnapshot.read (ByteBuffer.wrap (aBytes));
+    assertNotSame (cm, aRead);
+    // Writing the read model results in the same bytes
+    assertTrue (Arrays.equals (aBytes, _write (aRead)));
+    assertEquals (StringCodeWriter.represent (cm), StringCodeWriter.represent (aRead));
+
+    // References point to the read objects
+    final JDefinedClass aBase = aRead._getClass ("org.example.base.Base");
+    final JDefinedClass aImpl = aRead._getClass ("org.example.impl.Impl");
+    assertNotNull (aBase);
+    assertNotNull (aImpl);
+    assertSame (aRead, aBase.owner ());
+    assertSame (aBase, aImpl._extends ().erasure ());
+    assertTrue (aBase.isAssignableFrom (aImpl));
+    assertSame (aRead.ref (List.class).narrow (String.class), aRead.ref (List.class).narrow (String.class));
+
+    // Smaller than Java serialization
+    final ByteArrayOutputStream aSerialized = new ByteArrayOutputStream ();
+    try (final ObjectOutputStream aOOS = new ObjectOutputStream (aSerialized))
+    {
+      aOOS.writeObject (cm);
+    }
+    assertTrue (aBytes.length < aSerialized.size ());
+  }
+
+  @Test
+  public void testMemoryMappedFile () throws Exception
+  {
+    final JCodeModel cm = _createCM ();
+    final Path aFile = Files.createTempFile ("jcodemodel", ".jcms");
+    try
+    {
+      JCodeModelSnapshot.write (cm, aFile);
+      final JCodeModel aRead = JCodeModelSnapshot.read (aFile);
+      assertEquals (StringCodeWriter.represent (cm), StringCodeWriter.represent (aRead));
+    }
+    finally
+    {
+      Files.delete (aFile);
+    }
+  }
+
+  @Test
+  public void testMalformed () throws Exception
+  {
+    final byte [] aBytes = _write (_createCM ());
+
+    // Wrong magic
+    final byte [] aWrongMagic = aBytes.clone ();
+    aWrongMagic[0] = 'X';
+    try
+    {
+      JCodeModelSnapshot.read (ByteBuffer.wrap (aWrongMagic));
+      fail ();
+    }
+    catch (final IOException ex)
+    {
+      // expected
+    }
+
+    // Unsupported version
+    final byte [] aWrongVersion = aBytes.clone ();
+    aWrongVersion[4] = 99;
+    try
+    {
+      JCodeModelSnapshot.read (ByteBuffer.wrap (aWrongVersion));
+      fail ();
+    }
+    catch (final IOException ex)
+    {
+      // expected
+    }
+
+    // Truncated at any position
+    for (int i = 0; i < aBytes.length; i += 7)
+      try
+      {
+        JCodeModelSnapshot.read (ByteBuffer.wrap (aBytes, 0, i));
+        fail ("Truncated at " + i);
+      }
+      catch (final IOException ex)
+      {
+        // expected
+      }
+  }
+}
@@ -40,12 +40,19 @@
  */
 package com.helger.jcodemodel;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -234,4 +241,119 @@ public final class JCodeModelTest
       // correct
     }
   }
+
+  private static void _populate (final JCodeModel cm, final int nIndex) throws JCodeModelException
+  {
+    // All threads share the same packages and parent resource directories
+    final JDefinedClass jClass = cm._class (JMod.PUBLIC, "com.example.pkg" + (nIndex % 3) + ".Class" + nIndex);
+    jClass.field (JMod.PRIVATE, cm.ref (List.class).narrow (String.class), "m_aList");
+    jClass.method (JMod.PUBLIC, cm.ref (Map.class), "getMap").body ()._return (JExpr._null ());
+    jClass.constructor (JMod.PUBLIC);
+    jClass._class (JMod.PUBLIC | JMod.STATIC, "Inner");
+    cm.resourceDir ("META-INF/pkg" + (nIndex % 3) + "/res" + nIndex).addResourceFile (JTextFile.createFully ("file" + nIndex + ".txt",
+                                                                                               StandardCharsets.UTF_8,
+                                                                                               "Content " + nIndex));
+  }
+
+  @Test
+  public void testConcurrentConstruction () throws Exception
+  {
+    final int nCount = 200;
+
+    // Serial reference, created in reverse order
+    final JCodeModel aSerialCM = new JCodeModel ();
+    for (int i = nCount - 1; i >= 0; --i)
+      _populate (aSerialCM, i);
+
+    final JCodeModel cm = new JCodeModel ();
+    final ExecutorService aExecutor = Executors.newFixedThreadPool (8);
+    try
+    {
+      final List <Future <?>> aFutures = new ArrayList <> ();
+      for (int i = 0; i < nCount; ++i)
+      {
+        final int nIndex = i;
+        aFutures.add (aExecutor.submit (() -> {
+          _populate (cm, nIndex);
+          return null;
+        }));
+      }
+      for (final Future <?> aFuture : aFutures)
+        aFuture.get ();
+    }
+    finally
+    {
+      aExecutor.shutdown ();
+    }
+
+    assertSame (cm.ref (List.class), cm.ref (List.class));
+    assertArrayEquals (CodeModelTestsHelper.getAllBytes (aSerialCM), CodeModelTestsHelper.getAllBytes (cm));
+  }
+
+  @Test
+  public void testRefNameCache ()
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final AbstractJClass aUnknown = cm.ref ("com.example.NotOnClasspath");
+    assertSame (aUnknown, cm.ref ("com.example.NotOnClasspath"));
+    assertSame (cm.ref (String.class), cm.ref ("java.lang.String"));
+
+    cm.clearRefNameCache ();
+    final AbstractJClass aUnknown2 = cm.ref ("com.example.NotOnClasspath");
+    assertNotSame (aUnknown, aUnknown2);
+    assertEquals (aUnknown.fullName (), aUnknown2.fullName ());
+
+    // Caching disabled
+    cm.setRefNameCacheMaxSize (0);
+    assertEquals (0, cm.getRefNameCacheMaxSize ());
+    assertNotSame (cm.ref ("com.example.NotOnClasspath"), cm.ref ("com.example.NotOnClasspath"));
+  }
+
+  @Test
+  public void testNarrowedClassesArePooled ()
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final AbstractJClass aMap = cm.ref (Map.class);
+    final AbstractJClass aList = cm.ref (List.class);
+    final AbstractJClass aString = cm.ref (String.class);
+
+    final AbstractJClass aNarrowed = aMap.narrow (aString, aList.narrow (aString));
+    assertSame (aNarrowed, aMap.narrow (aString).narrow (aList.narrow (String.class)));
+    assertSame (aNarrowed, aMap.narrow (List.of (aString, aList.narrow (aString))));
+    assertSame (aList.narrowEmpty (), aList.narrowEmpty ());
+    assertNotSame (aList.narrow (aString), aList.narrow (Object.class));
+
+    // Different models don't share instances
+    final JCodeModel cm2 = new JCodeModel ();
+    assertNotSame (aList.narrow (aString), cm2.ref (List.class).narrow (cm2.ref (String.class)));
+
+    // Still usable after copying
+    final JCodeModel aCopy = cm.copy ();
+    final AbstractJClass aCopyList = aCopy.ref (List.class);
+    assertSame (aCopyList.narrow (String.class), aCopyList.narrow (String.class));
+  }
+
+  @Test
+  public void testNarrowedClassCopiesArguments ()
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final AbstractJClass aList = cm.ref (List.class);
+    final AbstractJClass aString = cm.ref (String.class);
+    final AbstractJClass aInteger = cm.ref (Integer.class);
+
+    final AbstractJClass [] aArgArray = { aString };
+    final JNarrowedClass aFromArray = new JNarrowedClass (aList, aArgArray);
+    final int nHashCode = aFromArray.hashCode ();
+    aArgArray[0] = aInteger;
+    assertEquals (nHashCode, aFromArray.hashCode ());
+    assertEquals (aList.narrow (aString), aFromArray);
+
+    final List <AbstractJClass> aArgList = new ArrayList <> ();
+    aArgList.add (aString);
+    final JNarrowedClass aFromList = new JNarrowedClass (aList, aArgList);
+    aArgList.set (0, aInteger);
+    assertEquals (aFromArray, aFromList);
+    assertEquals (aFromArray.hashCode (), aFromList.hashCode ());
+    assertSame (aString, aFromList.getTypeParameters ().get (0));
+  }
 }
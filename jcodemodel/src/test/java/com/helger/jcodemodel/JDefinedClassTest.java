@@ -40,7 +40,18 @@
  */
 package com.helger.jcodemodel;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Test;
 
@@ -50,6 +61,7 @@ import com.github.javaparser.ast.body.InitializerDeclaration;
 import com.github.javaparser.ast.body.TypeDeclaration;
 import com.helger.jcodemodel.exceptions.JCodeModelException;
 import com.helger.jcodemodel.util.CodeModelTestsHelper;
+import com.helger.jcodemodel.writer.StringCodeWriter;
 
 /**
  * Test class for class {@link JDefinedClass}.
@@ -173,4 +185,193 @@ public final class JDefinedClassTest
     CodeModelTestsHelper.compileCodeModel (cm);
   }
 
+  @Test
+  public void testEmptyMembers () throws JCodeModelException
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass jClass = cm._package ("org.example")._class ("Empty");
+    assertTrue (jClass.fields ().isEmpty ());
+    assertFalse (jClass.containsField ("text"));
+    assertFalse (jClass._implements ().hasNext ());
+    assertFalse (jClass.constructors ().hasNext ());
+    assertEquals (0, jClass.constructorsStream ().count ());
+    assertNull (jClass.getConstructor (new AbstractJType [0]));
+    assertNull (jClass.getMethod ("getText", new AbstractJType [0]));
+    assertFalse (jClass.containsEnumConstant ("A"));
+    assertTrue (jClass.recordComponents ().isEmpty ());
+
+    // The read-only view is live
+    final Map <String, JFieldVar> aFields = jClass.fields ();
+    jClass.field (JMod.PRIVATE, String.class, "text");
+    assertEquals (1, aFields.size ());
+    assertTrue (jClass.containsField ("text"));
+
+    final JMethod jMethod = jClass.method (JMod.PUBLIC, cm.VOID, "run");
+    assertEquals (0, jMethod.listParams ().length);
+    assertEquals (0, jMethod.listParamTypes ().length);
+    final List <JVar> aParams = jMethod.params ();
+    final Collection <AbstractJClass> aThrows = jMethod.getThrows ();
+    assertTrue (aParams.isEmpty ());
+    assertTrue (aThrows.isEmpty ());
+    assertTrue (jMethod.hasSignature (new AbstractJType [0]));
+    assertEquals (jMethod, jClass.getMethod ("run", new AbstractJType [0]));
+
+    // The views obtained before the first addition are live as well
+    final JVar aParam = jMethod.param (cm.INT, "nValue");
+    jMethod._throws (IllegalStateException.class);
+    assertEquals (1, aParams.size ());
+    assertSame (aParam, aParams.get (0));
+    assertEquals (1, aThrows.size ());
+    assertTrue (aThrows.contains (cm.ref (IllegalStateException.class)));
+    assertEquals (1, jMethod.params ().size ());
+    assertEquals (1, jMethod.getThrows ().size ());
+  }
+
+  @Test
+  public void testMethodLookup () throws JCodeModelException
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass jClass = cm._package ("org.example")._class ("Lookup");
+    final JMethod m0 = jClass.method (JMod.PUBLIC, cm.VOID, "set");
+    final JMethod m1 = jClass.method (JMod.PUBLIC, cm.VOID, "set");
+    m1.param (cm.INT, "a");
+    final JMethod m2 = jClass.method (JMod.PUBLIC, cm.VOID, "set");
+    m2.param (String.class, "a");
+    assertSame (m0, jClass.getMethod ("set", new AbstractJType [0]));
+    assertSame (m1, jClass.getMethod ("set", new AbstractJType [] { cm.INT }));
+    assertSame (m2, jClass.getMethod ("set", new AbstractJType [] { cm.ref (String.class) }));
+    assertNull (jClass.getMethod ("get", new AbstractJType [0]));
+
+    // Renaming updates the lookup
+    m2.name ("setString");
+    assertNull (jClass.getMethod ("set", new AbstractJType [] { cm.ref (String.class) }));
+    assertSame (m2, jClass.getMethod ("setString", new AbstractJType [] { cm.ref (String.class) }));
+
+    // Removing via the collection updates the lookup
+    assertTrue (jClass.methods ().remove (m1));
+    assertNull (jClass.getMethod ("set", new AbstractJType [] { cm.INT }));
+    assertEquals (2, jClass.methods ().size ());
+
+    final JMethod c1 = jClass.constructor (JMod.PUBLIC);
+    c1.param (cm.LONG, "a");
+    assertSame (c1, jClass.getConstructor (new AbstractJType [] { cm.LONG }));
+    assertNull (jClass.getConstructor (new AbstractJType [0]));
+  }
+
+  @Test
+  public void testConstructorLookup () throws JCodeModelException
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass jClass = cm._package ("org.example")._class ("Ctors");
+    final JMethod c0 = jClass.constructor (JMod.PUBLIC);
+    final JMethod c1 = jClass.constructor (JMod.PUBLIC);
+    c1.param (cm.INT, "a");
+    final JMethod c2 = jClass.constructor (JMod.PUBLIC);
+    c2.param (String.class, "a");
+    assertSame (c0, jClass.getConstructor (new AbstractJType [0]));
+    assertSame (c1, jClass.getConstructor (new AbstractJType [] { cm.INT }));
+    assertSame (c2, jClass.getConstructor (new AbstractJType [] { cm.ref (String.class) }));
+    assertNull (jClass.getConstructor (new AbstractJType [] { cm.INT, cm.INT }));
+
+    // Constructors and parameters added after a lookup are found
+    final JMethod c3 = jClass.constructor (JMod.PUBLIC);
+    assertSame (c0, jClass.getConstructor (new AbstractJType [0]));
+    c3.param (cm.INT, "a");
+    c3.param (cm.INT, "b");
+    assertSame (c3, jClass.getConstructor (new AbstractJType [] { cm.INT, cm.INT }));
+
+    // Removing via the iterator updates the lookup
+    final Iterator <JMethod> it = jClass.constructors ();
+    while (it.hasNext ())
+      if (it.next () == c1)
+        it.remove ();
+    assertNull (jClass.getConstructor (new AbstractJType [] { cm.INT }));
+    assertSame (c2, jClass.getConstructor (new AbstractJType [] { cm.ref (String.class) }));
+  }
+
+  private static void _assertRejected (final JDefinedClass jClass)
+  {
+    try
+    {
+      jClass.checkUniqueSignatures ();
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testRejectDuplicateMethodSignatures () throws JCodeModelException
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass jClass = cm._package ("org.example")._class ("Duplicates");
+    cm.setRejectDuplicateMethodSignatures (true);
+
+    // Legitimate overloads, built step by step
+    jClass.method (JMod.PUBLIC, cm.VOID, "run");
+    jClass.method (JMod.PUBLIC, cm.VOID, "run").param (cm.INT, "a");
+    final JMethod aRun2 = jClass.method (JMod.PUBLIC, cm.VOID, "run");
+    aRun2.param (cm.INT, "a");
+    aRun2.param (String.class, "b");
+    jClass.method (JMod.PUBLIC, cm.VOID, "run").varParam (String.class, "a");
+    jClass.constructor (JMod.PUBLIC);
+    jClass.constructor (JMod.PUBLIC).param (String.class, "s");
+    final JMethod aRenamed = jClass.method (JMod.PUBLIC, cm.VOID, "run");
+    aRenamed.param (cm.LONG, "a");
+    aRenamed.name ("runLong");
+    jClass.checkUniqueSignatures ();
+    CodeModelTestsHelper.compileCodeModel (cm);
+
+    // Same name and parameters, different return type
+    final JMethod aDuplicate = jClass.method (JMod.PUBLIC, cm.INT, "run");
+    aDuplicate.param (cm.INT, "b");
+    _assertRejected (jClass);
+    try
+    {
+      CodeModelTestsHelper.compileCodeModel (cm);
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected - rejected by the writer
+    }
+    jClass.methods ().remove (aDuplicate);
+    jClass.checkUniqueSignatures ();
+
+    // Same erasure
+    jClass.method (JMod.PUBLIC, cm.VOID, "take").param (cm.ref (List.class).narrow (String.class), "a");
+    final JMethod aTake = jClass.method (JMod.PUBLIC, cm.VOID, "take");
+    aTake.param (cm.ref (List.class).narrow (Integer.class), "a");
+    _assertRejected (jClass);
+    aTake.name ("takeIntegers");
+    jClass.checkUniqueSignatures ();
+
+    // Varargs are arrays
+    jClass.method (JMod.PUBLIC, cm.VOID, "all").param (cm.ref (String.class).array (), "a");
+    final JMethod aAll = jClass.method (JMod.PUBLIC, cm.VOID, "allVarArgs");
+    aAll.varParam (String.class, "a");
+    jClass.checkUniqueSignatures ();
+    aAll.name ("all");
+    _assertRejected (jClass);
+    aAll.name ("allVarArgs");
+
+    // Constructors and nested classes
+    final JDefinedClass jCtors = cm._package ("org.example")._class ("Constructors");
+    jCtors.constructor (JMod.PUBLIC).param (String.class, "s");
+    final JMethod aCtor = jCtors.constructor (JMod.PRIVATE);
+    jCtors.checkUniqueSignatures ();
+    aCtor.param (String.class, "t");
+    _assertRejected (jCtors);
+    final JDefinedClass jNested = jClass._class (JMod.PUBLIC | JMod.STATIC, "Nested");
+    jNested.method (JMod.PUBLIC, cm.VOID, "x");
+    jClass.checkUniqueSignatures ();
+    jNested.method (JMod.PUBLIC, cm.VOID, "x");
+    _assertRejected (jClass);
+
+    // Not checked by default
+    cm.setRejectDuplicateMethodSignatures (false);
+    assertNotNull (StringCodeWriter.represent (cm));
+  }
 }
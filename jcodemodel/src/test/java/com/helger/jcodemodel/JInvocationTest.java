@@ -40,6 +40,10 @@
  */
 package com.helger.jcodemodel;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -125,4 +129,29 @@ public final class JInvocationTest
     CodeModelTestsHelper.parseCodeModel (cm);
     CodeModelTestsHelper.compileCodeModel (cm);
   }
+
+  @Test
+  public void testArgs ()
+  {
+    final JInvocation aInv0 = JExpr.invoke ("foo");
+    assertTrue (aInv0.args ().isEmpty ());
+    assertEquals (aInv0, JExpr.invoke ("foo"));
+    assertEquals (aInv0.hashCode (), JExpr.invoke ("foo").hashCode ());
+
+    final JInvocation aInv1 = JExpr.invoke ("foo").arg (1);
+    assertEquals (1, aInv1.args ().size ());
+    assertNotEquals (aInv0, aInv1);
+    assertEquals (aInv1, JExpr.invoke ("foo").arg (1));
+
+    // Modifying the returned list does not modify the invocation
+    aInv1.args ().clear ();
+    assertEquals (1, aInv1.args ().size ());
+
+    final JInvocation aInv3 = JExpr.invoke ("foo").arg (1).arg ("a").arg (JExpr.TRUE);
+    assertEquals (3, aInv3.args ().size ());
+    assertEquals (JExpr.lit (1), aInv3.args ().get (0));
+    assertEquals (aInv3, JExpr.invoke ("foo").arg (1).arg ("a").arg (JExpr.TRUE));
+    assertEquals (aInv3.hashCode (),
+                  JExpr.invoke ("foo").arg (1).arg ("a").arg (JExpr.TRUE).hashCode ());
+  }
 }
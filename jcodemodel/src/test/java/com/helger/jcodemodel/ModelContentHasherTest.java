@@ -0,0 +1,217 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.jcodemodel.exceptions.JCodeModelException;
+
+/**
+ * Test class for class {@link ModelContentHasher}.
+ *
+ * @author Philip Helger
+ */
+public final class ModelContentHasherTest
+{
+  /** A statement that customizes its serialization and keeps its state in transient fields */
+  private static final class CustomSerializationStatement implements IJStatement
+  {
+    private transient String m_sText;
+    private transient Map <String, String> m_aNames = new ConcurrentHashMap <> ();
+
+    CustomSerializationStatement (@NonNull final String sText)
+    {
+      m_sText = sText;
+    }
+
+    public void state (@NonNull final IJFormatter f)
+    {
+      f.print ("// " + m_sText + " " + m_aNames.keySet ()).newline ();
+    }
+
+    private void writeObject (@NonNull final ObjectOutputStream aOOS) throws IOException
+    {
+      aOOS.defaultWriteObject ();
+      aOOS.writeObject (m_sText);
+      aOOS.writeObject (new HashMap <> (m_aNames));
+    }
+
+    @SuppressWarnings ("unchecked")
+    private void readObject (@NonNull final ObjectInputStream aOIS) throws IOException, ClassNotFoundException
+    {
+      aOIS.defaultReadObject ();
+      m_sText = (String) aOIS.readObject ();
+      m_aNames = new ConcurrentHashMap <> ((Map <String, String>) aOIS.readObject ());
+    }
+  }
+
+  @NonNull
+  private static JDefinedClass _createBase (@NonNull final JCodeModel cm) throws JCodeModelException
+  {
+    final JDefinedClass aBase = cm._class (JMod.PUBLIC, "org.example.Base");
+    aBase.javadoc ().add ("The base class");
+    final JFieldVar aValue = aBase.field (JMod.PRIVATE, cm.INT, "m_nValue");
+    final JMethod aGetter = aBase.method (JMod.PUBLIC, cm.INT, "getValue");
+    aGetter.body ()._return (aValue);
+    // Self reference
+    final JMethod aCopy = aBase.method (JMod.PUBLIC, aBase, "copy");
+    aCopy.body ()._return (JExpr._new (aBase));
+    final JDefinedClass aNested = aBase._class (JMod.PUBLIC | JMod.STATIC, "Nested");
+    aNested.method (JMod.PUBLIC, aBase, "outer").body ()._return (JExpr._null ());
+    return aBase;
+  }
+
+  @NonNull
+  private static JDefinedClass _createUser (@NonNull final JCodeModel cm,
+                                            @NonNull final JDefinedClass aBase,
+                                            final boolean bRunnableFirst) throws JCodeModelException
+  {
+    final JDefinedClass aUser = cm._class (JMod.PUBLIC, "org.example.User");
+    if (bRunnableFirst)
+      aUser._implements (cm.ref (Runnable.class))._implements (cm.ref (Cloneable.class));
+    else
+      aUser._implements (cm.ref (Cloneable.class))._implements (cm.ref (Runnable.class));
+    final JMethod aRun = aUser.method (JMod.PUBLIC, cm.VOID, "run");
+    final JVar aList = aRun.body ().decl (cm.ref (List.class).narrow (aBase), "aList", JExpr._null ());
+    aRun.body ().add (JExpr._new (aBase).invoke (aBase.getMethod ("getValue", new AbstractJType [0])));
+    aRun.body ().add (aList.invoke ("clear"));
+    return aUser;
+  }
+
+  @Test
+  public void testIdentityIndependent () throws JCodeModelException
+  {
+    final JCodeModel cm1 = new JCodeModel ();
+    final JDefinedClass aBase1 = _createBase (cm1);
+    final JDefinedClass aUser1 = _createUser (cm1, aBase1, true);
+
+    // Another model with the same content, but the interfaces added in a different order
+    final JCodeModel cm2 = new JCodeModel ();
+    final JDefinedClass aBase2 = _createBase (cm2);
+    final JDefinedClass aUser2 = _createUser (cm2, aBase2, false);
+
+    assertEquals (aBase1.getContentHash (), aBase2.getContentHash ());
+    assertEquals (aUser1.getContentHash (), aUser2.getContentHash ());
+    assertEquals (cm1._package ("org.example").getContentHash (), cm2._package ("org.example").getContentHash ());
+    assertEquals (cm1.getContentHash (), cm2.getContentHash ());
+    assertEquals (64, cm1.getContentHash ().length ());
+
+    // Stable
+    assertEquals (aUser1.getContentHash (), aUser1.getContentHash ());
+    assertEquals (cm1.getContentHash (), JCodeModelCopier.copy (cm1).getContentHash ());
+  }
+
+  @Test
+  public void testCustomSerialization () throws JCodeModelException
+  {
+    final CustomSerializationStatement [] aStatements = new CustomSerializationStatement [2];
+    final JDefinedClass [] aClasses = new JDefinedClass [2];
+    for (int i = 0; i < 2; ++i)
+    {
+      final JCodeModel cm = new JCodeModel ();
+      aClasses[i] = cm._class (JMod.PUBLIC, "org.example.Custom");
+      aStatements[i] = new CustomSerializationStatement ("text");
+      for (int j = 0; j < 100; ++j)
+      {
+        final int n = i == 0 ? j : 99 - j;
+        aStatements[i].m_aNames.put ("name" + n, "value" + n);
+      }
+      aClasses[i].method (JMod.PUBLIC, cm.VOID, "run").body ().add (aStatements[i]);
+    }
+    // The content of the map is hashed independent of the insertion order
+    assertEquals (aClasses[0].getContentHash (), aClasses[1].getContentHash ());
+
+    // Transient fields are hashed as well
+    aStatements[1].m_sText = "other";
+    assertNotEquals (aClasses[0].getContentHash (), aClasses[1].getContentHash ());
+  }
+
+  @Test
+  public void testChanges () throws JCodeModelException
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aBase = _createBase (cm);
+    final JDefinedClass aUser = _createUser (cm, aBase, true);
+    final String sBase = aBase.getContentHash ();
+    final String sUser = aUser.getContentHash ();
+    final String sPackage = cm._package ("org.example").getContentHash ();
+    final String sModel = cm.getContentHash ();
+
+    // Changing a method body of Base does not change User
+    aBase.getMethod ("getValue", new AbstractJType [0]).body ().directStatement ("// changed");
+    final String sBase2 = aBase.getContentHash ();
+    assertNotEquals (sBase, sBase2);
+    assertEquals (sUser, aUser.getContentHash ());
+    assertNotEquals (sPackage, cm._package ("org.example").getContentHash ());
+    assertNotEquals (sModel, cm.getContentHash ());
+
+    // Changes to nested classes are part of the outer class
+    aBase.classes ().iterator ().next ().field (JMod.PRIVATE, cm.INT, "m_nNested");
+    assertNotEquals (sBase2, aBase.getContentHash ());
+
+    // Renaming a method used by User changes User
+    aBase.getMethod ("getValue", new AbstractJType [0]).name ("getIntValue");
+    assertNotEquals (sUser, aUser.getContentHash ());
+
+    // Javadoc and literals
+    final String sUser2 = aUser.getContentHash ();
+    aUser.javadoc ().add ("Doc");
+    final String sUser3 = aUser.getContentHash ();
+    assertNotEquals (sUser2, sUser3);
+    aUser.field (JMod.PRIVATE, cm.LONG, "m_nValue", JExpr.lit (1L));
+    final String sUser4 = aUser.getContentHash ();
+    assertNotEquals (sUser3, sUser4);
+    aUser.fields ().get ("m_nValue").init (JExpr.lit (2L));
+    assertNotEquals (sUser4, aUser.getContentHash ());
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.compile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JExpr;
+import com.helger.jcodemodel.JMod;
+
+/**
+ * Test class for class {@link CompiledCodeCache}.
+ *
+ * @author Philip Helger
+ */
+public final class CompiledCodeCacheTest
+{
+  private static MemoryCodeWriter _createWriter (final String sValue) throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aClass = cm._class (JMod.PUBLIC, "my.Clazz");
+    final JDefinedClass aNested = aClass._class (JMod.PUBLIC | JMod.STATIC, "Nested");
+    aNested.method (JMod.PUBLIC, String.class, "toString").body ()._return (JExpr.lit (sValue));
+    aClass.method (JMod.PUBLIC, String.class, "toString").body ()._return (JExpr._new (aNested).invoke ("toString"));
+    return MemoryCodeWriter.from (cm);
+  }
+
+  private static String _run (final DynamicClassLoader aCL) throws Exception
+  {
+    assertNotNull (aCL);
+    return aCL.loadClass ("my.Clazz").getConstructor ().newInstance ().toString ();
+  }
+
+  private static List <Path> _listEntries (final Path aDir) throws Exception
+  {
+    try (final Stream <Path> aStream = Files.list (aDir))
+    {
+      return aStream.filter (x -> x.toString ().endsWith (CompiledCodeCache.FILE_EXTENSION))
+                    .collect (Collectors.toList ());
+    }
+  }
+
+  @Test
+  public void testCache () throws Exception
+  {
+    final Path aDir = Files.createTempDirectory ("jcodemodel-cache");
+    try
+    {
+      final CompiledCodeCache aCache = new CompiledCodeCache (aDir);
+      assertEquals ("a", _run (_createWriter ("a").compile (aCache)));
+      assertEquals (0, aCache.getHitCount ());
+      assertEquals (1, aCache.getMissCount ());
+      assertEquals (1, _listEntries (aDir).size ());
+
+      // Same sources in a new cache, e.g. after a restart: nothing is compiled
+      final CompiledCodeCache aCache2 = new CompiledCodeCache (aDir);
+      final DynamicClassLoader aCL = _createWriter ("a").compile (aCache2);
+      assertEquals ("a", _run (aCL));
+      assertEquals (1, aCache2.getHitCount ());
+      // Including the nested class
+      assertEquals (2, aCL.getDefinedClassCount ());
+
+      // Changed sources
+      assertEquals ("b", _run (_createWriter ("b").compile (aCache2)));
+      assertEquals (1, aCache2.getMissCount ());
+      assertEquals (2, _listEntries (aDir).size ());
+
+      // Other fingerprint
+      final CompiledCodeCache aCache3 = new CompiledCodeCache (aDir, "other");
+      assertEquals ("a", _run (_createWriter ("a").compile (aCache3)));
+      assertEquals (1, aCache3.getMissCount ());
+      assertEquals (3, _listEntries (aDir).size ());
+
+      // Corrupt entries are ignored and written again
+      for (final Path aEntry : _listEntries (aDir))
+        Files.write (aEntry, new byte [] { 1, 2, 3 });
+      assertEquals ("a", _run (_createWriter ("a").compile (aCache3)));
+      assertEquals (2, aCache3.getMissCount ());
+      assertEquals ("a", _run (_createWriter ("a").compile (aCache3)));
+      assertEquals (1, aCache3.getHitCount ());
+    }
+    finally
+    {
+      try (final Stream <Path> aStream = Files.walk (aDir))
+      {
+        aStream.sorted (Comparator.reverseOrder ()).forEach (x -> x.toFile ().delete ());
+      }
+    }
+  }
+}
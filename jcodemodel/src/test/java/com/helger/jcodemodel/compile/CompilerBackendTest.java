@@ -0,0 +1,137 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.compile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import org.junit.Test;
+
+import com.helger.jcodemodel.EClassType;
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JExpr;
+import com.helger.jcodemodel.JMethod;
+import com.helger.jcodemodel.JMod;
+import com.helger.jcodemodel.JVar;
+
+/**
+ * Test class for the {@link ICompilerBackend} implementations.
+ *
+ * @author Philip Helger
+ */
+public final class CompilerBackendTest
+{
+  private static JCodeModel _createCM () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aEnum = cm._class (JMod.PUBLIC, "org.example.api.EColor", EClassType.ENUM);
+    aEnum.enumConstant ("RED");
+    aEnum.enumConstant ("GREEN");
+
+    final JDefinedClass aIntf = cm._class (JMod.PUBLIC, "org.example.api.INamed", EClassType.INTERFACE);
+    aIntf.method (JMod.PUBLIC, String.class, "getName");
+
+    final JDefinedClass aImpl = cm._class (JMod.PUBLIC, "org.example.impl.Named");
+    aImpl._implements (aIntf);
+    final JDefinedClass aNested = aImpl._class (JMod.PUBLIC | JMod.STATIC, "Holder");
+    aNested.field (JMod.PUBLIC | JMod.FINAL,
+                   cm.ref (List.class).narrow (String.class),
+                   "m_aNames",
+                   JExpr._new (cm.ref (ArrayList.class).narrowEmpty ()));
+    final JMethod aGetName = aImpl.method (JMod.PUBLIC, String.class, "getName");
+    final JVar aHolder = aGetName.body ().decl (aNested, "aHolder", JExpr._new (aNested));
+    aGetName.body ().add (aHolder.ref ("m_aNames").invoke ("add").arg (aEnum.staticRef ("GREEN").invoke ("name")));
+    aGetName.body ()._return (aHolder.ref ("m_aNames").invoke ("get").arg (JExpr.lit (0)));
+    return cm;
+  }
+
+  private static void _testBackend (final ICompilerBackend aBackend) throws Exception
+  {
+    // Twice, to use the warm caches
+    for (int i = 0; i < 2; ++i)
+    {
+      final DynamicClassLoader aCL = MemoryCodeWriter.from (_createCM ()).setCompilerBackend (aBackend).compile ();
+      assertNotNull (aCL);
+      final Object aNamed = aCL.loadClass ("org.example.impl.Named").getConstructor ().newInstance ();
+      assertEquals ("GREEN", aCL.loadClass ("org.example.api.INamed").getMethod ("getName").invoke (aNamed));
+      assertNotNull (aCL.getCode ("org.example.impl.Named$Holder"));
+    }
+
+    // Compile against classes that are already in the class loader
+    final DynamicClassLoader aCL = MemoryCodeWriter.dynCL ();
+    final Map <String, String> aSources = Map.of ("org/example/api/IFoo.java", "package org.example.api; public interface IFoo {}");
+    assertEquals (1, aBackend.compile (aSources, aCL, null).size ());
+    final Map <String, String> aSources2 = Map.of ("org/example/impl/Foo.java",
+                                                   "package org.example.impl; public class Foo implements org.example.api.IFoo {}");
+    assertEquals (1, aBackend.compile (aSources2, aCL, null).size ());
+    assertEquals (aCL.loadClass ("org.example.api.IFoo"), aCL.loadClass ("org.example.impl.Foo").getInterfaces ()[0]);
+
+    // Errors
+    final List <Diagnostic <? extends JavaFileObject>> aErrors = new ArrayList <> ();
+    final Map <String, String> aBroken = Map.of ("org/example/Broken.java", "package org.example; public class Broken { int x = \"a\"; }");
+    assertNull (aBackend.compile (aBroken, MemoryCodeWriter.dynCL (), aErrors::add));
+    assertFalse (aErrors.isEmpty ());
+    assertEquals (Diagnostic.Kind.ERROR, aErrors.get (0).getKind ());
+    assertEquals (1, aErrors.get (0).getLineNumber ());
+  }
+
+  @Test
+  public void testJavac () throws Exception
+  {
+    _testBackend (new JavacCompilerBackend ());
+  }
+
+  @Test
+  public void testEcj () throws Exception
+  {
+    _testBackend (new EcjCompilerBackend ());
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.compile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JExpr;
+import com.helger.jcodemodel.JMod;
+
+/**
+ * Test class for class {@link DynamicClassLoaderRegistry}.
+ *
+ * @author Philip Helger
+ */
+public final class DynamicClassLoaderRegistryTest
+{
+  private static DynamicClassLoader _compile (final String sValue) throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    for (int i = 0; i < 8; ++i)
+      cm._class (JMod.PUBLIC, "my.Clazz" + i)
+        .method (JMod.PUBLIC, String.class, "toString")
+        .body ()
+        ._return (JExpr.lit (sValue + i));
+    return MemoryCodeWriter.from (cm).compile ();
+  }
+
+  @Test
+  public void testLeases () throws Exception
+  {
+    final DynamicClassLoaderRegistry aRegistry = new DynamicClassLoaderRegistry ();
+    final AtomicInteger aFactoryCalls = new AtomicInteger (0);
+    assertNull (aRegistry.acquire ("model"));
+
+    final DynamicClassLoader aCL;
+    try (final DynamicClassLoaderRegistry.Lease aLease1 = aRegistry.acquire ("model", () -> {
+      aFactoryCalls.incrementAndGet ();
+      try
+      {
+        return _compile ("a");
+      }
+      catch (final Exception ex)
+      {
+        throw new IllegalStateException (ex);
+      }
+    }))
+    {
+      assertNotNull (aLease1);
+      aCL = aLease1.getClassLoader ();
+      assertEquals (1, aRegistry.getClassLoaderCount ());
+
+      try (final DynamicClassLoaderRegistry.Lease aLease2 = aRegistry.acquire ("model",
+                                                                              () -> { throw new IllegalStateException (); }))
+      {
+        assertSame (aCL, aLease2.getClassLoader ());
+        assertEquals ("a0", aCL.loadClass ("my.Clazz0").getConstructor ().newInstance ().toString ());
+        assertEquals (1, aRegistry.getDefinedClassCount ());
+      }
+      // Still leased once
+      assertTrue (aRegistry.contains ("model"));
+      assertFalse (aCL.isDisposed ());
+      aLease1.close ();
+      assertTrue (aLease1.isClosed ());
+    }
+    assertEquals (1, aFactoryCalls.get ());
+    assertFalse (aRegistry.contains ("model"));
+    assertEquals (0, aRegistry.getClassLoaderCount ());
+    assertTrue (aCL.isDisposed ());
+    assertNull (aCL.getCode ("my.Clazz1"));
+
+    // Failed creation
+    assertNull (aRegistry.acquire ("failed", () -> null));
+    assertFalse (aRegistry.contains ("failed"));
+  }
+
+  @Test
+  public void testParallelLoading () throws Exception
+  {
+    final long nTotalBefore = DynamicClassLoader.getTotalClassCount ();
+    final DynamicClassLoader aCL = _compile ("b");
+    final ExecutorService aES = Executors.newFixedThreadPool (4);
+    try
+    {
+      final List <Future <Class <?>>> aFutures = new ArrayList <> ();
+      for (int i = 0; i < 64; ++i)
+      {
+        final String sClassName = "my.Clazz" + (i % 8);
+        aFutures.add (aES.submit ((Callable <Class <?>>) () -> aCL.loadClass (sClassName)));
+      }
+      for (int i = 0; i < aFutures.size (); ++i)
+        assertSame (aFutures.get (i % 8).get (), aFutures.get (i).get ());
+    }
+    finally
+    {
+      aES.shutdown ();
+    }
+    assertEquals (8, aCL.getDefinedClassCount ());
+    assertTrue (DynamicClassLoader.getTotalClassCount () >= nTotalBefore + 8);
+    assertTrue (DynamicClassLoader.getLiveClassCount () >= 8);
+    assertTrue (DynamicClassLoader.getMetaspaceUsed () != 0);
+  }
+}
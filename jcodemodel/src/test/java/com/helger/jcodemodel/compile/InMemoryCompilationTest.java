@@ -44,6 +44,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -175,4 +176,176 @@ public final class InMemoryCompilationTest
     assertNull (aLoader);
     assertEquals (1, aErrors.size ());
   }
+
+  @Test
+  public void testCompileSession () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass jA = cm._class (JMod.PUBLIC, "my.session.A");
+    final JMethod jAValue = jA.method (JMod.PUBLIC, cm.ref (String.class), "value");
+    jAValue.body ()._return (JExpr.lit ("a1"));
+    final JDefinedClass jB = cm._class (JMod.PUBLIC, "my.session.B");
+    jB.method (JMod.PUBLIC, cm.ref (String.class), "value").body ()._return (JExpr._new (jA).invoke (jAValue));
+    final JDefinedClass jC = cm._class (JMod.PUBLIC, "my.session.C");
+    final JMethod jCValue = jC.method (JMod.PUBLIC, cm.ref (String.class), "value");
+    jCValue.body ()._return (JExpr.lit ("c1"));
+
+    try (final CompileSession aSession = new CompileSession ())
+    {
+      DynamicClassLoader aLoader = MemoryCodeWriter.from (cm).compile (aSession);
+      assertNotNull (aLoader);
+      assertEquals (3, aSession.getLastCompiledSourceCount ());
+      assertEquals ("a1", _invokeValue (aLoader, jB.fullName ()));
+
+      // Nothing changed
+      aLoader = MemoryCodeWriter.from (cm).compile (aSession);
+      assertNotNull (aLoader);
+      assertEquals (0, aSession.getLastCompiledSourceCount ());
+      assertEquals ("a1", _invokeValue (aLoader, jB.fullName ()));
+
+      // Unrelated class changed
+      jCValue.body ().removeAll ();
+      jCValue.body ()._return (JExpr.lit ("c2"));
+      aLoader = MemoryCodeWriter.from (cm).compile (aSession);
+      assertNotNull (aLoader);
+      assertEquals (1, aSession.getLastCompiledSourceCount ());
+      assertEquals ("c2", _invokeValue (aLoader, jC.fullName ()));
+      assertEquals ("a1", _invokeValue (aLoader, jB.fullName ()));
+
+      // Referenced class changed - B is compiled again as well
+      jAValue.body ().removeAll ();
+      jAValue.body ()._return (JExpr.lit ("a2"));
+      aLoader = MemoryCodeWriter.from (cm).compile (aSession);
+      assertNotNull (aLoader);
+      assertEquals (2, aSession.getLastCompiledSourceCount ());
+      assertEquals ("a2", _invokeValue (aLoader, jB.fullName ()));
+    }
+  }
+
+  @Test
+  public void testCompileSessionTransitive () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass jX = cm._class (JMod.PUBLIC, "my.session.X");
+    final JMethod jXFoo = jX.method (JMod.PUBLIC, cm.ref (String.class), "foo");
+    jXFoo.body ()._return (JExpr.lit ("x"));
+    final JDefinedClass jY = cm._class (JMod.PUBLIC, "my.session.Y");
+    jY.method (JMod.PUBLIC, jX, "getX").body ()._return (JExpr._new (jX));
+    // Z uses X without naming it
+    final JDefinedClass jZ = cm._class (JMod.PUBLIC, "my.session.Z");
+    jZ.method (JMod.PUBLIC, cm.ref (String.class), "value")
+      .body ()
+      ._return (JExpr._new (jY).invoke ("getX").invoke ("foo"));
+    cm._class (JMod.PUBLIC, "my.session.Unrelated");
+
+    try (final CompileSession aSession = new CompileSession ())
+    {
+      DynamicClassLoader aLoader = MemoryCodeWriter.from (cm).compile (aSession);
+      assertNotNull (aLoader);
+      assertEquals ("x", _invokeValue (aLoader, jZ.fullName ()));
+
+      // Z is compiled again via Y
+      jXFoo.body ().removeAll ();
+      jXFoo.body ()._return (JExpr.lit ("x2"));
+      aLoader = MemoryCodeWriter.from (cm).compile (aSession);
+      assertNotNull (aLoader);
+      assertEquals (3, aSession.getLastCompiledSourceCount ());
+      assertEquals ("x2", _invokeValue (aLoader, jZ.fullName ()));
+
+      // Renaming the method breaks Z, like in a full compilation
+      jXFoo.name ("bar");
+      final MemoryCodeWriter aWriter = MemoryCodeWriter.from (cm);
+      final List <Diagnostic <? extends JavaFileObject>> aErrors = new ArrayList <> ();
+      aWriter.setDiagnosticListener (aErrors::add);
+      assertNull (aWriter.compile (aSession));
+      assertEquals (1, aErrors.size ());
+      assertTrue (aErrors.get (0).getSource ().getName ().endsWith ("Z.java"));
+    }
+  }
+
+  @Test
+  public void testCompileSessionWithBackend () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass jA = cm._class (JMod.PUBLIC, "my.session.ecj.A");
+    final JMethod jAValue = jA.method (JMod.PUBLIC, cm.ref (String.class), "value");
+    jAValue.body ()._return (JExpr.lit ("a1"));
+    // Nested classes are reused with their source
+    final JDefinedClass jB = cm._class (JMod.PUBLIC, "my.session.ecj.B");
+    final JDefinedClass jNested = jB._class (JMod.PUBLIC | JMod.STATIC, "Nested");
+    jNested.method (JMod.PUBLIC, cm.ref (String.class), "value").body ()._return (JExpr.lit ("n"));
+
+    final ICompilerBackend aBackend = new EcjCompilerBackend ();
+    try (final CompileSession aSession = new CompileSession ())
+    {
+      DynamicClassLoader aLoader = MemoryCodeWriter.from (cm).setCompilerBackend (aBackend).compile (aSession);
+      assertNotNull (aLoader);
+      assertEquals (2, aSession.getLastCompiledSourceCount ());
+      assertEquals ("a1", _invokeValue (aLoader, jA.fullName ()));
+
+      jAValue.body ().removeAll ();
+      jAValue.body ()._return (JExpr.lit ("a2"));
+      aLoader = MemoryCodeWriter.from (cm).setCompilerBackend (aBackend).compile (aSession);
+      assertNotNull (aLoader);
+      assertEquals (1, aSession.getLastCompiledSourceCount ());
+      assertEquals ("a2", _invokeValue (aLoader, jA.fullName ()));
+      assertEquals ("n", _invokeValue (aLoader, jNested.binaryName ()));
+    }
+  }
+
+  @Test
+  public void testCompileSessionDollarInName () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    // A legal top-level name, like some code generators emit
+    final JDefinedClass jA = cm._class (JMod.PUBLIC, "my.session.dollar.Gen$Impl");
+    final JMethod jAValue = jA.method (JMod.PUBLIC, cm.ref (String.class), "value");
+    jAValue.body ()._return (JExpr.lit ("a1"));
+    cm._class (JMod.PUBLIC, "my.session.dollar.Other");
+
+    for (final ICompilerBackend aBackend : new ICompilerBackend [] { new JavacCompilerBackend (),
+                                                                     new EcjCompilerBackend () })
+      try (final CompileSession aSession = new CompileSession ())
+      {
+        DynamicClassLoader aLoader = MemoryCodeWriter.from (cm).setCompilerBackend (aBackend).compile (aSession);
+        assertNotNull (aLoader);
+        assertEquals (2, aSession.getLastCompiledSourceCount ());
+
+        // The classes were assigned to their sources
+        aLoader = MemoryCodeWriter.from (cm).setCompilerBackend (aBackend).compile (aSession);
+        assertNotNull (aLoader);
+        assertEquals (0, aSession.getLastCompiledSourceCount ());
+        assertEquals ("a1", _invokeValue (aLoader, jA.fullName ()));
+      }
+  }
+
+  @Test
+  public void testGetAllCodeInPackage () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass jA = cm._class (JMod.PUBLIC, "my.pkg.A");
+    jA._class (JMod.PUBLIC | JMod.STATIC, "Nested");
+    cm._class (JMod.PUBLIC, "my.pkg.sub.B");
+    cm._class (JMod.PUBLIC, "C");
+
+    final DynamicClassLoader aLoader = MemoryCodeWriter.from (cm).compile ();
+    assertNotNull (aLoader);
+    assertEquals (2, aLoader.getAllCodeInPackage ("my.pkg").size ());
+    assertEquals (1, aLoader.getAllCodeInPackage ("my.pkg.sub").size ());
+    assertEquals (1, aLoader.getAllCodeInPackage ("").size ());
+    assertTrue (aLoader.getAllCodeInPackage ("my").isEmpty ());
+
+    // Replacing a class keeps a single entry
+    aLoader.setCode (new CompiledCodeJavaFile ("my.pkg.A", aLoader.getCode ("my.pkg.A").getByteCode ()));
+    assertEquals (2, aLoader.getAllCodeInPackage ("my.pkg").size ());
+
+    aLoader.dispose ();
+    assertTrue (aLoader.getAllCodeInPackage ("my.pkg").isEmpty ());
+  }
+
+  private static Object _invokeValue (final DynamicClassLoader aLoader, final String sClassName) throws Exception
+  {
+    final Class <?> aClass = aLoader.loadClass (sClassName);
+    return aClass.getMethod ("value").invoke (aClass.getConstructor ().newInstance ());
+  }
 }
@@ -0,0 +1,234 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.compile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
+import com.helger.jcodemodel.IJExpression;
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JExpr;
+import com.helger.jcodemodel.JMod;
+import com.helger.jcodemodel.fmt.JTextFile;
+import com.helger.jcodemodel.writer.AbstractCodeWriter;
+import com.helger.jcodemodel.writer.JCMWriter;
+
+/**
+ * Test class for class {@link MemoryCodeWriter}.
+ *
+ * @author Philip Helger
+ */
+public final class MemoryCodeWriterTest
+{
+  private static final String FILENAME = "org/example/Clazz.java";
+  private static final String VALUE = "äöü € \u0001";
+
+  private static JCodeModel _createCM () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aClass = cm._class (JMod.PUBLIC, "org.example.Clazz");
+    aClass.javadoc ().add ("Non-ASCII javadoc: " + VALUE);
+    aClass.method (JMod.PUBLIC, String.class, "toString").body ()._return (JExpr.lit (VALUE));
+    cm.resourceDir ("org/example").addResourceFile (JTextFile.createFully ("res.txt", StandardCharsets.UTF_8, "text"));
+    return cm;
+  }
+
+  /**
+   * @return The sources written as bytes, the way all other code writers do.
+   */
+  private static Map <String, String> _writeBytes (final JCodeModel cm, final Charset aCharset) throws IOException
+  {
+    final Map <String, NonBlockingByteArrayOutputStream> aFiles = new HashMap <> ();
+    new JCMWriter (cm).build (new AbstractCodeWriter (aCharset, System.lineSeparator ())
+    {
+      @Override
+      public OutputStream openBinary (final String sDirName, final String sFilename)
+      {
+        final NonBlockingByteArrayOutputStream ret = new NonBlockingByteArrayOutputStream ();
+        aFiles.put (sDirName + "/" + sFilename, ret);
+        return ret;
+      }
+
+      @Override
+      public void close ()
+      {}
+    });
+    final Map <String, String> ret = new HashMap <> ();
+    aFiles.forEach ( (k, v) -> ret.put (k, v.getAsString (aCharset)));
+    return ret;
+  }
+
+  @Test
+  public void testSourcesAsChars () throws Exception
+  {
+    for (final Charset aCharset : new Charset [] { StandardCharsets.UTF_8,
+                                                   StandardCharsets.ISO_8859_1,
+                                                   StandardCharsets.US_ASCII })
+    {
+      final JCodeModel cm = _createCM ();
+      final MemoryCodeWriter aWriter = new MemoryCodeWriter (aCharset);
+      new JCMWriter (cm).build (aWriter);
+
+      // Same content and escaping as if written as bytes
+      final String sExpected = _writeBytes (cm, aCharset).get (FILENAME);
+      assertNotNull (sExpected);
+      assertEquals (sExpected, aWriter.getSources ().get (FILENAME).toString ());
+      assertEquals (sExpected, aWriter.getBinaries ().get (FILENAME).getAsString (aCharset));
+      assertEquals (aCharset.equals (StandardCharsets.US_ASCII), sExpected.contains ("javadoc: \\u00e4"));
+
+      // Sources and resources are separated
+      assertEquals (1, aWriter.getSources ().size ());
+      assertEquals (1, aWriter.getResources ().size ());
+      assertTrue (aWriter.getResources ().containsKey ("org/example/res.txt"));
+      assertFalse (aWriter.getResources ().containsKey (FILENAME));
+      assertEquals (2, aWriter.getBinaries ().size ());
+
+      final DynamicClassLoader aCL = aWriter.compile ();
+      assertNotNull (aCL);
+      assertEquals (VALUE, aCL.loadClass ("org.example.Clazz").getConstructor ().newInstance ().toString ());
+      assertNotNull (aCL.getResource ("org/example/res.txt"));
+    }
+  }
+
+  /**
+   * @return A model with two layers of independent classes and a top class referencing all of them.
+   */
+  private static JCodeModel _createLayeredCM (final int nCount) throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass [] aMids = new JDefinedClass [nCount];
+    for (int i = 0; i < nCount; ++i)
+    {
+      final JDefinedClass aBase = cm._class (JMod.PUBLIC, "org.example.base.Base" + i);
+      aBase.method (JMod.PUBLIC | JMod.STATIC, cm.INT, "value").body ()._return (JExpr.lit (i));
+      aMids[i] = cm._class (JMod.PUBLIC, "org.example.mid.Mid" + i);
+      aMids[i].method (JMod.PUBLIC | JMod.STATIC, cm.INT, "value")
+              .body ()
+              ._return (aBase.staticInvoke ("value").plus (JExpr.lit (1)));
+    }
+    // Pairs of mid classes reference each other
+    for (int i = 0; i + 1 < nCount; i += 2)
+    {
+      aMids[i].field (JMod.PUBLIC, aMids[i + 1], "m_aOther");
+      aMids[i + 1].field (JMod.PUBLIC, aMids[i], "m_aOther");
+    }
+    final JDefinedClass aTop = cm._class (JMod.PUBLIC, "org.example.Top");
+    IJExpression aSum = JExpr.lit (0);
+    for (final JDefinedClass aMid : aMids)
+      aSum = aSum.plus (aMid.staticInvoke ("value"));
+    aTop.method (JMod.PUBLIC | JMod.STATIC, cm.INT, "value").body ()._return (aSum);
+    return cm;
+  }
+
+  @Test
+  public void testCompilerThreads () throws Exception
+  {
+    final int nCount = MemoryCodeWriter.MIN_PARTITION_SIZE * 3;
+    final MemoryCodeWriter aWriter = MemoryCodeWriter.from (_createLayeredCM (nCount));
+    final int nMinSize = MemoryCodeWriter.MIN_PARTITION_SIZE;
+    final List <List <Map <String, CharSequence>>> aLayers = CompilePartitioner.getPartitions (aWriter.getSources (),
+                                                                                                4,
+                                                                                                nMinSize);
+    assertNotNull (aLayers);
+    assertEquals (3, aLayers.size ());
+    assertEquals (3, aLayers.get (0).size ());
+    assertEquals (1, aLayers.get (2).size ());
+
+    final DynamicClassLoader aSingleCL = aWriter.compile ();
+    assertNotNull (aSingleCL);
+
+    final List <String> aDiagnostics = new ArrayList <> ();
+    aWriter.setCompilerThreads (4).setDiagnosticListener (x -> aDiagnostics.add (x.toString ()));
+    final DynamicClassLoader aParallelCL = aWriter.compile ();
+    assertNotNull (aParallelCL);
+    assertTrue (aDiagnostics.isEmpty ());
+
+    // Same byte code as with a single compilation task
+    for (final String sPackage : new String [] { "org.example", "org.example.base", "org.example.mid" })
+    {
+      final List <CompiledCodeJavaFile> aSingle = aSingleCL.getAllCodeInPackage (sPackage);
+      assertEquals (aSingle.size (), aParallelCL.getAllCodeInPackage (sPackage).size ());
+      for (final CompiledCodeJavaFile cc : aSingle)
+        assertArrayEquals (cc.getClassName (),
+                           cc.getByteCode (),
+                           aParallelCL.getCode (cc.getClassName ()).getByteCode ());
+    }
+    final int nExpected = nCount * (nCount + 1) / 2;
+    final Class <?> aTop = aParallelCL.loadClass ("org.example.Top");
+    assertEquals (Integer.valueOf (nExpected), aTop.getMethod ("value").invoke (null));
+  }
+
+  @Test
+  public void testCompilerThreadsWithError () throws Exception
+  {
+    final JCodeModel cm = _createLayeredCM (MemoryCodeWriter.MIN_PARTITION_SIZE * 3);
+    cm._getClass ("org.example.base.Base0").method (JMod.PUBLIC, cm.INT, "broken").body ()._return (JExpr.lit ("x"));
+    final MemoryCodeWriter aWriter = MemoryCodeWriter.from (cm);
+
+    final List <String> aSingleDiagnostics = new ArrayList <> ();
+    aWriter.setDiagnosticListener (x -> aSingleDiagnostics.add (x.toString ()));
+    assertNull (aWriter.compile ());
+    assertFalse (aSingleDiagnostics.isEmpty ());
+
+    // The errors are reported once, like for a single compilation task
+    final List <String> aParallelDiagnostics = new ArrayList <> ();
+    aWriter.setCompilerThreads (4).setDiagnosticListener (x -> aParallelDiagnostics.add (x.toString ()));
+    assertNull (aWriter.compile ());
+    assertEquals (aSingleDiagnostics, aParallelDiagnostics);
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JMod;
+import com.helger.jcodemodel.fmt.JTextFile;
+
+/**
+ * Test class for class {@link FileCodeWriter}.
+ */
+public final class FileCodeWriterTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  @Test
+  public void testWriteOnlyIfChanged () throws Exception
+  {
+    final Path aDir = m_aTempFolder.newFolder ().toPath ();
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass c1 = cm._class (JMod.PUBLIC, "com.example.Class1");
+    cm._class (JMod.PUBLIC, "com.example.Class2");
+    cm._class (JMod.PUBLIC, "com.example.other.Class3");
+    cm.resourceDir ("com/example").addResourceFile (JTextFile.createFully ("res.txt", StandardCharsets.UTF_8, "abc"));
+
+    // Initial write
+    FileCodeWriter aCW = new FileCodeWriter (aDir.toFile (), StandardCharsets.UTF_8).setWriteOnlyIfChanged (true);
+    new JCMWriter (cm).build (aCW);
+    assertEquals (4, aCW.getWrittenFileCount ());
+    assertEquals (0, aCW.getSkippedFileCount ());
+
+    // Pretend the files were written a while ago
+    final Path aPkgDir = aDir.resolve ("com/example");
+    final FileTime aOldTime = FileTime.fromMillis (System.currentTimeMillis () - 3_600_000);
+    Files.setLastModifiedTime (aPkgDir.resolve ("Class1.java"), aOldTime);
+    Files.setLastModifiedTime (aPkgDir.resolve ("res.txt"), aOldTime);
+
+    // Nothing changed
+    aCW = new FileCodeWriter (aDir.toFile (), StandardCharsets.UTF_8).setWriteOnlyIfChanged (true);
+    new JCMWriter (cm).build (aCW);
+    assertEquals (0, aCW.getWrittenFileCount ());
+    assertEquals (4, aCW.getSkippedFileCount ());
+    assertEquals (aOldTime, Files.getLastModifiedTime (aPkgDir.resolve ("Class1.java")));
+    assertEquals (aOldTime, Files.getLastModifiedTime (aPkgDir.resolve ("res.txt")));
+
+    // One class changed, two classes removed
+    c1.field (JMod.PRIVATE, cm.INT, "m_nValue");
+    cm._package ("com.example").remove (cm._getClass ("com.example.Class2"));
+    cm._package ("com.example.other").remove (cm._getClass ("com.example.other.Class3"));
+    aCW = new FileCodeWriter (aDir.toFile (), StandardCharsets.UTF_8).setWriteOnlyIfChanged (true)
+                                                                      .setDeleteStaleFiles (true);
+    new JCMWriter (cm).build (aCW);
+    assertEquals (1, aCW.getWrittenFileCount ());
+    assertEquals (1, aCW.getSkippedFileCount ());
+    assertEquals (2, aCW.getDeletedFileCount ());
+
+    assertTrue (Files.readString (aPkgDir.resolve ("Class1.java")).contains ("m_nValue"));
+    assertFalse (Files.exists (aPkgDir.resolve ("Class2.java")));
+    assertEquals (aOldTime, Files.getLastModifiedTime (aPkgDir.resolve ("res.txt")));
+    // The package directory that became empty is removed as well
+    assertFalse (Files.exists (aPkgDir.resolve ("other")));
+    assertTrue (Files.exists (aPkgDir));
+  }
+}
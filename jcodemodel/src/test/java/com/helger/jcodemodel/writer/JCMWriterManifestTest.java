@@ -0,0 +1,254 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JMod;
+import com.helger.jcodemodel.compile.MemoryCodeWriter;
+
+/**
+ * Test class for class {@link JCMWriterManifest} and its usage in {@link JCMWriter}.
+ */
+public final class JCMWriterManifestTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  @Test
+  public void testReadWrite () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    cm._class (JMod.PUBLIC, "com.example.Class1");
+    cm._class (JMod.PUBLIC, "Class2");
+    final JCMWriter aWriter = new JCMWriter (cm).setManifestFilename (JCMWriterManifest.DEFAULT_FILENAME);
+    aWriter.build (new StringCodeWriter (StandardCharsets.UTF_8, "\n"));
+
+    final JCMWriterManifest aManifest = aWriter.getLastManifest ();
+    assertNotNull (aManifest);
+    assertEquals (2, aManifest.size ());
+    assertNotNull (aManifest.getHash ("com/example/Class1.java"));
+    assertNotNull (aManifest.getHash ("Class2.java"));
+    assertNull (aManifest.getHash ("Class3.java"));
+
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    aManifest.writeTo (aBAOS);
+    final JCMWriterManifest aRead = JCMWriterManifest.readFrom (new ByteArrayInputStream (aBAOS.toByteArray ()));
+    assertEquals (aManifest.getAllHashes (), aRead.getAllHashes ());
+
+    try
+    {
+      JCMWriterManifest.readFrom (new ByteArrayInputStream ("abc".getBytes (StandardCharsets.UTF_8)));
+      fail ();
+    }
+    catch (final IOException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testSkipUnchanged () throws Exception
+  {
+    final Path aDir = m_aTempFolder.newFolder ().toPath ();
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass c1 = cm._class (JMod.PUBLIC, "com.example.Class1");
+    final JDefinedClass c2 = cm._class (JMod.PUBLIC, "com.example.Class2");
+    c2.field (JMod.PRIVATE, c1, "m_aOther");
+    cm._package ("com.example").javadoc ().add ("The package");
+
+    PathCodeWriter aCW = new PathCodeWriter (aDir, StandardCharsets.UTF_8);
+    new JCMWriter (cm).setManifestFilename (JCMWriterManifest.DEFAULT_FILENAME).build (aCW);
+    assertEquals (4, aCW.getWrittenFileCount ());
+    final JCMWriterManifest aManifest1 = JCMWriterManifest.readFrom (aDir.resolve (JCMWriterManifest.DEFAULT_FILENAME));
+    assertNotNull (aManifest1);
+    assertEquals (3, aManifest1.size ());
+
+    // Nothing changed - only the manifest is written
+    aCW = new PathCodeWriter (aDir, StandardCharsets.UTF_8);
+    new JCMWriter (cm).setManifestFilename (JCMWriterManifest.DEFAULT_FILENAME)
+                      .setPreviousManifest (aManifest1)
+                      .build (aCW);
+    assertEquals (1, aCW.getWrittenFileCount ());
+
+    // Only the changed class is written, also in a parallel build
+    c1.field (JMod.PRIVATE, cm.INT, "m_nValue");
+    aCW = new PathCodeWriter (aDir, StandardCharsets.UTF_8);
+    final JCMWriter aWriter = new JCMWriter (cm).setParallelism (2).setPreviousManifest (aManifest1);
+    aWriter.build (aCW);
+    assertEquals (1, aCW.getWrittenFileCount ());
+    assertTrue (Files.readString (aDir.resolve ("com/example/Class1.java")).contains ("m_nValue"));
+    final JCMWriterManifest aManifest2 = aWriter.getLastManifest ();
+    assertNotEquals (aManifest1.getHash ("com/example/Class1.java"), aManifest2.getHash ("com/example/Class1.java"));
+    assertEquals (aManifest1.getHash ("com/example/Class2.java"), aManifest2.getHash ("com/example/Class2.java"));
+
+    // Other writer settings change all files
+    aCW = new PathCodeWriter (aDir, StandardCharsets.UTF_8);
+    new JCMWriter (cm).setIndentString ("\t").setPreviousManifest (aManifest2).build (aCW);
+    assertEquals (3, aCW.getWrittenFileCount ());
+
+    // A new class in the package may change the imports of all classes of the package
+    cm._class (JMod.PUBLIC, "com.example.Class3");
+    aCW = new PathCodeWriter (aDir, StandardCharsets.UTF_8);
+    new JCMWriter (cm).setPreviousManifest (aManifest2).build (aCW);
+    assertEquals (4, aCW.getWrittenFileCount ());
+    assertFalse (aManifest2.getAllHashes ().containsKey ("com/example/Class3.java"));
+  }
+
+  @Test
+  public void testSkipUnchangedWithDeleteStaleFiles () throws Exception
+  {
+    final Path aDir = m_aTempFolder.newFolder ().toPath ();
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass c1 = cm._class (JMod.PUBLIC, "com.example.Class1");
+    cm._class (JMod.PUBLIC, "com.example.Class2");
+    cm._class (JMod.PUBLIC, "Class3");
+    cm._package ("com.example").javadoc ().add ("The package");
+
+    FileCodeWriter aCW = new FileCodeWriter (aDir.toFile (), StandardCharsets.UTF_8).setDeleteStaleFiles (true);
+    JCMWriter aWriter = new JCMWriter (cm).setManifestFilename (JCMWriterManifest.DEFAULT_FILENAME);
+    aWriter.build (aCW);
+    assertEquals (5, aCW.getWrittenFileCount ());
+    final JCMWriterManifest aManifest1 = aWriter.getLastManifest ();
+
+    // Skipped files are kept, only the changed class and the manifest are written
+    for (final int nParallelism : new int [] { 1, 2 })
+    {
+      c1.field (JMod.PRIVATE, cm.INT, "m_n" + nParallelism);
+      aCW = new FileCodeWriter (aDir.toFile (), StandardCharsets.UTF_8).setDeleteStaleFiles (true);
+      aWriter = new JCMWriter (cm).setParallelism (nParallelism)
+                                  .setManifestFilename (JCMWriterManifest.DEFAULT_FILENAME)
+                                  .setPreviousManifest (aManifest1);
+      aWriter.build (aCW);
+      assertEquals (2, aCW.getWrittenFileCount ());
+      assertEquals (0, aCW.getDeletedFileCount ());
+      assertTrue (Files.isRegularFile (aDir.resolve ("com/example/Class2.java")));
+      assertTrue (Files.isRegularFile (aDir.resolve ("com/example/package-info.java")));
+      assertTrue (Files.isRegularFile (aDir.resolve ("Class3.java")));
+    }
+
+    // Removed classes are still deleted
+    cm.rootPackage ().remove (cm._getClass ("Class3"));
+    aCW = new FileCodeWriter (aDir.toFile (), StandardCharsets.UTF_8).setDeleteStaleFiles (true);
+    new JCMWriter (cm).setManifestFilename (JCMWriterManifest.DEFAULT_FILENAME)
+                      .setPreviousManifest (aWriter.getLastManifest ())
+                      .build (aCW);
+    assertEquals (1, aCW.getWrittenFileCount ());
+    assertEquals (1, aCW.getDeletedFileCount ());
+    assertFalse (Files.exists (aDir.resolve ("Class3.java")));
+    assertTrue (Files.isRegularFile (aDir.resolve ("com/example/Class2.java")));
+  }
+
+  @Test
+  public void testWriterWithoutKeepFileGetsAllFiles () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    cm._class (JMod.PUBLIC, "com.example.Class1");
+    cm._class (JMod.PUBLIC, "com.example.Class2");
+
+    MemoryCodeWriter aCW = new MemoryCodeWriter ();
+    assertFalse (aCW.isKeepFileSupported ());
+    JCMWriter aWriter = new JCMWriter (cm).setManifestFilename (JCMWriterManifest.DEFAULT_FILENAME);
+    aWriter.build (aCW);
+    assertEquals (2, aCW.getSources ().size ());
+
+    // Nothing changed, but a new in-memory writer has no files to keep
+    aCW = new MemoryCodeWriter ();
+    aWriter = new JCMWriter (cm).setPreviousManifest (aWriter.getLastManifest ());
+    aWriter.build (aCW);
+    assertEquals (2, aCW.getSources ().size ());
+  }
+
+  @Test
+  public void testDeletedFileIsWrittenAgain () throws Exception
+  {
+    final Path aDir = m_aTempFolder.newFolder ().toPath ();
+    final JCodeModel cm = new JCodeModel ();
+    cm._class (JMod.PUBLIC, "com.example.Class1");
+    cm._class (JMod.PUBLIC, "com.example.Class2");
+
+    FileCodeWriter aCW = new FileCodeWriter (aDir.toFile (), StandardCharsets.UTF_8);
+    JCMWriter aWriter = new JCMWriter (cm).setManifestFilename (JCMWriterManifest.DEFAULT_FILENAME);
+    aWriter.build (aCW);
+    assertEquals (3, aCW.getWrittenFileCount ());
+
+    // The unchanged but deleted file is written again
+    Files.delete (aDir.resolve ("com/example/Class2.java"));
+    aCW = new FileCodeWriter (aDir.toFile (), StandardCharsets.UTF_8);
+    new JCMWriter (cm).setManifestFilename (JCMWriterManifest.DEFAULT_FILENAME)
+                      .setPreviousManifest (aWriter.getLastManifest ())
+                      .build (aCW);
+    assertEquals (2, aCW.getWrittenFileCount ());
+    assertTrue (Files.isRegularFile (aDir.resolve ("com/example/Class2.java")));
+  }
+
+  @Test
+  public void testEncodingChangesAllFiles () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    cm._class (JMod.PUBLIC, "com.example.Class1");
+    final JCMWriter aWriter = new JCMWriter (cm).setManifestFilename (JCMWriterManifest.DEFAULT_FILENAME);
+    aWriter.build (new StringCodeWriter (StandardCharsets.UTF_8, "\n"));
+    final JCMWriterManifest aManifest1 = aWriter.getLastManifest ();
+    aWriter.build (new StringCodeWriter (StandardCharsets.ISO_8859_1, "\n"));
+    assertNotEquals (aManifest1.getHash ("com/example/Class1.java"),
+                     aWriter.getLastManifest ().getHash ("com/example/Class1.java"));
+  }
+}
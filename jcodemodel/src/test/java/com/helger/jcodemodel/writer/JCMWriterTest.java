@@ -0,0 +1,230 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
+import com.helger.jcodemodel.AbstractJClass;
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JExpr;
+import com.helger.jcodemodel.JMethod;
+import com.helger.jcodemodel.JMod;
+import com.helger.jcodemodel.JVar;
+import com.helger.jcodemodel.exceptions.JCodeModelException;
+
+/**
+ * Test class for class {@link JCMWriter}.
+ */
+public final class JCMWriterTest
+{
+  private static JCodeModel _createModel () throws JCodeModelException
+  {
+    final JCodeModel cm = new JCodeModel ();
+    for (int nPkg = 0; nPkg < 5; ++nPkg)
+    {
+      cm._package ("com.example.pkg" + nPkg).javadoc ().add ("Package " + nPkg);
+      JDefinedClass aPrev = null;
+      for (int nClass = 0; nClass < 20; ++nClass)
+      {
+        final JDefinedClass jClass = cm._class (JMod.PUBLIC, "com.example.pkg" + nPkg + ".Class" + nClass);
+        jClass.javadoc ().add ("Class " + nClass + " with an ä umlaut");
+        final AbstractJClass aListType = cm.ref (List.class).narrow (aPrev != null ? aPrev : cm.ref (String.class));
+        jClass.field (JMod.PRIVATE, aListType, "m_aList");
+        final JMethod m = jClass.method (JMod.PUBLIC, cm.ref (Map.class).narrow (String.class, Integer.class), "get");
+        final JVar aParam = m.param (cm.ref (String.class), "sKey");
+        m.body ()._return (cm.ref (Map.class).staticInvoke ("of").arg (aParam).arg (JExpr.lit (nClass)));
+        aPrev = jClass;
+      }
+    }
+    return cm;
+  }
+
+  private static byte [] _build (final JCMWriter aWriter) throws IOException
+  {
+    try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ())
+    {
+      aWriter.build (new OutputStreamCodeWriter (aBAOS, StandardCharsets.UTF_8, "\n"));
+      return aBAOS.toByteArray ();
+    }
+  }
+
+  @Test
+  public void testParallelBuildIsIdentical () throws Exception
+  {
+    final JCodeModel cm = _createModel ();
+    final byte [] aSerial = _build (new JCMWriter (cm));
+    for (final int nParallelism : new int [] { 2, 3, 8 })
+    {
+      final JCMWriter aWriter = new JCMWriter (cm).setParallelism (nParallelism);
+      assertEquals (nParallelism, aWriter.getParallelism ());
+      assertArrayEquals (aSerial, _build (aWriter));
+    }
+  }
+
+  @Test
+  public void testErrorTypes () throws Exception
+  {
+    final JCodeModel cm = _createModel ();
+    for (final int nParallelism : new int [] { 1, 3 })
+    {
+      final JCMWriter aWriter = new JCMWriter (cm).setParallelism (nParallelism);
+      _build (aWriter);
+      assertFalse (aWriter.hasWrittenErrorTypes ());
+      assertTrue (aWriter.getAllClassesWithErrorTypes ().isEmpty ());
+    }
+
+    final JDefinedClass aClass = cm._class (JMod.PUBLIC, "com.example.error.WithError");
+    aClass.field (JMod.PRIVATE, cm.errorClass ("not resolved"), "m_aError");
+    for (final int nParallelism : new int [] { 1, 3 })
+    {
+      final JCMWriter aWriter = new JCMWriter (cm).setParallelism (nParallelism);
+      _build (aWriter);
+      assertTrue (aWriter.hasWrittenErrorTypes ());
+      assertEquals (List.of (aClass), aWriter.getAllClassesWithErrorTypes ());
+      assertEquals (Boolean.valueOf (cm.buildsErrorTypeRefs ()), Boolean.valueOf (aWriter.hasWrittenErrorTypes ()));
+    }
+  }
+
+  @Test
+  public void testBuildWithExecutor () throws Exception
+  {
+    final JCodeModel cm = _createModel ();
+    final byte [] aSerial = _build (new JCMWriter (cm));
+
+    final ExecutorService aExecutor = Executors.newFixedThreadPool (4);
+    try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ())
+    {
+      final OutputStreamCodeWriter aCW = new OutputStreamCodeWriter (aBAOS, StandardCharsets.UTF_8, "\n");
+      new JCMWriter (cm).build (aCW, aCW, aExecutor);
+      assertArrayEquals (aSerial, aBAOS.toByteArray ());
+    }
+    finally
+    {
+      aExecutor.shutdown ();
+    }
+  }
+
+  @Test
+  public void testWriterThreads () throws Exception
+  {
+    final JCodeModel cm = _createModel ();
+    final byte [] aSerial = _build (new JCMWriter (cm));
+
+    // Not concurrent - single writer thread in the original order
+    for (final int nParallelism : new int [] { 1, 4 })
+    {
+      final JCMWriter aWriter = new JCMWriter (cm).setParallelism (nParallelism).setWriterThreads (4);
+      assertEquals (4, aWriter.getWriterThreads ());
+      assertArrayEquals (aSerial, _build (aWriter));
+    }
+
+    // Concurrent writer
+    final Path aSerialDir = Files.createTempDirectory ("jcm-serial");
+    final Path aPipelinedDir = Files.createTempDirectory ("jcm-pipelined");
+    try
+    {
+      new JCMWriter (cm).build (new PathCodeWriter (aSerialDir, StandardCharsets.UTF_8, "\n"));
+      final PathCodeWriter aCW = new PathCodeWriter (aPipelinedDir, StandardCharsets.UTF_8, "\n");
+      new JCMWriter (cm).setParallelism (4).setWriterThreads (8).build (aCW);
+      assertEquals (105, aCW.getWrittenFileCount ());
+
+      try (final Stream <Path> aFiles = Files.walk (aSerialDir))
+      {
+        for (final Path aFile : (Iterable <Path>) aFiles.filter (Files::isRegularFile)::iterator)
+          assertArrayEquals (Files.readAllBytes (aFile),
+                             Files.readAllBytes (aPipelinedDir.resolve (aSerialDir.relativize (aFile))));
+      }
+    }
+    finally
+    {
+      for (final Path aDir : new Path [] { aSerialDir, aPipelinedDir })
+        try (final Stream <Path> aStream = Files.walk (aDir))
+        {
+          aStream.sorted (Comparator.reverseOrder ()).map (Path::toFile).forEach (File::delete);
+        }
+    }
+  }
+
+  @Test
+  public void testPackageImportContext () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    cm.addDontImportClass (URI.class);
+    // Shadows java.lang.String in the package
+    cm._class (JMod.PUBLIC, "com.example.String");
+    final JDefinedClass jClass = cm._class (JMod.PUBLIC, "com.example.User");
+    jClass.field (JMod.PRIVATE, String.class, "m_sName");
+    jClass.field (JMod.PRIVATE, URI.class, "m_aURI");
+    jClass.field (JMod.PRIVATE, Integer.class, "m_aAge");
+    final JDefinedClass jOther = cm._class (JMod.PUBLIC, "com.other.User");
+    jOther.field (JMod.PRIVATE, String.class, "m_sName");
+
+    final byte [] aSerial = _build (new JCMWriter (cm));
+    final String sSerial = new String (aSerial, StandardCharsets.UTF_8);
+    assertTrue (sSerial, sSerial.contains ("private java.lang.String m_sName;"));
+    assertTrue (sSerial, sSerial.contains ("private String m_sName;"));
+    assertTrue (sSerial, sSerial.contains ("private java.net.URI m_aURI;"));
+    assertTrue (sSerial, sSerial.contains ("private Integer m_aAge;"));
+    assertFalse (sSerial, sSerial.contains ("import java.net.URI;"));
+
+    assertArrayEquals (aSerial, _build (new JCMWriter (cm).setParallelism (4)));
+  }
+}
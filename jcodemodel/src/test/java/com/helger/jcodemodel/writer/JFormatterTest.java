@@ -0,0 +1,127 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.helger.base.io.nonblocking.NonBlockingStringWriter;
+import com.helger.jcodemodel.AbstractJClass;
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JExpr;
+import com.helger.jcodemodel.JMethod;
+import com.helger.jcodemodel.JMod;
+import com.helger.jcodemodel.JVar;
+import com.helger.jcodemodel.exceptions.JCodeModelException;
+
+/**
+ * Test class for class {@link JFormatter}.
+ */
+public final class JFormatterTest
+{
+  private static String _write (final JDefinedClass aClass, final boolean bSinglePass)
+  {
+    final NonBlockingStringWriter aSW = new NonBlockingStringWriter ();
+    try (final JFormatter f = new JFormatter (new SourcePrintWriter (aSW, "\n"), "  "))
+    {
+      f.setSinglePass (bSinglePass);
+      f.writeClassFull (aClass);
+    }
+    return aSW.getAsString ();
+  }
+
+  @Test
+  public void testSinglePassIsIdentical () throws JCodeModelException
+  {
+    final JCodeModel cm = new JCodeModel ();
+    // Collides with java.util.List and java.lang.String
+    final JDefinedClass aOtherList = cm._class (JMod.PUBLIC, "com.example.other.List");
+    final JDefinedClass aOwnString = cm._class (JMod.PUBLIC, "com.example.String");
+
+    final JDefinedClass aClass = cm._class (JMod.PUBLIC, "com.example.Main");
+    aClass._implements (Serializable.class);
+    aClass.javadoc ().append ("Uses ").append (cm.ref (Map.class)).append (" and ").append (aOtherList);
+    final JDefinedClass aInner = aClass._class (JMod.PUBLIC | JMod.STATIC, "MainInner");
+    aInner.field (JMod.PRIVATE, cm.ref (List.class).narrow (aOwnString), "m_aList");
+    aClass.field (JMod.PRIVATE, aOtherList, "m_aOtherList");
+    aClass.field (JMod.PRIVATE, cm.ref (Map.Entry.class).narrow (String.class, Integer.class), "m_aEntry");
+
+    final JMethod m = aClass.method (JMod.PUBLIC, aInner, "create");
+    final JVar aParam = m.param (JMod.FINAL, cm.ref (String.class), "List");
+    m.javadoc ().addParam (aParam).append ("the name");
+    m.body ().decl (cm.INT, "n", aParam.invoke ("length"));
+    m.body ()._if (aParam.eq (JExpr._null ()))._then ()._throw (JExpr._new (cm.ref (IllegalArgumentException.class)));
+    final JDefinedClass aAnon = cm.anonymousClass (Runnable.class);
+    aAnon.method (JMod.PUBLIC, cm.VOID, "run").body ().add (cm.ref (System.class).staticRef ("out").invoke ("println"));
+    m.body ().add (JExpr._new (aAnon).invoke ("run"));
+    m.body ()._return (JExpr._new (aInner));
+
+    assertEquals (_write (aClass, false), _write (aClass, true));
+  }
+
+  @Test
+  public void testErrorTypesDetectedWhileWriting () throws JCodeModelException
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aClass = cm._class (JMod.PUBLIC, "com.example.Main");
+    final AbstractJClass aError = cm.errorClass ("not resolved");
+    aClass.field (JMod.PRIVATE, aError, "m_aError");
+
+    for (final boolean bSinglePass : new boolean [] { true, false })
+      try (final JFormatter f = new JFormatter (new SourcePrintWriter (new NonBlockingStringWriter (), "\n"), "  "))
+      {
+        f.setSinglePass (bSinglePass);
+        f.writeClassFull (aClass);
+        assertTrue (f.hasWrittenErrorTypes ());
+
+        f.writeClassFull (cm._class (JMod.PUBLIC, "com.example.Other" + bSinglePass));
+        assertFalse (f.hasWrittenErrorTypes ());
+      }
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Test;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JMod;
+import com.helger.jcodemodel.fmt.JTextFile;
+
+/**
+ * Test class for class {@link JarCodeWriter}.
+ */
+public final class JarCodeWriterTest
+{
+  private static JCodeModel _createModel () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    for (int i = 0; i < 50; i++)
+    {
+      final JDefinedClass c = cm._class (JMod.PUBLIC, "com.example.p" + (i % 5) + ".Class" + i);
+      c.field (JMod.PRIVATE, cm.INT, "m_nValue");
+    }
+    cm.resourceDir ("com/example").addResourceFile (JTextFile.createFully ("res.txt", StandardCharsets.UTF_8, "abc"));
+    return cm;
+  }
+
+  private static Map <String, byte []> _readEntries (final ZipInputStream aZIS) throws IOException
+  {
+    final Map <String, byte []> ret = new LinkedHashMap <> ();
+    ZipEntry aEntry;
+    while ((aEntry = aZIS.getNextEntry ()) != null)
+      ret.put (aEntry.getName (), aZIS.readAllBytes ());
+    return ret;
+  }
+
+  @Test
+  public void testSameContentAsZipCodeWriter () throws Exception
+  {
+    final JCodeModel cm = _createModel ();
+
+    final ByteArrayOutputStream aZipBAOS = new ByteArrayOutputStream ();
+    new JCMWriter (cm).build (new ZipCodeWriter (aZipBAOS));
+    final Map <String, byte []> aExpected;
+    try (final ZipInputStream aZIS = new ZipInputStream (new ByteArrayInputStream (aZipBAOS.toByteArray ())))
+    {
+      aExpected = _readEntries (aZIS);
+    }
+
+    for (final int nParallelism : new int [] { 1, 4 })
+      for (final boolean bStored : new boolean [] { false, true })
+      {
+        final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+        final JarCodeWriter aCW = new JarCodeWriter (aBAOS).setParallelism (nParallelism).setStored (bStored);
+        aCW.getManifest ().getMainAttributes ().put (Attributes.Name.IMPLEMENTATION_TITLE, "test");
+        new JCMWriter (cm).build (aCW);
+
+        try (final JarInputStream aJIS = new JarInputStream (new ByteArrayInputStream (aBAOS.toByteArray ())))
+        {
+          assertNotNull (aJIS.getManifest ());
+          assertEquals ("test", aJIS.getManifest ().getMainAttributes ().get (Attributes.Name.IMPLEMENTATION_TITLE));
+
+          final Map <String, byte []> aActual = _readEntries (aJIS);
+          assertEquals (aExpected.keySet ().toString (), aActual.keySet ().toString ());
+          for (final Map.Entry <String, byte []> aEntry : aExpected.entrySet ())
+            assertArrayEquals (aEntry.getKey (), aEntry.getValue (), aActual.get (aEntry.getKey ()));
+        }
+      }
+  }
+
+  @Test
+  public void testNoManifest () throws Exception
+  {
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    new JCMWriter (_createModel ()).build (new JarCodeWriter (aBAOS).setManifest (null).setCompressionLevel (9));
+
+    try (final JarInputStream aJIS = new JarInputStream (new ByteArrayInputStream (aBAOS.toByteArray ())))
+    {
+      assertNull (aJIS.getManifest ());
+      assertEquals (51, _readEntries (aJIS).size ());
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.helger.jcodemodel.util.UnicodeEscapeWriter;
+
+/**
+ * Test class for class {@link JavaUnicodeEscapeWriter} and {@link UnicodeEscapeWriter}.
+ */
+public final class JavaUnicodeEscapeWriterTest
+{
+  private static final String SOURCE = "a\u0001b\tc\u00e4d\u20ac\uD83D\uDE00e";
+
+  private interface IWriterFactory
+  {
+    Writer create (OutputStreamWriter aOSW);
+  }
+
+  private static String _write (final Charset aCharset, final IWriterFactory aFactory) throws IOException
+  {
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    try (final Writer w = aFactory.create (new OutputStreamWriter (aBAOS, aCharset)))
+    {
+      // Mix all write variants
+      w.write (SOURCE);
+      w.write (SOURCE, 1, 4);
+      w.write (SOURCE.toCharArray (), 3, 5);
+      w.write (0xe4);
+    }
+    return new String (aBAOS.toByteArray (), aCharset);
+  }
+
+  @Test
+  public void testUnicodeEscapeWriter () throws IOException
+  {
+    assertEquals ("a\\u0001b\tc\\u00e4d\\u20ac\\ud83d\\ude00e" + "\\u0001b\tc" + "\tc\\u00e4d\\u20ac" + "\\u00e4",
+                  _write (StandardCharsets.UTF_8, UnicodeEscapeWriter::new));
+  }
+
+  @Test
+  public void testJavaUnicodeEscapeWriter () throws IOException
+  {
+    assertEquals ("a\\u0001b\tc\u00e4d\u20ac\\ud83d\\ude00e" + "\\u0001b\tc" + "\tc\u00e4d\u20ac" + "\u00e4",
+                  _write (StandardCharsets.UTF_8, JavaUnicodeEscapeWriter::new));
+    assertEquals ("a\\u0001b\tc\\u00e4d\\u20ac\\ud83d\\ude00e" + "\\u0001b\tc" + "\tc\\u00e4d\\u20ac" + "\\u00e4",
+                  _write (StandardCharsets.US_ASCII, JavaUnicodeEscapeWriter::new));
+    // Uses the encoder
+    assertEquals ("a\\u0001b\tc\u00e4d\\u20ac\\ud83d\\ude00e" + "\\u0001b\tc" + "\tc\u00e4d\\u20ac" + "\u00e4",
+                  _write (StandardCharsets.ISO_8859_1, JavaUnicodeEscapeWriter::new));
+  }
+}
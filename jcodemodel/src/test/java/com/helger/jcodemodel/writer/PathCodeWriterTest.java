@@ -0,0 +1,116 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2026 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JMod;
+import com.helger.jcodemodel.fmt.JTextFile;
+
+/**
+ * Test class for class {@link PathCodeWriter}.
+ */
+public final class PathCodeWriterTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  @Test
+  public void testWriteAndOverwrite () throws Exception
+  {
+    final Path aDir = m_aTempFolder.newFolder ().toPath ();
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass c1 = cm._class (JMod.PUBLIC, "com.example.Class1");
+    c1.field (JMod.PRIVATE, cm.INT, "m_nValue");
+    cm._class (JMod.PUBLIC, "Class2");
+    cm.resourceDir ("com/example").addResourceFile (JTextFile.createFully ("res.txt", StandardCharsets.UTF_8, "abc"));
+
+    PathCodeWriter aCW = new PathCodeWriter (aDir, StandardCharsets.UTF_8);
+    new JCMWriter (cm).setParallelism (4).build (aCW);
+    assertEquals (3, aCW.getWrittenFileCount ());
+
+    final Path aClass1 = aDir.resolve ("com/example/Class1.java");
+    assertTrue (Files.readString (aClass1).contains ("m_nValue"));
+    assertTrue (Files.exists (aDir.resolve ("Class2.java")));
+    assertEquals ("abc", Files.readString (aDir.resolve ("com/example/res.txt")));
+
+    // Overwrite with shorter content
+    c1.removeField (c1.fields ().get ("m_nValue"));
+    aCW = new PathCodeWriter (aDir, StandardCharsets.UTF_8);
+    new JCMWriter (cm).build (aCW);
+    assertEquals (3, aCW.getWrittenFileCount ());
+    assertFalse (Files.readString (aClass1).contains ("m_nValue"));
+  }
+
+  @Test
+  public void testZipFileSystem () throws Exception
+  {
+    final Path aDir = m_aTempFolder.newFolder ().toPath ();
+    final JCodeModel cm = new JCodeModel ();
+    cm._class (JMod.PUBLIC, "com.example.Class1");
+
+    final Path aZip = aDir.resolve ("sources.zip");
+    try (final FileSystem aFS = FileSystems.newFileSystem (aZip, Map.of ("create", "true")))
+    {
+      new JCMWriter (cm).build (new PathCodeWriter (aFS.getPath ("/"), StandardCharsets.UTF_8));
+    }
+
+    try (final FileSystem aFS = FileSystems.newFileSystem (aZip))
+    {
+      assertTrue (Files.readString (aFS.getPath ("/com/example/Class1.java")).contains ("class Class1"));
+    }
+  }
+}